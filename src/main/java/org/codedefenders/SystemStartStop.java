@@ -30,7 +30,10 @@ import javax.servlet.annotation.WebListener;
 
 import org.codedefenders.configuration.Configuration;
 import org.codedefenders.configuration.ConfigurationValidationException;
+import org.codedefenders.database.MutantMetadataBackfill;
+import org.codedefenders.execution.ExecutionScheduler;
 import org.codedefenders.execution.ThreadPoolManager;
+import org.codedefenders.servlets.games.SubmissionPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +49,8 @@ public class SystemStartStop implements ServletContextListener {
     @Inject
     private Configuration config;
 
+    private Thread mutantMetadataBackfill;
+
     /**
      * This method is called when the servlet context is initialized(when
      * the Web application is deployed). You can initialize servlet context
@@ -59,8 +64,25 @@ public class SystemStartStop implements ServletContextListener {
             logger.error(e.getMessage());
             throw new RuntimeException("Invalid configuration! Reason: " + e.getMessage(), e);
         }
-        mgr.register("test-executor").withMax(4).withCore(2).add();
+        // Submissions, equivalence duel validations and killmaps all share this pool, see ExecutionScheduler
+        int executionThreads = config.isParallelize() ? config.getNumberOfExecutionThreads() : 1;
+        mgr.register(ExecutionScheduler.THREAD_POOL_NAME)
+                .withCore(executionThreads)
+                .withMax(executionThreads)
+                .add();
+
+        mgr.register(SubmissionPipeline.COMPILATION_THREAD_POOL_NAME)
+                .withCore(config.getCompilationThreads())
+                .withMax(config.getCompilationThreads())
+                .add();
+        mgr.register(SubmissionPipeline.MUTATION_ANALYSIS_THREAD_POOL_NAME)
+                .withCore(config.getMutationAnalysisThreads())
+                .withMax(config.getMutationAnalysisThreads())
+                .add();
 
+        mutantMetadataBackfill = new Thread(new MutantMetadataBackfill(), "mutant-metadata-backfill");
+        mutantMetadataBackfill.setDaemon(true);
+        mutantMetadataBackfill.start();
     }
 
     /**
@@ -69,6 +91,9 @@ public class SystemStartStop implements ServletContextListener {
      */
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
+        if (mutantMetadataBackfill != null) {
+            mutantMetadataBackfill.interrupt();
+        }
 
         // https://stackoverflow.com/questions/11872316/tomcat-guice-jdbc-memory-leak
         AbandonedConnectionCleanupThread.checkedShutdown();
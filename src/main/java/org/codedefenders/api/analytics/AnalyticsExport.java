@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.api.analytics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Renders analytics data into {@link AnalyticsSnapshot snapshots} and keeps the latest snapshot for a while, so
+ * repeated requests do not run the expensive analytics queries again.
+ *
+ * <p>The rows are written to JSON and CSV files while they are streamed from the database, so neither the query
+ * result nor the rendered data is held in memory as a whole. Each column is written explicitly by the subclass, which
+ * keeps the output in the same format Gson and the previous reflective CSV export produced.
+ *
+ * <p>A snapshot is refreshed by the first request after it has become older than the maximum age. Concurrent
+ * requests wait for that refresh instead of running the query themselves. The files of a replaced snapshot are only
+ * deleted by the refresh after, so requests which are still serving it can finish.
+ *
+ * @param <T> The type of the exported rows.
+ */
+public abstract class AnalyticsExport<T> {
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsExport.class);
+
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final Object refreshLock = new Object();
+    private volatile AnalyticsSnapshot snapshot;
+    private volatile long snapshotCreated;
+    private AnalyticsSnapshot replacedSnapshot;
+
+    /**
+     * Returns the latest snapshot, or creates a new one if there is no snapshot yet or it has expired.
+     *
+     * @return A snapshot which is at most five minutes old.
+     */
+    public AnalyticsSnapshot getSnapshot() {
+        AnalyticsSnapshot current = snapshot;
+        if (current != null && !isExpired()) {
+            return current;
+        }
+        synchronized (refreshLock) {
+            current = snapshot;
+            if (current == null || isExpired()) {
+                AnalyticsSnapshot created = createSnapshot();
+                delete(replacedSnapshot);
+                replacedSnapshot = current;
+                current = created;
+                snapshot = current;
+                snapshotCreated = System.currentTimeMillis();
+            }
+            return current;
+        }
+    }
+
+    private boolean isExpired() {
+        return System.currentTimeMillis() - snapshotCreated > MAX_AGE_MILLIS;
+    }
+
+    private static void delete(AnalyticsSnapshot snapshot) {
+        if (snapshot != null) {
+            try {
+                snapshot.delete();
+            } catch (IOException e) {
+                logger.warn("Could not delete files of analytics snapshot", e);
+            }
+        }
+    }
+
+    AnalyticsSnapshot createSnapshot() {
+        // The snapshot shows the data as of the start of the query
+        long timeStart = System.currentTimeMillis();
+
+        Path jsonData = null;
+        Path csv = null;
+        try {
+            jsonData = Files.createTempFile("analytics-", ".json");
+            csv = Files.createTempFile("analytics-", ".csv");
+            render(jsonData, csv);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(jsonData);
+            deleteQuietly(csv);
+            if (e instanceof IOException) {
+                throw new UncheckedIOException((IOException) e);
+            }
+            throw (RuntimeException) e;
+        }
+
+        long timeEnd = System.currentTimeMillis();
+        return new AnalyticsSnapshot(Instant.ofEpochMilli(timeStart).getEpochSecond(), timeEnd - timeStart,
+                jsonData, csv);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not delete file of analytics snapshot", e);
+            }
+        }
+    }
+
+    private void render(Path jsonData, Path csv) throws IOException {
+        try (JsonWriter jsonWriter = new JsonWriter(Files.newBufferedWriter(jsonData, StandardCharsets.UTF_8));
+             Writer csvWriter = Files.newBufferedWriter(csv, StandardCharsets.UTF_8);
+             CSVPrinter csvPrinter = new CSVPrinter(csvWriter, CSVFormat.DEFAULT.withHeader(getCsvHeader()))) {
+            // Like Gson with the default settings
+            jsonWriter.setHtmlSafe(true);
+            jsonWriter.setSerializeNulls(false);
+            jsonWriter.beginArray();
+            fetch(row -> {
+                try {
+                    writeJson(jsonWriter, row);
+                    printCsv(csvPrinter, row);
+                    csvPrinter.println();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            jsonWriter.endArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Queries the exported rows and passes them to the given consumer one by one.
+     *
+     * @param consumer The consumer of the rows.
+     */
+    protected abstract void fetch(Consumer<T> consumer);
+
+    /**
+     * Returns the CSV column names, in the order {@link #printCsv(CSVPrinter, Object)} prints the values.
+     *
+     * @return The CSV column names.
+     */
+    protected abstract String[] getCsvHeader();
+
+    /**
+     * Writes a row as JSON object.
+     *
+     * @param out The writer to write to.
+     * @param row The row to write.
+     */
+    protected abstract void writeJson(JsonWriter out, T row) throws IOException;
+
+    /**
+     * Prints the values of a row as CSV record, without ending the record.
+     *
+     * @param out The printer to print to.
+     * @param row The row to print.
+     */
+    protected abstract void printCsv(CSVPrinter out, T row) throws IOException;
+}
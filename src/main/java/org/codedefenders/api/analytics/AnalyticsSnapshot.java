@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.api.analytics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An immutable, pre-rendered export of analytics data.
+ *
+ * <p>The data is rendered once into temporary files, as a JSON array and as a CSV file (including the header), so
+ * serving a snapshot only copies the files to the response, and the data is never held in memory as a whole.
+ *
+ * @see AnalyticsExport
+ */
+public final class AnalyticsSnapshot {
+    private final long timestamp;
+    private final long processingTime;
+    private final Path jsonData;
+    private final Path csv;
+
+    AnalyticsSnapshot(long timestamp, long processingTime, Path jsonData, Path csv) {
+        this.timestamp = timestamp;
+        this.processingTime = processingTime;
+        this.jsonData = jsonData;
+        this.csv = csv;
+    }
+
+    /**
+     * Returns the time the data was queried at.
+     *
+     * @return The time the data was queried at, in epoch seconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns how long it took to query and render the data.
+     *
+     * @return The processing time in milliseconds.
+     */
+    public long getProcessingTime() {
+        return processingTime;
+    }
+
+    /**
+     * Writes the data as UTF-8 encoded JSON in the following format:
+     * <pre>
+     * {
+     *     timestamp: ...,
+     *     processingTime: ...,
+     *     data: [
+     *          ...
+     *     ]
+     * }
+     * </pre>
+     *
+     * @param out The stream to write to.
+     */
+    public void writeJson(OutputStream out) throws IOException {
+        String header = "{\"timestamp\":" + timestamp + ",\"processingTime\":" + processingTime + ",\"data\":";
+        out.write(header.getBytes(StandardCharsets.UTF_8));
+        Files.copy(jsonData, out);
+        out.write('}');
+    }
+
+    /**
+     * Writes the data as UTF-8 encoded CSV with a header.
+     *
+     * @param out The stream to write to.
+     */
+    public void writeCsv(OutputStream out) throws IOException {
+        Files.copy(csv, out);
+    }
+
+    /**
+     * Deletes the files of the snapshot, after which it cannot be served anymore.
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(jsonData);
+        Files.deleteIfExists(csv);
+    }
+}
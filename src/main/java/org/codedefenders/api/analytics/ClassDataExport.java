@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.api.analytics;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.apache.commons.csv.CSVPrinter;
+import org.codedefenders.database.AnalyticsDAO;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Exports the {@link ClassDataDTO class analytics data}.
+ */
+public class ClassDataExport extends AnalyticsExport<ClassDataDTO> {
+    private static final String[] CSV_HEADER = new String[]{
+        "id",
+        "classname",
+        "classalias",
+        "nrGames",
+        "attackerWins",
+        "defenderWins",
+        "nrPlayers",
+        "testsSubmitted",
+        "mutantsSubmitted",
+        "mutantsAlive",
+        "mutantsEquivalent",
+        "ratingsCutMutationDifficultyCount",
+        "ratingsCutMutationDifficultySum",
+        "ratingsCutTestDifficultyCount",
+        "ratingsCutTestDifficultySum",
+        "gameEngagingCount",
+        "gameEngagingSum"
+    };
+
+    @Override
+    protected void fetch(Consumer<ClassDataDTO> consumer) {
+        AnalyticsDAO.forEachAnalyticsClassData(consumer);
+    }
+
+    @Override
+    protected String[] getCsvHeader() {
+        return CSV_HEADER;
+    }
+
+    @Override
+    protected void writeJson(JsonWriter out, ClassDataDTO clazz) throws IOException {
+        out.beginObject();
+        out.name("id").value(clazz.getId());
+        out.name("classname").value(clazz.getClassname());
+        out.name("classalias").value(clazz.getClassalias());
+        out.name("nrGames").value(clazz.getNrGames());
+        out.name("attackerWins").value(clazz.getAttackerWins());
+        out.name("defenderWins").value(clazz.getDefenderWins());
+        out.name("nrPlayers").value(clazz.getNrPlayers());
+        out.name("testsSubmitted").value(clazz.getTestsSubmitted());
+        out.name("mutantsSubmitted").value(clazz.getMutantsSubmitted());
+        out.name("mutantsAlive").value(clazz.getMutantsAlive());
+        out.name("mutantsEquivalent").value(clazz.getMutantsEquivalent());
+
+        ClassDataDTO.ClassRatings ratings = clazz.getRatings();
+        if (ratings != null) {
+            out.name("ratings").beginObject();
+            writeRating(out, "cutMutationDifficulty", ratings.getCutMutationDifficulty());
+            writeRating(out, "cutTestDifficulty", ratings.getCutTestDifficulty());
+            writeRating(out, "gameEngaging", ratings.getGameEngaging());
+            out.endObject();
+        }
+        out.endObject();
+    }
+
+    private static void writeRating(JsonWriter out, String name, ClassDataDTO.ClassRating rating) throws IOException {
+        if (rating != null) {
+            out.name(name).beginObject();
+            out.name("count").value(rating.getCount());
+            out.name("sum").value(rating.getSum());
+            out.endObject();
+        }
+    }
+
+    @Override
+    protected void printCsv(CSVPrinter out, ClassDataDTO clazz) throws IOException {
+        out.print(clazz.getId());
+        out.print(clazz.getClassname());
+        out.print(clazz.getClassalias());
+        out.print(clazz.getNrGames());
+        out.print(clazz.getAttackerWins());
+        out.print(clazz.getDefenderWins());
+        out.print(clazz.getNrPlayers());
+        out.print(clazz.getTestsSubmitted());
+        out.print(clazz.getMutantsSubmitted());
+        out.print(clazz.getMutantsAlive());
+        out.print(clazz.getMutantsEquivalent());
+
+        ClassDataDTO.ClassRatings ratings = clazz.getRatings();
+        printRating(out, ratings.getCutMutationDifficulty());
+        printRating(out, ratings.getCutTestDifficulty());
+        printRating(out, ratings.getGameEngaging());
+    }
+
+    private static void printRating(CSVPrinter out, ClassDataDTO.ClassRating rating) throws IOException {
+        out.print(rating.getCount());
+        out.print(rating.getSum());
+    }
+}
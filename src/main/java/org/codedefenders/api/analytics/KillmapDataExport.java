@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.api.analytics;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.apache.commons.csv.CSVPrinter;
+import org.codedefenders.database.AnalyticsDAO;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Exports the {@link KillmapDataDTO killmap analytics data}.
+ */
+public class KillmapDataExport extends AnalyticsExport<KillmapDataDTO> {
+    private static final String[] CSV_HEADER = new String[]{
+        "userId",
+        "userName",
+        "classId",
+        "className",
+        "role",
+        "usefulMutants",
+        "usefulTests"
+    };
+
+    @Override
+    protected void fetch(Consumer<KillmapDataDTO> consumer) {
+        AnalyticsDAO.forEachAnalyticsKillMapData(consumer);
+    }
+
+    @Override
+    protected String[] getCsvHeader() {
+        return CSV_HEADER;
+    }
+
+    @Override
+    protected void writeJson(JsonWriter out, KillmapDataDTO killmap) throws IOException {
+        out.beginObject();
+        out.name("userId").value(killmap.getUserId());
+        out.name("classId").value(killmap.getClassId());
+        out.name("userName").value(killmap.getUserName());
+        out.name("className").value(killmap.getClassName());
+        out.name("role").value(killmap.getRole() == null ? null : killmap.getRole().name());
+        out.name("usefulMutants").value(killmap.getUsefulMutants());
+        out.name("usefulTests").value(killmap.getUsefulTests());
+        out.endObject();
+    }
+
+    @Override
+    protected void printCsv(CSVPrinter out, KillmapDataDTO killmap) throws IOException {
+        out.print(killmap.getUserId());
+        out.print(killmap.getUserName());
+        out.print(killmap.getClassId());
+        out.print(killmap.getClassName());
+        out.print(killmap.getRole());
+        out.print(killmap.getUsefulMutants());
+        out.print(killmap.getUsefulTests());
+    }
+}
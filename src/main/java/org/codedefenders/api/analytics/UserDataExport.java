@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.api.analytics;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.apache.commons.csv.CSVPrinter;
+import org.codedefenders.database.AnalyticsDAO;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Exports the {@link UserDataDTO user analytics data}.
+ */
+public class UserDataExport extends AnalyticsExport<UserDataDTO> {
+    private static final String[] CSV_HEADER = new String[]{
+        "id",
+        "username",
+        "gamesPlayed",
+        "attackerGamesPlayed",
+        "defenderGamesPlayed",
+        "attackerScore",
+        "defenderScore",
+        "mutantsSubmitted",
+        "mutantsAlive",
+        "mutantsEquivalent",
+        "testsSubmitted",
+        "mutantsKilled"
+    };
+
+    @Override
+    protected void fetch(Consumer<UserDataDTO> consumer) {
+        AnalyticsDAO.forEachAnalyticsUserData(consumer);
+    }
+
+    @Override
+    protected String[] getCsvHeader() {
+        return CSV_HEADER;
+    }
+
+    @Override
+    protected void writeJson(JsonWriter out, UserDataDTO user) throws IOException {
+        out.beginObject();
+        out.name("id").value(user.getId());
+        out.name("username").value(user.getUsername());
+        out.name("gamesPlayed").value(user.getGamesPlayed());
+        out.name("attackerGamesPlayed").value(user.getAttackerGamesPlayed());
+        out.name("defenderGamesPlayed").value(user.getDefenderGamesPlayed());
+        out.name("attackerScore").value(user.getAttackerScore());
+        out.name("defenderScore").value(user.getDefenderScore());
+        out.name("mutantsSubmitted").value(user.getMutantsSubmitted());
+        out.name("mutantsAlive").value(user.getMutantsAlive());
+        out.name("mutantsEquivalent").value(user.getMutantsEquivalent());
+        out.name("testsSubmitted").value(user.getTestsSubmitted());
+        out.name("mutantsKilled").value(user.getMutantsKilled());
+        out.endObject();
+    }
+
+    @Override
+    protected void printCsv(CSVPrinter out, UserDataDTO user) throws IOException {
+        out.print(user.getId());
+        out.print(user.getUsername());
+        out.print(user.getGamesPlayed());
+        out.print(user.getAttackerGamesPlayed());
+        out.print(user.getDefenderGamesPlayed());
+        out.print(user.getAttackerScore());
+        out.print(user.getDefenderScore());
+        out.print(user.getMutantsSubmitted());
+        out.print(user.getMutantsAlive());
+        out.print(user.getMutantsEquivalent());
+        out.print(user.getTestsSubmitted());
+        out.print(user.getMutantsKilled());
+    }
+}
@@ -188,6 +188,8 @@ public class ShiroConfig {
 //            org.codedefenders.util.Paths.API_ADMIN_PUZZLES_ALL = "/admin/api/puzzles";
 //            org.codedefenders.util.Paths.API_ADMIN_PUZZLE = "/admin/api/puzzles/puzzle";
 //            org.codedefenders.util.Paths.API_ADMIN_PUZZLECHAPTER = "/admin/api/puzzles/chapter";
+//            org.codedefenders.util.Paths.API_ADMIN_DATABASE = "/admin/api/database";
+//            org.codedefenders.util.Paths.API_ADMIN_NOTIFICATIONS = "/admin/api/notifications";
         fcMan.createChain("/admin/**", AUTHENTICATION);
 
         PathMatchingFilterChainResolver resolver = new PathMatchingFilterChainResolver();
@@ -25,7 +25,7 @@ import org.slf4j.LoggerFactory;
  */
 /* This filter should only be required until we change our JSPs to use the JSP tag libraries, since the tags can access
  * the session beans directly, without this extra step of adding them to the request.  */
-@WebFilter(filterName = "BeanFilter")
+@WebFilter(filterName = "BeanFilter", asyncSupported = true)
 public class BeanFilter implements Filter {
     private static final Logger logger = LoggerFactory.getLogger(BeanFilter.class);
 
@@ -47,7 +47,7 @@ public class HistoryBean {
 
     public List<HistoryBeanEventDTO> getEvents() {
         if (events == null) {
-            events = eventDAO.getEventsForGame(gameId).stream()
+            events = eventDAO.getEventLogForGame(gameId).stream()
                     .map(this::createHistoryBeanEvent).filter(Objects::nonNull)
                     .collect(Collectors.toList());
         }
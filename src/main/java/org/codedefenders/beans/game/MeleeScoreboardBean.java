@@ -12,7 +12,6 @@ import java.util.Set;
 import javax.annotation.ManagedBean;
 import javax.enterprise.context.RequestScoped;
 
-import org.codedefenders.database.PlayerDAO;
 import org.codedefenders.game.multiplayer.PlayerScore;
 import org.codedefenders.model.Player;
 import org.codedefenders.model.User;
@@ -54,29 +53,15 @@ public class MeleeScoreboardBean {
         this.duelsScores = new HashMap<Integer, PlayerScore>();
     }
 
+    /**
+     * Sets the scores of the players. The maps are keyed by player id, like the ones of the
+     * {@link org.codedefenders.game.scoring.ScoreCalculator ScoreCalculator}.
+     */
     public void setScores(Map<Integer, PlayerScore> mutantsScores, Map<Integer, PlayerScore> testsScores,
             Map<Integer, PlayerScore> duelsScores) {
-        for (PlayerScore playerScore : mutantsScores.values()) {
-            Player p = PlayerDAO.getPlayer(playerScore.getPlayerId());
-            if (p != null) {
-                this.mutantsScores.put(p.getUser().getId(), playerScore);
-            }
-        }
-
-        for (PlayerScore playerScore : testsScores.values()) {
-            Player p = PlayerDAO.getPlayer(playerScore.getPlayerId());
-            if (p != null) {
-                this.testsScores.put(p.getUser().getId(), playerScore);
-            }
-        }
-
-        for (PlayerScore playerScore : duelsScores.values()) {
-            Player p = PlayerDAO.getPlayer(playerScore.getPlayerId());
-            if (p != null) {
-                this.duelsScores.put(p.getUser().getId(), playerScore);
-            }
-        }
-
+        this.mutantsScores.putAll(mutantsScores);
+        this.testsScores.putAll(testsScores);
+        this.duelsScores.putAll(duelsScores);
     }
 
     public void setPlayers(List<Player> players) {
@@ -119,20 +104,18 @@ public class MeleeScoreboardBean {
         List<ScoreItem> currentScore = new ArrayList<ScoreItem>();
 
         for (Player player : this.players) {
-            // We need user id because User is not Hashable (maybe it does not redefine
-            // proper hash/equals?)
             User user = player.getUser();
             int playerId = player.getId();
-            PlayerScore attackScore = mutantsScores.get(user.getId());
+            PlayerScore attackScore = mutantsScores.get(playerId);
             if (attackScore == null) {
                 attackScore = new PlayerScore(playerId);
             }
-            PlayerScore defenseScore = testsScores.get(user.getId());
+            PlayerScore defenseScore = testsScores.get(playerId);
             if (defenseScore == null) {
                 defenseScore = new PlayerScore(playerId);
             }
 
-            PlayerScore duelScores = duelsScores.get(user.getId());
+            PlayerScore duelScores = duelsScores.get(playerId);
             if (duelScores == null) {
                 duelScores = new PlayerScore(playerId);
             }
@@ -76,6 +76,12 @@ import com.google.common.net.InternetDomainName;
 @Singleton
 public class Configuration {
     private static final Logger logger = LoggerFactory.getLogger(Configuration.class);
+
+    public static final String EXECUTION_BACKEND_ANT = "ant";
+    public static final String EXECUTION_BACKEND_IN_PROCESS = "in-process";
+    public static final String EXECUTION_BACKEND_WORKER_POOL = "worker-pool";
+    public static final String COMPILATION_BACKEND_ANT = "ant";
+    public static final String COMPILATION_BACKEND_IN_MEMORY = "in-memory";
     private boolean $validated;
     private ConfigurationValidationException $configurationValidationException;
 
@@ -97,6 +103,18 @@ public class Configuration {
     protected Boolean parallelize;
     protected Boolean blockAttacker;
     protected Boolean mutantCoverage;
+    protected Integer mutantTestWindow;
+    protected Integer testMutantTimeout;
+    protected Integer testOriginalTimeout;
+    protected Integer compilationTimeout;
+    protected Integer testCpuTimeout;
+    protected String executionBackend;
+    protected Integer workerPoolSize;
+    protected Integer workerMaxExecutions;
+    protected Integer workerTimeout;
+    protected String compilationBackend;
+    protected Integer compilationThreads;
+    protected Integer mutationAnalysisThreads;
 
     /**
      * Validates the currently configured Configuration.
@@ -194,6 +212,53 @@ public class Configuration {
                 validationErrors.add("Unsupported java version! CodeDefenders needs at most Java 9");
             }
 
+            if (executionBackend != null
+                    && !executionBackend.equals(EXECUTION_BACKEND_ANT)
+                    && !executionBackend.equals(EXECUTION_BACKEND_IN_PROCESS)
+                    && !executionBackend.equals(EXECUTION_BACKEND_WORKER_POOL)) {
+                validationErrors.add(resolveAttributeName("executionBackend") + ": " + executionBackend
+                        + " is not a valid execution backend");
+            }
+
+            if (compilationBackend != null
+                    && !compilationBackend.equals(COMPILATION_BACKEND_ANT)
+                    && !compilationBackend.equals(COMPILATION_BACKEND_IN_MEMORY)) {
+                validationErrors.add(resolveAttributeName("compilationBackend") + ": " + compilationBackend
+                        + " is not a valid compilation backend");
+            }
+
+            if (workerPoolSize != null && workerPoolSize < 1) {
+                validationErrors.add(resolveAttributeName("workerPoolSize") + " must be at least 1");
+            }
+
+            if (compilationThreads != null && compilationThreads < 1) {
+                validationErrors.add(resolveAttributeName("compilationThreads") + " must be at least 1");
+            }
+
+            if (mutationAnalysisThreads != null && mutationAnalysisThreads < 1) {
+                validationErrors.add(resolveAttributeName("mutationAnalysisThreads") + " must be at least 1");
+            }
+
+            if (mutantTestWindow != null && mutantTestWindow < 0) {
+                validationErrors.add(resolveAttributeName("mutantTestWindow") + " must not be negative");
+            }
+
+            if (testMutantTimeout != null && testMutantTimeout < 0) {
+                validationErrors.add(resolveAttributeName("testMutantTimeout") + " must not be negative");
+            }
+
+            if (testOriginalTimeout != null && testOriginalTimeout < 0) {
+                validationErrors.add(resolveAttributeName("testOriginalTimeout") + " must not be negative");
+            }
+
+            if (compilationTimeout != null && compilationTimeout < 0) {
+                validationErrors.add(resolveAttributeName("compilationTimeout") + " must not be negative");
+            }
+
+            if (testCpuTimeout != null && testCpuTimeout < 0) {
+                validationErrors.add(resolveAttributeName("testCpuTimeout") + " must not be negative");
+            }
+
             /*
             if (clusterMode) {
                 // TODO: Validate clusterOptions
@@ -364,7 +429,159 @@ public class Configuration {
         return mutantCoverage;
     }
 
-    public int getNumberOfKillmapThreads() {
+    /**
+     * Returns the maximum number of tests which are executed at the same time against a new mutant, or {@code 0} if
+     * all tests are submitted at once.
+     *
+     * <p>With a window, the tests are submitted in the order of the test scheduler, so the remaining tests are
+     * usually not executed at all once one of the first tests kills the mutant.
+     */
+    public int getMutantTestWindow() {
+        if (mutantTestWindow == null) {
+            return 0;
+        } else {
+            return mutantTestWindow;
+        }
+    }
+
+    /**
+     * Returns the wall-clock time in seconds a test execution against a mutant may take before it is killed and
+     * recorded as {@link org.codedefenders.execution.TargetExecution.Status#TIMEOUT}, or {@code 0} for no limit.
+     */
+    public int getTestMutantTimeout() {
+        if (testMutantTimeout == null) {
+            return 60;
+        } else {
+            return testMutantTimeout;
+        }
+    }
+
+    /**
+     * Returns the wall-clock time in seconds a test execution against the original class (including the coverage
+     * measurement) may take before it is killed, or {@code 0} for no limit.
+     */
+    public int getTestOriginalTimeout() {
+        if (testOriginalTimeout == null) {
+            return 120;
+        } else {
+            return testOriginalTimeout;
+        }
+    }
+
+    /**
+     * Returns the wall-clock time in seconds a compilation may take before it is killed, or {@code 0} for no limit.
+     */
+    public int getCompilationTimeout() {
+        if (compilationTimeout == null) {
+            return 120;
+        } else {
+            return compilationTimeout;
+        }
+    }
+
+    /**
+     * Returns the CPU time in seconds a process running tests may use before it is killed, or {@code 0} (default)
+     * for no limit.
+     *
+     * <p>The limit applies to every process of an execution separately, i.e. to the Ant JVM as a whole and not
+     * only to the test, so it has to leave room for the startup of the JVM. It is only enforced for local
+     * executions on Linux.
+     */
+    public int getTestCpuTimeout() {
+        if (testCpuTimeout == null) {
+            return 0;
+        } else {
+            return testCpuTimeout;
+        }
+    }
+
+    /**
+     * Returns the backend tests are executed with, either {@link #EXECUTION_BACKEND_ANT} (default),
+     * {@link #EXECUTION_BACKEND_IN_PROCESS} or {@link #EXECUTION_BACKEND_WORKER_POOL}.
+     */
+    public String getExecutionBackend() {
+        if (executionBackend == null) {
+            return EXECUTION_BACKEND_ANT;
+        } else {
+            return executionBackend;
+        }
+    }
+
+    /**
+     * Returns the number of worker JVMs kept running by the {@link #EXECUTION_BACKEND_WORKER_POOL} backend.
+     */
+    public int getWorkerPoolSize() {
+        if (workerPoolSize == null) {
+            return 4;
+        } else {
+            return workerPoolSize;
+        }
+    }
+
+    /**
+     * Returns the number of test executions after which a worker JVM is replaced by a fresh one,
+     * or {@code 0} if workers are never recycled.
+     */
+    public int getWorkerMaxExecutions() {
+        if (workerMaxExecutions == null) {
+            return 100;
+        } else {
+            return workerMaxExecutions;
+        }
+    }
+
+    /**
+     * Returns the time in seconds a worker JVM gets to run a test before it is killed.
+     */
+    public int getWorkerTimeout() {
+        if (workerTimeout == null) {
+            return 60;
+        } else {
+            return workerTimeout;
+        }
+    }
+
+    /**
+     * Returns the backend mutants and tests are compiled with, either {@link #COMPILATION_BACKEND_ANT} (default)
+     * or {@link #COMPILATION_BACKEND_IN_MEMORY}.
+     */
+    public String getCompilationBackend() {
+        if (compilationBackend == null) {
+            return COMPILATION_BACKEND_ANT;
+        } else {
+            return compilationBackend;
+        }
+    }
+
+    /**
+     * Returns the number of threads which validate and compile submitted mutants and tests, and run the tests against
+     * the original class.
+     */
+    public int getCompilationThreads() {
+        if (compilationThreads == null) {
+            return 4;
+        } else {
+            return compilationThreads;
+        }
+    }
+
+    /**
+     * Returns the number of threads which run submitted mutants and tests against the tests and mutants of their
+     * game, and score them.
+     */
+    public int getMutationAnalysisThreads() {
+        if (mutationAnalysisThreads == null) {
+            return 2;
+        } else {
+            return mutationAnalysisThreads;
+        }
+    }
+
+    /**
+     * Returns the number of threads of the {@link org.codedefenders.execution.ExecutionScheduler}, which runs the
+     * executions of submissions, equivalence duel validations and killmaps.
+     */
+    public int getNumberOfExecutionThreads() {
         return 40;
     }
 
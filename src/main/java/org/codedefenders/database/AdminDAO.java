@@ -94,7 +94,9 @@ public class AdminDAO {
 
     public static boolean deletePlayer(int pid) {
         String query = "DELETE FROM players WHERE ID =?;";
-        return DB.executeUpdateQuery(query, DatabaseValue.of(pid));
+        boolean deleted = DB.executeUpdateQuery(query, DatabaseValue.of(pid));
+        LookupCache.invalidatePlayers();
+        return deleted;
     }
 
     public static boolean deleteTestTargetExecutions(int tid) {
@@ -266,13 +268,17 @@ public class AdminDAO {
                 DatabaseValue.of(password),
                 DatabaseValue.of(uid)
         };
-        return DB.executeUpdateQuery(query, values);
+        boolean updated = DB.executeUpdateQuery(query, values);
+        LookupCache.invalidateUser(uid);
+        return updated;
     }
 
     public static boolean deleteUser(int userId) {
         String query = "DELETE FROM users WHERE User_ID = ?;";
-        return DB.executeUpdateQuery(query, DatabaseValue.of(userId));
+        boolean deleted = DB.executeUpdateQuery(query, DatabaseValue.of(userId));
         // this does not work as foreign keys are not deleted (recommended: update w/ ON DELETE CASCADE)
+        LookupCache.invalidateUser(userId);
+        return deleted;
     }
 
     public static boolean updateSystemSetting(AdminSystemSettings.SettingsDTO setting) {
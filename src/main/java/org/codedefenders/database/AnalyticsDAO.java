@@ -18,7 +18,9 @@
  */
 package org.codedefenders.database;
 
-import java.util.List;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
 
 import org.codedefenders.api.analytics.ClassDataDTO;
 import org.codedefenders.api.analytics.KillmapDataDTO;
@@ -301,74 +303,101 @@ public class AnalyticsDAO {
 
             "ORDER BY Class_ID, User_ID;");
 
-    public static List<UserDataDTO> getAnalyticsUserData() throws UncheckedSQLException, SQLMappingException {
-        return DB.executeQueryReturnList(ANALYTICS_USER_DATA_QUERY, rs -> {
-            UserDataDTO u = new UserDataDTO();
-            u.setId(rs.getLong("ID"));
-            u.setUsername(rs.getString("Username"));
-            u.setAttackerScore(rs.getInt("AttackerScore"));
-            u.setDefenderScore(rs.getInt("DefenderScore"));
-            u.setGamesPlayed(rs.getInt("GamesPlayed"));
-            u.setAttackerGamesPlayed(rs.getInt("AttackerGamesPlayed"));
-            u.setDefenderGamesPlayed(rs.getInt("DefenderGamesPlayed"));
-            u.setMutantsSubmitted(rs.getInt("MutantsSubmitted"));
-            u.setMutantsAlive(rs.getInt("MutantsAlive"));
-            u.setMutantsEquivalent(rs.getInt("MutantsEquivalent"));
-            u.setTestsSubmitted(rs.getInt("TestsSubmitted"));
-            u.setMutantsKilled(rs.getInt("MutantsKilled"));
-            return u;
-        });
+    /**
+     * Streams the user analytics data row by row from the database to the given consumer.
+     *
+     * @param consumer Receives the data of each user.
+     */
+    public static void forEachAnalyticsUserData(Consumer<? super UserDataDTO> consumer)
+            throws UncheckedSQLException, SQLMappingException {
+        DB.executeQueryForEach(ANALYTICS_USER_DATA_QUERY, DB.STREAMING_FETCH_SIZE, AnalyticsDAO::userDataFromRS,
+                consumer);
     }
 
-    public static List<ClassDataDTO> getAnalyticsClassData() throws UncheckedSQLException, SQLMappingException {
-        return DB.executeQueryReturnList(ANALYTICS_CLASS_DATA_QUERY, rs -> {
-            ClassDataDTO c = new ClassDataDTO();
-            c.setId(rs.getLong("ID"));
-            c.setClassname(rs.getString("Classname"));
-            c.setClassalias(rs.getString("Classalias"));
-            c.setNrGames(rs.getInt("NrGames"));
-            c.setAttackerWins(rs.getInt("AttackerWins"));
-            c.setDefenderWins(rs.getInt("DefenderWins"));
-            c.setNrPlayers(rs.getInt("NrPlayers"));
-            c.setTestsSubmitted(rs.getInt("TestsSubmitted"));
-            c.setMutantsSubmitted(rs.getInt("MutantsSubmitted"));
-            c.setMutantsAlive(rs.getInt("MutantsAlive"));
-            c.setMutantsEquivalent(rs.getInt("MutantsEquivalent"));
-
-            ClassDataDTO.ClassRatings ratings = new ClassDataDTO.ClassRatings();
-            ClassDataDTO.ClassRating rating;
-
-            rating = new ClassDataDTO.ClassRating();
-            rating.setCount(rs.getInt("ratings_CutMutationDifficulty_count"));
-            rating.setSum(rs.getInt("ratings_CutMutationDifficulty_sum"));
-            ratings.setCutMutationDifficulty(rating);
-
-            rating = new ClassDataDTO.ClassRating();
-            rating.setCount(rs.getInt("ratings_CutTestDifficulty_count"));
-            rating.setSum(rs.getInt("ratings_CutTestDifficulty_sum"));
-            ratings.setCutTestDifficulty(rating);
-
-            rating = new ClassDataDTO.ClassRating();
-            rating.setCount(rs.getInt("ratings_GameEngaging_count"));
-            rating.setSum(rs.getInt("ratings_GameEngaging_sum"));
-            ratings.setGameEngaging(rating);
-
-            c.setRatings(ratings);
-            return c;
-        });
+    /**
+     * Streams the class analytics data row by row from the database to the given consumer.
+     *
+     * @param consumer Receives the data of each class.
+     */
+    public static void forEachAnalyticsClassData(Consumer<? super ClassDataDTO> consumer)
+            throws UncheckedSQLException, SQLMappingException {
+        DB.executeQueryForEach(ANALYTICS_CLASS_DATA_QUERY, DB.STREAMING_FETCH_SIZE, AnalyticsDAO::classDataFromRS,
+                consumer);
     }
 
-    public static List<KillmapDataDTO> getAnalyticsKillMapData() throws UncheckedSQLException, SQLMappingException {
-        return DB.executeQueryReturnList(ANALYTICS_KILLMAP_USEFUL_ACTIONS_QUERY, rs -> {
-            KillmapDataDTO k = new KillmapDataDTO();
-            k.setClassId(rs.getInt("Class_ID"));
-            k.setClassName(rs.getString("Class_Name"));
-            k.setUserId(rs.getInt("User_ID"));
-            k.setUserName(rs.getString("User_Name"));
-            k.setRole(Role.valueOf(rs.getString("Role")));
-            k.setUsefulMutants(rs.getInt("Useful_Mutants"));
-            k.setUsefulTests(rs.getInt("Useful_Tests"));
-            return k;
-        });
+    /**
+     * Streams the killmap analytics data row by row from the database to the given consumer.
+     *
+     * @param consumer Receives the data of each (class, user, role) combination.
+     */
+    public static void forEachAnalyticsKillMapData(Consumer<? super KillmapDataDTO> consumer)
+            throws UncheckedSQLException, SQLMappingException {
+        DB.executeQueryForEach(ANALYTICS_KILLMAP_USEFUL_ACTIONS_QUERY, DB.STREAMING_FETCH_SIZE,
+                AnalyticsDAO::killmapDataFromRS, consumer);
+    }
+
+    private static UserDataDTO userDataFromRS(ResultSet rs) throws SQLException {
+        UserDataDTO u = new UserDataDTO();
+        u.setId(rs.getLong("ID"));
+        u.setUsername(rs.getString("Username"));
+        u.setAttackerScore(rs.getInt("AttackerScore"));
+        u.setDefenderScore(rs.getInt("DefenderScore"));
+        u.setGamesPlayed(rs.getInt("GamesPlayed"));
+        u.setAttackerGamesPlayed(rs.getInt("AttackerGamesPlayed"));
+        u.setDefenderGamesPlayed(rs.getInt("DefenderGamesPlayed"));
+        u.setMutantsSubmitted(rs.getInt("MutantsSubmitted"));
+        u.setMutantsAlive(rs.getInt("MutantsAlive"));
+        u.setMutantsEquivalent(rs.getInt("MutantsEquivalent"));
+        u.setTestsSubmitted(rs.getInt("TestsSubmitted"));
+        u.setMutantsKilled(rs.getInt("MutantsKilled"));
+        return u;
+    }
+
+    private static ClassDataDTO classDataFromRS(ResultSet rs) throws SQLException {
+        ClassDataDTO c = new ClassDataDTO();
+        c.setId(rs.getLong("ID"));
+        c.setClassname(rs.getString("Classname"));
+        c.setClassalias(rs.getString("Classalias"));
+        c.setNrGames(rs.getInt("NrGames"));
+        c.setAttackerWins(rs.getInt("AttackerWins"));
+        c.setDefenderWins(rs.getInt("DefenderWins"));
+        c.setNrPlayers(rs.getInt("NrPlayers"));
+        c.setTestsSubmitted(rs.getInt("TestsSubmitted"));
+        c.setMutantsSubmitted(rs.getInt("MutantsSubmitted"));
+        c.setMutantsAlive(rs.getInt("MutantsAlive"));
+        c.setMutantsEquivalent(rs.getInt("MutantsEquivalent"));
+
+        ClassDataDTO.ClassRatings ratings = new ClassDataDTO.ClassRatings();
+        ClassDataDTO.ClassRating rating;
+
+        rating = new ClassDataDTO.ClassRating();
+        rating.setCount(rs.getInt("ratings_CutMutationDifficulty_count"));
+        rating.setSum(rs.getInt("ratings_CutMutationDifficulty_sum"));
+        ratings.setCutMutationDifficulty(rating);
+
+        rating = new ClassDataDTO.ClassRating();
+        rating.setCount(rs.getInt("ratings_CutTestDifficulty_count"));
+        rating.setSum(rs.getInt("ratings_CutTestDifficulty_sum"));
+        ratings.setCutTestDifficulty(rating);
+
+        rating = new ClassDataDTO.ClassRating();
+        rating.setCount(rs.getInt("ratings_GameEngaging_count"));
+        rating.setSum(rs.getInt("ratings_GameEngaging_sum"));
+        ratings.setGameEngaging(rating);
+
+        c.setRatings(ratings);
+        return c;
+    }
+
+    private static KillmapDataDTO killmapDataFromRS(ResultSet rs) throws SQLException {
+        KillmapDataDTO k = new KillmapDataDTO();
+        k.setClassId(rs.getInt("Class_ID"));
+        k.setClassName(rs.getString("Class_Name"));
+        k.setUserId(rs.getInt("User_ID"));
+        k.setUserName(rs.getString("User_Name"));
+        k.setRole(Role.valueOf(rs.getString("Role")));
+        k.setUsefulMutants(rs.getInt("Useful_Mutants"));
+        k.setUsefulTests(rs.getInt("Useful_Tests"));
+        return k;
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers elements which should be written to the database and writes them in batches.
+ *
+ * <p>The buffered elements are written once {@code batchSize} elements are buffered, or when an element is added
+ * and the oldest buffered element is older than {@code maxDelayMillis}. All remaining elements are written by
+ * {@link BatchWriter#flush()} and {@link BatchWriter#close()}, so the writer should always be closed once the
+ * producing work is finished or aborted. Elements added after closing the writer are written immediately.
+ *
+ * <p>Elements can be added concurrently from multiple threads. The batches are written outside of the lock, so
+ * other threads are not blocked while a batch is being written.
+ *
+ * <p>A batch which cannot be written is logged and passed to the failure action, so callers can drop results
+ * which were never persisted.
+ *
+ * @param <T> The type of the buffered elements.
+ */
+public class BatchWriter<T> implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(BatchWriter.class);
+
+    private final String description;
+    private final int batchSize;
+    private final long maxDelayMillis;
+    private final Consumer<List<T>> writeAction;
+    private final Consumer<List<T>> failureAction;
+
+    private List<T> buffer;
+    private long oldestElementMillis;
+    private boolean closed = false;
+
+    /**
+     * Creates a new batch writer.
+     *
+     * @param description    A description of the written elements, used for logging.
+     * @param batchSize      The number of elements after which the buffer is written.
+     * @param maxDelayMillis The maximum time in milliseconds an element should stay in the buffer.
+     * @param writeAction    Writes a batch of elements to the database.
+     */
+    public BatchWriter(String description, int batchSize, long maxDelayMillis, Consumer<List<T>> writeAction) {
+        this(description, batchSize, maxDelayMillis, writeAction, batch -> { });
+    }
+
+    /**
+     * Creates a new batch writer.
+     *
+     * @param description    A description of the written elements, used for logging.
+     * @param batchSize      The number of elements after which the buffer is written.
+     * @param maxDelayMillis The maximum time in milliseconds an element should stay in the buffer.
+     * @param writeAction    Writes a batch of elements to the database.
+     * @param failureAction  Is called with every batch which could not be written.
+     */
+    public BatchWriter(String description, int batchSize, long maxDelayMillis, Consumer<List<T>> writeAction,
+                       Consumer<List<T>> failureAction) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.description = description;
+        this.batchSize = batchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.writeAction = writeAction;
+        this.failureAction = failureAction;
+        this.buffer = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Adds an element to the buffer, and writes the buffer if the size or time threshold is reached.
+     */
+    public void add(T element) {
+        List<T> batch = null;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (buffer.isEmpty()) {
+                oldestElementMillis = now;
+            }
+            buffer.add(element);
+            if (closed || buffer.size() >= batchSize || now - oldestElementMillis >= maxDelayMillis) {
+                batch = takeBuffer();
+            }
+        }
+        if (batch != null) {
+            write(batch);
+        }
+    }
+
+    /**
+     * Writes all buffered elements.
+     */
+    public void flush() {
+        List<T> batch;
+        synchronized (this) {
+            batch = takeBuffer();
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    /**
+     * Writes all buffered elements. Elements added afterwards are written immediately.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+
+    private List<T> takeBuffer() {
+        List<T> batch = buffer;
+        buffer = new ArrayList<>(batchSize);
+        return batch;
+    }
+
+    private void write(List<T> batch) {
+        try {
+            writeAction.accept(batch);
+            logger.debug("Wrote batch of {} {}", batch.size(), description);
+        } catch (RuntimeException e) {
+            logger.error("Failed to write batch of " + batch.size() + " " + description + " to the database", e);
+            failureAction.accept(batch);
+        }
+    }
+}
@@ -25,6 +25,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -52,6 +55,10 @@ public class ConnectionFactory {
     @Inject
     Configuration config;
 
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+
     @PostConstruct
     void init() {
         if (config.isValid()) {
@@ -66,6 +73,8 @@ public class ConnectionFactory {
             dataSource.setPassword(config.getDbPassword());
             dataSource.setMaxTotal(config.getMaximumTotalDatabaseConnections());
             dataSource.setMaxWaitMillis(config.getDatabaseConnectionTimeout());
+            // Lets the driver send batch inserts as multi-row statements instead of one statement per row
+            dataSource.addConnectionProperty("rewriteBatchedStatements", "true");
 
             migrate();
         }
@@ -83,7 +92,30 @@ public class ConnectionFactory {
     }
 
     public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        long wait = System.nanoTime() - start;
+
+        borrowCount.increment();
+        borrowWaitNanos.add(wait);
+        maxBorrowWaitNanos.accumulateAndGet(wait, Math::max);
+        return connection;
+    }
+
+    /**
+     * Returns the current usage of the connection pool and how long borrowing connections took so far.
+     */
+    public ConnectionPoolMetrics getMetrics() {
+        long borrowed = borrowCount.sum();
+        double averageWaitNanos = borrowed == 0 ? 0 : (double) borrowWaitNanos.sum() / borrowed;
+        double nanosPerMilli = TimeUnit.MILLISECONDS.toNanos(1);
+        return new ConnectionPoolMetrics(
+                dataSource == null ? 0 : dataSource.getNumActive(),
+                dataSource == null ? 0 : dataSource.getNumIdle(),
+                dataSource == null ? 0 : dataSource.getMaxTotal(),
+                borrowed,
+                averageWaitNanos / nanosPerMilli,
+                maxBorrowWaitNanos.get() / nanosPerMilli);
     }
 
     private void migrate() {
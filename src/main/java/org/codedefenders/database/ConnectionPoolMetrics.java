@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+/**
+ * A snapshot of the usage of the database connection pool.
+ *
+ * @see ConnectionFactory#getMetrics()
+ */
+public class ConnectionPoolMetrics {
+    private final int active;
+    private final int idle;
+    private final int maxTotal;
+    private final long borrowCount;
+    private final double averageWaitMillis;
+    private final double maxWaitMillis;
+
+    public ConnectionPoolMetrics(int active, int idle, int maxTotal, long borrowCount, double averageWaitMillis,
+                                 double maxWaitMillis) {
+        this.active = active;
+        this.idle = idle;
+        this.maxTotal = maxTotal;
+        this.borrowCount = borrowCount;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Returns the number of connections which are currently borrowed from the pool.
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Returns the number of connections which are currently idle in the pool.
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * Returns the number of connections borrowed from the pool since it was started.
+     */
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    /**
+     * Returns the average time it took to borrow a connection from the pool.
+     */
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    /**
+     * Returns the longest time it took to borrow a connection from the pool.
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[active=%d,idle=%d,maxTotal=%d,borrowCount=%d,averageWaitMillis=%.3f,maxWaitMillis=%.3f]",
+                active, idle, maxTotal, borrowCount, averageWaitMillis, maxWaitMillis);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares one database connection between all database accesses of the current thread, e.g. all DAO calls while
+ * rendering a page, instead of borrowing a connection from the pool for every single query.
+ *
+ * <p>The connection is only borrowed when it is first needed and returned to the pool when the outermost scope is
+ * closed. Scopes can be nested, nested scopes reuse the connection of the outer scope:
+ * <pre>{@code
+ * try (ConnectionScope scope = ConnectionScope.open()) {
+ *     GameDAO.getGame(gameId);
+ *     MutantDAO.getValidMutantsForGame(gameId);
+ * }
+ * }</pre>
+ *
+ * <p>While a scope is open, {@link DB#getConnection()} hands out the shared connection. Closing it does not return
+ * it to the pool, but behaves like a returned connection otherwise: an uncommitted transaction is rolled back and
+ * auto-commit is enabled again. The exception is a transaction of a {@link UnitOfWork}, which stays open until the
+ * unit of work ends.
+ *
+ * <p>A scope must be closed by the thread which opened it.
+ */
+public final class ConnectionScope implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionScope.class);
+
+    private static final ThreadLocal<ConnectionScope> current = new ThreadLocal<>();
+
+    private Connection connection;
+    private Connection sharedConnection;
+    private int depth;
+    private boolean inTransaction;
+
+    private ConnectionScope() {
+    }
+
+    /**
+     * Opens a connection scope for the current thread, or joins the scope which is already open.
+     *
+     * @return The scope, which has to be closed once the database accesses are done.
+     */
+    public static ConnectionScope open() {
+        ConnectionScope scope = current.get();
+        if (scope == null) {
+            scope = new ConnectionScope();
+            current.set(scope);
+        }
+        scope.depth++;
+        return scope;
+    }
+
+    /**
+     * Returns whether a scope is open for the current thread.
+     */
+    public static boolean isOpen() {
+        return current.get() != null;
+    }
+
+    /**
+     * Returns the shared connection of the scope of the current thread, borrowing it from the pool if necessary.
+     *
+     * @return The shared connection, or {@code null} if no scope is open for the current thread.
+     */
+    static Connection getConnection() throws SQLException {
+        ConnectionScope scope = current.get();
+        if (scope == null) {
+            return null;
+        }
+        return scope.getSharedConnection();
+    }
+
+    private Connection getSharedConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            if (inTransaction) {
+                throw new SQLException("The connection of the transaction was closed");
+            }
+            connection = DatabaseConnection.getConnection();
+            sharedConnection = share(connection);
+        }
+        return sharedConnection;
+    }
+
+    /**
+     * Starts a transaction on the shared connection, which is kept open until {@link #endTransaction()}.
+     */
+    void beginTransaction() throws SQLException {
+        getSharedConnection().setAutoCommit(false);
+        inTransaction = true;
+    }
+
+    /**
+     * Returns the connection of the current transaction.
+     */
+    Connection getTransactionConnection() {
+        return connection;
+    }
+
+    void rollbackTransaction() throws SQLException {
+        if (inTransaction && !connection.isClosed()) {
+            connection.rollback();
+        }
+    }
+
+    void endTransaction() throws SQLException {
+        inTransaction = false;
+        reset(connection);
+    }
+
+    /**
+     * Wraps the connection so that closing it only resets the state a connection returned to the pool would lose.
+     */
+    private Connection share(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(ConnectionScope.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!inTransaction) {
+                                reset(connection);
+                            }
+                            return null;
+                        case "isClosed":
+                            return connection.isClosed();
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    private static void reset(Connection connection) throws SQLException {
+        if (!connection.isClosed() && !connection.getAutoCommit()) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (--depth > 0) {
+            return;
+        }
+        current.remove();
+        if (connection != null) {
+            try {
+                reset(connection);
+            } catch (SQLException e) {
+                logger.error("Unable to reset shared SQL connection", e);
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.error("Unable to close SQL connection", e);
+                }
+                connection = null;
+                sharedConnection = null;
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.validation.constraints.NotNull;
 
@@ -34,8 +35,25 @@ import org.slf4j.LoggerFactory;
 public class DB {
     private static final Logger logger = LoggerFactory.getLogger(DB.class);
 
-    public static synchronized Connection getConnection() {
+    /**
+     * Fetch size which makes MySQL Connector/J stream the rows of a forward-only, read-only result set
+     * one by one instead of reading the whole result into memory.
+     */
+    static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * Returns a database connection, which has to be closed again by the caller, e.g. with
+     * {@link #cleanup(Connection, PreparedStatement)}.
+     *
+     * <p>If a {@link ConnectionScope} is open for the current thread, its shared connection is returned.
+     * Otherwise, a connection is borrowed from the pool.
+     */
+    public static Connection getConnection() {
         try {
+            Connection scopedConnection = ConnectionScope.getConnection();
+            if (scopedConnection != null) {
+                return scopedConnection;
+            }
             return DatabaseConnection.getConnection();
         } catch (SQLException e) {
             logger.error("Unable to acquire SQL connection", e);
@@ -76,7 +94,7 @@ public class DB {
         return stmt;
     }
 
-    private static void assignDatabaseValue(PreparedStatement stmt, DatabaseValue value, int position)
+    static void assignDatabaseValue(PreparedStatement stmt, DatabaseValue value, int position)
             throws SQLException {
         final DatabaseValue.Type type = value.getType();
         switch (type) {
@@ -99,11 +117,19 @@ public class DB {
         }
     }
 
+    /**
+     * Executes an update statement. Cleans up the database connection and statement afterwards.
+     *
+     * @return {@code true} if the statement changed any rows, {@code false} if it did not or failed outside of a
+     *         {@link UnitOfWork}.
+     * @throws UncheckedSQLException If the statement fails inside of a {@link UnitOfWork}.
+     */
     public static boolean executeUpdate(PreparedStatement stmt, Connection conn) {
         try {
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             logger.error("SQLException while executing Update for statement\n\t" + stmt, e);
+            failUnitOfWork(e);
         } finally {
             DB.cleanup(conn, stmt);
         }
@@ -117,6 +143,28 @@ public class DB {
         return executeUpdate(stmt, conn);
     }
 
+    /**
+     * Executes an update query whose result is not needed, e.g. incrementing a score.
+     * Inside a {@link UnitOfWork}, the query is deferred and executed in a batch when the unit of work commits.
+     * Otherwise, it is executed right away.
+     *
+     * @param query  The query.
+     * @param params The parameters for the query.
+     */
+    public static void executeDeferrableUpdateQuery(String query, DatabaseValue... params) {
+        if (!UnitOfWork.defer(query, params)) {
+            executeUpdateQuery(query, params);
+        }
+    }
+
+    /**
+     * Executes an insert statement and returns the generated key. Cleans up the database connection and statement
+     * afterwards.
+     *
+     * @return The generated key, or {@code -1} if no row was inserted or the statement failed outside of a
+     *         {@link UnitOfWork}.
+     * @throws UncheckedSQLException If the statement fails inside of a {@link UnitOfWork}.
+     */
     public static int executeUpdateGetKeys(PreparedStatement stmt, Connection conn) {
         try {
             if (stmt.executeUpdate() > 0) {
@@ -127,12 +175,25 @@ public class DB {
             }
         } catch (SQLException e) {
             logger.error("SQLException while executing Update and getting generated Keys for statement\n\t" + stmt, e);
+            failUnitOfWork(e);
         } finally {
             DB.cleanup(conn, stmt);
         }
         return -1;
     }
 
+    /**
+     * Inside a {@link UnitOfWork}, a failed write must not go unnoticed, since committing the remaining writes would
+     * leave the database in a partial state. The unit of work is marked as failed and the exception is propagated,
+     * so the unit of work is rolled back.
+     */
+    private static void failUnitOfWork(SQLException e) {
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.fail(e);
+            throw new UncheckedSQLException("SQL exception inside of a unit of work.", e);
+        }
+    }
+
     static int executeUpdateQueryGetKeys(String query, DatabaseValue... params) {
         Connection conn = DB.getConnection();
         PreparedStatement stmt = DB.createPreparedStatement(conn, query, params);
@@ -278,6 +339,63 @@ public class DB {
         return executeQueryReturnList(conn, stmt, mapper);
     }
 
+    /**
+     * Executes a database query and passes each mapped row of the query result to a consumer, without collecting
+     * the rows into a list. The statement uses the given fetch size, so with {@link #STREAMING_FETCH_SIZE} the
+     * rows are read one by one from a forward-only cursor instead of being loaded into memory up front.
+     * Cleans up the database connection and statement afterwards.
+     *
+     * <p>The connection stays in use until the last row has been consumed, so the consumer should not block.
+     *
+     * @param query     The query.
+     * @param fetchSize The statement fetch size.
+     * @param mapper    The mapper function.
+     * @param consumer  The consumer of the mapped rows.
+     * @param params    The parameters for the query.
+     * @param <T>       The type of value to be queried.
+     * @throws UncheckedSQLException If a {@link SQLException} is thrown while executing the query
+     *                               or advancing the {@link ResultSet}.
+     * @throws SQLMappingException   If there is something wrong with the query result, and the result can
+     *                               not properly be extracted from it.
+     * @see RSMapper
+     * @see Statement#setFetchSize(int)
+     */
+    static <T> void executeQueryForEach(String query,
+                                        int fetchSize,
+                                        RSMapper<T> mapper,
+                                        Consumer<? super T> consumer,
+                                        DatabaseValue... params)
+            throws UncheckedSQLException, SQLMappingException {
+
+        Connection conn = DB.getConnection();
+        PreparedStatement stmt = DB.createPreparedStatement(conn, query, params);
+        try {
+            stmt.setFetchSize(fetchSize);
+            ResultSet resultSet = stmt.executeQuery();
+
+            while (resultSet.next()) {
+                T value;
+                try {
+                    value = mapper.extractResultFrom(resultSet);
+                } catch (Exception e) {
+                    logger.error("Exception while handling result set.", e);
+                    throw new SQLMappingException("Exception while handling result set.", e);
+                }
+
+                if (value != null) {
+                    consumer.accept(value);
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("SQL exception while executing query.", e);
+            throw new UncheckedSQLException("SQL exception while executing query.", e);
+
+        } finally {
+            DB.cleanup(conn, stmt);
+        }
+    }
+
     /**
      * Executes a database query, then uses a mapper function to extract the values from the query result.
      * Cleans up the database connection and statement afterwards.
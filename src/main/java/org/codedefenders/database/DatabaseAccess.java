@@ -66,11 +66,14 @@ public class DatabaseAccess {
                 DatabaseValue.of(gameId),
                 DatabaseValue.of(playerId)};
         DB.executeUpdateQuery(query, values);
+        EventLogCache.invalidate(gameId);
     }
 
     /**
      * Retrieve the latest (in the past 5 minutes and not yet seen)
      * events that belong to a game and relate to equivalence duels.
+     *
+     * @param lastMessageId An event id cursor, see {@link EventDAO#getSettledEventId(int, List)}.
      */
     public static List<Event> getNewEquivalenceDuelEventsForGame(int gameId, int lastMessageId) {
         String query = String.join("\n",
@@ -108,7 +111,13 @@ public class DatabaseAccess {
         return DB.executeQueryReturnList(query, DatabaseAccess::getEvents, DatabaseValue.of(userId));
     }
 
-    public static List<Event> getNewEventsForUser(int userId, long time) {
+    /**
+     * Retrieve the events of a user which are neither deleted nor game events and have a greater id than the given
+     * cursor.
+     *
+     * @param lastEventId An event id cursor, see {@link EventDAO#getSettledEventId(int, List)}.
+     */
+    public static List<Event> getNewEventsForUserAfter(int userId, int lastEventId) {
         String query = String.join("\n",
                 "SELECT *",
                 "FROM events ",
@@ -117,12 +126,13 @@ public class DatabaseAccess {
                 "WHERE Player_ID=?",
                 "  AND Event_Status<>?",
                 "  AND Event_Status<>? ",
-                "  AND Timestamp >= FROM_UNIXTIME(?)");
+                "  AND events.Event_ID > ?",
+                "ORDER BY events.Event_ID");
         DatabaseValue[] values = new DatabaseValue[]{
                 DatabaseValue.of(userId),
                 DatabaseValue.of(EventStatus.DELETED.toString()),
                 DatabaseValue.of(EventStatus.GAME.toString()),
-                DatabaseValue.of(time)};
+                DatabaseValue.of(lastEventId)};
         return DB.executeQueryReturnList(query, DatabaseAccess::getEvents, values);
     }
 
@@ -151,6 +161,10 @@ public class DatabaseAccess {
     }
 
     public static Role getRole(int userId, int gameId) {
+        return LookupCache.getRole(userId, gameId, () -> queryRole(userId, gameId));
+    }
+
+    private static Role queryRole(int userId, int gameId) {
         String query = String.join("\n",
                 "SELECT *",
                 "FROM games AS m ",
@@ -211,16 +225,6 @@ public class DatabaseAccess {
         return p;
     }
 
-    public static List<Entry> getLeaderboard() {
-        String query = String.join("\n",
-                "SELECT U.username AS username, IFNULL(NMutants,0) AS NMutants, IFNULL(AScore,0) AS AScore, IFNULL(NTests,0) AS NTests, IFNULL(DScore,0) AS DScore, IFNULL(NKilled,0) AS NKilled, IFNULL(AScore,0)+IFNULL(DScore,0)+IFNULL(EScore,0) AS TotalScore",
-                "FROM view_valid_users U",
-                "LEFT JOIN (SELECT PA.user_id, count(M.Mutant_ID) AS NMutants, sum(M.Points) AS AScore FROM players PA LEFT JOIN mutants M ON PA.id = M.Player_ID GROUP BY PA.user_id) AS Attacker ON U.user_id = Attacker.user_id",
-                "LEFT JOIN (SELECT PD.user_id, count(T.Test_ID) AS NTests, sum(T.Points) AS DScore, sum(T.MutantsKilled) AS NKilled FROM players PD LEFT JOIN tests T ON PD.id = T.Player_ID GROUP BY PD.user_id) AS Defender ON U.user_id = Defender.user_id",
-                "LEFT JOIN (SELECT PE.user_id, sum(PE.Points) AS EScore FROM players PE GROUP BY PE.user_id) AS Player ON U.User_ID = Player.User_ID");
-        return DB.executeQueryReturnList(query, DatabaseAccess::entryFromRS);
-    }
-
     public static int getKillingTestIdForMutant(int mutantId) {
         String query = String.join("\n",
                 "SELECT *",
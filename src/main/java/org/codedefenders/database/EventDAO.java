@@ -9,8 +9,10 @@ import java.util.List;
 
 import javax.annotation.ManagedBean;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 import org.codedefenders.game.Role;
+import org.codedefenders.game.scoring.ScoreAggregates;
 import org.codedefenders.model.Event;
 import org.codedefenders.model.EventStatus;
 import org.codedefenders.model.EventType;
@@ -20,8 +22,13 @@ import org.codedefenders.model.EventType;
 @ManagedBean
 public class EventDAO {
 
+    @Inject
+    private ScoreAggregates scoreAggregates;
+
     // Split this is possibly different calls, maybe there no need to expose Event
     // class to callers
+    // Inside a UnitOfWork, the event is only inserted when the unit of work commits
+    // Score events are reported to ScoreAggregates, which applies them to the scores of the game once committed
     public boolean insert(Event event) {
         String query;
         DatabaseValue[] valueList;
@@ -35,7 +42,7 @@ public class EventDAO {
                     "INSERT INTO events (Game_ID, Player_ID, Event_Type, Event_Status, Event_Message)",
                     "VALUES (?, ?, ?, ?, ?);");
             valueList = new DatabaseValue[]{DatabaseValue.of(event.gameId()),
-                    DatabaseValue.of(event.getUser().getId()), DatabaseValue.of(eventType.toString()),
+                    DatabaseValue.of(event.getUserId()), DatabaseValue.of(eventType.toString()),
                     DatabaseValue.of(event.getEventStatus().toString()), DatabaseValue.of(event.getMessage())};
         } else if (eventType.equals(EventType.PLAYER_LOST_EQUIVALENT_DUEL) // Melee Game
                 || eventType.equals(EventType.PLAYER_WON_EQUIVALENT_DUEL)
@@ -46,20 +53,32 @@ public class EventDAO {
                     "INSERT INTO events (Game_ID, Player_ID, Event_Type, Event_Status, Event_Message)",
                     "VALUES (?, ?, ?, ?, ?);");
             valueList = new DatabaseValue[]{DatabaseValue.of(event.gameId()),
-                    DatabaseValue.of(event.getUser().getId()), DatabaseValue.of(eventType.toString()),
+                    DatabaseValue.of(event.getUserId()), DatabaseValue.of(eventType.toString()),
                     DatabaseValue.of(event.getEventStatus().toString()), DatabaseValue.of(event.getMessage())};
         } else {
             query = String.join("\n", "INSERT INTO events (Game_ID, Player_ID, Event_Type, Event_Status)",
                     "VALUES (?, ?, ?, ?);");
             valueList = new DatabaseValue[]{DatabaseValue.of(event.gameId()),
-                    DatabaseValue.of(event.getUser().getId()), DatabaseValue.of(eventType.toString()),
+                    DatabaseValue.of(event.getUserId()), DatabaseValue.of(eventType.toString()),
                     DatabaseValue.of(event.getEventStatus().toString())};
         }
 
-        final Connection conn1 = DB.getConnection();
-        final PreparedStatement stmt1 = DB.createPreparedStatement(conn1, query, valueList);
-        // The execute* returns the Connection to the ConnectionPool so we must not reuse it
-        int eventId = DB.executeUpdateGetKeys(stmt1, conn1);
+        ScoreAggregates.EventRecording recording = scoreAggregates.beginEvent(event);
+
+        if (UnitOfWork.defer(query, valueList)) {
+            UnitOfWork.afterCompletion(committed -> scoreAggregates.endEvent(recording, committed));
+            return true;
+        }
+
+        int eventId = -1;
+        try {
+            final Connection conn1 = DB.getConnection();
+            final PreparedStatement stmt1 = DB.createPreparedStatement(conn1, query, valueList);
+            // The execute* returns the Connection to the ConnectionPool so we must not reuse it
+            eventId = DB.executeUpdateGetKeys(stmt1, conn1);
+        } finally {
+            scoreAggregates.endEvent(recording, eventId >= 0);
+        }
 
         return eventId >= 0;
     }
@@ -71,13 +90,15 @@ public class EventDAO {
                 "SET Game_ID=?, Player_ID=?, Event_Type=?, Event_Status=?, Timestamp=FROM_UNIXTIME(?)",
                 "WHERE Event_ID=?");
         DatabaseValue[] valueList = new DatabaseValue[]{DatabaseValue.of(event.gameId()),
-                DatabaseValue.of(event.getUser().getId()), DatabaseValue.of(eventType.toString()),
+                DatabaseValue.of(event.getUserId()), DatabaseValue.of(eventType.toString()),
                 DatabaseValue.of(event.getEventStatus().toString()), DatabaseValue.of((Long) event.getTimestamp()),
                 DatabaseValue.of(event.getId())};
 
         Connection conn = DB.getConnection();
         PreparedStatement stmt = DB.createPreparedStatement(conn, query, valueList);
-        return DB.executeUpdate(stmt, conn);
+        boolean updated = DB.executeUpdate(stmt, conn);
+        EventLogCache.invalidate(event.gameId());
+        return updated;
     }
 
     static Event eventFromRS(ResultSet rs) throws SQLException {
@@ -97,11 +118,39 @@ public class EventDAO {
 
     public List<Event> getEventsForGame(Integer gameId) {
         // TODO Use SOME VIEW INSTEAD OF EVENT TABLE?
-        String query = String.join("\n", "SELECT * from events", "WHERE Game_ID=?");
+        String query = String.join("\n", "SELECT * from events", "WHERE Game_ID=?", "ORDER BY Event_ID");
         DatabaseValue[] values = new DatabaseValue[]{DatabaseValue.of(gameId)};
         return DB.executeQueryReturnList(query, EventDAO::eventFromRS, values);
     }
 
+    /**
+     * Returns the events of a game which were added after the event with the given id.
+     *
+     * @param gameId      The identifier of the game.
+     * @param lastEventId The id of the last known event, or {@code 0} to get all events.
+     * @return The events with a greater id, ordered by event id.
+     */
+    public List<Event> getEventsForGameAfter(int gameId, int lastEventId) {
+        String query = String.join("\n", "SELECT * from events",
+                "WHERE Game_ID=?",
+                "  AND Event_ID>?",
+                "ORDER BY Event_ID");
+        DatabaseValue[] values = new DatabaseValue[]{DatabaseValue.of(gameId), DatabaseValue.of(lastEventId)};
+        return DB.executeQueryReturnList(query, EventDAO::eventFromRS, values);
+    }
+
+    /**
+     * Returns the event log of a game like {@link #getEventsForGame(Integer)}, but only reads the events which
+     * were added since the log was last read. The returned list is shared, so neither it nor the events may be
+     * modified.
+     *
+     * @param gameId The identifier of the game.
+     * @return An unmodifiable list of all events of the game, ordered by event id.
+     */
+    public List<Event> getEventLogForGame(int gameId) {
+        return EventLogCache.get(gameId, lastEventId -> getEventsForGameAfter(gameId, lastEventId));
+    }
+
     public List<Event> getNewEventsForGame(int gameId, long timestamp, Role role) {
         String query = String.join("\n", "SELECT *",
                 "FROM events",
@@ -121,4 +170,60 @@ public class EventDAO {
 
         return DB.executeQueryReturnList(query, EventDAO::eventFromRS, values);
     }
+
+    /**
+     * Returns the game events like {@link #getNewEventsForGame(int, long, Role)}, but uses an event id cursor
+     * instead of a timestamp. The cursor is advanced with {@link #getSettledEventId(int, List)}, so events which
+     * become visible after events with a greater id are not skipped. Events newer than the settle window are
+     * returned again by the next poll, callers skip the ones they already received by their id.
+     *
+     * @param gameId      The identifier of the game.
+     * @param lastEventId The cursor returned by {@link #getSettledEventId(int, List)}, or {@code 0} to get all
+     *                    events.
+     * @param role        The role of the caller in the game.
+     * @return The game events with a greater id, ordered by event id.
+     */
+    public List<Event> getNewEventsForGameAfter(int gameId, int lastEventId, Role role) {
+        String query = String.join("\n", "SELECT *",
+                "FROM events",
+                "LEFT JOIN event_messages AS em",
+                "  ON events.Event_Type = em.Event_Type ",
+                "WHERE Game_ID=?",
+                "  AND Event_Status=? ",
+                "  AND Event_ID>?");
+        if (role.equals(Role.ATTACKER)) {
+            query += " AND events.Event_Type!='DEFENDER_MESSAGE'";
+        } else if (role.equals(Role.DEFENDER)) {
+            query += " AND events.Event_Type!='ATTACKER_MESSAGE'";
+        }
+        query += " ORDER BY Event_ID";
+
+        DatabaseValue[] values = new DatabaseValue[]{DatabaseValue.of(gameId),
+                DatabaseValue.of(EventStatus.GAME.toString()), DatabaseValue.of(lastEventId)};
+
+        return DB.executeQueryReturnList(query, EventDAO::eventFromRS, values);
+    }
+
+    /**
+     * Advances an event id cursor over the events which were read with it.
+     *
+     * <p>Event ids are assigned on insert, but the inserting transactions may commit in a different order, so an
+     * event with a smaller id can become visible after the cursor passed it. Like the {@link EventLogCache}, the
+     * cursor therefore only moves to events older than {@link EventLogCache#SETTLE_MILLIS}: every event inserted
+     * before such an event is committed, and was read together with it.
+     *
+     * @param lastEventId The cursor the events were read with.
+     * @param events      The events with a greater id than the cursor, in any order.
+     * @return The cursor for the next read.
+     */
+    public static int getSettledEventId(int lastEventId, List<Event> events) {
+        long settledBefore = System.currentTimeMillis() - EventLogCache.SETTLE_MILLIS;
+        int settledEventId = lastEventId;
+        for (Event event : events) {
+            if (event.getTimestamp() < settledBefore) {
+                settledEventId = Math.max(settledEventId, event.getId());
+            }
+        }
+        return settledEventId;
+    }
 }
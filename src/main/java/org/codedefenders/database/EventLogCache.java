@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.codedefenders.model.Event;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Caches the event logs of recently viewed games and keeps them up to date incrementally, so showing the history
+ * of a game only reads the events which were added since the last time.
+ *
+ * <p>Event ids are assigned on insert, but the inserting transactions may commit in a different order. To not
+ * miss an event with a smaller id which becomes visible late, only events older than {@link #SETTLE_MILLIS} are
+ * kept permanently. Newer events are read again on every access, together with the events added since.
+ *
+ * <p>Entries are invalidated by the DAO methods which change existing events. The cached events are shared, so
+ * callers must not modify them.
+ */
+class EventLogCache {
+    static final int MAXIMUM_SIZE = 1_000;
+    static final int TIME_TO_IDLE_MINUTES = 10;
+    static final long SETTLE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Cache<Integer, EventLog> logs = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterAccess(TIME_TO_IDLE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private EventLogCache() {
+    }
+
+    /**
+     * Returns the event log of the given game, ordered by event id.
+     *
+     * @param gameId     The identifier of the game.
+     * @param eventsFrom Reads the events of the game with an id greater than the given one, ordered by event id.
+     * @return An unmodifiable list of all events of the game.
+     */
+    static List<Event> get(int gameId, IntFunction<List<Event>> eventsFrom) {
+        return logs.asMap().computeIfAbsent(gameId, id -> new EventLog()).update(eventsFrom);
+    }
+
+    /**
+     * Removes the event log of the given game from the cache.
+     *
+     * @param gameId The identifier of the game.
+     */
+    static void invalidate(int gameId) {
+        logs.invalidate(gameId);
+    }
+
+    private static class EventLog {
+        private final List<Event> settledEvents = new ArrayList<>();
+        private int lastSettledEventId = 0;
+
+        synchronized List<Event> update(IntFunction<List<Event>> eventsFrom) {
+            List<Event> recentEvents = eventsFrom.apply(lastSettledEventId);
+            long settledBefore = System.currentTimeMillis() - SETTLE_MILLIS;
+
+            int settled = 0;
+            while (settled < recentEvents.size() && recentEvents.get(settled).getTimestamp() < settledBefore) {
+                settled++;
+            }
+            if (settled > 0) {
+                settledEvents.addAll(recentEvents.subList(0, settled));
+                lastSettledEventId = settledEvents.get(settledEvents.size() - 1).getId();
+            }
+
+            List<Event> events = new ArrayList<>(settledEvents.size() + recentEvents.size() - settled);
+            events.addAll(settledEvents);
+            events.addAll(recentEvents.subList(settled, recentEvents.size()));
+            return Collections.unmodifiableList(events);
+        }
+    }
+}
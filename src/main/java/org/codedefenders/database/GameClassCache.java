@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codedefenders.game.GameClass;
+
+/**
+ * Application-wide cache of {@link GameClass} instances by class id.
+ *
+ * <p>Every query for a class creates a new {@link GameClass}, whose source code would be read and analyzed again
+ * on first use. Instead, the DAOs pass the classes they read through {@link #get(GameClass)}, which returns a copy
+ * of the cached instance, so the source code and its analysis are shared by all copies.
+ *
+ * <p>The cached instances are never handed out, so changes to the returned classes (e.g.
+ * {@link GameClass#setActive(boolean)}) do not affect the cache. Entries are invalidated when a class is updated or
+ * removed, and replaced when the database row differs from the cached instance.
+ */
+class GameClassCache {
+    private static final Map<Integer, GameClass> classes = new ConcurrentHashMap<>();
+
+    private GameClassCache() {
+    }
+
+    /**
+     * Returns a copy of the cached instance of the given class, which was just read from the database.
+     *
+     * @param gameClass The class read from the database.
+     * @return A copy of the cached instance.
+     */
+    static GameClass get(GameClass gameClass) {
+        final GameClass cached = classes.compute(gameClass.getId(),
+                (id, current) -> current != null && isSameRow(current, gameClass) ? current : gameClass);
+        return GameClass.copyOf(cached);
+    }
+
+    /**
+     * Removes the class with the given identifier from the cache.
+     *
+     * @param classId The identifier of the class.
+     */
+    static void invalidate(int classId) {
+        classes.remove(classId);
+    }
+
+    private static boolean isSameRow(GameClass cached, GameClass gameClass) {
+        return cached.getName().equals(gameClass.getName())
+                && cached.getAlias().equals(gameClass.getAlias())
+                && cached.getJavaFile().equals(gameClass.getJavaFile())
+                && cached.getClassFile().equals(gameClass.getClassFile())
+                && cached.isMockingEnabled() == gameClass.isMockingEnabled()
+                && cached.getTestingFramework() == gameClass.getTestingFramework()
+                && cached.getAssertionLibrary() == gameClass.getAssertionLibrary()
+                && cached.isActive() == gameClass.isActive()
+                && cached.isPuzzleClass() == gameClass.isPuzzleClass()
+                && Objects.equals(cached.getParentClassId(), gameClass.getParentClassId());
+    }
+}
@@ -52,6 +52,9 @@ public class GameClassDAO {
     /**
      * Constructs a game class from a {@link ResultSet} entry.
      *
+     * <p>The returned class shares its source code and code analysis with all other instances of the class,
+     * see {@link GameClassCache}.
+     *
      * @param rs The {@link ResultSet}.
      * @return The constructed game class.
      * @see RSMapper
@@ -74,7 +77,7 @@ public class GameClassDAO {
             parentClassId = null;
         }
 
-        return GameClass.build()
+        return GameClassCache.get(GameClass.build()
                 .id(classId)
                 .name(name)
                 .alias(alias)
@@ -86,7 +89,7 @@ public class GameClassDAO {
                 .active(isActive)
                 .puzzleClass(isPuzzleClass)
                 .parentClassId(parentClassId)
-                .create();
+                .create());
     }
 
     /**
@@ -382,7 +385,9 @@ public class GameClassDAO {
                 DatabaseValue.of(classId)
         };
 
-        return DB.executeUpdateQuery(query, values);
+        final boolean result = DB.executeUpdateQuery(query, values);
+        GameClassCache.invalidate(classId);
+        return result;
     }
 
     /**
@@ -394,7 +399,9 @@ public class GameClassDAO {
     public static boolean removeClassForId(int id) {
         String query = "DELETE FROM classes WHERE Class_ID = ?;";
 
-        return DB.executeUpdateQuery(query, DatabaseValue.of(id));
+        final boolean result = DB.executeUpdateQuery(query, DatabaseValue.of(id));
+        GameClassCache.invalidate(id);
+        return result;
     }
 
     /**
@@ -453,7 +460,9 @@ public class GameClassDAO {
         String query = bob.toString();
         DatabaseValue[] values = classes.stream().map(DatabaseValue::of).toArray(DatabaseValue[]::new);
 
-        return DB.executeUpdateQuery(query, values);
+        final boolean result = DB.executeUpdateQuery(query, values);
+        classes.forEach(GameClassCache::invalidate);
+        return result;
     }
 
     /**
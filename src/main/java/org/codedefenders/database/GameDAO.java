@@ -102,7 +102,9 @@ public class GameDAO {
                 DatabaseValue.of(role.toString())
         };
 
-        return DB.executeUpdateQuery(query, values);
+        boolean added = DB.executeUpdateQuery(query, values);
+        LookupCache.invalidatePlayer(userId, gameId);
+        return added;
     }
 
     /**
@@ -161,7 +163,9 @@ public class GameDAO {
                 DatabaseValue.of(userId)
         };
 
-        return DB.executeUpdateQuery(query, values);
+        boolean removed = DB.executeUpdateQuery(query, values);
+        LookupCache.invalidatePlayer(userId, gameId);
+        return removed;
     }
 
     public static Integer getCurrentRound(int gameId) {
@@ -27,6 +27,7 @@ import org.codedefenders.database.DB.RSMapper;
 import org.codedefenders.execution.KillMap;
 import org.codedefenders.execution.KillMap.KillMapEntry;
 import org.codedefenders.execution.KillMapProcessor;
+import org.codedefenders.execution.KillMatrix;
 import org.codedefenders.game.GameMode;
 import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Test;
@@ -82,7 +83,7 @@ public class KillmapDAO {
             String status = rs.getString("Status");
             return new KillMapEntry(testMap.get(testId), mutantMap.get(mutantId), KillMapEntry.Status.valueOf(status));
         };
-        return DB.executeQueryReturnListWithFetchSize(query, Integer.MIN_VALUE, mapper, values);
+        return DB.executeQueryReturnListWithFetchSize(query, DB.STREAMING_FETCH_SIZE, mapper, values);
     }
 
     /**
@@ -115,6 +116,52 @@ public class KillmapDAO {
         return getKillMapEntries(tests, mutants, query, DatabaseValue.of(classId));
     }
 
+    /**
+     * Streams the killmap entries of the given game into a {@link KillMatrix}.
+     * Entries for tests or mutants which are not part of the matrix are skipped.
+     */
+    public static KillMatrix getKillMatrixForGame(int gameId, int[] testIds, int[] mutantIds) {
+        String query = String.join("\n",
+                "SELECT killmap.Test_ID, killmap.Mutant_ID, killmap.Status",
+                "FROM killmap",
+                "WHERE killmap.Game_ID = ?");
+
+        return getKillMatrix(testIds, mutantIds, query, DatabaseValue.of(gameId));
+    }
+
+    /**
+     * Streams the killmap entries of the given class into a {@link KillMatrix}.
+     * Entries for tests or mutants which are not part of the matrix are skipped.
+     */
+    public static KillMatrix getKillMatrixForClass(int classId, int[] testIds, int[] mutantIds) {
+        String query = String.join("\n",
+                "SELECT killmap.Test_ID, killmap.Mutant_ID, killmap.Status",
+                "FROM killmap",
+                "WHERE killmap.Class_ID = ?");
+
+        return getKillMatrix(testIds, mutantIds, query, DatabaseValue.of(classId));
+    }
+
+    /**
+     * Helper method to stream killmap entries from the database into a {@link KillMatrix}, without creating
+     * objects for the single entries.
+     */
+    private static KillMatrix getKillMatrix(int[] testIds, int[] mutantIds, String query, DatabaseValue... values)
+            throws UncheckedSQLException, SQLMappingException {
+        KillMatrix matrix = new KillMatrix(testIds, mutantIds);
+
+        final RSMapper<Void> mapper = rs -> {
+            int testId = rs.getInt("Test_ID");
+            int mutantId = rs.getInt("Mutant_ID");
+            String status = rs.getString("Status");
+            matrix.setById(testId, mutantId, KillMapEntry.Status.valueOf(status));
+            // Nothing is collected, the matrix is filled while iterating over the result set
+            return null;
+        };
+        DB.executeQueryReturnListWithFetchSize(query, DB.STREAMING_FETCH_SIZE, mapper, values);
+        return matrix;
+    }
+
     /**
      * Inserts a killmap entry into the database.
      */
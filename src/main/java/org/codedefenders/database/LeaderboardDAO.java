@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.codedefenders.game.leaderboard.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class handles the database logic for the leaderboard.
+ *
+ * <p>The totals of each user are kept in the {@code leaderboard} table, which is updated by triggers on the
+ * {@code mutants}, {@code tests} and {@code players} tables. {@link #rebuild()} recomputes all totals from these
+ * tables, which repairs changes the triggers missed.
+ *
+ * @see Entry
+ */
+public class LeaderboardDAO {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardDAO.class);
+
+    private static final String ENTRY_COLUMNS = String.join("\n",
+            "SELECT U.Username AS username,",
+            "  IFNULL(L.NMutants, 0)   AS NMutants,",
+            "  IFNULL(L.AScore, 0)     AS AScore,",
+            "  IFNULL(L.NTests, 0)     AS NTests,",
+            "  IFNULL(L.DScore, 0)     AS DScore,",
+            "  IFNULL(L.NKilled, 0)    AS NKilled,",
+            "  IFNULL(L.TotalScore, 0) AS TotalScore");
+
+    /**
+     * Returns the leaderboard entries of all valid users, including users who did not play yet.
+     */
+    public static List<Entry> getAll() throws UncheckedSQLException, SQLMappingException {
+        String query = String.join("\n",
+                ENTRY_COLUMNS,
+                "FROM view_valid_users U",
+                "LEFT JOIN leaderboard L ON L.User_ID = U.User_ID;");
+        return DB.executeQueryReturnList(query, DatabaseAccess::entryFromRS);
+    }
+
+    /**
+     * Recomputes the totals of all users from the {@code players}, {@code mutants} and {@code tests} tables.
+     * This aggregates the whole history, so it should only run in the background.
+     *
+     * <p>The tables are locked while the totals are recomputed. Otherwise, a trigger could increment a total after
+     * it was aggregated, and the increment would be overwritten with the stale total. Writes to the locked tables
+     * wait until the rebuild is done.
+     *
+     * @return {@code true} if the totals were recomputed, {@code false} otherwise.
+     */
+    public static boolean rebuild() {
+        // Every alias of a locked table has to be locked separately
+        String lockQuery = String.join("\n",
+                "LOCK TABLES leaderboard WRITE,",
+                "  users AS U READ,",
+                "  players AS PA READ, mutants AS M READ,",
+                "  players AS PD READ, tests AS T READ,",
+                "  players AS PE READ;");
+        String query = String.join("\n",
+                "INSERT INTO leaderboard (User_ID, NMutants, AScore, NTests, DScore, NKilled, EScore, TotalScore)",
+                "SELECT U.User_ID,",
+                "  IFNULL(NMutants, 0),",
+                "  IFNULL(AScore, 0),",
+                "  IFNULL(NTests, 0),",
+                "  IFNULL(DScore, 0),",
+                "  IFNULL(NKilled, 0),",
+                "  IFNULL(EScore, 0),",
+                "  IFNULL(AScore, 0) + IFNULL(DScore, 0) + IFNULL(EScore, 0)",
+                "FROM users U",
+                "LEFT JOIN (SELECT PA.User_ID, count(M.Mutant_ID) AS NMutants, sum(M.Points) AS AScore",
+                "           FROM players PA LEFT JOIN mutants M ON PA.ID = M.Player_ID",
+                "           GROUP BY PA.User_ID) AS Attacker ON U.User_ID = Attacker.User_ID",
+                "LEFT JOIN (SELECT PD.User_ID, count(T.Test_ID) AS NTests, sum(T.Points) AS DScore,",
+                "                  sum(T.MutantsKilled) AS NKilled",
+                "           FROM players PD LEFT JOIN tests T ON PD.ID = T.Player_ID",
+                "           GROUP BY PD.User_ID) AS Defender ON U.User_ID = Defender.User_ID",
+                "LEFT JOIN (SELECT PE.User_ID, sum(PE.Points) AS EScore",
+                "           FROM players PE",
+                "           GROUP BY PE.User_ID) AS Player ON U.User_ID = Player.User_ID",
+                "ON DUPLICATE KEY UPDATE NMutants = VALUES(NMutants),",
+                "  AScore = VALUES(AScore),",
+                "  NTests = VALUES(NTests),",
+                "  DScore = VALUES(DScore),",
+                "  NKilled = VALUES(NKilled),",
+                "  EScore = VALUES(EScore),",
+                "  TotalScore = VALUES(TotalScore);");
+
+        Connection conn = DB.getConnection();
+        if (conn == null) {
+            return false;
+        }
+        try {
+            // With InnoDB, table locks are used by disabling auto-commit and unlocking only after the commit
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(lockQuery);
+                try {
+                    stmt.executeUpdate(query);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    stmt.execute("UNLOCK TABLES;");
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            logger.error("SQL exception while rebuilding the leaderboard.", e);
+            return false;
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                logger.error("Unable to reset auto-commit of SQL connection", e);
+            }
+            DB.cleanup(conn, null);
+        }
+    }
+}
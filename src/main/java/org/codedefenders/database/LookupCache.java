@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.codedefenders.game.Role;
+import org.codedefenders.model.User;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Caches the user, player and role lookups which are done over and over again, e.g. for every chat message or
+ * for every mutant a test is run against.
+ *
+ * <p>The caches are read-through: the DAOs look up the cache first and only query the database on a miss.
+ * Entries are invalidated by the DAO methods which change users or players. Since entries also expire after
+ * {@link #TIME_TO_LIVE_MINUTES}, changes made by other means are picked up eventually. Each cache holds at most
+ * {@link #MAXIMUM_SIZE} entries, the least recently used ones are evicted first.
+ *
+ * <p>Users are cached as copies, so callers can modify the returned users without affecting the cache.
+ */
+public final class LookupCache {
+    static final int MAXIMUM_SIZE = 10_000;
+    static final int TIME_TO_LIVE_MINUTES = 5;
+
+    private static final Cache<Integer, User> usersById = newCache();
+    private static final Cache<Integer, Integer> userIdsByPlayerId = newCache();
+    private static final Cache<Long, Integer> playerIdsByUserAndGame = newCache();
+    private static final Cache<Long, Role> rolesByUserAndGame = newCache();
+
+    private LookupCache() {
+    }
+
+    private static <K, V> Cache<K, V> newCache() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterWrite(TIME_TO_LIVE_MINUTES, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    private static long key(int userId, int gameId) {
+        return ((long) userId << 32) | (gameId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Looks up the value in the cache, or loads and caches it. {@code null} values are not cached.
+     */
+    private static <K, V> V get(Cache<K, V> cache, K key, Supplier<V> loader) {
+        V value = cache.getIfPresent(key);
+        if (value == null) {
+            value = loader.get();
+            if (value != null) {
+                cache.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    static User getUser(int userId, Supplier<User> loader) {
+        return copyOf(get(usersById, userId, () -> copyOf(loader.get())));
+    }
+
+    /**
+     * Returns the user of the given player. The player to user mapping never changes, so it is only loaded once.
+     */
+    static User getUserForPlayer(int playerId, Supplier<User> loader) {
+        Integer userId = userIdsByPlayerId.getIfPresent(playerId);
+        if (userId != null) {
+            User user = usersById.getIfPresent(userId);
+            if (user != null) {
+                return copyOf(user);
+            }
+        }
+        User user = loader.get();
+        if (user != null) {
+            userIdsByPlayerId.put(playerId, user.getId());
+            usersById.put(user.getId(), copyOf(user));
+        }
+        return user;
+    }
+
+    static int getPlayerId(int userId, int gameId, Supplier<Integer> loader) {
+        return get(playerIdsByUserAndGame, key(userId, gameId), loader);
+    }
+
+    static Role getRole(int userId, int gameId, Supplier<Role> loader) {
+        return get(rolesByUserAndGame, key(userId, gameId), loader);
+    }
+
+    private static User copyOf(User user) {
+        if (user == null) {
+            return null;
+        }
+        return new User(user.getId(), user.getUsername(), user.getEncodedPassword(), user.getEmail(),
+                user.isValidated(), user.isActive(), user.getAllowContact(), user.getKeyMap());
+    }
+
+    /**
+     * Invalidates the cached user, e.g. after the user was edited or deleted.
+     */
+    public static void invalidateUser(int userId) {
+        usersById.invalidate(userId);
+    }
+
+    /**
+     * Invalidates the cached player and role of the given user in the given game, e.g. after the user joined or
+     * left the game.
+     */
+    public static void invalidatePlayer(int userId, int gameId) {
+        playerIdsByUserAndGame.invalidate(key(userId, gameId));
+        rolesByUserAndGame.invalidate(key(userId, gameId));
+    }
+
+    /**
+     * Invalidates all cached players and roles, for changes which don't tell the affected user and game.
+     */
+    public static void invalidatePlayers() {
+        userIdsByPlayerId.invalidateAll();
+        playerIdsByUserAndGame.invalidateAll();
+        rolesByUserAndGame.invalidateAll();
+    }
+
+    /**
+     * Returns the hit and miss counts of the caches, by cache name.
+     */
+    public static Map<String, LookupCacheMetrics> getMetrics() {
+        Map<String, LookupCacheMetrics> metrics = new LinkedHashMap<>();
+        metrics.put("users", LookupCacheMetrics.of(usersById));
+        metrics.put("playerUsers", LookupCacheMetrics.of(userIdsByPlayerId));
+        metrics.put("playerIds", LookupCacheMetrics.of(playerIdsByUserAndGame));
+        metrics.put("roles", LookupCacheMetrics.of(rolesByUserAndGame));
+        return metrics;
+    }
+}
@@ -21,6 +21,7 @@ package org.codedefenders.database;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -83,6 +84,13 @@ public class MutantDAO {
             // force write
             mutant.setLines(mutatedLinesList);
         }
+        // null for mutants stored before these were persisted and not yet backfilled, see MutantMetadataBackfill
+        mutant.setSummaryString(rs.getString("Summary"));
+        String description = rs.getString("Description");
+        if (description != null) {
+            mutant.setHTMLReadout(splitDescription(description));
+        }
+        mutant.setPatchString(rs.getString("Patch"));
         try {
             String username = rs.getString("Username");
             int userId = rs.getInt("User_ID");
@@ -214,11 +222,14 @@ public class MutantDAO {
         int score = mutant.getScore();
         String md5 = mutant.getMd5();
         String mutatedLinesString = StringUtils.join(mutant.getLines(), ",");
+        String summary = mutant.getSummaryString();
+        String description = joinDescription(mutant.getHTMLReadout());
+        String patch = mutant.getPatchString();
 
         String query = String.join("\n",
                 "INSERT INTO mutants (JavaFile, ClassFile, Game_ID, RoundCreated, Equivalent,",
-                        "Alive, Player_ID, Points, MD5, Class_ID, MutatedLines)",
-                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);"
+                        "Alive, Player_ID, Points, MD5, Class_ID, MutatedLines, Summary, Description, Patch)",
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);"
         );
         DatabaseValue[] values = new DatabaseValue[]{
                 DatabaseValue.of(relativeJavaFile),
@@ -231,7 +242,10 @@ public class MutantDAO {
                 DatabaseValue.of(score),
                 DatabaseValue.of(md5),
                 DatabaseValue.of(classId),
-                DatabaseValue.of(mutatedLinesString)
+                DatabaseValue.of(mutatedLinesString),
+                DatabaseValue.of(summary),
+                DatabaseValue.of(description),
+                DatabaseValue.of(patch)
         };
 
         final int result = DB.executeUpdateQueryGetKeys(query, values);
@@ -278,6 +292,63 @@ public class MutantDAO {
         return DB.executeUpdateQuery(query, values);
     }
 
+    /**
+     * Stores the mutated lines, the summary, the description and the patch of a given {@link Mutant}.
+     * This is used by {@link MutantMetadataBackfill} for mutants which were stored before these were persisted.
+     *
+     * @param mutant the given mutant as a {@link Mutant}.
+     * @return whether updating was successful or not.
+     * @throws UncheckedSQLException If a database error occurs.
+     */
+    public static boolean updateMutantMetadata(Mutant mutant) throws UncheckedSQLException {
+        String query = String.join("\n",
+                "UPDATE mutants",
+                "SET",
+                "  MutatedLines=?,",
+                "  Summary=?,",
+                "  Description=?,",
+                "  Patch=?",
+                "WHERE Mutant_ID=?;"
+        );
+        DatabaseValue[] values = new DatabaseValue[]{
+                DatabaseValue.of(StringUtils.join(mutant.getLines(), ",")),
+                DatabaseValue.of(mutant.getSummaryString()),
+                DatabaseValue.of(joinDescription(mutant.getHTMLReadout())),
+                DatabaseValue.of(mutant.getPatchString()),
+                DatabaseValue.of(mutant.getId())
+        };
+
+        return DB.executeUpdateQuery(query, values);
+    }
+
+    /**
+     * Returns the identifiers of the mutants which were stored before their mutated lines, summary, description
+     * and patch were persisted.
+     */
+    public static List<Integer> getMutantIdsWithoutMetadata() throws UncheckedSQLException, SQLMappingException {
+        String query = String.join("\n",
+                "SELECT Mutant_ID",
+                "FROM mutants",
+                "WHERE Summary IS NULL",
+                "  OR Description IS NULL",
+                "  OR Patch IS NULL;");
+        return DB.executeQueryReturnList(query, rs -> rs.getInt("Mutant_ID"));
+    }
+
+    /**
+     * Every entry of a mutant description ends with a line break, so the entries are stored as one string.
+     */
+    static String joinDescription(List<String> description) {
+        return String.join("", description);
+    }
+
+    static List<String> splitDescription(String description) {
+        if (description.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(description.split("(?<=\n)")));
+    }
+
     public static boolean updateMutantScore(Mutant mutant) throws UncheckedSQLException {
         int mutantId = mutant.getId();
 
@@ -301,6 +372,8 @@ public class MutantDAO {
      * Updates a given {@link Mutant} in the database and returns whether
      * updating was successful or not.
      *
+     * <p>Inside a {@link UnitOfWork}, the update is deferred until the unit of work commits.
+     *
      * @param mutant the given mutant as a {@link Mutant}.
      * @return whether updating was successful or not
      * @throws UncheckedSQLException If storing the mutant was not successful.
@@ -320,6 +393,9 @@ public class MutantDAO {
             DatabaseValue.of(mutantId)
         };
 
+        if (UnitOfWork.defer(query, values)) {
+            return true;
+        }
         return DB.executeUpdateQuery(query, values);
     }
 
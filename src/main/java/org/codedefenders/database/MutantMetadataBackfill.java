@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.util.List;
+
+import org.codedefenders.game.Mutant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the mutated lines, the summary, the description and the patch of mutants which were stored before these
+ * were persisted. This runs once in the background when the application starts, so reading a mutant never writes
+ * to the database.
+ *
+ * @see MutantDAO#updateMutantMetadata(Mutant)
+ */
+public class MutantMetadataBackfill implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(MutantMetadataBackfill.class);
+
+    @Override
+    public void run() {
+        List<Integer> mutantIds;
+        try {
+            mutantIds = MutantDAO.getMutantIdsWithoutMetadata();
+        } catch (UncheckedSQLException | SQLMappingException e) {
+            logger.error("Failed to look up the mutants without stored metadata.", e);
+            return;
+        }
+        if (mutantIds.isEmpty()) {
+            return;
+        }
+        logger.info("Storing the metadata of {} mutants.", mutantIds.size());
+
+        int failed = 0;
+        for (int mutantId : mutantIds) {
+            if (Thread.currentThread().isInterrupted()) {
+                logger.info("Stopped storing mutant metadata, the remaining mutants are handled on the next start.");
+                return;
+            }
+            try {
+                // The getters compute the missing values from the mutant and class files
+                Mutant mutant = MutantDAO.getMutantById(mutantId);
+                if (mutant == null || !MutantDAO.updateMutantMetadata(mutant)) {
+                    failed++;
+                }
+            } catch (RuntimeException e) {
+                // e.g. the files of the mutant or its class were removed
+                logger.debug("Failed to store the metadata of mutant {}.", mutantId, e);
+                failed++;
+            }
+        }
+
+        if (failed > 0) {
+            logger.warn("Failed to store the metadata of {} out of {} mutants.", failed, mutantIds.size());
+        } else {
+            logger.info("Stored the metadata of {} mutants.", mutantIds.size());
+        }
+    }
+}
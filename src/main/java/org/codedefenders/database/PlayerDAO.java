@@ -105,8 +105,10 @@ public class PlayerDAO {
     public static int getPlayerIdForUserAndGame(int userId, int gameId) {
         String query = String.join("\n", "SELECT players.ID", "FROM players", "WHERE User_ID = ?", "  AND Game_ID = ?");
         DatabaseValue[] values = new DatabaseValue[] { DatabaseValue.of(userId), DatabaseValue.of(gameId) };
-        final Integer id = DB.executeQueryReturnValue(query, rs -> rs.getInt("ID"), values);
-        return Optional.ofNullable(id).orElse(-1);
+        return LookupCache.getPlayerId(userId, gameId, () -> {
+            final Integer id = DB.executeQueryReturnValue(query, rs -> rs.getInt("ID"), values);
+            return Optional.ofNullable(id).orElse(-1);
+        });
     }
 
     /**
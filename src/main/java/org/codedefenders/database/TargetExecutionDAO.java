@@ -72,9 +72,7 @@ public class TargetExecutionDAO {
         final String query;
         final DatabaseValue[] values;
 
-        final String insertedMessage = targetExecution.message == null ? ""
-                : targetExecution.message.length() <= MESSAGE_LIMIT ? targetExecution.message
-                        : targetExecution.message.substring(0, MESSAGE_LIMIT);
+        final String insertedMessage = truncateMessage(targetExecution.message);
 
         if (targetExecution.hasTest() && targetExecution.hasMutant()) {
             query = "INSERT INTO targetexecutions (Test_ID, Mutant_ID, Target, Status, Message)"
@@ -120,6 +118,43 @@ public class TargetExecutionDAO {
         }
     }
 
+    /**
+     * Stores the given {@link TargetExecution TargetExecutions} in the database using a single batch statement,
+     * and sets their generated identifiers.
+     *
+     * @param targetExecutions the given target executions.
+     * @throws UncheckedSQLException If storing the target executions was not successful.
+     */
+    public static void storeTargetExecutions(List<TargetExecution> targetExecutions) {
+        if (targetExecutions.isEmpty()) {
+            return;
+        }
+
+        final String query = "INSERT INTO targetexecutions (Test_ID, Mutant_ID, Target, Status, Message)"
+                + " VALUES (?, ?, ?, ?, ?);";
+        final DB.DBVExtractor<TargetExecution> dbvExtractor = targetExecution -> new DatabaseValue[] {
+                DatabaseValue.of(targetExecution.hasTest() ? targetExecution.testId : null),
+                DatabaseValue.of(targetExecution.hasMutant() ? targetExecution.mutantId : null),
+                DatabaseValue.of(targetExecution.target.name()),
+                DatabaseValue.of(targetExecution.status.name()),
+                DatabaseValue.of(truncateMessage(targetExecution.message))
+        };
+
+        final List<Integer> ids = DB.executeBatchQueryReturnKeys(query, targetExecutions, dbvExtractor);
+        if (ids.size() != targetExecutions.size()) {
+            throw new UncheckedSQLException("Could not store target executions to database.");
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            targetExecutions.get(i).id = ids.get(i);
+        }
+    }
+
+    private static String truncateMessage(String message) {
+        return message == null ? ""
+                : message.length() <= MESSAGE_LIMIT ? message
+                        : message.substring(0, MESSAGE_LIMIT);
+    }
+
     /**
      * Retrieves the specific {@link TargetExecution} for given test and mutant identifiers.
      *
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Groups the database writes of one logical operation, e.g. processing a submitted test, into a single transaction.
+ *
+ * <p>While a unit of work is active, all {@link DB} helpers of the current thread use the same connection (see
+ * {@link ConnectionScope}) and nothing is committed until {@link #commit()} is called. Writes whose result is not
+ * needed, like incrementing scores or inserting events, can be deferred with
+ * {@link DB#executeDeferrableUpdateQuery(String, DatabaseValue...)}. Deferred writes are executed in the order they
+ * were issued right before the transaction is committed, consecutive writes with the same query as one JDBC batch.
+ * <pre>{@code
+ * try (UnitOfWork work = UnitOfWork.begin()) {
+ *     mutant.kill(ASSUMED_NO);
+ *     test.killMutant();
+ *     work.commit();
+ * }
+ * }</pre>
+ *
+ * <p>If the unit of work is closed without being committed, e.g. because an exception was thrown, all its writes
+ * are rolled back. A write which fails inside a unit of work throws an {@link UncheckedSQLException} instead of
+ * returning {@code false}, and marks the unit of work as failed, so it cannot be committed anymore. Units of work
+ * can be nested; nested units join the outermost unit, which alone commits.
+ *
+ * <p>Code which mirrors the writes in memory, e.g. caches, can register a callback with
+ * {@link #afterCompletion(Consumer)}, which learns whether the writes were committed once the unit of work is closed.
+ *
+ * <p>Only database writes belong into a unit of work. Executing tests or compiling classes inside of it keeps the
+ * connection and the row locks of the transaction for the whole time.
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+    private final ConnectionScope scope;
+    private final List<DeferredWrite> deferredWrites = new ArrayList<>();
+    private final List<Consumer<Boolean>> completionCallbacks = new ArrayList<>();
+    private int depth;
+    private boolean committed;
+    private SQLException failure;
+
+    private UnitOfWork(ConnectionScope scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Begins a unit of work for the current thread, or joins the unit of work which is already active.
+     *
+     * @return The unit of work, which has to be closed once the writes are done.
+     * @throws UncheckedSQLException If no transaction can be started.
+     */
+    public static UnitOfWork begin() throws UncheckedSQLException {
+        UnitOfWork work = current.get();
+        if (work == null) {
+            ConnectionScope scope = ConnectionScope.open();
+            try {
+                scope.beginTransaction();
+            } catch (SQLException e) {
+                scope.close();
+                logger.error("Unable to begin transaction", e);
+                throw new UncheckedSQLException("Unable to begin transaction", e);
+            }
+            work = new UnitOfWork(scope);
+            current.set(work);
+        }
+        work.depth++;
+        return work;
+    }
+
+    /**
+     * Returns whether a unit of work is active for the current thread.
+     */
+    public static boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Adds a write to the active unit of work of the current thread.
+     *
+     * @return {@code true} if the write was deferred, {@code false} if no unit of work is active.
+     */
+    static boolean defer(String query, DatabaseValue... values) {
+        UnitOfWork work = current.get();
+        if (work == null) {
+            return false;
+        }
+        work.deferredWrites.add(new DeferredWrite(query, values));
+        return true;
+    }
+
+    /**
+     * Marks the active unit of work of the current thread as failed, so it is rolled back even if the caller
+     * ignores the exception and tries to commit.
+     *
+     * @param e The exception of the failed write.
+     */
+    static void fail(SQLException e) {
+        UnitOfWork work = current.get();
+        if (work != null && work.failure == null) {
+            work.failure = e;
+        }
+    }
+
+    /**
+     * Registers a callback with the active unit of work of the current thread. The callback is called with
+     * {@code true} once the unit of work committed, or with {@code false} if it was rolled back.
+     *
+     * @return {@code true} if the callback was registered, {@code false} if no unit of work is active.
+     */
+    public static boolean afterCompletion(Consumer<Boolean> callback) {
+        UnitOfWork work = current.get();
+        if (work == null) {
+            return false;
+        }
+        work.completionCallbacks.add(callback);
+        return true;
+    }
+
+    /**
+     * Executes the deferred writes and commits the transaction. Calls from nested units of work are ignored.
+     *
+     * @throws UncheckedSQLException If a write or the commit fails. The transaction is rolled back then.
+     */
+    public void commit() throws UncheckedSQLException {
+        if (depth > 1) {
+            return;
+        }
+        if (failure != null) {
+            throw new UncheckedSQLException("Cannot commit unit of work after a failed write.", failure);
+        }
+        try {
+            Connection conn = scope.getTransactionConnection();
+            int start = 0;
+            while (start < deferredWrites.size()) {
+                String query = deferredWrites.get(start).query;
+                int end = start + 1;
+                while (end < deferredWrites.size() && deferredWrites.get(end).query.equals(query)) {
+                    end++;
+                }
+                executeBatch(conn, query, deferredWrites.subList(start, end));
+                start = end;
+            }
+            deferredWrites.clear();
+            conn.commit();
+            committed = true;
+        } catch (SQLException e) {
+            logger.error("SQL exception while committing unit of work.", e);
+            throw new UncheckedSQLException("SQL exception while committing unit of work.", e);
+        }
+    }
+
+    private static void executeBatch(Connection conn, String query, List<DeferredWrite> batch)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (DeferredWrite write : batch) {
+                for (int position = 0; position < write.values.length; position++) {
+                    DB.assignDatabaseValue(stmt, write.values[position], position + 1);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (--depth > 0) {
+            return;
+        }
+        current.remove();
+        try {
+            if (!committed) {
+                if (!deferredWrites.isEmpty()) {
+                    logger.warn("Unit of work was closed without commit, discarding {} deferred queries.",
+                            deferredWrites.size());
+                }
+                scope.rollbackTransaction();
+            }
+            scope.endTransaction();
+        } catch (SQLException e) {
+            logger.error("Unable to end transaction", e);
+        } finally {
+            scope.close();
+        }
+        for (Consumer<Boolean> callback : completionCallbacks) {
+            try {
+                callback.accept(committed);
+            } catch (RuntimeException e) {
+                logger.error("Exception in completion callback of unit of work.", e);
+            }
+        }
+    }
+
+    private static class DeferredWrite {
+        private final String query;
+        private final DatabaseValue[] values;
+
+        private DeferredWrite(String query, DatabaseValue[] values) {
+            this.query = query;
+            this.values = values;
+        }
+    }
+}
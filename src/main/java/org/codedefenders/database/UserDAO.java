@@ -61,7 +61,8 @@ public class UserDAO {
      */
     public static User getUserById(int userId) throws UncheckedSQLException, SQLMappingException {
         String query = "SELECT * FROM users WHERE User_ID = ?;";
-        return DB.executeQueryReturnValue(query, UserDAO::userFromRS, DatabaseValue.of(userId));
+        return LookupCache.getUser(userId,
+                () -> DB.executeQueryReturnValue(query, UserDAO::userFromRS, DatabaseValue.of(userId)));
     }
 
     /**
@@ -86,7 +87,8 @@ public class UserDAO {
                 "FROM users, players",
                 "WHERE players.User_ID = users.User_ID",
                 "  AND players.ID = ?;");
-        return DB.executeQueryReturnValue(query, UserDAO::userFromRS, DatabaseValue.of(playerId));
+        return LookupCache.getUserForPlayer(playerId,
+                () -> DB.executeQueryReturnValue(query, UserDAO::userFromRS, DatabaseValue.of(playerId)));
     }
 
     /**
@@ -44,6 +44,8 @@ public class AntProcessResult {
     private boolean compiled;
     private boolean hasFailure;
     private boolean hasError;
+    private boolean timedOut;
+    private String timeoutMessage = "";
 
     void setInputStream(BufferedReader reader) {
         StringBuilder isLog = new StringBuilder();
@@ -147,6 +149,28 @@ public class AntProcessResult {
         this.exceptionText = exceptionText;
     }
 
+    /**
+     * Marks the process as killed because it exceeded its time limit.
+     *
+     * @param timeoutMessage Describes the exceeded limit.
+     */
+    void setTimedOut(String timeoutMessage) {
+        this.timedOut = true;
+        this.timeoutMessage = timeoutMessage;
+    }
+
+    /**
+     * Marks the process as killed for another reason than exceeding its time limit, which makes it an error,
+     * no matter what the process reported before.
+     *
+     * @param message Describes why the process was killed.
+     */
+    void setKilled(String message) {
+        this.hasFailure = false;
+        this.hasError = true;
+        this.exceptionText += message + System.lineSeparator();
+    }
+
     boolean compiled() {
         return compiled;
     }
@@ -159,6 +183,14 @@ public class AntProcessResult {
         return hasError;
     }
 
+    boolean timedOut() {
+        return timedOut;
+    }
+
+    String getTimeoutMessage() {
+        return timeoutMessage;
+    }
+
     String getCompilerOutput() {
         return compilerOutput;
     }
@@ -177,6 +209,7 @@ public class AntProcessResult {
                 + "inputStreamText='" + inputStreamText + '\''
                 + ", errorStreamText='" + errorStreamText + '\''
                 + ", exceptionText='" + exceptionText + '\''
+                + ", timedOut=" + timedOut
                 + '}';
     }
 
@@ -26,8 +26,14 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.ManagedBean;
+import javax.enterprise.inject.Typed;
 import javax.inject.Inject;
 
 import org.apache.commons.io.FileUtils;
@@ -51,10 +57,16 @@ import static org.codedefenders.util.Constants.CUTS_DIR;
 import static org.codedefenders.util.Constants.JAVA_CLASS_EXT;
 
 /**
+ * Runs compilations and test executions as Ant targets of the {@code build.xml} in the data directory.
+ *
+ * <p>This bean is not injected as {@link BackendExecutorService} or {@link ClassCompilerService} directly,
+ * the backends are selected by {@link BackendExecutorServiceProducer} and {@link ClassCompilerServiceProducer}.
+ *
  * @author Jose Rojas
  * @author Alessio Gambi (last edit)
  */
 @ManagedBean
+@Typed({AntRunner.class, TestGeneratorService.class, MutantGeneratorService.class})
 public class AntRunner implements //
         BackendExecutorService, //
         ClassCompilerService, //
@@ -63,10 +75,27 @@ public class AntRunner implements //
 
     private static final Logger logger = LoggerFactory.getLogger(AntRunner.class);
 
+    /**
+     * Exit codes of processes killed by {@code SIGXCPU}, the signal sent when a process exceeds its CPU time
+     * limit, and by {@code SIGKILL}. A {@code SIGKILL} can have other causes than the hard CPU time limit
+     * (e.g. the OOM killer), so it does not count as a timeout.
+     */
+    private static final int EXIT_CODE_SIGXCPU = 128 + 24;
+    private static final int EXIT_CODE_SIGKILL = 128 + 9;
+
+    /**
+     * Kills Ant processes which exceed their time limit.
+     */
+    private static final ScheduledExecutorService timeoutWatchdog = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "ant-timeout-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     @Inject
     private Configuration config;
 
-
     /**
      * {@inheritDoc}
      */
@@ -76,14 +105,17 @@ public class AntRunner implements //
         AntProcessResult result = runAntTarget("test-mutant", mutant.getDirectory(), test.getDirectory(),
                 cut, test.getFullyQualifiedClassName());
 
-        // Return true iff test failed
-        return result.hasFailure();
+        // Return true iff test failed or timed out
+        return result.hasFailure() || result.timedOut();
     }
 
     /**
      * {@inheritDoc}
      */
     public TargetExecution testMutant(Mutant mutant, Test test) {
+        if (CancellationToken.isCurrentCancelled()) {
+            return null;
+        }
         logger.info("Running test {} on mutant {}", test.getId(), mutant.getId());
         GameClass cut = GameClassDAO.getClassForGameId(mutant.getGameId());
         if (cut == null) {
@@ -100,10 +132,20 @@ public class AntRunner implements //
         AntProcessResult result = runAntTarget(target, mutant.getDirectory(), test.getDirectory(),
                 cut, test.getFullyQualifiedClassName());
 
+        if (CancellationToken.isCurrentCancelled()) {
+            // The process might have been killed, so the result is meaningless
+            logger.info("Execution of test {} on mutant {} was cancelled", test.getId(), mutant.getId());
+            return null;
+        }
 
         TargetExecution newExec;
 
-        if (result.hasFailure()) {
+        if (result.timedOut()) {
+            // The test did not terminate on the mutant (e.g. the mutant introduced an infinite loop), which
+            // counts as detecting the mutant
+            newExec = new TargetExecution(test.getId(), mutant.getId(), TargetExecution.Target.TEST_MUTANT,
+                    TargetExecution.Status.TIMEOUT, result.getTimeoutMessage());
+        } else if (result.hasFailure()) {
             // The test failed, i.e., it detected the mutant. Store JUnit output as kill message
             String killMessage = result.getJUnitMessage();
             newExec = new TargetExecution(test.getId(), mutant.getId(), TargetExecution.Target.TEST_MUTANT,
@@ -132,7 +174,10 @@ public class AntRunner implements //
 
         TargetExecution newExec;
 
-        if (result.hasFailure()) {
+        if (result.timedOut()) {
+            newExec = new TargetExecution(t.getId(), m.getId(), TargetExecution.Target.TEST_MUTANT,
+                    TargetExecution.Status.TIMEOUT, result.getTimeoutMessage());
+        } else if (result.hasFailure()) {
             // The test failed, i.e., it detected the mutant
             newExec = new TargetExecution(t.getId(), m.getId(), TargetExecution.Target.TEST_MUTANT,
                     TargetExecution.Status.FAIL, null);
@@ -162,8 +207,8 @@ public class AntRunner implements //
         AntProcessResult result = runAntTarget("test-mutant", m.getDirectory(), suiteDir,
                 cut, cut.getName() + Constants.SUITE_EXT);
 
-        // return true if tests pass without failures or errors
-        return !(result.hasError() || result.hasFailure());
+        // return true if tests pass without failures, errors or timeouts
+        return !(result.hasError() || result.hasFailure() || result.timedOut());
     }
 
     /**
@@ -173,8 +218,10 @@ public class AntRunner implements //
         AntProcessResult result = runAntTarget("test-original", null, testDir, cut, testClassName,
                 config.isForceLocalExecution());
 
-        if (result.hasFailure() || result.hasError()) {
-            if (result.hasFailure()) {
+        if (result.hasFailure() || result.hasError() || result.timedOut()) {
+            if (result.timedOut()) {
+                logger.error(result.getTimeoutMessage());
+            } else if (result.hasFailure()) {
                 logger.error(result.getJUnitMessage());
             } else if (result.hasError()) {
                 logger.error(result.getErrorMessage());
@@ -204,7 +251,10 @@ public class AntRunner implements //
         // record test execution
         TargetExecution.Status status;
         String message;
-        if (result.hasFailure()) {
+        if (result.timedOut()) {
+            status = TargetExecution.Status.TIMEOUT;
+            message = result.getTimeoutMessage();
+        } else if (result.hasFailure()) {
             status = TargetExecution.Status.FAIL;
             message = result.getJUnitMessage();
         } else if (result.hasError()) {
@@ -241,7 +291,7 @@ public class AntRunner implements //
             }
         } else {
             // Otherwise the CUT failed to compile
-            String message = result.getCompilerOutput();
+            String message = result.timedOut() ? result.getTimeoutMessage() : result.getCompilerOutput();
             logger.error("Failed to compile uploaded CUT: {}", message);
             throw new CompileException(message);
         }
@@ -279,7 +329,7 @@ public class AntRunner implements //
         } else {
             // The mutant failed to compile
             // New target execution recording failed compile, providing the return messages from the ant javac task
-            String message = result.getCompilerOutput();
+            String message = result.timedOut() ? result.getTimeoutMessage() : result.getCompilerOutput();
             logger.error("Failed to compile mutant {}: {}", javaFile, message);
             int playerId = PlayerDAO.getPlayerIdForUserAndGame(ownerId, gameId);
             newMutant = new Mutant(gameId, cut.getId(), javaFile, null, false, playerId, GameDAO.getCurrentRound(gameId));
@@ -323,7 +373,7 @@ public class AntRunner implements //
         } else {
             // The test failed to compile
             // New target execution recording failed compile, providing the return messages from the ant javac task
-            String message = result.getCompilerOutput();
+            String message = result.timedOut() ? result.getTimeoutMessage() : result.getCompilerOutput();
             logger.error("Failed to compile test {}: {}", javaFile, message);
             Test newTest = new Test(cut.getId(), gameId, javaFile, null, playerId);
             newTest.insert();
@@ -382,6 +432,9 @@ public class AntRunner implements //
         Map<String, String> env = pb.environment();
         List<String> command = new ArrayList<>();
         String cutDir = Paths.get(cut.getJavaFile()).getParent().toString();
+        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("windows");
+        int timeout = getTimeout(target);
+        int cpuTimeout = 0;
 
         /*
          * Clustered execution uses almost the same command than normal
@@ -417,9 +470,16 @@ public class AntRunner implements //
             env.put("CLASSPATH", "lib/hamcrest-all-1.3.jar" + File.pathSeparator + "lib/junit-4.12.jar"
                     + File.pathSeparator + "lib/mockito-all-1.9.5.jar");
 
+            // Limit the CPU time of the processes running tests, the kernel kills them when they exceed it
+            if (isTestTarget(target) && config.getTestCpuTimeout() > 0 && !isWindows) {
+                cpuTimeout = config.getTestCpuTimeout();
+                command.add("prlimit");
+                command.add("--cpu=" + cpuTimeout + ":" + (cpuTimeout + 1));
+            }
+
             String command_ = config.getAntHome() + "/bin/ant";
 
-            if (System.getProperty("os.name").toLowerCase().contains("windows")) {
+            if (isWindows) {
                 command_ += ".bat";
                 command_ = command_.replace("/", "\\").replace("\\", "\\\\");
             }
@@ -466,13 +526,66 @@ public class AntRunner implements //
         logger.info("Executing Ant Command {} from directory {}", pb.command().toString(),
                 config.getDataDir().getAbsolutePath());
 
-        return runAntProcess(pb);
+        return runAntProcess(pb, timeout, cpuTimeout);
     }
 
-    private static AntProcessResult runAntProcess(ProcessBuilder pb) {
+    /**
+     * Returns the wall-clock time limit in seconds of the given target, or {@code 0} for no limit.
+     */
+    private int getTimeout(String target) {
+        switch (target) {
+            case "test-mutant":
+            case "recompiled-test-mutant":
+            case "recompile-test-mutant":
+                return config.getTestMutantTimeout();
+            case "test-original":
+                return config.getTestOriginalTimeout();
+            case "compile-cut":
+            case "compile-mutant":
+            case "compile-test":
+            case "compile-gen-tests":
+                return config.getCompilationTimeout();
+            default:
+                // The generation targets are only run by administrators and may take long
+                return 0;
+        }
+    }
+
+    private static boolean isTestTarget(String target) {
+        return target.equals("test-mutant")
+                || target.equals("recompiled-test-mutant")
+                || target.equals("recompile-test-mutant")
+                || target.equals("test-original");
+    }
+
+    /**
+     * Runs the Ant process and collects its output.
+     *
+     * @param pb         The process to start.
+     * @param timeout    The wall-clock time limit in seconds, after which the process and all processes it started
+     *                   are killed, or {@code 0} for no limit.
+     * @param cpuTimeout The CPU time limit in seconds the process was started with, or {@code 0} for no limit.
+     * @return The result of the process.
+     */
+    private static AntProcessResult runAntProcess(ProcessBuilder pb, int timeout, int cpuTimeout) {
         AntProcessResult res = new AntProcessResult();
+        AtomicBoolean killedByWatchdog = new AtomicBoolean(false);
+        ScheduledFuture<?> watchdog = null;
+        Process p = null;
         try {
-            Process p = pb.start();
+            p = pb.start();
+            CancellationToken.register(p);
+
+            if (timeout > 0) {
+                final Process process = p;
+                watchdog = timeoutWatchdog.schedule(() -> {
+                    if (process.isAlive()) {
+                        logger.warn("Ant process did not finish within {} seconds, killing it", timeout);
+                        killedByWatchdog.set(true);
+                        ProcessTree.destroy(process);
+                    }
+                }, timeout, TimeUnit.SECONDS);
+            }
 
             BufferedReader is = new BufferedReader(new InputStreamReader(p.getInputStream()));
             res.setInputStream(is);
@@ -484,8 +597,26 @@ public class AntRunner implements //
                 esLog.append(line).append(System.lineSeparator());
             }
             res.setErrorStreamText(esLog.toString());
+
+            // The watchdog is still active, so this cannot block forever
+            int exitCode = p.waitFor();
+
+            if (killedByWatchdog.get()) {
+                res.setTimedOut("The execution did not finish within " + timeout + " seconds.");
+            } else if (cpuTimeout > 0 && exitCode == EXIT_CODE_SIGXCPU) {
+                res.setTimedOut("The execution exceeded the CPU time limit of " + cpuTimeout + " seconds.");
+            } else if (exitCode == EXIT_CODE_SIGKILL) {
+                res.setKilled("The execution was killed.");
+            }
         } catch (Exception ex) {
             res.setExceptionText(String.format("Exception: %s%s", ex.toString(), System.lineSeparator()));
+        } finally {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+            if (p != null) {
+                CancellationToken.unregister(p);
+            }
         }
         return res;
     }
@@ -19,6 +19,8 @@
 package org.codedefenders.execution;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.codedefenders.game.GameClass;
 import org.codedefenders.game.Mutant;
@@ -52,12 +54,34 @@ public interface BackendExecutorService {
     /**
      * Executes a test against a mutant.
      *
+     * <p>If the execution is cancelled through the {@link CancellationToken} of the current thread, nothing is
+     * stored and {@code null} is returned.
+     *
      * @param m A {@link Mutant} object
      * @param t A {@link Test} object
-     * @return A {@link TargetExecution} object
+     * @return A {@link TargetExecution} object, or {@code null} if the execution was cancelled.
      */
     TargetExecution testMutant(Mutant m, Test t);
 
+    /**
+     * Executes a test against several mutants.
+     *
+     * <p>Backends which can run a test against many mutants at once (loading the test libraries, the test and
+     * the dependencies of the class under test only once) override this method. By default, the test is executed
+     * against every mutant with {@link #testMutant(Mutant, Test)}.
+     *
+     * @param mutants The {@link Mutant mutants} the test is executed against.
+     * @param test    A {@link Test} object
+     * @return A {@link TargetExecution} object for every mutant, in the order of the given mutants.
+     */
+    default List<TargetExecution> testMutants(List<Mutant> mutants, Test test) {
+        List<TargetExecution> executions = new ArrayList<>();
+        for (Mutant mutant : mutants) {
+            executions.add(testMutant(mutant, test));
+        }
+        return executions;
+    }
+
     /**
      * @param mutant
      * @return
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+
+import org.codedefenders.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Produces the {@link BackendExecutorService} selected by {@link Configuration#getExecutionBackend()}.
+ */
+public class BackendExecutorServiceProducer {
+    private static final Logger logger = LoggerFactory.getLogger(BackendExecutorServiceProducer.class);
+
+    @Inject
+    private Configuration config;
+
+    @Inject
+    private AntRunner antRunner;
+
+    @Produces
+    @ApplicationScoped
+    public BackendExecutorService getBackendExecutorService() {
+        switch (config.getExecutionBackend()) {
+            case Configuration.EXECUTION_BACKEND_IN_PROCESS:
+                logger.info("Using in-process test execution backend");
+                logger.warn("Tests executed by the in-process backend run without a security manager");
+                return new JUnitRunner(antRunner,
+                        new InProcessTestExecutor(config.getLibraryDir(), config.getTestMutantTimeout()));
+            case Configuration.EXECUTION_BACKEND_WORKER_POOL:
+                logger.info("Using worker pool test execution backend");
+                return new JUnitRunner(antRunner, new WorkerPoolTestExecutor(config));
+            case Configuration.EXECUTION_BACKEND_ANT:
+            default:
+                return antRunner;
+        }
+    }
+
+    public void closeBackendExecutorService(@Disposes BackendExecutorService backend) {
+        if (backend instanceof JUnitRunner) {
+            ((JUnitRunner) backend).close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Allows to cancel test executions which are no longer needed, e.g. the remaining executions of a test suite
+ * against a mutant which has already been killed.
+ *
+ * <p>Cancellation is cooperative: a token is bound to the thread running an execution with
+ * {@link #callWith(Callable)}. Backends check {@link #isCurrentCancelled()} before they start an execution and
+ * register the processes they start with {@link #register(Process)}, so {@link #cancel()} can kill them. Results of
+ * cancelled executions are discarded instead of being stored.
+ *
+ * <p>We do not interrupt the threads, since an interrupted execution looks like a test failure (and would kill
+ * the mutant), and interrupting JDBC calls closes the connection.
+ */
+public class CancellationToken {
+    private static final Logger logger = LoggerFactory.getLogger(CancellationToken.class);
+
+    private static final ThreadLocal<CancellationToken> currentToken = new ThreadLocal<>();
+
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+
+    /**
+     * Runs the given callable with this token bound to the current thread.
+     *
+     * @param callable The callable running the execution.
+     * @return The result of the callable.
+     */
+    public <T> T callWith(Callable<T> callable) throws Exception {
+        CancellationToken previousToken = currentToken.get();
+        currentToken.set(this);
+        try {
+            return callable.call();
+        } finally {
+            if (previousToken == null) {
+                currentToken.remove();
+            } else {
+                currentToken.set(previousToken);
+            }
+        }
+    }
+
+    /**
+     * Cancels the executions using this token and kills the processes they are running.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Process process : processes) {
+            destroy(process);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks whether the token bound to the current thread, if any, is cancelled.
+     *
+     * @return {@code true} if the execution running on the current thread has been cancelled.
+     */
+    public static boolean isCurrentCancelled() {
+        CancellationToken token = currentToken.get();
+        return token != null && token.cancelled;
+    }
+
+    /**
+     * Registers a process with the token bound to the current thread, so it is killed when the token is cancelled.
+     * If the token is already cancelled, the process is killed right away.
+     *
+     * @param process The process running an execution.
+     */
+    static void register(Process process) {
+        CancellationToken token = currentToken.get();
+        if (token != null) {
+            token.processes.add(process);
+            if (token.cancelled) {
+                token.destroy(process);
+            }
+        }
+    }
+
+    /**
+     * Unregisters a process which has terminated.
+     *
+     * @param process The process running an execution.
+     */
+    static void unregister(Process process) {
+        CancellationToken token = currentToken.get();
+        if (token != null) {
+            token.processes.remove(process);
+        }
+    }
+
+    private void destroy(Process process) {
+        if (processes.remove(process) && process.isAlive()) {
+            logger.debug("Killing process of cancelled execution");
+            ProcessTree.destroy(process);
+        }
+    }
+}
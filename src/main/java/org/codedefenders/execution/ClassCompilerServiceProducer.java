@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+
+import org.codedefenders.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Produces the {@link ClassCompilerService} selected by {@link Configuration#getCompilationBackend()}.
+ */
+public class ClassCompilerServiceProducer {
+    private static final Logger logger = LoggerFactory.getLogger(ClassCompilerServiceProducer.class);
+
+    @Inject
+    private Configuration config;
+
+    @Inject
+    private AntRunner antRunner;
+
+    @Produces
+    @ApplicationScoped
+    public ClassCompilerService getClassCompilerService() {
+        switch (config.getCompilationBackend()) {
+            case Configuration.COMPILATION_BACKEND_IN_MEMORY:
+                logger.info("Using in-memory compilation backend");
+                return new InMemoryClassCompiler(config, antRunner);
+            case Configuration.COMPILATION_BACKEND_ANT:
+            default:
+                return antRunner;
+        }
+    }
+
+    public void closeClassCompilerService(@Disposes ClassCompilerService compiler) {
+        if (compiler instanceof InMemoryClassCompiler) {
+            ((InMemoryClassCompiler) compiler).close();
+        }
+    }
+}
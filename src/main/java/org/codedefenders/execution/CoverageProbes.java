@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
+import org.jacoco.core.runtime.RuntimeData;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Collects the coverage of classes instrumented by the {@link InProcessTestExecutor}.
+ *
+ * <p>JaCoCo's own runtimes either need a Java agent or communicate through global state (system properties or
+ * loggers), which does not work for several executions running at the same time in one JVM. Instead, every
+ * execution opens a session, and the instrumented classes of the execution fetch their probe arrays from
+ * {@link #getProbes(String, long, String, int)} with the id of their session.
+ *
+ * <p>This class must be public, since it is called by the instrumented classes, which are defined by another class
+ * loader.
+ */
+public final class CoverageProbes {
+    private static final String INTERNAL_NAME = CoverageProbes.class.getName().replace('.', '/');
+
+    private static final Map<String, RuntimeData> sessions = new ConcurrentHashMap<>();
+
+    private CoverageProbes() {
+    }
+
+    /**
+     * Opens a session, which collects the coverage of the classes instrumented with its
+     * {@link #accessorGenerator(String) accessor generator} into the given data.
+     *
+     * @param data Receives the probes of the session.
+     * @return The id of the session.
+     */
+    static String openSession(RuntimeData data) {
+        String sessionId = UUID.randomUUID().toString();
+        sessions.put(sessionId, data);
+        return sessionId;
+    }
+
+    static void closeSession(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Returns a generator for JaCoCo's {@link org.jacoco.core.instr.Instrumenter}, which makes the instrumented
+     * classes fetch their probe arrays from the given session.
+     *
+     * @param sessionId The id of the session.
+     * @return The accessor generator.
+     */
+    static IExecutionDataAccessorGenerator accessorGenerator(String sessionId) {
+        return (classId, className, probeCount, mv) -> {
+            mv.visitLdcInsn(sessionId);
+            mv.visitLdcInsn(classId);
+            mv.visitLdcInsn(className);
+            mv.visitLdcInsn(probeCount);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTERNAL_NAME, "getProbes",
+                    "(Ljava/lang/String;JLjava/lang/String;I)[Z", false);
+            // The long takes two stack slots
+            return 5;
+        };
+    }
+
+    /**
+     * Called by the instrumented classes when they are initialized. Not part of the API.
+     *
+     * @param sessionId  The id of the session the class was instrumented for.
+     * @param classId    The JaCoCo id of the class.
+     * @param className  The VM name of the class.
+     * @param probeCount The number of probes of the class.
+     * @return The probe array of the class.
+     */
+    public static boolean[] getProbes(String sessionId, long classId, String className, int probeCount) {
+        RuntimeData data = sessions.get(sessionId);
+        if (data == null) {
+            // The session is already closed, e.g. because the test started a thread which is still running
+            return new boolean[probeCount];
+        }
+        return data.getExecutionData(classId, className, probeCount).getProbes();
+    }
+}
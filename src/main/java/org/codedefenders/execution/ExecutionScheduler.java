@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules all test executions (submissions, equivalence duel validations and killmaps) on one shared thread pool.
+ *
+ * <p>Tasks are not handed to the thread pool right away. They wait in a queue per {@link Priority} until a thread
+ * is free, and the free thread always takes a task of the highest priority which has tasks waiting. Since long
+ * running background work like killmaps consists of many small tasks, it gives way to interactive submissions
+ * between two of its tasks.
+ *
+ * <p>Within a priority, tasks are grouped (e.g. by game for submissions, by job for killmaps) and the groups take
+ * turns. A game with many submissions therefore cannot starve the submissions of other games.
+ */
+@ApplicationScoped
+public class ExecutionScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionScheduler.class);
+
+    /**
+     * The name of the {@link ThreadPool} executions run on.
+     */
+    public static final String THREAD_POOL_NAME = "execution-scheduler";
+
+    /**
+     * The priority classes of executions, from highest to lowest priority.
+     */
+    public enum Priority {
+        /**
+         * Executions a player is waiting for, e.g. running a new test against the mutants of a game.
+         */
+        INTERACTIVE,
+        /**
+         * Validation of mutants claimed as equivalent.
+         */
+        VALIDATION,
+        /**
+         * Killmap computations in the background.
+         */
+        KILLMAP
+    }
+
+    @Inject
+    @ThreadPool(THREAD_POOL_NAME)
+    private ThreadPoolExecutor executor;
+
+    private final Object lock = new Object();
+    private final Map<Priority, GroupQueue> queues = new EnumMap<>(Priority.class);
+    private int runningTasks = 0;
+
+    ExecutionScheduler() {
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new GroupQueue());
+        }
+    }
+
+    /**
+     * Creates a scheduler with its own thread pool, for use outside of the container.
+     *
+     * @param numThreads The number of threads executions run on.
+     */
+    public ExecutionScheduler(int numThreads) {
+        this();
+        this.executor = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * Returns the number of executions which can run at the same time.
+     *
+     * @return The number of threads of the thread pool.
+     */
+    public int getNumThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param priority The priority of the task.
+     * @param group    The group the task is shared fairly with, e.g. the id of the game.
+     * @param task     The task.
+     */
+    public void execute(Priority priority, Object group, Runnable task) {
+        synchronized (lock) {
+            queues.get(priority).add(group, task);
+        }
+        dispatch();
+    }
+
+    /**
+     * Schedules a task and returns a future for its result. Cancelling the future before the task started removes
+     * the task from the schedule.
+     *
+     * @param priority The priority of the task.
+     * @param group    The group the task is shared fairly with, e.g. the id of the game.
+     * @param task     The task.
+     * @param <T>      The result type of the task.
+     * @return A future for the result of the task.
+     */
+    public <T> Future<T> submit(Priority priority, Object group, Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(priority, group, future);
+        return future;
+    }
+
+    /**
+     * Returns an {@link Executor} which schedules its tasks with the given priority and group.
+     *
+     * @param priority The priority of the tasks.
+     * @param group    The group the tasks are shared fairly with, e.g. the id of the game.
+     * @return An executor scheduling the tasks.
+     */
+    public Executor executorFor(Priority priority, Object group) {
+        return task -> execute(priority, group, task);
+    }
+
+    /**
+     * Returns the number of tasks of the given priority which wait for a free thread.
+     *
+     * @param priority The priority.
+     * @return The number of waiting tasks.
+     */
+    public int getQueuedTasks(Priority priority) {
+        synchronized (lock) {
+            return queues.get(priority).size();
+        }
+    }
+
+    /**
+     * Hands waiting tasks to the thread pool, as long as it has free threads.
+     */
+    private void dispatch() {
+        synchronized (lock) {
+            while (runningTasks < executor.getMaximumPoolSize()) {
+                Runnable task = pollNext();
+                if (task == null) {
+                    return;
+                }
+                runningTasks++;
+                try {
+                    executor.execute(() -> run(task));
+                } catch (RejectedExecutionException e) {
+                    runningTasks--;
+                    logger.error("Execution was rejected by the thread pool", e);
+                    if (task instanceof Future) {
+                        ((Future<?>) task).cancel(false);
+                    }
+                }
+            }
+        }
+    }
+
+    private Runnable pollNext() {
+        for (Priority priority : Priority.values()) {
+            Runnable task = queues.get(priority).poll();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Uncaught exception in execution", e);
+        } finally {
+            synchronized (lock) {
+                runningTasks--;
+            }
+            dispatch();
+        }
+    }
+
+    /**
+     * Queues of tasks per group. The groups are polled round-robin.
+     */
+    static class GroupQueue {
+        private final LinkedHashMap<Object, ArrayDeque<Runnable>> groups = new LinkedHashMap<>();
+        private int size = 0;
+
+        void add(Object group, Runnable task) {
+            groups.computeIfAbsent(group, g -> new ArrayDeque<>()).add(task);
+            size++;
+        }
+
+        /**
+         * Returns the next task of the group whose turn it is, and moves the group to the end of the queue.
+         * Tasks which have been cancelled are dropped.
+         */
+        Runnable poll() {
+            Iterator<Map.Entry<Object, ArrayDeque<Runnable>>> iterator = groups.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Object, ArrayDeque<Runnable>> entry = iterator.next();
+                ArrayDeque<Runnable> tasks = entry.getValue();
+                Runnable task = tasks.poll();
+                while (task != null && isCancelled(task)) {
+                    size--;
+                    task = tasks.poll();
+                }
+                iterator.remove();
+                if (task != null) {
+                    size--;
+                    if (!tasks.isEmpty()) {
+                        groups.put(entry.getKey(), tasks);
+                    }
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private static boolean isCancelled(Runnable task) {
+            return task instanceof Future && ((Future<?>) task).isCancelled();
+        }
+    }
+}
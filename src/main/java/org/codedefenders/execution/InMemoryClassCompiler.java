@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.enterprise.inject.Alternative;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FilenameUtils;
+import org.codedefenders.configuration.Configuration;
+import org.codedefenders.database.GameDAO;
+import org.codedefenders.database.PlayerDAO;
+import org.codedefenders.game.GameClass;
+import org.codedefenders.game.Mutant;
+import org.codedefenders.game.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+
+import static org.codedefenders.util.Constants.CUTS_DEPENDENCY_DIR;
+import static org.codedefenders.util.Constants.JAVA_CLASS_EXT;
+
+/**
+ * A {@link ClassCompilerService} which compiles mutants and tests with the {@link JavaCompiler} of the platform
+ * inside the application JVM, instead of forking Ant's {@code javac} task for every submission.
+ *
+ * <p>Sources are compiled in memory. Only the resulting {@code .class} files are written to the mutant or test
+ * directory, to the same locations the {@code compile-mutant} and {@code compile-test} Ant targets use.
+ * Compiler errors are reported in the format of Ant's {@code javac} task, so the error lines can be highlighted
+ * in the editor as before.
+ *
+ * <p>For every class under test, file managers with the class path of the mutants (testing libraries and
+ * CUT dependencies) and with the class path of the tests (additionally the CUT itself) are cached. These keep
+ * the opened libraries and the class path indexes between compilations. As file managers are not thread-safe, each
+ * compilation borrows a file manager from a small pool, so compilations for the same class still run concurrently.
+ * The pools of at most {@link #MAXIMUM_CACHED_POOLS} classes are kept, and pools which were not used for
+ * {@link #EXPIRE_AFTER_MINUTES} minutes are closed, so classes which are not played anymore do not keep their
+ * libraries open.
+ *
+ * <p>Compiling classes under test and generated test suites is delegated to the {@link AntRunner}.
+ *
+ * <p>We inject instances using {@link ClassCompilerServiceProducer}.
+ */
+@Alternative // This disable the automatic injection so we pass dependencies via the constructor
+public class InMemoryClassCompiler implements ClassCompilerService, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryClassCompiler.class);
+
+    /**
+     * Same options as the {@code javac} tasks in {@code build.xml}.
+     */
+    private static final List<String> COMPILER_OPTIONS = Arrays.asList(
+            "-encoding", "UTF-8",
+            "-source", "1.8",
+            "-target", "1.8",
+            "-g",
+            "-nowarn");
+
+    private static final int MAXIMUM_CACHED_POOLS = 40;
+    private static final int EXPIRE_AFTER_MINUTES = 30;
+
+    /**
+     * The maximum number of idle file managers kept per pool.
+     */
+    private static final int MAXIMUM_IDLE_FILE_MANAGERS = 4;
+
+    private final File libraryDir;
+    private final AntRunner antRunner;
+    private final JavaCompiler compiler;
+
+    /**
+     * Cached file manager pools, keyed by CUT id and whether they are used for mutants or tests.
+     */
+    private final Cache<String, FileManagerPool> fileManagers = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_CACHED_POOLS)
+            .expireAfterAccess(EXPIRE_AFTER_MINUTES, TimeUnit.MINUTES)
+            .removalListener((RemovalListener<String, FileManagerPool>) removal -> removal.getValue().close())
+            .build();
+
+    public InMemoryClassCompiler(Configuration config, AntRunner antRunner) {
+        this(config.getLibraryDir(), antRunner);
+    }
+
+    InMemoryClassCompiler(File libraryDir, AntRunner antRunner) {
+        this.libraryDir = libraryDir;
+        this.antRunner = antRunner;
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Platform provided no java compiler.");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mutant compileMutant(File dir, String javaFile, int gameId, GameClass cut, int ownerId) {
+        CompilationResult result = compile(cut, false, new File(javaFile), dir);
+
+        int playerId = PlayerDAO.getPlayerIdForUserAndGame(ownerId, gameId);
+        Mutant newMutant;
+        if (result.classFile != null) {
+            logger.info("Compiled mutant {}", javaFile);
+            newMutant = new Mutant(gameId, cut.getId(), javaFile, result.classFile.getAbsolutePath(), true, playerId,
+                    GameDAO.getCurrentRound(gameId));
+            newMutant.insert();
+            TargetExecution newExec = new TargetExecution(0, newMutant.getId(),
+                    TargetExecution.Target.COMPILE_MUTANT, TargetExecution.Status.SUCCESS, null);
+            newExec.insert();
+        } else {
+            logger.error("Failed to compile mutant {}: {}", javaFile, result.compilerOutput);
+            newMutant = new Mutant(gameId, cut.getId(), javaFile, null, false, playerId,
+                    GameDAO.getCurrentRound(gameId));
+            newMutant.insert();
+            TargetExecution newExec = new TargetExecution(0, newMutant.getId(),
+                    TargetExecution.Target.COMPILE_MUTANT, TargetExecution.Status.FAIL, result.compilerOutput);
+            newExec.insert();
+        }
+        return newMutant;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Test compileTest(File dir, String javaFile, int gameId, GameClass cut, int ownerId) {
+        CompilationResult result = compile(cut, true, new File(javaFile), dir);
+
+        int playerId = PlayerDAO.getPlayerIdForUserAndGame(ownerId, gameId);
+        if (result.classFile != null) {
+            logger.info("Compiled test {}", javaFile);
+            Test newTest = new Test(cut.getId(), gameId, javaFile, result.classFile.getAbsolutePath(), playerId);
+            boolean inserted = newTest.insert();
+            assert (inserted);
+            TargetExecution newExec = new TargetExecution(newTest.getId(), 0,
+                    TargetExecution.Target.COMPILE_TEST, TargetExecution.Status.SUCCESS, null);
+            newExec.insert();
+            return newTest;
+        } else {
+            logger.error("Failed to compile test {}: {}", javaFile, result.compilerOutput);
+            Test newTest = new Test(cut.getId(), gameId, javaFile, null, playerId);
+            newTest.insert();
+            TargetExecution newExec = new TargetExecution(newTest.getId(), 0,
+                    TargetExecution.Target.COMPILE_TEST, TargetExecution.Status.FAIL, result.compilerOutput);
+            newExec.insert();
+            return newTest;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String compileCUT(GameClass cut) throws CompileException {
+        return antRunner.compileCUT(cut);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean compileGenTestSuite(GameClass cut) {
+        return antRunner.compileGenTestSuite(cut);
+    }
+
+    /**
+     * Compiles a single java file in memory and writes the resulting class files to the output directory.
+     *
+     * @param cut     The class under test.
+     * @param forTest {@code true} to compile with the class path of tests, {@code false} with the one of mutants.
+     */
+    CompilationResult compile(GameClass cut, boolean forTest, File javaFile, File outputDir) {
+        StringWriter compilerOutput = new StringWriter();
+        Map<String, byte[]> classFiles;
+
+        FileManagerPool pool = getFileManagerPool(cut, forTest);
+        StandardJavaFileManager fileManager = pool.acquire();
+        try {
+            InMemoryOutputFileManager outputFileManager = new InMemoryOutputFileManager(fileManager);
+            Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjects(javaFile);
+
+            Boolean success = compiler.getTask(compilerOutput, outputFileManager, null, COMPILER_OPTIONS,
+                    null, compilationUnits).call();
+            if (!success) {
+                return CompilationResult.failure(formatCompilerOutput(compilerOutput.toString(), javaFile));
+            }
+            classFiles = outputFileManager.getClassFiles();
+        } finally {
+            pool.release(fileManager);
+        }
+
+        // The class named like the java file, e.g. 'org.example.Lift' for 'Lift.java'
+        String baseName = FilenameUtils.getBaseName(javaFile.getName());
+        File classFile = null;
+        try {
+            for (Map.Entry<String, byte[]> entry : classFiles.entrySet()) {
+                String className = entry.getKey();
+                File file = new File(outputDir, className.replace('.', File.separatorChar) + JAVA_CLASS_EXT);
+                Files.createDirectories(file.getParentFile().toPath());
+                Files.write(file.toPath(), entry.getValue());
+
+                if (className.equals(baseName) || className.endsWith("." + baseName)) {
+                    classFile = file;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Could not write class files of {}", javaFile, e);
+            return CompilationResult.failure("[javac] Could not write the compiled class files.");
+        }
+
+        if (classFile == null) {
+            return CompilationResult.failure("[javac] No class named " + baseName + " found in "
+                    + javaFile.getName() + ".");
+        }
+        return CompilationResult.success(classFile);
+    }
+
+    /**
+     * Formats the compiler output like the output of Ant's {@code javac} task after
+     * {@link AntProcessResult#getCompilerOutput()}, i.e. with every line prefixed by {@code [javac]} and without
+     * the directory of the compiled file.
+     */
+    static String formatCompilerOutput(String compilerOutput, File javaFile) {
+        String sourceDir = javaFile.getAbsoluteFile().getParent() + File.separator;
+        StringBuilder formatted = new StringBuilder();
+        for (String line : compilerOutput.split("\\r?\\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            formatted.append("[javac] ").append(line.replace(sourceDir, "")).append("\n");
+        }
+        return formatted.toString();
+    }
+
+    /**
+     * Returns the cached file manager pool for the given CUT, creating it if necessary.
+     *
+     * @param cut     The class under test.
+     * @param forTest {@code true} to get the file managers for tests, which also have the CUT on their class path,
+     *                {@code false} to get the file managers for mutants.
+     */
+    private FileManagerPool getFileManagerPool(GameClass cut, boolean forTest) {
+        String key = cut.getId() + (forTest ? ":test" : ":mutant");
+        return fileManagers.asMap().computeIfAbsent(key,
+                k -> new FileManagerPool(() -> createFileManager(cut, forTest)));
+    }
+
+    private StandardJavaFileManager createFileManager(GameClass cut, boolean forTest) {
+        File cutDir = Paths.get(cut.getJavaFile()).getParent().toFile();
+
+        // Same class paths as 'nocut.cp' and 'test.cp' in build.xml
+        List<File> classPath = new ArrayList<>();
+        for (String library : InProcessTestExecutor.TEST_LIBRARIES) {
+            classPath.add(new File(libraryDir, library));
+        }
+        if (forTest) {
+            classPath.add(cutDir);
+        }
+        classPath.add(new File(cutDir, CUTS_DEPENDENCY_DIR));
+        classPath.removeIf(file -> !file.exists());
+
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        try {
+            fileManager.setLocation(StandardLocation.CLASS_PATH, classPath);
+            // The CUT directory contains the CUT sources, which must not be compiled again
+            fileManager.setLocation(StandardLocation.SOURCE_PATH, Collections.emptyList());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not set up class path for class " + cut.getId(), e);
+        }
+        logger.debug("Created {} compilation context for class {}", forTest ? "test" : "mutant", cut.getId());
+        return fileManager;
+    }
+
+    @Override
+    public void close() {
+        // Closes the pools through the removal listener
+        fileManagers.invalidateAll();
+    }
+
+    private static void closeFileManager(StandardJavaFileManager fileManager) {
+        try {
+            fileManager.close();
+        } catch (IOException e) {
+            logger.warn("Could not close file manager", e);
+        }
+    }
+
+    static class CompilationResult {
+        private final File classFile;
+        private final String compilerOutput;
+
+        private CompilationResult(File classFile, String compilerOutput) {
+            this.classFile = classFile;
+            this.compilerOutput = compilerOutput;
+        }
+
+        static CompilationResult success(File classFile) {
+            return new CompilationResult(classFile, null);
+        }
+
+        static CompilationResult failure(String compilerOutput) {
+            return new CompilationResult(null, compilerOutput);
+        }
+
+        /**
+         * Returns the class file named like the compiled java file, or {@code null} if the compilation failed.
+         */
+        File getClassFile() {
+            return classFile;
+        }
+
+        /**
+         * Returns the compiler output in the format of Ant's {@code javac} task, or {@code null} if the compilation
+         * succeeded.
+         */
+        String getCompilerOutput() {
+            return compilerOutput;
+        }
+    }
+
+    /**
+     * File managers with the same class path, each of which is used by one compilation at a time. A file manager
+     * is created if no idle one is available, and at most {@link #MAXIMUM_IDLE_FILE_MANAGERS} are kept after use.
+     */
+    private static class FileManagerPool {
+        private final Supplier<StandardJavaFileManager> factory;
+        private final Deque<StandardJavaFileManager> idle = new ArrayDeque<>();
+        private boolean closed = false;
+
+        FileManagerPool(Supplier<StandardJavaFileManager> factory) {
+            this.factory = factory;
+        }
+
+        StandardJavaFileManager acquire() {
+            synchronized (this) {
+                StandardJavaFileManager fileManager = idle.pollFirst();
+                if (fileManager != null) {
+                    return fileManager;
+                }
+            }
+            return factory.get();
+        }
+
+        void release(StandardJavaFileManager fileManager) {
+            synchronized (this) {
+                if (!closed && idle.size() < MAXIMUM_IDLE_FILE_MANAGERS) {
+                    idle.addFirst(fileManager);
+                    return;
+                }
+            }
+            closeFileManager(fileManager);
+        }
+
+        /**
+         * Closes the idle file managers. File managers which are in use are closed when they are released.
+         */
+        void close() {
+            List<StandardJavaFileManager> fileManagers;
+            synchronized (this) {
+                closed = true;
+                fileManagers = new ArrayList<>(idle);
+                idle.clear();
+            }
+            fileManagers.forEach(InMemoryClassCompiler::closeFileManager);
+        }
+    }
+
+    /**
+     * Keeps the class files generated by the compiler in memory, and delegates everything else to the cached
+     * file manager of the CUT.
+     */
+    private static class InMemoryOutputFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> classFiles = new LinkedHashMap<>();
+
+        InMemoryOutputFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            URI uri = URI.create("mem:///" + className.replace('.', '/') + kind.extension);
+            return new SimpleJavaFileObject(uri, kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+                    classFiles.put(className, classFile);
+                    return classFile;
+                }
+            };
+        }
+
+        Map<String, byte[]> getClassFiles() {
+            Map<String, byte[]> result = new LinkedHashMap<>();
+            for (Map.Entry<String, ByteArrayOutputStream> entry : classFiles.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().toByteArray());
+            }
+            return result;
+        }
+
+        @Override
+        public void close() {
+            // The wrapped file manager is pooled, so it must stay open
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.RuntimeData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes JUnit tests inside the current JVM.
+ *
+ * <p>The testing libraries (JUnit, Hamcrest, Mockito, ...) are loaded once into a shared class loader.
+ * Every execution gets its own child class loader on top of it, which contains the given class path
+ * entries in the given order (e.g. the mutant, the CUT dependencies and the test). This keeps the static
+ * state of different mutants apart, while JUnit itself is loaded only once.
+ *
+ * <p>JUnit is not a runtime dependency of Code Defenders, so it is accessed reflectively from the libraries
+ * found in the data directory. The results are reported like Ant's plain JUnit formatter does, so messages
+ * look the same independently of the backend that produced them. As with Ant, the execution fails if any test
+ * fails an assertion, and is in error if tests only fail with other exceptions. To report the run time of each
+ * test case like Ant, the test methods are run one after another.
+ *
+ * <p>Coverage is collected by instrumenting the class under test with JaCoCo while it is loaded into the child
+ * class loader, see {@link CoverageProbes}. No agent or execution data file is needed.
+ *
+ * <p>If a timeout is given, every execution runs on its own daemon thread. An execution which does not finish in
+ * time, e.g. because a mutant loops forever, is stopped and reported as a timeout, so it cannot block the calling
+ * thread. Note that tests executed by this class run without a security manager.
+ */
+public class InProcessTestExecutor implements TestExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(InProcessTestExecutor.class);
+
+    /**
+     * The libraries of the {@code nocut.cp} class path in {@code build.xml}.
+     */
+    static final String[] TEST_LIBRARIES = {
+        "hamcrest-all-1.3.jar",
+        "junit-4.12.jar",
+        "junit-jupiter-api-5.5.2.jar",
+        "junit-jupiter-engine-5.5.2.jar",
+        "junit-platform-commons-1.5.2.jar",
+        "junit-platform-engine-1.5.2.jar",
+        "junit-platform-launcher-1.5.2.jar",
+        "junit-vintage-engine-5.5.2.jar",
+        "mockito-all-1.9.5.jar",
+        "opentest4j-1.2.0.jar",
+        "truth-1.0.1.jar",
+        "guava-29.0-android.jar",
+        "truth-java8-extension-1.0.1.jar",
+        "major/config/config.jar"
+    };
+
+    /**
+     * Stack trace elements which are removed from reported traces, as Ant's JUnit task does.
+     */
+    private static final String[] FILTERED_TRACE_ELEMENTS = {
+        "junit.framework.TestCase",
+        "junit.framework.TestResult",
+        "junit.framework.TestSuite",
+        "junit.framework.Assert.",
+        "java.lang.reflect.Method.invoke(",
+        "sun.reflect.",
+        "org.junit.",
+        "org.codedefenders.",
+        " more"
+    };
+
+    /**
+     * How long to wait for a stopped execution thread to terminate.
+     */
+    private static final long STOP_WAIT_MILLIS = 1000;
+
+    private final URLClassLoader libraryClassLoader;
+    private final int timeoutSeconds;
+
+    /**
+     * Creates a new executor for the testing libraries in the given directory.
+     *
+     * @param libraryDir     The directory containing the testing libraries.
+     * @param timeoutSeconds The timeout of a single execution in seconds, or {@code 0} to run executions on the
+     *                       calling thread without a timeout.
+     */
+    public InProcessTestExecutor(File libraryDir, int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+        List<URL> urls = new ArrayList<>();
+        for (String library : TEST_LIBRARIES) {
+            File jar = new File(libraryDir, library);
+            if (jar.isFile()) {
+                urls.add(toURL(jar));
+            } else {
+                logger.warn("Test library {} is missing.", jar);
+            }
+        }
+        // Tests must not see the classes of Code Defenders, so skip the application class loader
+        ClassLoader parent = ClassLoader.getSystemClassLoader().getParent();
+        this.libraryClassLoader = new URLClassLoader(urls.toArray(new URL[0]), parent);
+    }
+
+    @Override
+    public TestExecutionResult execute(List<File> classPath, String testClassName) {
+        URL[] urls = toURLs(classPath);
+        return run(new URLClassLoader(urls, libraryClassLoader), testClassName);
+    }
+
+    @Override
+    public TestExecutionResult executeWithCoverage(List<File> classPath, String testClassName, String cutName) {
+        RuntimeData data = new RuntimeData();
+        String sessionId = CoverageProbes.openSession(data);
+        try {
+            Instrumenter instrumenter = new Instrumenter(CoverageProbes.accessorGenerator(sessionId));
+            URL[] urls = toURLs(classPath);
+            TestExecutionResult result = run(
+                    new InstrumentingClassLoader(urls, libraryClassLoader, cutName, instrumenter), testClassName);
+            if (result == null || result.getStatus() == TargetExecution.Status.TIMEOUT) {
+                // Like the worker pool, no coverage is reported for executions which did not finish
+                return result;
+            }
+
+            ExecutionDataStore store = new ExecutionDataStore();
+            data.collect(store, info -> { }, false);
+            Map<Long, boolean[]> coverage = new HashMap<>();
+            for (ExecutionData executionData : store.getContents()) {
+                coverage.put(executionData.getId(), executionData.getProbes());
+            }
+            return result.withCoverage(coverage);
+        } finally {
+            CoverageProbes.closeSession(sessionId);
+        }
+    }
+
+    /**
+     * Runs the test class with the given class loader, and closes the class loader afterwards.
+     *
+     * @return The result of the execution, or {@code null} if the calling thread was interrupted.
+     */
+    private TestExecutionResult run(URLClassLoader classLoader, String testClassName) {
+        try (URLClassLoader testClassLoader = classLoader) {
+            return timeoutSeconds > 0
+                    ? runWithTimeout(testClassLoader, testClassName)
+                    : runTestClass(testClassLoader, testClassName);
+        } catch (IOException e) {
+            logger.error("Could not run test class {}", testClassName, e);
+            return TestExecutionResult.error(e.toString());
+        }
+    }
+
+    /**
+     * Runs the test class on a new daemon thread, and stops the thread if it does not finish within the timeout.
+     */
+    private TestExecutionResult runWithTimeout(ClassLoader testClassLoader, String testClassName) {
+        AtomicReference<TestExecutionResult> result = new AtomicReference<>();
+        Thread thread = new Thread(() -> result.set(runTestClass(testClassLoader, testClassName)),
+                "InProcessTestExecutor-" + testClassName);
+        thread.setDaemon(true);
+        thread.start();
+
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(timeoutSeconds));
+        } catch (InterruptedException e) {
+            stop(thread, testClassName);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        if (thread.isAlive()) {
+            logger.warn("Test class {} did not finish within {} seconds, stopping it.", testClassName,
+                    timeoutSeconds);
+            stop(thread, testClassName);
+            return TestExecutionResult.timeout("The test did not finish within " + timeoutSeconds + " seconds.");
+        }
+        if (result.get() == null) {
+            // The thread was terminated by an exception, which was logged by the default handler
+            return TestExecutionResult.error("The test execution terminated unexpectedly.");
+        }
+        return result.get();
+    }
+
+    /**
+     * Stops a thread running a test. This is unsafe in general, but the thread only runs test code with its own
+     * class loader, so no state shared with Code Defenders can be left inconsistent.
+     */
+    @SuppressWarnings("deprecation")
+    private static void stop(Thread thread, String testClassName) {
+        thread.interrupt();
+        thread.stop();
+        try {
+            thread.join(STOP_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            logger.error("Could not stop execution of test class {}, abandoning its thread.", testClassName);
+        }
+    }
+
+    private TestExecutionResult runTestClass(ClassLoader testClassLoader, String testClassName) {
+        Thread currentThread = Thread.currentThread();
+        ClassLoader previousContextClassLoader = currentThread.getContextClassLoader();
+        try {
+            currentThread.setContextClassLoader(testClassLoader);
+
+            Class<?> testClass = Class.forName(testClassName, true, testClassLoader);
+            return runTestCases(testClass);
+        } catch (ClassNotFoundException | LinkageError e) {
+            logger.warn("Could not load test class {}", testClassName, e);
+            return TestExecutionResult.error(e.toString());
+        } catch (InvocationTargetException e) {
+            logger.error("JUnit failed while running test class {}", testClassName, e.getCause());
+            return TestExecutionResult.error(e.getCause().toString());
+        } catch (ReflectiveOperationException e) {
+            logger.error("Could not run test class {}", testClassName, e);
+            return TestExecutionResult.error(e.toString());
+        } finally {
+            currentThread.setContextClassLoader(previousContextClassLoader);
+        }
+    }
+
+    /**
+     * Runs the test methods of the given class one by one and reports them like Ant's plain formatter.
+     */
+    private TestExecutionResult runTestCases(Class<?> testClass) throws ReflectiveOperationException {
+        Class<?> requestClass = Class.forName("org.junit.runner.Request", true, libraryClassLoader);
+        Class<?> jUnitCoreClass = Class.forName("org.junit.runner.JUnitCore", true, libraryClassLoader);
+        Method classRequest = requestClass.getMethod("aClass", Class.class);
+        Method methodRequest = requestClass.getMethod("method", Class.class, String.class);
+        Method run = jUnitCoreClass.getMethod("run", requestClass);
+        Object jUnitCore = jUnitCoreClass.getConstructor().newInstance();
+
+        Object runner = requestClass.getMethod("getRunner").invoke(classRequest.invoke(null, testClass));
+        Object description = runner.getClass().getMethod("getDescription").invoke(runner);
+        List<?> children = (List<?>) description.getClass().getMethod("getChildren").invoke(description);
+
+        List<Object> requests = new ArrayList<>();
+        for (Object child : children) {
+            String methodName = (String) child.getClass().getMethod("getMethodName").invoke(child);
+            if (methodName == null) {
+                // Not a plain test class (e.g. a suite), which can only be run as a whole
+                requests.clear();
+                requests.add(classRequest.invoke(null, testClass));
+                break;
+            }
+            requests.add(methodRequest.invoke(null, testClass, methodName));
+        }
+
+        boolean hasFailure = false;
+        boolean hasError = false;
+        StringBuilder message = new StringBuilder();
+        for (Object request : requests) {
+            Object result = run.invoke(jUnitCore, request);
+            Class<?> resultClass = result.getClass();
+            long runTime = (Long) resultClass.getMethod("getRunTime").invoke(result);
+            List<?> failures = (List<?>) resultClass.getMethod("getFailures").invoke(result);
+
+            for (Object failure : failures) {
+                Class<?> failureClass = failure.getClass();
+                Throwable exception = (Throwable) failureClass.getMethod("getException").invoke(failure);
+                Object failed = failureClass.getMethod("getDescription").invoke(failure);
+                String methodName = (String) failed.getClass().getMethod("getMethodName").invoke(failed);
+
+                // Like Ant, only assertion errors count as failures, everything else is an error
+                boolean isFailure = exception instanceof AssertionError;
+                hasFailure |= isFailure;
+                hasError |= !isFailure;
+
+                message.append("[junit] Testcase: ").append(methodName)
+                        .append(" took ").append(NumberFormat.getInstance().format(runTime / 1000.0))
+                        .append(" sec").append("\n");
+                message.append("[junit] ").append(isFailure ? "FAILED" : "Caused an ERROR").append("\n");
+                message.append("[junit] ").append(exception.getMessage()).append("\n");
+                appendFilteredTrace(message, exception);
+            }
+        }
+
+        // Ant reports a failure even if other tests are in error, see AntRunner#testMutant
+        if (hasFailure) {
+            return TestExecutionResult.failure(message.toString());
+        } else if (hasError) {
+            return TestExecutionResult.error(message.toString());
+        } else {
+            return TestExecutionResult.success();
+        }
+    }
+
+    private static void appendFilteredTrace(StringBuilder message, Throwable exception) {
+        message.append("[junit] ").append(exception.toString()).append("\n");
+        for (StackTraceElement element : exception.getStackTrace()) {
+            String line = "at " + element.toString();
+            boolean filtered = false;
+            for (String filter : FILTERED_TRACE_ELEMENTS) {
+                if (line.contains(filter)) {
+                    filtered = true;
+                    break;
+                }
+            }
+            if (!filtered) {
+                message.append("[junit] ").append(line).append("\n");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            libraryClassLoader.close();
+        } catch (IOException e) {
+            logger.warn("Could not close test library class loader", e);
+        }
+    }
+
+    private static URL[] toURLs(List<File> classPath) {
+        List<URL> urls = new ArrayList<>();
+        for (File entry : classPath) {
+            if (entry != null && entry.exists()) {
+                urls.add(toURL(entry));
+            }
+        }
+        return urls.toArray(new URL[0]);
+    }
+
+    private static URL toURL(File file) {
+        try {
+            return file.toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid class path entry " + file, e);
+        }
+    }
+
+    /**
+     * Loads the class under test and its inner classes instrumented for coverage, and everything else as is.
+     */
+    private static class InstrumentingClassLoader extends URLClassLoader {
+        private final String cutName;
+        private final Instrumenter instrumenter;
+
+        InstrumentingClassLoader(URL[] urls, ClassLoader parent, String cutName, Instrumenter instrumenter) {
+            super(urls, parent);
+            this.cutName = cutName;
+            this.instrumenter = instrumenter;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            // The instrumented classes call CoverageProbes, which is not visible from the test libraries
+            if (name.equals(CoverageProbes.class.getName())) {
+                return CoverageProbes.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!name.equals(cutName) && !name.startsWith(cutName + "$")) {
+                return super.findClass(name);
+            }
+            String resourceName = name.replace('.', '/') + ".class";
+            URL resource = findResource(resourceName);
+            if (resource == null) {
+                throw new ClassNotFoundException(name);
+            }
+            try (InputStream in = resource.openStream()) {
+                byte[] instrumented = instrumenter.instrument(readFully(in), name);
+                CodeSource codeSource = new CodeSource(getCodeSourceLocation(resource, resourceName),
+                        (Certificate[]) null);
+                return defineClass(name, instrumented, 0, instrumented.length, codeSource);
+            } catch (IOException e) {
+                throw new ClassNotFoundException("Could not instrument class " + name, e);
+            }
+        }
+
+        // Commons IO is not on the class path of the test workers
+        private static byte[] readFully(InputStream in) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * Returns the class path entry of the given resource, like {@link URLClassLoader} does for the classes
+         * it defines itself.
+         */
+        private URL getCodeSourceLocation(URL resource, String resourceName) {
+            String url = resource.toString();
+            for (URL entry : getURLs()) {
+                if (url.equals(entry.toString() + resourceName)) {
+                    return entry;
+                }
+            }
+            return resource;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.enterprise.inject.Alternative;
+
+import org.codedefenders.database.BatchWriter;
+import org.codedefenders.database.GameClassDAO;
+import org.codedefenders.database.TargetExecutionDAO;
+import org.codedefenders.game.GameClass;
+import org.codedefenders.game.LineCoverage;
+import org.codedefenders.game.Mutant;
+import org.codedefenders.game.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.codedefenders.util.Constants.CUTS_DEPENDENCY_DIR;
+
+/**
+ * A {@link BackendExecutorService} which runs tests against mutants directly with JUnit through a
+ * {@link TestExecutor}, instead of forking an Ant process for every execution.
+ *
+ * <p>Tests of newly submitted tests against the original CUT collect their line coverage in memory, see
+ * {@link TestExecutor#executeWithCoverage(List, String, String)}. Executions which require a compilation step
+ * (mutants which require the test to be recompiled and checking for potential equivalence with the generated
+ * test suite) and validating tests of uploaded classes are delegated to the {@link AntRunner}.
+ *
+ * <p>Whether tests are sandboxed depends on the {@link TestExecutor}: the {@link InProcessTestExecutor} runs tests
+ * inside the application JVM without a security manager, the {@link WorkerPoolTestExecutor} runs them in
+ * warm worker JVMs with the security policy of the data directory.
+ *
+ * <p>We inject instances using {@link BackendExecutorServiceProducer}.
+ */
+@Alternative // This disable the automatic injection so we pass dependencies via the constructor
+public class JUnitRunner implements BackendExecutorService, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(JUnitRunner.class);
+
+    /**
+     * The target executions of a batch are written to the database in batches of this size.
+     */
+    private static final int WRITE_BATCH_SIZE = 100;
+    private static final long WRITE_MAX_DELAY_MILLIS = 5000;
+
+    private final AntRunner antRunner;
+    private final TestExecutor executor;
+
+    public JUnitRunner(AntRunner antRunner, TestExecutor executor) {
+        this.antRunner = antRunner;
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void testOriginal(GameClass cut, String testDir, String testClassName) throws Exception {
+        antRunner.testOriginal(cut, testDir, testClassName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TargetExecution testOriginal(File dir, Test test) {
+        GameClass cut = GameClassDAO.getClassForGameId(test.getGameId());
+        File cutDir = Paths.get(cut.getJavaFile()).getParent().toFile();
+        // Same order as the 'test-original' target
+        List<File> classPath = Arrays.asList(cutDir, new File(cutDir, CUTS_DEPENDENCY_DIR), dir);
+
+        logger.info("Running test {} on the original class with JUnit", test.getId());
+        TestExecutionResult result = executor.executeWithCoverage(classPath, test.getFullyQualifiedClassName(),
+                cut.getName());
+
+        // add coverage information, which is missing if the worker running the test was killed
+        test.setLineCoverage(result.getCoverage() == null
+                ? new LineCoverage()
+                : LineCoverageGenerator.generate(cut, result.getCoverage()));
+        test.update();
+
+        // record test execution
+        TargetExecution testExecution = new TargetExecution(test.getId(), 0,
+                TargetExecution.Target.TEST_ORIGINAL, result.getStatus(), result.getMessage());
+        testExecution.insert();
+        return testExecution;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TargetExecution testMutant(Mutant mutant, Test test) {
+        if (mutant.doesRequireRecompilation()) {
+            return antRunner.testMutant(mutant, test);
+        }
+        if (CancellationToken.isCurrentCancelled()) {
+            return null;
+        }
+        logger.info("Running test {} on mutant {} with JUnit", test.getId(), mutant.getId());
+
+        TestExecutionResult result = runTestOnMutant(mutant, test);
+        if (CancellationToken.isCurrentCancelled()) {
+            // The worker running the test might have been killed, so the result is meaningless
+            return null;
+        }
+
+        TargetExecution newExec = new TargetExecution(test.getId(), mutant.getId(),
+                TargetExecution.Target.TEST_MUTANT, result.getStatus(), result.getMessage());
+        newExec.insert();
+        return newExec;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The test is executed against all mutants which do not require a recompilation in a single batch of the
+     * {@link TestExecutor}.
+     */
+    @Override
+    public List<TargetExecution> testMutants(List<Mutant> mutants, Test test) {
+        Map<Integer, TargetExecution> executions = new HashMap<>();
+        List<Mutant> batch = new ArrayList<>();
+        List<List<File>> classPaths = new ArrayList<>();
+        File dependencyDir = null;
+        for (Mutant mutant : mutants) {
+            if (mutant.doesRequireRecompilation()) {
+                executions.put(mutant.getId(), antRunner.testMutant(mutant, test));
+            } else {
+                if (dependencyDir == null) {
+                    dependencyDir = getDependencyDir(mutant);
+                }
+                batch.add(mutant);
+                classPaths.add(getClassPath(mutant, test, dependencyDir));
+            }
+        }
+        logger.info("Running test {} on {} mutants with JUnit", test.getId(), batch.size());
+
+        Iterator<Mutant> batchMutants = batch.iterator();
+        // Executions which could not be stored are dropped, so they neither kill mutants nor block a retest
+        try (BatchWriter<TargetExecution> writer = new BatchWriter<>("target executions", WRITE_BATCH_SIZE,
+                WRITE_MAX_DELAY_MILLIS, TargetExecutionDAO::storeTargetExecutions,
+                failed -> failed.forEach(execution -> executions.remove(execution.mutantId)))) {
+            executor.executeBatch(classPaths, test.getFullyQualifiedClassName(), result -> {
+                Mutant mutant = batchMutants.next();
+                if (result == null || CancellationToken.isCurrentCancelled()) {
+                    // The test did not run, or the worker running it might have been killed. Without an
+                    // execution, the mutant is tested again later, like with testMutant
+                    return;
+                }
+                TargetExecution newExec = new TargetExecution(test.getId(), mutant.getId(),
+                        TargetExecution.Target.TEST_MUTANT, result.getStatus(), result.getMessage());
+                executions.put(mutant.getId(), newExec);
+                writer.add(newExec);
+            });
+        }
+
+        List<TargetExecution> orderedExecutions = new ArrayList<>();
+        for (Mutant mutant : mutants) {
+            orderedExecutions.add(executions.get(mutant.getId()));
+        }
+        return orderedExecutions;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean potentialEquivalent(Mutant mutant) {
+        return antRunner.potentialEquivalent(mutant);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean testKillsMutant(Mutant mutant, Test test) {
+        // Return true iff test failed or timed out
+        TargetExecution.Status status = runTestOnMutant(mutant, test).getStatus();
+        return status == TargetExecution.Status.FAIL || status == TargetExecution.Status.TIMEOUT;
+    }
+
+    private TestExecutionResult runTestOnMutant(Mutant mutant, Test test) {
+        List<File> classPath = getClassPath(mutant, test, getDependencyDir(mutant));
+        return executor.execute(classPath, test.getFullyQualifiedClassName());
+    }
+
+    private File getDependencyDir(Mutant mutant) {
+        GameClass cut = GameClassDAO.getClassForGameId(mutant.getGameId());
+        if (cut == null) {
+            cut = GameClassDAO.getClassForId(mutant.getClassId());
+        }
+        return Paths.get(cut.getJavaFile()).getParent().resolve(CUTS_DEPENDENCY_DIR).toFile();
+    }
+
+    private static List<File> getClassPath(Mutant mutant, Test test, File dependencyDir) {
+        // Same order as the 'test-mutant' target: the mutant shadows the CUT, the test comes last
+        return Arrays.asList(
+                new File(mutant.getDirectory()),
+                dependencyDir,
+                new File(test.getDirectory()));
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
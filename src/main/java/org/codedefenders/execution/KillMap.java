@@ -22,24 +22,22 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 
-import org.apache.commons.lang.ArrayUtils;
 import org.codedefenders.configuration.Configuration;
+import org.codedefenders.database.BatchWriter;
 import org.codedefenders.database.KillmapDAO;
 import org.codedefenders.database.MutantDAO;
 import org.codedefenders.database.TestDAO;
+import org.codedefenders.execution.ExecutionScheduler.Priority;
 import org.codedefenders.game.AbstractGame;
 import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Test;
@@ -56,7 +54,8 @@ import static org.codedefenders.execution.KillMap.KillMapEntry.Status.UNKNOWN;
  * Killmaps are computed and saved to the DB on the first time they are requested. This may take a long time.
  * {@link KillmapDAO#hasKillMap(int)}  can be used to check if a finished game's killmap has already been computed.
  * <p/>
- * Only one killmap can be computed at a time. Further request are queued via {@code synchronized}.
+ * The executions of all killmaps run on the shared {@link KillMapExecutionService}, so several killmaps can be
+ * computed at the same time. Requests for the same game or class killmap are queued via {@code synchronized}.
  * This is mostly to prevent multiple calculations of the same killmap at once, e.g. by accidentally refreshing a page.
  */
 public class KillMap {
@@ -65,22 +64,35 @@ public class KillMap {
 
     // @Inject // This does not work for static classes
     private static BackendExecutorService backend;
+    private static KillMapExecutionService executionService;
 
     private static boolean USE_COVERAGE;
-    private static boolean PARALLELIZE;
-    private static int NUM_THREADS;
+
+    /**
+     * Computed killmap entries are written to the database in batches of this size, or once the oldest unwritten
+     * entry is older than {@link KillMap#WRITE_MAX_DELAY_MILLIS}.
+     */
+    private static final int WRITE_BATCH_SIZE = 500;
+    private static final long WRITE_MAX_DELAY_MILLIS = 5000;
+
+    /**
+     * Locks for the game and class killmaps, so the same killmap is not computed twice at the same time.
+     */
+    private static final Map<String, Object> computationLocks = new ConcurrentHashMap<>();
 
     static {
         /* Get the BackendExecutorService and Configuration since dependency injection does not work on this class. */
         try {
             backend = CDIUtil.getBeanFromCDI(BackendExecutorService.class);
+            executionService = CDIUtil.getBeanFromCDI(KillMapExecutionService.class);
             Configuration config = CDIUtil.getBeanFromCDI(Configuration.class);
             USE_COVERAGE = config.isMutantCoverage();
-            PARALLELIZE = config.isParallelize();
-            NUM_THREADS = config.getNumberOfKillmapThreads();
         } catch (IllegalStateException e) {
             // TODO
         }
+        if (executionService == null) {
+            executionService = new KillMapExecutionService(new ExecutionScheduler(1));
+        }
         /*
          * If we are running this outside a container, DI must be done manually by looking up the JNDI resource.
          */
@@ -107,26 +119,28 @@ public class KillMap {
      */
     private int classId;
     /**
-     * Maps each test to it's index in {@link KillMap#tests}.
-     */
-    private Map<Test, Integer> indexOfTest;
-    /**
-     * Maps each mutant to it's index in {@link KillMap#mutants}.
+     * The killmap data, as compact matrix between tests and mutants.
+     * The rows and columns are in the order of {@link KillMap#tests} and {@link KillMap#mutants}.
      */
-    private Map<Mutant, Integer> indexOfMutant;
+    private KillMatrix matrix;
 
     /**
-     * The killmap data, as a list of "test vs. mutant" execution results.
-     */
-    private List<KillMapEntry> entries;
-    /**
-     * The killmap data, as matrix between tests and mutants.
+     * Constructs a new killmap.
+     *
+     * @param tests   The tests of the killmap.
+     * @param mutants The mutants of the killmap.
+     * @param classId The id of the class the tests and mutants are for.
+     * @param matrix  The already computed entries of the killmap, with the tests and mutants in the given order.
      */
-    private KillMapEntry[][] matrix;
-
+    private KillMap(List<Test> tests, List<Mutant> mutants, int classId, KillMatrix matrix) {
+        this.tests = new ArrayList<>(tests);
+        this.mutants = new ArrayList<>(mutants);
+        this.classId = classId;
+        this.matrix = matrix;
+    }
 
     /**
-     * Constructs a new killmap.
+     * Constructs a new killmap from a list of already computed entries.
      *
      * @param tests   The tests of the killmap.
      * @param mutants The mutants of the killmap.
@@ -135,73 +149,55 @@ public class KillMap {
      *                an empty list.
      */
     private KillMap(List<Test> tests, List<Mutant> mutants, int classId, List<KillMapEntry> entries) {
-        this.tests = new ArrayList<>(tests);
-        this.mutants = new ArrayList<>(mutants);
-        this.classId = classId;
-        this.indexOfTest = new TreeMap<>(Test.orderByIdDescending());
-        this.indexOfMutant = new TreeMap<>(Mutant.orderByIdDescending());
-
-        this.entries = entries;
-        this.matrix = new KillMapEntry[tests.size()][mutants.size()];
-
-        /* Fill the maps and the matrix. */
-        for (int i = 0; i < this.tests.size(); i++) {
-            this.indexOfTest.put(tests.get(i), i);
-        }
-        for (int i = 0; i < this.mutants.size(); i++) {
-            this.indexOfMutant.put(mutants.get(i), i);
-        }
+        this(tests, mutants, classId, new KillMatrix(idsOfTests(tests), idsOfMutants(mutants)));
         for (KillMapEntry entry : entries) {
-            Integer testIndex = indexOf(entry.test);
-            Integer mutantIndex = indexOf(entry.mutant);
-            if (testIndex != null && mutantIndex != null) {
-                matrix[indexOf(entry.test)][indexOf(entry.mutant)] = entry;
+            if (entry.test != null && entry.mutant != null) {
+                matrix.setById(entry.test.getId(), entry.mutant.getId(), entry.status);
             }
         }
     }
 
+    private static int[] idsOfTests(List<Test> tests) {
+        return tests.stream().mapToInt(Test::getId).toArray();
+    }
+
+    private static int[] idsOfMutants(List<Mutant> mutants) {
+        return mutants.stream().mapToInt(Mutant::getId).toArray();
+    }
+
     /**
-     * Computes the missing entries of the killmap.
+     * Computes the missing entries of the killmap on the {@link KillMapExecutionService}.
      *
-     * @throws InterruptedException If the computation is interrupted.
+     * @param priority    The priority of the executions.
+     * @param description A description of the killmap, used to report the progress of the computation.
+     * @throws InterruptedException If the computation is interrupted. This cancels the computation.
      * @throws ExecutionException   If an error occurred during an execution.
      */
-    private void compute(ExecutorService executor) throws InterruptedException, ExecutionException {
+    private void compute(Priority priority, String description) throws InterruptedException, ExecutionException {
         Instant startTime = Instant.now();
 
-        List<Future<KillMapEntry>> executionResults = new LinkedList<>();
-
-        if (Thread.currentThread().isInterrupted()) {
-            executor.shutdownNow();
-            throw new InterruptedException("Got interrupted before submitting tasks");
-        }
-
-        for (int t = 0; t < tests.size(); t++) {
-            Test test = tests.get(t);
-            for (int m = 0; m < mutants.size(); m++) {
-                Mutant mutant = mutants.get(m);
-                if ((matrix[t][m] == null)) {
-                    executionResults.add(executor.submit(new TestVsMutantCallable(test, mutant, classId)));
+        // Results are written in batches, closing the writer writes the remaining results even if the job fails
+        try (BatchWriter<KillMapEntry> writer = new BatchWriter<>("killmap entries", WRITE_BATCH_SIZE,
+                WRITE_MAX_DELAY_MILLIS, entries -> KillmapDAO.insertManyKillMapEntries(entries, classId))) {
+            List<TestVsMutantCallable> executions = new ArrayList<>();
+            for (int t = 0; t < tests.size(); t++) {
+                Test test = tests.get(t);
+                for (int m = 0; m < mutants.size(); m++) {
+                    Mutant mutant = mutants.get(m);
+                    if (matrix.get(t, m) == null) {
+                        executions.add(new TestVsMutantCallable(test, mutant, writer));
+                    }
                 }
             }
-        }
-
-        if (Thread.currentThread().isInterrupted()) {
-            executor.shutdownNow();
-            throw new InterruptedException("Got interrupted after submitting tasks");
-        }
 
-        executor.shutdown();
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Got interrupted before submitting tasks");
+            }
 
-        for (Future<KillMapEntry> result : executionResults) {
-            try {
-                KillMapEntry entry = result.get();
-                entries.add(entry);
-                matrix[indexOf(entry.test)][indexOf(entry.mutant)] = entry;
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-                throw new InterruptedException("Got interrupted while waiting for results");
+            KillMapExecutionService.Job<KillMapEntry> job =
+                    executionService.submit(priority, description, executions);
+            for (KillMapEntry entry : job.get()) {
+                matrix.setById(entry.test.getId(), entry.mutant.getId(), entry.status);
             }
         }
 
@@ -220,21 +216,16 @@ public class KillMap {
     public static KillMap forGame(AbstractGame game) throws InterruptedException, ExecutionException {
         List<Test> tests = game.getTests();
         List<Mutant> mutants = game.getMutants();
-        List<KillMapEntry> entries = KillmapDAO.getKillMapEntriesForGame(game.getId());
-        KillMap killmap = new KillMap(tests, mutants, game.getClassId(), entries);
+        KillMatrix matrix = KillmapDAO.getKillMatrixForGame(game.getId(), idsOfTests(tests), idsOfMutants(mutants));
+        KillMap killmap = new KillMap(tests, mutants, game.getClassId(), matrix);
 
-        if (tests.size() * mutants.size() != entries.size()) {
-            /* Synchronized, so only one killmap can is computed at a time. */
-            synchronized (KillMap.class) {
+        if (!matrix.isComplete()) {
+            /* Synchronized, so the killmap of a game is only computed once at a time. */
+            synchronized (computationLock("game " + game.getId())) {
                 logger.info(String.format("Computing killmap for %s game %d: %d tests, %d mutants, %d entries provided",
-                        game.getMode(), game.getId(), tests.size(), mutants.size(), entries.size()));
+                        game.getMode(), game.getId(), tests.size(), mutants.size(), matrix.getNumEntries()));
 
-                // TODO refactor this into a CDI
-                ExecutorService executor = PARALLELIZE
-                        ? Executors.newFixedThreadPool(NUM_THREADS)
-                        : Executors.newSingleThreadExecutor();
-
-                killmap.compute(executor);
+                killmap.compute(Priority.KILLMAP, "game " + game.getId());
 
                 if (game.isFinished()) {
                     KillmapDAO.setHasKillMap(game.getId(), true);
@@ -258,20 +249,16 @@ public class KillMap {
     public static KillMap forClass(int classId) throws InterruptedException, ExecutionException {
         List<Test> tests = TestDAO.getValidTestsForClass(classId);
         List<Mutant> mutants = MutantDAO.getValidMutantsForClass(classId);
-        List<KillMapEntry> entries = KillmapDAO.getKillMapEntriesForClass(classId);
-        KillMap killmap = new KillMap(tests, mutants, classId, entries);
+        KillMatrix matrix = KillmapDAO.getKillMatrixForClass(classId, idsOfTests(tests), idsOfMutants(mutants));
+        KillMap killmap = new KillMap(tests, mutants, classId, matrix);
 
-        if (tests.size() * mutants.size() != entries.size()) {
-            /* Synchronized, so only one killmap is computed at a time. */
-            synchronized (KillMap.class) {
+        if (!matrix.isComplete()) {
+            /* Synchronized, so the killmap of a class is only computed once at a time. */
+            synchronized (computationLock("class " + classId)) {
                 logger.info(String.format("Computing killmap for class %d: %d tests, %d mutants, %d entries provided",
-                        classId, tests.size(), mutants.size(), entries.size()));
-                // TODO refactor this into a CDI
-                ExecutorService executor = PARALLELIZE
-                        ? Executors.newFixedThreadPool(NUM_THREADS)
-                        : Executors.newSingleThreadExecutor();
+                        classId, tests.size(), mutants.size(), matrix.getNumEntries()));
 
-                killmap.compute(executor);
+                killmap.compute(Priority.KILLMAP, "class " + classId);
             }
         } else {
             logger.info("Killmap for class " + classId + " already computed");
@@ -294,29 +281,19 @@ public class KillMap {
      */
     public static KillMap forCustom(List<Test> tests, List<Mutant> mutants, int classId, List<KillMapEntry> entries)
             throws InterruptedException, ExecutionException {
-        /* Synchronized, so only one killmap can be computed at a time. */
-        synchronized (KillMap.class) {
-            KillMap killmap = new KillMap(tests, mutants, classId, entries);
-
-            if (tests.size() * mutants.size() != entries.size()) {
-                /* Synchronized, so only one killmap is computed at a time. */
-                synchronized (KillMap.class) {
-                    logger.info(String.format(
-                            "Computing custom killmap (class %d): %d tests, %d mutants, %d entries provided",
-                            classId, tests.size(), mutants.size(), entries.size()));
-                    // TODO refactor this into a CDI
-                    ExecutorService executor = PARALLELIZE
-                            ? Executors.newFixedThreadPool(NUM_THREADS)
-                            : Executors.newSingleThreadExecutor();
-
-                    killmap.compute(executor);
-                }
-            } else {
-                logger.info("Custom killmap for class " + classId + " already computed");
-            }
+        KillMap killmap = new KillMap(tests, mutants, classId, entries);
 
-            return killmap;
+        if (!killmap.matrix.isComplete()) {
+            logger.info(String.format(
+                    "Computing custom killmap (class %d): %d tests, %d mutants, %d entries provided",
+                    classId, tests.size(), mutants.size(), killmap.matrix.getNumEntries()));
+
+            killmap.compute(Priority.KILLMAP, "custom killmap (class " + classId + ")");
+        } else {
+            logger.info("Custom killmap for class " + classId + " already computed");
         }
+
+        return killmap;
     }
 
     /**
@@ -337,15 +314,9 @@ public class KillMap {
         logger.debug("Validating mutant {} using custom killmap (partial results are stored in the db) using: {} tests",
                 mutant, tests.size());
 
-        // TODO this creates a surge in the load as the number of executor services might grow
-        // by refactoring this into a CDI we should be able to easily control the situation and queue jobs.
-        ExecutorService executor = PARALLELIZE
-                ? Executors.newFixedThreadPool(NUM_THREADS)
-                : Executors.newSingleThreadExecutor();
-
         try {
-            killmap.compute(executor);
-        } catch (InterruptedException | ExecutionException e) {
+            killmap.compute(Priority.VALIDATION, "validation of mutant " + mutant.getId());
+        } catch (InterruptedException | ExecutionException | CancellationException e) {
             logger.error("Exception while validating mutant {} using custom killmap", e);
             return null;
         }
@@ -353,6 +324,10 @@ public class KillMap {
         return killmap;
     }
 
+    private static Object computationLock(String killmap) {
+        return computationLocks.computeIfAbsent(killmap, k -> new Object());
+    }
+
     /**
      * Returns the tests of the killmap.
      *
@@ -372,12 +347,24 @@ public class KillMap {
     }
 
     /**
-     * Returns The results of all "test vs. mutant" executions.
+     * Returns The results of all computed "test vs. mutant" executions.
+     *
+     * <p>The entries are created on every call, prefer {@link KillMap#getStatus(Test, Mutant)} or
+     * {@link KillMap#getKillMatrix()} for large killmaps.
      *
-     * @return The results of all "test vs. mutant" executions.
+     * @return The results of all computed "test vs. mutant" executions.
      */
     public List<KillMapEntry> getEntries() {
-        return new ArrayList<>(entries);
+        List<KillMapEntry> entries = new ArrayList<>(matrix.getNumEntries());
+        for (int t = 0; t < tests.size(); t++) {
+            for (int m = 0; m < mutants.size(); m++) {
+                KillMapEntry.Status status = matrix.get(t, m);
+                if (status != null) {
+                    entries.add(new KillMapEntry(tests.get(t), mutants.get(m), status));
+                }
+            }
+        }
+        return entries;
     }
 
     /**
@@ -385,10 +372,26 @@ public class KillMap {
      * The first dimension describes the tests, the second dimension describes the mutants.
      * {@link KillMap#indexOf(Test)} / {@link KillMap#indexOf(Mutant)} can be used to get the index of a test / mutant.
      *
+     * <p>The matrix is created on every call, prefer {@link KillMap#getKillMatrix()} for large killmaps.
+     *
      * @return A matrix that maps tests and mutants to their execution result.
      */
     public KillMapEntry[][] getMatrix() {
-        return (KillMapEntry[][]) ArrayUtils.clone(matrix);
+        KillMapEntry[][] result = new KillMapEntry[tests.size()][];
+        for (int t = 0; t < tests.size(); t++) {
+            result[t] = entriesForTest(t);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the compact matrix of execution results backing this killmap.
+     * The rows and columns are in the order of {@link KillMap#getTests()} and {@link KillMap#getMutants()}.
+     *
+     * @return The compact matrix of execution results.
+     */
+    public KillMatrix getKillMatrix() {
+        return matrix;
     }
 
     /**
@@ -398,7 +401,18 @@ public class KillMap {
      * @return All "test vs. mutant" execution results for the given test.
      */
     public KillMapEntry[] getEntriesForTest(Test test) {
-        return (KillMapEntry[]) ArrayUtils.clone(matrix[indexOf(test)]);
+        return entriesForTest(indexOf(test));
+    }
+
+    private KillMapEntry[] entriesForTest(int testIndex) {
+        KillMapEntry[] result = new KillMapEntry[mutants.size()];
+        for (int m = 0; m < result.length; m++) {
+            KillMapEntry.Status status = matrix.get(testIndex, m);
+            if (status != null) {
+                result[m] = new KillMapEntry(tests.get(testIndex), mutants.get(m), status);
+            }
+        }
+        return result;
     }
 
     /**
@@ -411,8 +425,11 @@ public class KillMap {
         int mutantIndex = indexOf(mutant);
         KillMapEntry[] result = new KillMapEntry[tests.size()];
 
-        for (int i = 0; i < result.length; i++) {
-            result[i] = matrix[i][mutantIndex];
+        for (int t = 0; t < result.length; t++) {
+            KillMapEntry.Status status = matrix.get(t, mutantIndex);
+            if (status != null) {
+                result[t] = new KillMapEntry(tests.get(t), mutant, status);
+            }
         }
 
         return result;
@@ -426,17 +443,30 @@ public class KillMap {
      * @return The "test vs. mutant" execution result for the given test and mutant.
      */
     public KillMapEntry getEntry(Test test, Mutant mutant) {
-        return matrix[indexOf(test)][indexOf(mutant)];
+        KillMapEntry.Status status = getStatus(test, mutant);
+        return status == null ? null : new KillMapEntry(test, mutant, status);
+    }
+
+    /**
+     * Returns the status of the "test vs. mutant" execution for the given test and mutant.
+     *
+     * @param test   The given test.
+     * @param mutant The given mutant.
+     * @return The status of the execution, or null if it is not computed.
+     */
+    public KillMapEntry.Status getStatus(Test test, Mutant mutant) {
+        return matrix.get(indexOf(test), indexOf(mutant));
     }
 
     /**
-     * Returns the index of the given test in the matrix, or null if the mutant is not part of the matrix.
+     * Returns the index of the given test in the matrix, or null if the test is not part of the matrix.
      *
      * @param test The given test.
-     * @return The index of the given test in the matrix, or null if the mutant is not part of the matrix.
+     * @return The index of the given test in the matrix, or null if the test is not part of the matrix.
      */
     public Integer indexOf(Test test) {
-        return indexOfTest.get(test);
+        int index = matrix.indexOfTest(test.getId());
+        return index < 0 ? null : index;
     }
 
     /**
@@ -446,21 +476,22 @@ public class KillMap {
      * @return The index of the given mutant in the matrix, or null if the mutant is not part of the matrix.
      */
     public Integer indexOf(Mutant mutant) {
-        return indexOfMutant.get(mutant);
+        int index = matrix.indexOfMutant(mutant.getId());
+        return index < 0 ? null : index;
     }
 
     /**
-     * Executes a test against a mutant, inserts the result into the DB, and returns the result.
+     * Executes a test against a mutant, passes the result to the {@link BatchWriter}, and returns the result.
      */
     private static class TestVsMutantCallable implements Callable<KillMapEntry> {
         private Test test;
         private Mutant mutant;
-        private int classId;
+        private BatchWriter<KillMapEntry> writer;
 
-        private TestVsMutantCallable(Test test, Mutant mutant, int classId) {
+        private TestVsMutantCallable(Test test, Mutant mutant, BatchWriter<KillMapEntry> writer) {
             this.test = test;
             this.mutant = mutant;
-            this.classId = classId;
+            this.writer = writer;
         }
 
         @Override
@@ -472,10 +503,15 @@ public class KillMap {
 
             } else {
                 TargetExecution executedTarget = backend.testMutant(mutant, test);
+                if (executedTarget == null) {
+                    // The job was cancelled, the entry stays missing
+                    return null;
+                }
                 KillMapEntry.Status status;
 
                 switch (executedTarget.status) {
                     case FAIL:
+                    case TIMEOUT:
                         status = KILL;
                         break;
                     case SUCCESS:
@@ -492,9 +528,7 @@ public class KillMap {
                 entry = new KillMapEntry(test, mutant, status);
             }
 
-            if (!KillmapDAO.insertKillMapEntry(entry, classId)) {
-                logger.error("An error occurred while inserting killmap entry into the DB: " + entry);
-            }
+            writer.add(entry);
 
             return entry;
         }
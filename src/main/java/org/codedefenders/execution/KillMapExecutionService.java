@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.codedefenders.execution.ExecutionScheduler.Priority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the "test vs. mutant" executions of killmaps on the {@link ExecutionScheduler}.
+ *
+ * <p>Every killmap computation is submitted as a {@link Job}. A job keeps at most as many executions in the
+ * scheduler as the scheduler has threads, and submits the next execution only when one of its executions
+ * finished. The scheduler lets the running jobs take turns, so several killmaps make progress at the same time,
+ * and a large class killmap no longer blocks all other killmaps.
+ *
+ * <p>Killmap jobs run with {@link Priority#KILLMAP}, below the executions of submissions. At most
+ * {@link #MAX_RUNNING_JOBS} of them run at the same time, further submissions block until a job finished.
+ * Jobs validating mutants claimed as equivalent run with {@link Priority#VALIDATION} and do not wait for killmaps.
+ *
+ * <p>Jobs report their progress and can be cancelled. The executions of a job run with the job's
+ * {@link CancellationToken}, so cancelling a job skips its queued executions and kills the processes of its running
+ * executions, whose results are discarded. The threads are not interrupted, see {@link CancellationToken}.
+ */
+@ApplicationScoped
+public class KillMapExecutionService {
+    private static final Logger logger = LoggerFactory.getLogger(KillMapExecutionService.class);
+
+    /**
+     * The maximum number of killmap jobs which are executed at the same time.
+     */
+    public static final int MAX_RUNNING_JOBS = 4;
+
+    @Inject
+    private ExecutionScheduler scheduler;
+
+    private final Semaphore runningJobs = new Semaphore(MAX_RUNNING_JOBS, true);
+    private final Set<Job<?>> jobs = ConcurrentHashMap.newKeySet();
+
+    KillMapExecutionService() {
+    }
+
+    /**
+     * Creates a service on the given scheduler, for use outside of the container.
+     *
+     * @param scheduler The scheduler executions run on.
+     */
+    public KillMapExecutionService(ExecutionScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Submits a killmap job. Blocks while {@link #MAX_RUNNING_JOBS} other killmap jobs are running.
+     *
+     * @param description A description of the job, e.g. "class 5".
+     * @param tasks       The executions of the job.
+     * @param <T>         The result type of the executions.
+     * @return The submitted job.
+     * @throws InterruptedException If interrupted while waiting for other jobs to finish.
+     */
+    public <T> Job<T> submit(String description, List<? extends Callable<T>> tasks) throws InterruptedException {
+        return submit(Priority.KILLMAP, description, tasks);
+    }
+
+    /**
+     * Submits a job with the given priority. Killmap jobs block while {@link #MAX_RUNNING_JOBS} other killmap jobs
+     * are running, jobs of a higher priority start right away.
+     *
+     * @param priority    The priority of the executions.
+     * @param description A description of the job, e.g. "class 5".
+     * @param tasks       The executions of the job.
+     * @param <T>         The result type of the executions.
+     * @return The submitted job.
+     * @throws InterruptedException If interrupted while waiting for other jobs to finish.
+     */
+    public <T> Job<T> submit(Priority priority, String description, List<? extends Callable<T>> tasks)
+            throws InterruptedException {
+        boolean limited = priority == Priority.KILLMAP;
+        if (limited) {
+            runningJobs.acquire();
+        }
+        Job<T> job = new Job<>(priority, limited, description, tasks);
+        jobs.add(job);
+        logger.info("Starting {} job for {} with {} executions", priority, description, tasks.size());
+        job.start();
+        return job;
+    }
+
+    /**
+     * Returns the jobs which are currently running.
+     *
+     * @return The running jobs.
+     */
+    public List<Job<?>> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    /**
+     * A set of executions submitted to the {@link KillMapExecutionService}.
+     *
+     * @param <T> The result type of the executions.
+     */
+    public class Job<T> {
+        private final Priority priority;
+        private final boolean limited;
+        private final String description;
+        private final List<? extends Callable<T>> tasks;
+
+        private final AtomicReferenceArray<Future<?>> futures;
+        private final Object[] results;
+        private final AtomicInteger nextTask = new AtomicInteger(0);
+        private final AtomicInteger finishedTasks = new AtomicInteger(0);
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final CancellationToken cancellation = new CancellationToken();
+
+        private volatile boolean cancelled = false;
+        private volatile Throwable failure = null;
+
+        private Job(Priority priority, boolean limited, String description, List<? extends Callable<T>> tasks) {
+            this.priority = priority;
+            this.limited = limited;
+            this.description = description;
+            this.tasks = new ArrayList<>(tasks);
+            this.futures = new AtomicReferenceArray<>(tasks.size());
+            this.results = new Object[tasks.size()];
+        }
+
+        private void start() {
+            if (tasks.isEmpty()) {
+                finish();
+                return;
+            }
+            int window = Math.min(scheduler.getNumThreads(), tasks.size());
+            for (int i = 0; i < window; i++) {
+                submitNext();
+            }
+        }
+
+        private void submitNext() {
+            int index = nextTask.getAndIncrement();
+            if (index >= tasks.size() || cancelled) {
+                return;
+            }
+            futures.set(index, scheduler.submit(priority, this, () -> {
+                execute(index);
+                return null;
+            }));
+        }
+
+        private void execute(int index) {
+            try {
+                results[index] = cancellation.callWith(tasks.get(index));
+            } catch (Exception e) {
+                if (!cancelled) {
+                    logger.warn("Execution of killmap job for {} failed", description, e);
+                    failure = e;
+                }
+            } finally {
+                if (finishedTasks.incrementAndGet() == tasks.size()) {
+                    finish();
+                } else {
+                    submitNext();
+                }
+            }
+        }
+
+        private void finish() {
+            if (finished.compareAndSet(false, true)) {
+                jobs.remove(this);
+                if (limited) {
+                    runningJobs.release();
+                }
+                done.countDown();
+                logger.info("Killmap job for {} {}", description, cancelled ? "cancelled" : "finished");
+            }
+        }
+
+        /**
+         * Cancels the job. Executions which have not started yet are skipped, the processes of running executions
+         * are killed.
+         */
+        public void cancel() {
+            cancelled = true;
+            cancellation.cancel();
+            for (int i = 0; i < futures.length(); i++) {
+                Future<?> future = futures.get(i);
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+            finish();
+        }
+
+        /**
+         * Waits for the job to finish and returns the results of the executions, in the order of the submitted
+         * executions. If the waiting thread is interrupted, the job is cancelled.
+         *
+         * @return The results of the executions.
+         * @throws InterruptedException  If interrupted while waiting.
+         * @throws ExecutionException    If an execution failed.
+         * @throws CancellationException If the job was cancelled.
+         */
+        @SuppressWarnings("unchecked")
+        public List<T> get() throws InterruptedException, ExecutionException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                cancel();
+                throw e;
+            }
+            if (cancelled) {
+                throw new CancellationException("Killmap job for " + description + " was cancelled");
+            }
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return (List<T>) Arrays.asList(results);
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public int getTotalTasks() {
+            return tasks.size();
+        }
+
+        public int getFinishedTasks() {
+            return finishedTasks.get();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            return finished.get();
+        }
+    }
+}
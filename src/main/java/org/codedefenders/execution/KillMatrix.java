@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.Arrays;
+
+import org.codedefenders.execution.KillMap.KillMapEntry;
+
+/**
+ * A compact matrix of "test vs. mutant" execution results, identified by test and mutant ids.
+ *
+ * <p>Every cell takes three bits, which encode the {@link KillMapEntry.Status} of the execution or that the
+ * execution has not been computed (yet). The rows are stored as {@code long} arrays holding 21 cells per element,
+ * and the ids are mapped to indexes with sorted {@code int} arrays. A killmap of 5000 tests and 5000 mutants takes
+ * about 10 MB this way, compared to the several hundred MB needed for {@link KillMapEntry} objects.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @see KillMap
+ */
+public class KillMatrix {
+    private static final int BITS_PER_CELL = 3;
+    private static final int CELLS_PER_WORD = Long.SIZE / BITS_PER_CELL;
+    private static final long CELL_MASK = (1L << BITS_PER_CELL) - 1;
+    private static final KillMapEntry.Status[] STATUSES = KillMapEntry.Status.values();
+
+    private final int[] testIds;
+    private final int[] mutantIds;
+    private final IdIndex testIndex;
+    private final IdIndex mutantIndex;
+
+    private final long[][] rows;
+    private int numEntries = 0;
+
+    /**
+     * Creates an empty matrix.
+     *
+     * @param testIds   The ids of the tests, in the order of the rows. Must not contain duplicates.
+     * @param mutantIds The ids of the mutants, in the order of the columns. Must not contain duplicates.
+     */
+    public KillMatrix(int[] testIds, int[] mutantIds) {
+        this.testIds = testIds.clone();
+        this.mutantIds = mutantIds.clone();
+        this.testIndex = new IdIndex(testIds);
+        this.mutantIndex = new IdIndex(mutantIds);
+
+        int wordsPerRow = (mutantIds.length + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+        this.rows = new long[testIds.length][wordsPerRow];
+    }
+
+    public int getNumTests() {
+        return testIds.length;
+    }
+
+    public int getNumMutants() {
+        return mutantIds.length;
+    }
+
+    /**
+     * Returns the number of computed cells.
+     */
+    public int getNumEntries() {
+        return numEntries;
+    }
+
+    /**
+     * Returns {@code true} if all cells of the matrix are computed.
+     */
+    public boolean isComplete() {
+        return (long) numEntries == (long) testIds.length * mutantIds.length;
+    }
+
+    public int getTestId(int testIndex) {
+        return testIds[testIndex];
+    }
+
+    public int getMutantId(int mutantIndex) {
+        return mutantIds[mutantIndex];
+    }
+
+    /**
+     * Returns the row index of the test with the given id, or {@code -1} if the test is not part of the matrix.
+     */
+    public int indexOfTest(int testId) {
+        return testIndex.indexOf(testId);
+    }
+
+    /**
+     * Returns the column index of the mutant with the given id, or {@code -1} if the mutant is not part of the
+     * matrix.
+     */
+    public int indexOfMutant(int mutantId) {
+        return mutantIndex.indexOf(mutantId);
+    }
+
+    /**
+     * Returns the status of a cell, or {@code null} if the cell is not computed.
+     *
+     * @param testIndex   The row index of the test.
+     * @param mutantIndex The column index of the mutant.
+     */
+    public KillMapEntry.Status get(int testIndex, int mutantIndex) {
+        int code = (int) ((rows[testIndex][mutantIndex / CELLS_PER_WORD] >>> shift(mutantIndex)) & CELL_MASK);
+        return code == 0 ? null : STATUSES[code - 1];
+    }
+
+    /**
+     * Sets the status of a cell.
+     *
+     * @param testIndex   The row index of the test.
+     * @param mutantIndex The column index of the mutant.
+     * @param status      The status, or {@code null} to mark the cell as not computed.
+     */
+    public void set(int testIndex, int mutantIndex, KillMapEntry.Status status) {
+        long[] row = rows[testIndex];
+        int word = mutantIndex / CELLS_PER_WORD;
+        int shift = shift(mutantIndex);
+
+        boolean wasSet = ((row[word] >>> shift) & CELL_MASK) != 0;
+        long code = status == null ? 0 : status.ordinal() + 1;
+        row[word] = (row[word] & ~(CELL_MASK << shift)) | (code << shift);
+
+        if (wasSet && status == null) {
+            numEntries--;
+        } else if (!wasSet && status != null) {
+            numEntries++;
+        }
+    }
+
+    /**
+     * Returns the status of the execution of the given test against the given mutant, or {@code null} if the
+     * execution is not computed or the test or mutant is not part of the matrix.
+     */
+    public KillMapEntry.Status getById(int testId, int mutantId) {
+        int t = indexOfTest(testId);
+        int m = indexOfMutant(mutantId);
+        if (t < 0 || m < 0) {
+            return null;
+        }
+        return get(t, m);
+    }
+
+    /**
+     * Sets the status of the execution of the given test against the given mutant.
+     *
+     * @return {@code true} if the status was set, {@code false} if the test or mutant is not part of the matrix.
+     */
+    public boolean setById(int testId, int mutantId, KillMapEntry.Status status) {
+        int t = indexOfTest(testId);
+        int m = indexOfMutant(mutantId);
+        if (t < 0 || m < 0) {
+            return false;
+        }
+        set(t, m, status);
+        return true;
+    }
+
+    /**
+     * Counts the cells of a test with the given status.
+     *
+     * @param testIndex The row index of the test.
+     * @param status    The status to count.
+     */
+    public int countForTest(int testIndex, KillMapEntry.Status status) {
+        int count = 0;
+        for (int m = 0; m < mutantIds.length; m++) {
+            if (get(testIndex, m) == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the cells of a mutant with the given status.
+     *
+     * @param mutantIndex The column index of the mutant.
+     * @param status      The status to count.
+     */
+    public int countForMutant(int mutantIndex, KillMapEntry.Status status) {
+        int count = 0;
+        for (int t = 0; t < testIds.length; t++) {
+            if (get(t, mutantIndex) == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int shift(int mutantIndex) {
+        return (mutantIndex % CELLS_PER_WORD) * BITS_PER_CELL;
+    }
+
+    /**
+     * Maps ids to their index in an id array, using a sorted copy of the array.
+     */
+    private static class IdIndex {
+        private final int[] sortedIds;
+        private final int[] indexes;
+
+        IdIndex(int[] ids) {
+            Integer[] order = new Integer[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(ids[a], ids[b]));
+
+            this.sortedIds = new int[ids.length];
+            this.indexes = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                sortedIds[i] = ids[order[i]];
+                indexes[i] = order[i];
+            }
+        }
+
+        int indexOf(int id) {
+            int position = Arrays.binarySearch(sortedIds, id);
+            return position < 0 ? -1 : indexes[position];
+        }
+    }
+}
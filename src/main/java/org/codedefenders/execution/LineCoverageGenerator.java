@@ -19,13 +19,18 @@
 package org.codedefenders.execution;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.codedefenders.game.GameClass;
@@ -34,21 +39,33 @@ import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICounter;
-import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class offers a static method {@link #generate(GameClass, Path) generate()}, which
- * allows generation of line coverage for a given {@link GameClass} and {@link Path paht to a java test file}.
+ * This class offers static methods to generate line coverage for a given {@link GameClass}, either from the
+ * 'jacoco.exec' file written next to a test by the {@code test-original} Ant target with
+ * {@link #generate(GameClass, Path)}, or from probes collected in memory with
+ * {@link #generate(GameClass, Map)}.
+ *
+ * <p>The class files of a class under test are analyzed only once. The analysis records which lines every JaCoCo
+ * probe covers, so mapping the probes of a test to lines does not need to read or analyze any class files.
  */
 public class LineCoverageGenerator {
     private static final Logger logger = LoggerFactory.getLogger(LineCoverageGenerator.class);
     private static final String JACOCO_REPORT_FILE = "jacoco.exec";
 
+    /**
+     * Analyses of the classes under test by class id. Class files do not change once a class is uploaded.
+     */
+    private static final Map<Integer, CutAnalysis> analyses = new ConcurrentHashMap<>();
+
     /**
      * Generates and returns line coverage for a given {@link GameClass} and {@link Path path to a java test file}.
      *
@@ -71,74 +88,199 @@ public class LineCoverageGenerator {
             logger.error("Failed to load jacoco.exec file. Returning empty LineCoverage.", e);
             return new LineCoverage();
         }
-        // In memory data store for execution data
-        final ExecutionDataStore executionDataStore = execFileLoader.getExecutionDataStore();
 
-        final CoverageBuilder coverageBuilder = new CoverageBuilder();
-        final Analyzer analyzer = new Analyzer(executionDataStore, coverageBuilder);
+        final Map<Long, boolean[]> probes = new HashMap<>();
+        for (ExecutionData data : execFileLoader.getExecutionDataStore().getContents()) {
+            probes.put(data.getId(), data.getProbes());
+        }
+        return generate(gameClass, probes);
+    }
 
-        /*
-         * Classes with inner classes corresponds to multiple files on the file
-         * system But inside the db they are not reported. So we need to look
-         * into the folder
-         */
-        final File classFileFolder = new File(gameClass.getClassFile()).getParentFile();
-        // List all the .class files in this folder. Not sure if FilenameFilter
-        // is thread safe so I instantiate a new one every time.
-        final String regex = new File(gameClass.getClassFile()).getName().split("\\.")[0] + "\\$?.*\\.class";
-        final Pattern innerClassPatter = Pattern.compile(regex);
-        for (File classFile : classFileFolder.listFiles((dir, name) -> innerClassPatter.matcher(name).matches())) {
+    /**
+     * Generates and returns line coverage for a given {@link GameClass} from JaCoCo probes, e.g. collected with
+     * {@link TestExecutor#executeWithCoverage(List, String, String)}.
+     *
+     * @param gameClass the class that is tested.
+     * @param probes    the probes of the executed classes by JaCoCo class id.
+     * @return a {@link LineCoverage} instance with covered and uncovered lines if successful,
+     *     empty lists for covered and uncovered lines if failed.
+     */
+    public static LineCoverage generate(GameClass gameClass, Map<Long, boolean[]> probes) {
+        CutAnalysis analysis = analyses.get(gameClass.getId());
+        if (analysis == null) {
             try {
-                analyzer.analyzeClass(new ClassReader(new FileInputStream(classFile)));
+                analysis = CutAnalysis.analyze(gameClass);
             } catch (IOException e) {
-                logger.error("Failed to analyze file: " + classFile + ". Returning empty LineCoverage.", e);
+                logger.error("Failed to analyze class files of class " + gameClass.getId()
+                        + ". Returning empty LineCoverage.", e);
                 return new LineCoverage();
             }
+            CutAnalysis previous = analyses.putIfAbsent(gameClass.getId(), analysis);
+            if (previous != null) {
+                analysis = previous;
+            }
+        }
+        return analysis.toLineCoverage(probes);
+    }
+
+    /**
+     * The lines covered by each probe of the class files of a class under test, together with the lines which are
+     * covered along with other lines according to the source code.
+     */
+    private static class CutAnalysis {
+        private final GameClass gameClass;
+        private final Map<Long, BitSet[]> linesOfProbes = new HashMap<>();
+        private final BitSet coverableLines = new BitSet();
+        private final Set<Integer> linesCoveredByAnyLine = new HashSet<>();
+        private final Map<Integer, List<Integer>> linesCoveredByLine = new HashMap<>();
+
+        private CutAnalysis(GameClass gameClass) {
+            this.gameClass = gameClass;
         }
 
-        final List<Integer> linesCovered = new LinkedList<>();
-        final List<Integer> linesUncovered = new LinkedList<>();
-
-        final String cutName = gameClass.getName();
-        for (IClassCoverage cc : coverageBuilder.getClasses()) {
-            final String fullyQualifiedName = cc.getName().replace("/", ".");
-            if (fullyQualifiedName.startsWith(cutName)) {
-                for (int i = cc.getFirstLine(); i <= cc.getLastLine(); i++) {
-                    final ILine line = cc.getLine(i);
-                    final int status = line.getInstructionCounter().getStatus();
-                    if (status == ICounter.FULLY_COVERED || status == ICounter.PARTLY_COVERED) {
-                        linesCovered.add(i);
-                    } else if (status == ICounter.NOT_COVERED) {
-                        linesUncovered.add(i);
+        static CutAnalysis analyze(GameClass gameClass) throws IOException {
+            final CutAnalysis analysis = new CutAnalysis(gameClass);
+
+            /*
+             * Classes with inner classes corresponds to multiple files on the file
+             * system But inside the db they are not reported. So we need to look
+             * into the folder
+             */
+            final File classFileFolder = new File(gameClass.getClassFile()).getParentFile();
+            final String regex = new File(gameClass.getClassFile()).getName().split("\\.")[0] + "\\$?.*\\.class";
+            final Pattern innerClassPattern = Pattern.compile(regex);
+            final File[] classFiles = classFileFolder.listFiles(
+                    (dir, name) -> innerClassPattern.matcher(name).matches());
+            if (classFiles == null) {
+                throw new IOException("Could not list class files in " + classFileFolder);
+            }
+            for (File classFile : classFiles) {
+                analysis.analyzeClassFile(Files.readAllBytes(classFile.toPath()));
+            }
+
+            // If there's at least one line covered, static field initializer and compile time constants are covered
+            analysis.linesCoveredByAnyLine.addAll(gameClass.getCompileTimeConstants());
+            analysis.linesCoveredByAnyLine.addAll(gameClass.getNonInitializedFields());
+
+            // Covered lines also cover the signatures of their methods and the closing brackets of their if-statements
+            for (int line = analysis.coverableLines.nextSetBit(0); line >= 0;
+                    line = analysis.coverableLines.nextSetBit(line + 1)) {
+                List<Integer> lines = new ArrayList<>(gameClass.getMethodSignaturesForLine(line));
+                lines.addAll(gameClass.getClosingBracketForLine(line));
+                if (!lines.isEmpty()) {
+                    analysis.linesCoveredByLine.put(line, lines);
+                }
+            }
+            return analysis;
+        }
+
+        /**
+         * Analyzes the class file once for every probe, with only this probe executed. A line is covered iff any
+         * of its instructions is covered, and JaCoCo marks an instruction covered iff a probe after it executed,
+         * so the lines covered by several probes are the union of the lines covered by the single probes.
+         */
+        private void analyzeClassFile(byte[] classBytes) throws IOException {
+            final String cutName = gameClass.getName();
+
+            // The instrumenter tells us the id and the number of probes of the class
+            final Map<Long, Integer> probeCounts = new HashMap<>();
+            final Map<Long, String> classNames = new HashMap<>();
+            new Instrumenter((classId, className, probeCount, mv) -> {
+                probeCounts.put(classId, probeCount);
+                classNames.put(classId, className);
+                mv.visitLdcInsn(probeCount);
+                mv.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_BOOLEAN);
+                return 1;
+            }).instrument(classBytes, "analysis");
+
+            // Lines with instructions
+            for (IClassCoverage cc : analyze(classBytes, new ExecutionDataStore())) {
+                if (cc.getName().replace("/", ".").startsWith(cutName)) {
+                    coverableLines.or(getLines(cc, ICounter.NOT_COVERED));
+                }
+            }
+
+            for (Map.Entry<Long, Integer> entry : probeCounts.entrySet()) {
+                final long classId = entry.getKey();
+                final int probeCount = entry.getValue();
+                final BitSet[] lines = new BitSet[probeCount];
+                for (int probe = 0; probe < probeCount; probe++) {
+                    final boolean[] probes = new boolean[probeCount];
+                    probes[probe] = true;
+                    final ExecutionDataStore store = new ExecutionDataStore();
+                    store.put(new ExecutionData(classId, classNames.get(classId), probes));
+
+                    lines[probe] = new BitSet();
+                    for (IClassCoverage cc : analyze(classBytes, store)) {
+                        if (cc.getName().replace("/", ".").startsWith(cutName)) {
+                            lines[probe].or(getLines(cc, ICounter.FULLY_COVERED, ICounter.PARTLY_COVERED));
+                        }
                     }
                 }
+                linesOfProbes.put(classId, lines);
             }
         }
 
-        final Set<Integer> linesToAdd = new HashSet<>();
-        // If there's at least one line covered, then static field initializer and compile time constants are covered
-        if (!linesCovered.isEmpty()) {
-            linesToAdd.addAll(gameClass.getCompileTimeConstants());
-            linesToAdd.addAll(gameClass.getNonInitializedFields());
+        private static Iterable<IClassCoverage> analyze(byte[] classBytes, ExecutionDataStore store) {
+            final CoverageBuilder coverageBuilder = new CoverageBuilder();
+            new Analyzer(store, coverageBuilder).analyzeClass(new ClassReader(classBytes));
+            return coverageBuilder.getClasses();
         }
 
-        // Now we need to map lines covered with methods and then-branches of ifstatements in the class
-        for (Integer coveredLine : linesCovered) {
-            linesToAdd.addAll(gameClass.getMethodSignaturesForLine(coveredLine));
-            linesToAdd.addAll(gameClass.getClosingBracketForLine(coveredLine));
-            // If covered line belongs to method, add the method signature
+        private static BitSet getLines(IClassCoverage cc, int... statuses) {
+            final BitSet lines = new BitSet();
+            for (int i = cc.getFirstLine(); i <= cc.getLastLine(); i++) {
+                final int status = cc.getLine(i).getInstructionCounter().getStatus();
+                for (int s : statuses) {
+                    if (status == s) {
+                        lines.set(i);
+                    }
+                }
+            }
+            return lines;
         }
 
-        linesCovered.addAll(linesToAdd);
+        LineCoverage toLineCoverage(Map<Long, boolean[]> probes) {
+            final BitSet covered = new BitSet();
+            for (Map.Entry<Long, BitSet[]> entry : linesOfProbes.entrySet()) {
+                final boolean[] classProbes = probes.get(entry.getKey());
+                if (classProbes == null) {
+                    continue;
+                }
+                final BitSet[] lines = entry.getValue();
+                for (int probe = 0; probe < Math.min(classProbes.length, lines.length); probe++) {
+                    if (classProbes[probe]) {
+                        covered.or(lines[probe]);
+                    }
+                }
+            }
 
-        // Include covered empty lines. This requires the lines covered so far can cover them
-        linesToAdd.addAll(gameClass.getCoveredEmptyLines(linesCovered));
+            final Set<Integer> linesToAdd = new HashSet<>();
+            if (!covered.isEmpty()) {
+                linesToAdd.addAll(linesCoveredByAnyLine);
+            }
+            for (int line = covered.nextSetBit(0); line >= 0; line = covered.nextSetBit(line + 1)) {
+                linesToAdd.addAll(linesCoveredByLine.getOrDefault(line, Collections.emptyList()));
+            }
 
-        // Remove the duplicates
+            final List<Integer> linesCovered = new ArrayList<>();
+            covered.stream().forEach(linesCovered::add);
+            linesCovered.addAll(linesToAdd);
 
-        linesCovered.addAll(linesToAdd);
-        linesUncovered.removeAll(linesToAdd);
+            // Include covered empty lines. This requires the lines covered so far can cover them
+            linesToAdd.addAll(gameClass.getCoveredEmptyLines(linesCovered));
+            for (Integer line : linesToAdd) {
+                covered.set(line);
+            }
 
-        return new LineCoverage(linesCovered, linesUncovered);
+            final BitSet uncovered = (BitSet) coverableLines.clone();
+            uncovered.andNot(covered);
+
+            final List<Integer> linesUncovered = new ArrayList<>();
+            uncovered.stream().forEach(linesUncovered::add);
+            final List<Integer> allLinesCovered = new ArrayList<>();
+            covered.stream().forEach(allLinesCovered::add);
+            return new LineCoverage(allLinesCovered, linesUncovered);
+        }
     }
 }
@@ -20,15 +20,18 @@ package org.codedefenders.execution;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.enterprise.inject.Alternative;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.codedefenders.database.EventDAO;
 import org.codedefenders.database.MutantDAO;
 import org.codedefenders.database.TargetExecutionDAO;
+import org.codedefenders.database.UnitOfWork;
 import org.codedefenders.database.UserDAO;
 import org.codedefenders.game.AbstractGame;
 import org.codedefenders.game.Mutant;
@@ -46,6 +49,7 @@ import org.slf4j.LoggerFactory;
 
 import static org.codedefenders.execution.TargetExecution.Status.ERROR;
 import static org.codedefenders.execution.TargetExecution.Status.FAIL;
+import static org.codedefenders.execution.TargetExecution.Status.TIMEOUT;
 import static org.codedefenders.game.Mutant.Equivalence.ASSUMED_NO;
 import static org.codedefenders.game.Mutant.Equivalence.PROVEN_NO;
 import static org.codedefenders.util.Constants.MUTANT_ALIVE_1_MESSAGE;
@@ -119,44 +123,51 @@ public class MutationTester implements IMutationTester {
         // Acquire and release the connection
         User u = UserDAO.getUserForPlayer(test.getPlayerId());
 
+        List<Mutant> coveredMutants = new ArrayList<>();
         for (Mutant mutant : mutants) {
             if (useMutantCoverage && !test.isMutantCovered(mutant)) {
                 // System.out.println("Skipping non-covered mutant "
                 // + mutant.getId() + ", test " + test.getId());
                 continue;
             }
+            coveredMutants.add(mutant);
+        }
 
-            if (testVsMutant(test, mutant)) {
+        Map<Mutant, TargetExecution> executedTargets = executeTestVsMutants(test, coveredMutants);
+
+        // Store the kills, scores and events of the submission at once
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            for (Mutant mutant : processTestVsMutants(test, executedTargets)) {
                 killed++;
                 killedMutants.add(mutant);
             }
-        }
 
-        for (Mutant mutant : mutants) {
-            if (mutant.isAlive()) {
-                ArrayList<Test> missedTests = new ArrayList<>();
+            for (Mutant mutant : mutants) {
+                if (mutant.isAlive()) {
+                    ArrayList<Test> missedTests = new ArrayList<>();
 
-                for (int lm : mutant.getLines()) {
-                    boolean found = false;
-                    for (int lc : test.getLineCoverage().getLinesCovered()) {
-                        if (lc == lm) {
-                            found = true;
-                            missedTests.add(test);
-                        }
-                    }
-                    if (found) {
-                        break;
+                    if (test.isMutantCovered(mutant)) {
+                        missedTests.add(test);
                     }
+                    // mutant.setScore(Scorer.score(game, mutant, missedTests));
+                    // mutant.update();
+                    mutant.incrementScore(Scorer.score(game, mutant, missedTests));
                 }
-                // mutant.setScore(Scorer.score(game, mutant, missedTests));
-                // mutant.update();
-                mutant.incrementScore(Scorer.score(game, mutant, missedTests));
             }
-        }
 
-        // test.setScore(Scorer.score(game, test, killedMutants));
-        // test.update();
-        test.incrementScore(Scorer.score(game, test, killedMutants));
+            // test.setScore(Scorer.score(game, test, killedMutants));
+            // test.update();
+            test.incrementScore(Scorer.score(game, test, killedMutants));
+
+            if (killed > 0) {
+                Event notif = new Event(-1, game.getId(), u.getId(),
+                        u.getUsername() + "&#39;s test kills " + killed + " " + "mutants.",
+                        EventType.DEFENDER_KILLED_MUTANT, EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
+                eventDAO.insert(notif);
+            }
+
+            work.commit();
+        }
 
         if (killed == 0) {
             if (mutants.size() == 0) {
@@ -165,12 +176,6 @@ public class MutationTester implements IMutationTester {
                 messages.add(TEST_KILLED_ZERO_MESSAGE);
             }
         } else {
-            Event notif = new Event(-1, game.getId(), u.getId(),
-                    u.getUsername() + "&#39;s test kills " + killed + " " + "mutants.",
-                    EventType.DEFENDER_KILLED_MUTANT, EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
-
-            eventDAO.insert(notif);
-
             if (killed == 1) {
                 if (mutants.size() == 1) {
                     messages.add(TEST_KILLED_LAST_MESSAGE);
@@ -201,43 +206,61 @@ public class MutationTester implements IMutationTester {
         int killed = 0;
         List<Mutant> killedMutants = new ArrayList<>();
 
+        List<Mutant> coveredMutants = new ArrayList<>();
         for (Mutant mutant : mutants) {
             if (useMutantCoverage && !test.isMutantCovered(mutant)) {
                 continue;
             }
+            coveredMutants.add(mutant);
+        }
 
-            // Notify each and every mutant killed and survived
-            if (testVsMutant(test, mutant)) {
-                killed++;
-                killedMutants.add(mutant);
-                Event scoreEvent = new Event(-1, game.getId(), Constants.DUMMY_CREATOR_USER_ID,
-                        test.getId() + ":" + mutant.getId(),
-                        EventType.PLAYER_KILLED_MUTANT, EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
-                eventDAO.insert(scoreEvent);
-            } else {
-                Event scoreEvent = new Event(-1, game.getId(), Constants.DUMMY_CREATOR_USER_ID,
-                        test.getId() + ":" + mutant.getId(),
-                        EventType.PLAYER_MUTANT_SURVIVED, EventStatus.GAME,
-                        new Timestamp(System.currentTimeMillis()));
-                eventDAO.insert(scoreEvent);
+        Map<Mutant, TargetExecution> executedTargets = executeTestVsMutants(test, coveredMutants);
+
+        // Store the kills and events of the submission at once
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            Set<Integer> killedByTest = processTestVsMutants(test, executedTargets).stream()
+                    .map(Mutant::getId)
+                    .collect(Collectors.toSet());
+            for (Mutant mutant : coveredMutants) {
+                if (executedTargets.get(mutant) == null) {
+                    // The test did not run against the mutant, e.g. the execution was cancelled or could not be
+                    // stored, so the mutant neither survived nor was killed. It is left to be tested again.
+                    continue;
+                }
+                // Notify each and every mutant killed and survived
+                if (killedByTest.contains(mutant.getId())) {
+                    killed++;
+                    killedMutants.add(mutant);
+                    Event scoreEvent = new Event(-1, game.getId(), Constants.DUMMY_CREATOR_USER_ID,
+                            test.getId() + ":" + mutant.getId(),
+                            EventType.PLAYER_KILLED_MUTANT, EventStatus.GAME,
+                            new Timestamp(System.currentTimeMillis()));
+                    eventDAO.insert(scoreEvent);
+                } else {
+                    Event scoreEvent = new Event(-1, game.getId(), Constants.DUMMY_CREATOR_USER_ID,
+                            test.getId() + ":" + mutant.getId(),
+                            EventType.PLAYER_MUTANT_SURVIVED, EventStatus.GAME,
+                            new Timestamp(System.currentTimeMillis()));
+                    eventDAO.insert(scoreEvent);
+                }
+            }
+
+            if (killed > 0) {
+                Event notif = new Event(-1, game.getId(), u.getId(),
+                        u.getUsername() + "&#39;s test kills " + killed + " " + "mutants.",
+                        EventType.DEFENDER_KILLED_MUTANT, EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
+                eventDAO.insert(notif);
             }
+
+            work.commit();
         }
 
         for (Mutant mutant : mutants) {
             if (mutant.isAlive()) {
                 ArrayList<Test> missedTests = new ArrayList<>();
 
-                for (int lm : mutant.getLines()) {
-                    boolean found = false;
-                    for (int lc : test.getLineCoverage().getLinesCovered()) {
-                        if (lc == lm) {
-                            found = true;
-                            missedTests.add(test);
-                        }
-                    }
-                    if (found) {
-                        break;
-                    }
+                if (test.isMutantCovered(mutant)) {
+                    missedTests.add(test);
                 }
             }
         }
@@ -249,12 +272,6 @@ public class MutationTester implements IMutationTester {
                 messages.add(TEST_KILLED_ZERO_MESSAGE);
             }
         } else {
-            Event notif = new Event(-1, game.getId(), u.getId(),
-                    u.getUsername() + "&#39;s test kills " + killed + " " + "mutants.",
-                    EventType.DEFENDER_KILLED_MUTANT, EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
-
-            eventDAO.insert(notif);
-
             if (killed == 1) {
                 if (mutants.size() == 1) {
                     messages.add(TEST_KILLED_LAST_MESSAGE);
@@ -314,11 +331,8 @@ public class MutationTester implements IMutationTester {
         // the first block and the second one are swapped. Why ?
         ArrayList<Test> missedTests = new ArrayList<>();
         if (game instanceof MultiplayerGame) {
-            for (Test t : tests) {
-                if (CollectionUtils.containsAny(t.getLineCoverage().getLinesCovered(), mutant.getLines())) {
-                    missedTests.add(t);
-                }
-            }
+            // The index cached by the game covers the same tests as game.getTests(true)
+            missedTests.addAll(game.getCoverageIndex(true).getCoveringTests(mutant));
             // mutant.setScore(1 + Scorer.score((MultiplayerGame) game, mutant,
             // missedTests));
             // mutant.update();
@@ -347,20 +361,86 @@ public class MutationTester implements IMutationTester {
      * @return {@code true} if the test killed the mutant, {@code false} otherwise
      */
     public boolean testVsMutant(Test test, Mutant mutant) {
-        if (TargetExecutionDAO.getTargetExecutionForPair(test.getId(), mutant.getId()) != null) {
-            logger.error("Execution result found for Mutant {} and Test {}.", mutant.getId(), test.getId());
+        if (CancellationToken.isCurrentCancelled() || hasExecutionResult(test, mutant)) {
             return false;
         }
 
         final TargetExecution executedTarget = backend.testMutant(mutant, test);
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            boolean killed = processTestVsMutant(test, mutant, executedTarget);
+            work.commit();
+            return killed;
+        }
+    }
+
+    /**
+     * Runs a test against several mutants at once, using {@link BackendExecutorService#testMutants(List, Test)}.
+     * Mutants which were already tested against the test are skipped.
+     *
+     * @param test    The test to run
+     * @param mutants The mutants we run the test against
+     * @return The executions of the test, by mutant
+     * @see #processTestVsMutants(Test, Map)
+     */
+    protected Map<Mutant, TargetExecution> executeTestVsMutants(Test test, List<Mutant> mutants) {
+        List<Mutant> executableMutants = mutants.stream()
+                .filter(mutant -> !hasExecutionResult(test, mutant))
+                .collect(Collectors.toList());
+
+        List<TargetExecution> executedTargets = backend.testMutants(executableMutants, test);
+
+        Map<Mutant, TargetExecution> result = new LinkedHashMap<>();
+        for (int i = 0; i < executableMutants.size(); i++) {
+            result.put(executableMutants.get(i), executedTargets.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Kills the mutants whose execution against the test failed, like {@link #testVsMutant(Test, Mutant)} does.
+     * This only writes to the database, so it can be part of the {@link UnitOfWork} of the caller.
+     *
+     * @param test            The test which was run
+     * @param executedTargets The executions of the test, by mutant
+     * @return The mutants killed by the test
+     */
+    protected List<Mutant> processTestVsMutants(Test test, Map<Mutant, TargetExecution> executedTargets) {
+        List<Mutant> killedMutants = new ArrayList<>();
+        for (Map.Entry<Mutant, TargetExecution> entry : executedTargets.entrySet()) {
+            if (processTestVsMutant(test, entry.getKey(), entry.getValue())) {
+                killedMutants.add(entry.getKey());
+            }
+        }
+        return killedMutants;
+    }
+
+    private boolean hasExecutionResult(Test test, Mutant mutant) {
+        if (TargetExecutionDAO.getTargetExecutionForPair(test.getId(), mutant.getId()) != null) {
+            logger.error("Execution result found for Mutant {} and Test {}.", mutant.getId(), test.getId());
+            return true;
+        }
+        return false;
+    }
 
+    /**
+     * Kills the mutant if the test execution against it failed.
+     *
+     * @return {@code true} if the test killed the mutant, {@code false} otherwise
+     */
+    private boolean processTestVsMutant(Test test, Mutant mutant, TargetExecution executedTarget) {
         Integer gameId = test.getGameId();
         String scoringMessage = String.join(":", new String[] { "" + test.getId(), "" + mutant.getId() });
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
 
+        if (executedTarget == null) {
+            logger.debug("Execution of Test {} on Mutant {} was cancelled", test.getId(), mutant.getId());
+            return false;
+        }
+
         // If the test did NOT pass, the mutant was detected and should be
         // killed.
-        if (!executedTarget.status.equals(FAIL) && !executedTarget.status.equals(ERROR)) {
+        if (!executedTarget.status.equals(FAIL) && !executedTarget.status.equals(ERROR)
+                && !executedTarget.status.equals(TIMEOUT)) {
             logger.debug("Test {} did not kill Mutant {}", test.getId(), mutant.getId());
             // Mutant survived
             return false;
@@ -395,21 +475,30 @@ public class MutationTester implements IMutationTester {
         // kills the mutant or doesnt.
         TargetExecution executedTarget = backend.testMutant(mutant, test);
 
+        if (executedTarget == null) {
+            logger.debug("Equivalence test of Test {} on Mutant {} was cancelled", test.getId(), mutant.getId());
+            return;
+        }
+
         // Kill the mutant if it was killed by the test or if it's marked
         // equivalent
-        if (executedTarget.status.equals(ERROR) || executedTarget.status.equals(FAIL)) {
+        if (executedTarget.status.equals(ERROR) || executedTarget.status.equals(FAIL)
+                || executedTarget.status.equals(TIMEOUT)) {
             // If the test did NOT pass, the mutant was detected and is proven
             // to be non-equivalent
-            if (mutant.kill(PROVEN_NO)) {
-                logger.info("Test {} kills mutant {} and resolve equivalence.", test.getId(), mutant.getId());
-                test.killMutant();
-                mutant.setKillMessage(executedTarget.message);
-                MutantDAO.updateMutantKillMessageForMutant(mutant);
-            } else {
-                logger.info(
-                        "Test {} would have killed Mutant {} and resolve equivalence,"
-                                + "but Mutant {} was alredy dead. No need to resolve equivalence.!",
-                        test.getId(), mutant.getId(), mutant.getId());
+            try (UnitOfWork work = UnitOfWork.begin()) {
+                if (mutant.kill(PROVEN_NO)) {
+                    logger.info("Test {} kills mutant {} and resolve equivalence.", test.getId(), mutant.getId());
+                    test.killMutant();
+                    mutant.setKillMessage(executedTarget.message);
+                    MutantDAO.updateMutantKillMessageForMutant(mutant);
+                } else {
+                    logger.info(
+                            "Test {} would have killed Mutant {} and resolve equivalence,"
+                                    + "but Mutant {} was alredy dead. No need to resolve equivalence.!",
+                            test.getId(), mutant.getId(), mutant.getId());
+                }
+                work.commit();
             }
         } else {
             // If the test DID pass, the mutant went undetected and it is
@@ -477,8 +566,9 @@ public class MutationTester implements IMutationTester {
         // 4fbdc78304374ee31a06d56f8ce67ca80309e24c for example)
         // the first block and the second one are swapped. Why ?
         ArrayList<Test> missedTests = new ArrayList<>();
+        // A single lookup, so scanning the tests is cheaper than indexing them
         for (Test t : tests) {
-            if (CollectionUtils.containsAny(t.getLineCoverage().getLinesCovered(), mutant.getLines())) {
+            if (t.isMutantCovered(mutant)) {
                 missedTests.add(t);
             }
         }
@@ -18,8 +18,6 @@
  */
 package org.codedefenders.execution;
 
-import java.util.concurrent.ExecutorService;
-
 import javax.enterprise.context.RequestScoped;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
@@ -36,8 +34,7 @@ public class MutationTesterProducer {
     private BackendExecutorService backend;
 
     @Inject
-    @ThreadPool("test-executor")
-    private ExecutorService testExecutorThreadPool;
+    private ExecutionScheduler scheduler;
 
     @Inject
     private EventDAO eventDAO;
@@ -46,7 +43,8 @@ public class MutationTesterProducer {
     @RequestScoped
     public IMutationTester getMutationTester() {
         if (config.isParallelize()) {
-            return new ParallelMutationTester(backend, eventDAO, config.isMutantCoverage(), testExecutorThreadPool);
+            return new ParallelMutationTester(backend, eventDAO, config.isMutantCoverage(), scheduler,
+                    config.getMutantTestWindow());
         } else {
             return new MutationTester(backend, eventDAO, config.isMutantCoverage());
         }
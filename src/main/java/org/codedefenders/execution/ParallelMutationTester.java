@@ -21,20 +21,23 @@ package org.codedefenders.execution;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 
 import javax.enterprise.inject.Alternative;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.codedefenders.database.EventDAO;
+import org.codedefenders.database.UnitOfWork;
 import org.codedefenders.database.UserDAO;
+import org.codedefenders.execution.ExecutionScheduler.Priority;
 import org.codedefenders.game.AbstractGame;
 import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Test;
@@ -59,7 +62,7 @@ import static org.codedefenders.util.Constants.TEST_SUBMITTED_MESSAGE;
 
 /**
  * This is a parallel implementation of IMutationTester. Parallelism is achieved
- * by means of the injected executionService
+ * by means of the injected {@link ExecutionScheduler}, which runs the executions with interactive priority
  *
  * <p>We inject instances using {@link MutationTesterProducer}
  */
@@ -67,12 +70,15 @@ import static org.codedefenders.util.Constants.TEST_SUBMITTED_MESSAGE;
 public class ParallelMutationTester extends MutationTester //
         // This MIGHT be superfluous but I am not sure how CDI works with annotations
         implements IMutationTester {
-    private ExecutorService testExecutorThreadPool;
+    private ExecutionScheduler scheduler;
+    private int testWindow;
 
-    // TODO Move the Executor service before useMutantCoverage
-    public ParallelMutationTester(BackendExecutorService backend, EventDAO eventDAO, boolean useMutantCoverage, ExecutorService testExecutorThreadPool) {
+    // TODO Move the scheduler before useMutantCoverage
+    public ParallelMutationTester(BackendExecutorService backend, EventDAO eventDAO, boolean useMutantCoverage,
+            ExecutionScheduler scheduler, int testWindow) {
         super(backend, eventDAO, useMutantCoverage);
-        this.testExecutorThreadPool = testExecutorThreadPool;
+        this.scheduler = scheduler;
+        this.testWindow = testWindow;
     }
 
     private static final Logger logger = LoggerFactory.getLogger(ParallelMutationTester.class);
@@ -109,7 +115,7 @@ public class ParallelMutationTester extends MutationTester //
             // This is for checking later
             tasks.put(mutant, task);
 
-            testExecutorThreadPool.execute(task);
+            scheduler.execute(Priority.INTERACTIVE, game.getId(), task);
         }
 
         // TODO Mayse use some timeout ?!
@@ -139,31 +145,34 @@ public class ParallelMutationTester extends MutationTester //
 
         tasks.clear();
 
-        for (Mutant mutant : mutants) {
-            if (mutant.isAlive()) {
-                ArrayList<Test> missedTests = new ArrayList<Test>();
-
-                for (int lm : mutant.getLines()) {
-                    boolean found = false;
-                    for (int lc : test.getLineCoverage().getLinesCovered()) {
-                        if (lc == lm) {
-                            found = true;
-                            missedTests.add(test);
-                        }
-                    }
-                    if (found) {
-                        break;
+        // Store the scores and events of the submission at once
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            for (Mutant mutant : mutants) {
+                if (mutant.isAlive()) {
+                    ArrayList<Test> missedTests = new ArrayList<Test>();
+
+                    if (test.isMutantCovered(mutant)) {
+                        missedTests.add(test);
                     }
+                    // mutant.setScore(Scorer.score(game, mutant, missedTests));
+                    // mutant.update();
+                    mutant.incrementScore(Scorer.score(game, mutant, missedTests));
                 }
-                // mutant.setScore(Scorer.score(game, mutant, missedTests));
-                // mutant.update();
-                mutant.incrementScore(Scorer.score(game, mutant, missedTests));
             }
-        }
 
-        // test.setScore(Scorer.score(game, test, killedMutants));
-        // test.update();
-        test.incrementScore(Scorer.score(game, test, killedMutants));
+            // test.setScore(Scorer.score(game, test, killedMutants));
+            // test.update();
+            test.incrementScore(Scorer.score(game, test, killedMutants));
+
+            if (killed > 0) {
+                Event notif = new Event(-1, game.getId(), u.getId(),
+                        u.getUsername() + "&#39;s test kills " + killed + " " + "mutants.",
+                        EventType.DEFENDER_KILLED_MUTANT, EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
+                eventDAO.insert(notif);
+            }
+
+            work.commit();
+        }
 
         if (killed == 0) {
             if (mutants.size() == 0) {
@@ -172,10 +181,6 @@ public class ParallelMutationTester extends MutationTester //
                 messages.add(TEST_KILLED_ZERO_MESSAGE);
             }
         } else {
-            Event notif = new Event(-1, game.getId(), u.getId(),
-                    u.getUsername() + "&#39;s test kills " + killed + " " + "mutants.",
-                    EventType.DEFENDER_KILLED_MUTANT, EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
-            eventDAO.insert(notif);
             if (killed == 1) {
                 if (mutants.size() == 1) {
                     messages.add(TEST_KILLED_LAST_MESSAGE);
@@ -189,12 +194,12 @@ public class ParallelMutationTester extends MutationTester //
         }
     }
 
-    /*
-     * (non-Javadoc)
+    /**
+     * Runs the tests against the mutant in parallel, in the order defined by the scheduler.
      *
-     * @see org.codedefenders.execution.IMutationTester#runAllTestsOnMutant(org.
-     * codedefenders.game.AbstractGame, org.codedefenders.game.Mutant,
-     * java.util.ArrayList, org.codedefenders.execution.TestScheduler)
+     * <p>At most {@code testWindow} tests are executed at the same time (all tests, if the window is {@code 0}).
+     * Once a test kills the mutant, the remaining tests are not executed anymore: queued tests are cancelled, and
+     * the processes of running tests are killed through a {@link CancellationToken}.
      */
     @Override
     public void runAllTestsOnMutant(AbstractGame game, Mutant mutant, ArrayList<String> messages,
@@ -204,86 +209,79 @@ public class ParallelMutationTester extends MutationTester //
 
         User u = UserDAO.getUserForPlayer(mutant.getPlayerId());
 
-        final Map<Test, FutureTask<Boolean>> tasks = new HashMap<Test, FutureTask<Boolean>>();
+        List<Test> executableTests = new ArrayList<>();
         for (Test test : tests) {
             if (useMutantCoverage && !test.isMutantCovered(mutant)) {
                 logger.info("Skipping non-covered mutant " + mutant.getId() + ", test " + test.getId());
                 continue;
             }
+            executableTests.add(test);
+        }
 
-            FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
+        final CancellationToken cancellation = new CancellationToken();
+        final CompletionService<Boolean> completionService =
+                new ExecutorCompletionService<>(scheduler.executorFor(Priority.INTERACTIVE, game.getId()));
+        final int window = testWindow > 0 ? testWindow : executableTests.size();
 
-                @Override
-                public Boolean call() throws Exception {
-                    logger.info("Executing mutant " + mutant.getId() + ", test " + test.getId());
-                    // TODO Is this testVsMutant thread safe?
-                    return testVsMutant(test, mutant);
-                }
-            });
-
-            // Book keeping
-            tasks.put(test, task);
-        }
+        // Book keeping
+        final Map<Future<Boolean>, Test> tasks = new HashMap<>();
+        final Iterator<Test> pendingTests = executableTests.iterator();
 
-        // Submit all the tests in the given order
-        for (Test test : tests) {
-            if (tasks.containsKey(test)) {
-                logger.debug("MutationTester.runAllTestsOnMutant() : Scheduling Task " + test);
-                testExecutorThreadPool.execute(tasks.get(test));
+        Test killingTest = null;
+        try {
+            // Submit the tests in the given order, but only as many as fit into the window
+            while (tasks.size() < window && pendingTests.hasNext()) {
+                submitTestVsMutant(completionService, cancellation, tasks, pendingTests.next(), mutant);
             }
-        }
 
-        // Wait for the result. Check by the order defined by the scheduler.
-        for (Test test : tests) {
-            // Why this happens ?
-            if (!tasks.containsKey(test)) {
-                logger.debug("Tasks does not contain " + test.getId());
-                continue;
+            // Whenever an execution finishes without killing the mutant, the next test takes its place
+            while (!tasks.isEmpty()) {
+                Future<Boolean> task = completionService.take();
+                Test test = tasks.remove(task);
+                if (hasKilledMutant(task, test, mutant)) {
+                    killingTest = test;
+                    break;
+                }
+                if (pendingTests.hasNext()) {
+                    submitTestVsMutant(completionService, cancellation, tasks, pendingTests.next(), mutant);
+                }
             }
-
-            Future<Boolean> task = tasks.get(test);
-            logger.debug("MutationTester.runAllTestsOnMutant() Checking task " + task + ". Done: " + task.isDone()
-                    + ". Cancelled: " + task.isCancelled());
-            try {
-
-                boolean hasTestkilledTheMutant = false;
-
-                try {
-                    hasTestkilledTheMutant = task.get();
-                } catch (CancellationException ce) {
-                    //
-                    logger.warn("Swallowing ", ce);
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while waiting for the executions against mutant {}", mutant.getId());
+            Thread.currentThread().interrupt();
+        } finally {
+            // The mutant is dead (or we stopped waiting), the outstanding executions are not needed anymore
+            if (!tasks.isEmpty()) {
+                logger.debug("Cancelling {} outstanding executions against mutant {}", tasks.size(), mutant.getId());
+                cancellation.cancel();
+                for (Future<Boolean> task : tasks.keySet()) {
+                    task.cancel(false);
                 }
+            }
+        }
 
-                if (hasTestkilledTheMutant) {
-                    // This test killede the mutant...
-                    messages.add(String.format(MUTANT_KILLED_BY_TEST_MESSAGE, test.getId()));
-
-                    if (game instanceof MultiplayerGame) {
-                        ArrayList<Mutant> mlist = new ArrayList<Mutant>();
-                        mlist.add(mutant);
+        if (killingTest != null) {
+            // This test killed the mutant...
+            messages.add(String.format(MUTANT_KILLED_BY_TEST_MESSAGE, killingTest.getId()));
 
-                        logger.info(">> Test {} kills mutant {} get {} points. Mutant is still alive ? {}",
-                                test.getId(), mutant.getId(), Scorer.score((MultiplayerGame) game, test, mlist),
-                                mutant.isAlive());
+            if (game instanceof MultiplayerGame) {
+                ArrayList<Mutant> mlist = new ArrayList<Mutant>();
+                mlist.add(mutant);
 
-                        test.incrementScore(Scorer.score((MultiplayerGame) game, test, mlist));
-                    }
+                logger.info(">> Test {} kills mutant {} get {} points. Mutant is still alive ? {}",
+                        killingTest.getId(), mutant.getId(), Scorer.score((MultiplayerGame) game, killingTest, mlist),
+                        mutant.isAlive());
 
-                    Event notif = new Event(-1, game.getId(), UserDAO.getUserForPlayer(test.getPlayerId()).getId(),
-                            u.getUsername() + "&#39;s mutant is killed", EventType.DEFENDER_KILLED_MUTANT,
-                            EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
-                    eventDAO.insert(notif);
+                killingTest.incrementScore(Scorer.score((MultiplayerGame) game, killingTest, mlist));
+            }
 
-                    // Early return. No need to check for the other executions.
-                    return;
+            Event notif = new Event(-1, game.getId(), UserDAO.getUserForPlayer(killingTest.getPlayerId()).getId(),
+                    u.getUsername() + "&#39;s mutant is killed", EventType.DEFENDER_KILLED_MUTANT,
+                    EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
+            eventDAO.insert(notif);
 
-                }
-            } catch (InterruptedException | ExecutionException e) {
-                logger.warn(
-                        "MutationTester.runAllTestsOnMutant() ERROR While waiting results for task " + e.getMessage());
-                // e.printStackTrace();
-            }
+            // Early return. No need to check for the other executions.
+            return;
         }
 
         // TODO In the original implementation (see commit
@@ -291,11 +289,8 @@ public class ParallelMutationTester extends MutationTester //
         // the first block and the second one are swapped. Why ?
         ArrayList<Test> missedTests = new ArrayList<Test>();
         if (game instanceof MultiplayerGame) {
-            for (Test t : tests) {
-                if (CollectionUtils.containsAny(t.getLineCoverage().getLinesCovered(), mutant.getLines())) {
-                    missedTests.add(t);
-                }
-            }
+            // The index cached by the game covers the same tests as game.getTests(true)
+            missedTests.addAll(game.getCoverageIndex(true).getCoveringTests(mutant));
             // mutant.setScore(1 + Scorer.score((MultiplayerGame) game, mutant,
             // missedTests));
             // mutant.update();
@@ -316,4 +311,26 @@ public class ParallelMutationTester extends MutationTester //
         eventDAO.insert(notif);
     }
 
+    private void submitTestVsMutant(CompletionService<Boolean> completionService, CancellationToken cancellation,
+            Map<Future<Boolean>, Test> tasks, Test test, Mutant mutant) {
+        logger.debug("MutationTester.runAllTestsOnMutant() : Scheduling Task " + test);
+        Future<Boolean> task = completionService.submit(() -> cancellation.callWith(() -> {
+            logger.info("Executing mutant " + mutant.getId() + ", test " + test.getId());
+            // TODO Is this testVsMutant thread safe?
+            return testVsMutant(test, mutant);
+        }));
+        tasks.put(task, test);
+    }
+
+    private static boolean hasKilledMutant(Future<Boolean> task, Test test, Mutant mutant) {
+        try {
+            return task.get();
+        } catch (CancellationException ce) {
+            logger.warn("Swallowing ", ce);
+        } catch (InterruptedException | ExecutionException e) {
+            logger.warn("MutationTester.runAllTestsOnMutant() ERROR While waiting results for test {} on mutant {}",
+                    test.getId(), mutant.getId(), e);
+        }
+        return false;
+    }
 }
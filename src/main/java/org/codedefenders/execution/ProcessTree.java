@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Kills processes together with all the processes they started.
+ *
+ * <p>{@link Process#destroyForcibly()} only kills the process itself. Ant forks JVMs for some targets
+ * (e.g. {@code test-original}), and tests can start processes on their own, which would keep running.
+ * Java 8 cannot list the children of a process, so we ask the operating system for them.
+ */
+class ProcessTree {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessTree.class);
+
+    private static final boolean IS_WINDOWS = System.getProperty("os.name").toLowerCase().contains("windows");
+
+    private ProcessTree() {
+    }
+
+    /**
+     * Forcibly kills the given process and all its descendants.
+     *
+     * @param process The process to kill.
+     */
+    static void destroy(Process process) {
+        if (!process.isAlive()) {
+            return;
+        }
+        long pid = getPid(process);
+        if (pid > 0) {
+            try {
+                if (IS_WINDOWS) {
+                    run("taskkill", "/F", "/T", "/PID", String.valueOf(pid));
+                } else {
+                    // Collect the whole tree first, so no process is reparented before we see it
+                    List<String> command = new ArrayList<>();
+                    command.add("kill");
+                    command.add("-KILL");
+                    command.add(String.valueOf(pid));
+                    collectDescendants(pid, command);
+                    run(command.toArray(new String[0]));
+                }
+            } catch (IOException e) {
+                logger.warn("Could not kill the process tree of process {}", pid, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Fallback, and in case the process survived
+        process.destroyForcibly();
+    }
+
+    private static void collectDescendants(long pid, List<String> pids) throws IOException, InterruptedException {
+        for (String child : run("pgrep", "-P", String.valueOf(pid))) {
+            child = child.trim();
+            if (!child.isEmpty()) {
+                pids.add(child);
+                collectDescendants(Long.parseLong(child), pids);
+            }
+        }
+    }
+
+    private static List<String> run(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.add(line);
+            }
+        }
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+        return output;
+    }
+
+    /**
+     * Returns the operating system id of the process, or {@code -1} if it cannot be determined.
+     */
+    static long getPid(Process process) {
+        try {
+            // Java 9+
+            return (Long) Process.class.getMethod("pid").invoke(process);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // Java 8 on Unix keeps the pid in a private field
+            try {
+                Field field = process.getClass().getDeclaredField("pid");
+                field.setAccessible(true);
+                return field.getInt(process);
+            } catch (ReflectiveOperationException | RuntimeException e1) {
+                logger.debug("Could not determine the pid of process {}", process);
+                return -1;
+            }
+        }
+    }
+}
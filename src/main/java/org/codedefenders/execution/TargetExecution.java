@@ -46,7 +46,12 @@ public class TargetExecution {
     public enum Status {
         SUCCESS,
         FAIL,
-        ERROR
+        ERROR,
+        /**
+         * The execution was killed because it exceeded its time limit. Like failures and errors, a test timing out
+         * on a mutant kills the mutant.
+         */
+        TIMEOUT
     }
 
     // Constructors for initial creation of TargetExecution
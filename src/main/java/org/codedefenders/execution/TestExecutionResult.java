@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.Map;
+
+/**
+ * The outcome of running a JUnit test class with a {@link TestExecutor}.
+ */
+public class TestExecutionResult {
+    private final TargetExecution.Status status;
+    private final String message;
+    private final Map<Long, boolean[]> coverage;
+
+    TestExecutionResult(TargetExecution.Status status, String message) {
+        this(status, message, null);
+    }
+
+    TestExecutionResult(TargetExecution.Status status, String message, Map<Long, boolean[]> coverage) {
+        this.status = status;
+        this.message = message;
+        this.coverage = coverage;
+    }
+
+    static TestExecutionResult success() {
+        return new TestExecutionResult(TargetExecution.Status.SUCCESS, null);
+    }
+
+    static TestExecutionResult failure(String message) {
+        return new TestExecutionResult(TargetExecution.Status.FAIL, message);
+    }
+
+    static TestExecutionResult error(String message) {
+        return new TestExecutionResult(TargetExecution.Status.ERROR, message);
+    }
+
+    static TestExecutionResult timeout(String message) {
+        return new TestExecutionResult(TargetExecution.Status.TIMEOUT, message);
+    }
+
+    public TargetExecution.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the JUnit output for failing tests, or {@code null} if the test passed.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the JaCoCo probes of the classes under test by class id, or {@code null} if no coverage was collected.
+     *
+     * @see TestExecutor#executeWithCoverage(java.util.List, String, String)
+     */
+    public Map<Long, boolean[]> getCoverage() {
+        return coverage;
+    }
+
+    TestExecutionResult withCoverage(Map<Long, boolean[]> coverage) {
+        return new TestExecutionResult(status, message, coverage);
+    }
+
+    @Override
+    public String toString() {
+        return "TestExecutionResult{"
+                + "status=" + status
+                + ", message='" + message + '\''
+                + '}';
+    }
+}
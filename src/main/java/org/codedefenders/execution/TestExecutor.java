@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.File;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs JUnit test classes without going through Ant.
+ *
+ * @see InProcessTestExecutor
+ * @see WorkerPoolTestExecutor
+ */
+public interface TestExecutor extends AutoCloseable {
+
+    /**
+     * Runs a JUnit test class.
+     *
+     * @param classPath     The class path entries the test is loaded from, in the order they are looked up.
+     *                      Entries which do not exist are ignored.
+     * @param testClassName The qualified name of the test class.
+     * @return The result of the test execution.
+     */
+    TestExecutionResult execute(List<File> classPath, String testClassName);
+
+    /**
+     * Runs a JUnit test class and collects the line coverage of the class under test in memory.
+     *
+     * <p>The class under test and its inner classes are instrumented with JaCoCo when they are loaded.
+     * The probes are returned with {@link TestExecutionResult#getCoverage()} and can be mapped to lines with
+     * {@link LineCoverageGenerator#generate(org.codedefenders.game.GameClass, java.util.Map)}.
+     *
+     * @param classPath     The class path entries the test is loaded from. See {@link #execute(List, String)}.
+     * @param testClassName The qualified name of the test class.
+     * @param cutName       The qualified name of the class under test.
+     * @return The result of the test execution, including the coverage.
+     */
+    TestExecutionResult executeWithCoverage(List<File> classPath, String testClassName, String cutName);
+
+    /**
+     * Runs a JUnit test class once for each of the given class paths, e.g. against several mutants.
+     *
+     * <p>The results are passed to the consumer in the order of the class paths, as soon as they are available.
+     * Exactly one result is passed for every class path. The result is {@code null} if the execution did not
+     * take place, e.g. because the executor was shut down or the execution was cancelled, so callers can
+     * schedule it again instead of recording a result for it.
+     *
+     * @param classPaths     The class paths to run the test with. See {@link #execute(List, String)}.
+     * @param testClassName  The qualified name of the test class.
+     * @param resultConsumer Receives the result of every test execution.
+     */
+    default void executeBatch(List<List<File>> classPaths, String testClassName,
+                              Consumer<TestExecutionResult> resultConsumer) {
+        for (List<File> classPath : classPaths) {
+            resultConsumer.accept(execute(classPath, testClassName));
+        }
+    }
+
+    /**
+     * Releases the resources held by this executor.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+
+/**
+ * Entry point of the worker JVMs managed by the {@link WorkerPoolTestExecutor}.
+ *
+ * <p>A worker reads one {@link Request} per line from its standard input, runs the requested test class with an
+ * {@link InProcessTestExecutor} once for every class path of the request, and writes each
+ * {@link TestExecutionResult} as one line to its standard output as soon as it is available.
+ * Both are encoded as JSON. The worker stops when its standard input is closed.
+ *
+ * <p>Workers are started with the security manager and the {@code security.policy} of the data directory,
+ * so tests run in the same sandbox as with the {@code test-mutant} Ant target. Output of the tests is redirected
+ * to the standard error stream to keep the standard output free for the results.
+ */
+public class TestWorker {
+
+    /**
+     * Runs the worker.
+     *
+     * @param args The directory containing the testing libraries.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: TestWorker <library directory>");
+            return;
+        }
+
+        PrintStream resultOut = System.out;
+        System.setOut(System.err);
+
+        Gson gson = new Gson();
+        // The worker pool kills workers which exceed the timeout, so tests can run on this thread
+        try (InProcessTestExecutor executor = new InProcessTestExecutor(new File(args[0]), 0);
+             BufferedReader requestIn = new BufferedReader(
+                     new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = requestIn.readLine()) != null) {
+                Request request = gson.fromJson(line, Request.class);
+
+                for (List<File> classPath : request.getClassPaths()) {
+                    TestExecutionResult result = request.cutName == null
+                            ? executor.execute(classPath, request.testClassName)
+                            : executor.executeWithCoverage(classPath, request.testClassName, request.cutName);
+                    resultOut.println(gson.toJson(result));
+                    resultOut.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * A request to run a test class with one or more class paths, sent to the worker by the
+     * {@link WorkerPoolTestExecutor}. If the request names a class under test, its coverage is collected.
+     */
+    static class Request {
+        private final List<List<String>> classPaths;
+        private final String testClassName;
+        private final String cutName;
+
+        Request(List<List<File>> classPaths, String testClassName, String cutName) {
+            this.classPaths = new ArrayList<>();
+            for (List<File> classPath : classPaths) {
+                List<String> entries = new ArrayList<>();
+                for (File entry : classPath) {
+                    entries.add(entry.getAbsolutePath());
+                }
+                this.classPaths.add(entries);
+            }
+            this.testClassName = testClassName;
+            this.cutName = cutName;
+        }
+
+        List<List<File>> getClassPaths() {
+            List<List<File>> result = new ArrayList<>();
+            for (List<String> entries : classPaths) {
+                List<File> classPath = new ArrayList<>();
+                for (String entry : entries) {
+                    classPath.add(new File(entry));
+                }
+                result.add(classPath);
+            }
+            return result;
+        }
+
+        String getTestClassName() {
+            return testClassName;
+        }
+
+        int size() {
+            return classPaths.size();
+        }
+
+        /**
+         * Returns a request for the class paths of this request from the given index on.
+         */
+        Request remainder(int fromIndex) {
+            return new Request(getClassPaths().subList(fromIndex, size()), testClassName, cutName);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.codedefenders.configuration.Configuration;
+import org.jacoco.core.instr.Instrumenter;
+import org.objectweb.asm.ClassReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Executes JUnit tests in a pool of long-lived worker JVMs.
+ *
+ * <p>Forking a new JVM (and Ant) for every test execution is expensive. Instead, this executor keeps a fixed number
+ * of warm {@link TestWorker} processes running, which are started with the security manager and the
+ * {@code security.policy} of the data directory, and sends them the test executions over their standard input.
+ * Every worker runs one test at a time; callers block until a worker is available.
+ *
+ * <p>Workers are replaced by fresh ones after a configurable number of executions, so state leaking from tests
+ * (e.g. threads or static fields of the testing libraries) cannot accumulate. A worker which does not answer within
+ * the configured timeout is killed and replaced as well, and the execution is reported as a
+ * {@link TargetExecution.Status#TIMEOUT}. The execution of a worker which dies is reported as an
+ * {@link TargetExecution.Status#ERROR}. The executions of a batch which were not run yet when the worker was
+ * killed are run on a fresh worker.
+ */
+public class WorkerPoolTestExecutor implements TestExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(WorkerPoolTestExecutor.class);
+
+    private static final String WORKER_LOG_FILE = "workers.log";
+
+    private final List<String> workerCommand;
+    private final File dataDir;
+    private final int maxExecutionsPerWorker;
+    private final int timeoutSeconds;
+
+    private final Semaphore availableWorkers;
+    private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+    private final ExecutorService resultReaders;
+    private final Gson gson = new Gson();
+
+    private volatile boolean closed = false;
+
+    public WorkerPoolTestExecutor(Configuration config) {
+        this(buildWorkerCommand(config), config.getDataDir(), config.getWorkerPoolSize(),
+                config.getWorkerMaxExecutions(), config.getWorkerTimeout());
+    }
+
+    WorkerPoolTestExecutor(List<String> workerCommand, File dataDir, int poolSize, int maxExecutionsPerWorker,
+                           int timeoutSeconds) {
+        this.workerCommand = workerCommand;
+        this.dataDir = dataDir;
+        this.maxExecutionsPerWorker = maxExecutionsPerWorker;
+        this.timeoutSeconds = timeoutSeconds;
+
+        this.availableWorkers = new Semaphore(poolSize, true);
+        this.resultReaders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "test-worker-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < poolSize; i++) {
+            Worker worker = startWorker();
+            if (worker != null) {
+                idleWorkers.add(worker);
+            }
+        }
+        logger.info("Started {} test workers", idleWorkers.size());
+    }
+
+    @Override
+    public TestExecutionResult execute(List<File> classPath, String testClassName) {
+        return executeSingle(new TestWorker.Request(Collections.singletonList(classPath), testClassName, null));
+    }
+
+    @Override
+    public TestExecutionResult executeWithCoverage(List<File> classPath, String testClassName, String cutName) {
+        return executeSingle(new TestWorker.Request(Collections.singletonList(classPath), testClassName, cutName));
+    }
+
+    private TestExecutionResult executeSingle(TestWorker.Request request) {
+        List<TestExecutionResult> results = new ArrayList<>(1);
+        execute(request, results::add);
+        TestExecutionResult result = results.get(0);
+        return result != null ? result : TestExecutionResult.error("The test could not be run by a test worker.");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>All executions of the batch are sent to the same worker, which streams back the results one by one.
+     * The timeout applies to every single execution. If the worker is killed, the remaining executions of the
+     * batch are sent to a fresh worker. They are only skipped if the execution was cancelled or no worker can
+     * run them.
+     */
+    @Override
+    public void executeBatch(List<List<File>> classPaths, String testClassName,
+                             Consumer<TestExecutionResult> resultConsumer) {
+        if (classPaths.isEmpty()) {
+            return;
+        }
+        execute(new TestWorker.Request(classPaths, testClassName, null), resultConsumer);
+    }
+
+    private void execute(TestWorker.Request request, Consumer<TestExecutionResult> resultConsumer) {
+        if (closed) {
+            logger.warn("Not running test {}, the test worker pool is shut down", request.getTestClassName());
+            skip(request.size(), resultConsumer);
+            return;
+        }
+
+        try {
+            availableWorkers.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for a test worker to run test {}", request.getTestClassName());
+            skip(request.size(), resultConsumer);
+            return;
+        }
+
+        Worker worker = idleWorkers.poll();
+        try {
+            TestWorker.Request remaining = request;
+            while (true) {
+                if (worker == null || !worker.isAlive()) {
+                    if (worker != null) {
+                        worker.destroy();
+                    }
+                    worker = startWorker();
+                    if (worker == null) {
+                        skip(remaining.size(), resultConsumer);
+                        return;
+                    }
+                }
+
+                // Cancelling the execution kills the worker, the pool replaces it on release
+                CancellationToken.register(worker.process);
+                int executed;
+                try {
+                    executed = runOnWorker(worker, remaining, resultConsumer);
+                } finally {
+                    CancellationToken.unregister(worker.process);
+                }
+
+                if (executed == remaining.size()) {
+                    return;
+                }
+                if (executed == 0 || CancellationToken.isCurrentCancelled()) {
+                    // Not even a fresh worker could run anything, or nobody is interested in the results anymore
+                    skip(remaining.size() - executed, resultConsumer);
+                    return;
+                }
+                remaining = remaining.remainder(executed);
+                logger.info("Running the remaining {} executions of test {} on a fresh worker",
+                        remaining.size(), remaining.getTestClassName());
+            }
+        } finally {
+            if (worker != null) {
+                release(worker);
+            }
+            availableWorkers.release();
+        }
+    }
+
+    /**
+     * Runs the executions of the request on the worker until all are done or the worker was killed.
+     *
+     * @return The number of executions whose results were passed to the consumer.
+     */
+    private int runOnWorker(Worker worker, TestWorker.Request request, Consumer<TestExecutionResult> resultConsumer) {
+        try {
+            worker.send(gson.toJson(request), request.size());
+        } catch (IOException e) {
+            logger.warn("Could not send test execution to worker", e);
+            worker.destroy();
+            return 0;
+        }
+
+        for (int i = 0; i < request.size(); i++) {
+            resultConsumer.accept(readResult(worker, request.getTestClassName()));
+            if (!worker.isAlive()) {
+                return i + 1;
+            }
+        }
+        return request.size();
+    }
+
+    /**
+     * Waits for the next result of a worker. Kills the worker if it does not answer in time.
+     */
+    private TestExecutionResult readResult(Worker worker, String testClassName) {
+        Future<String> response = resultReaders.submit(worker::readResult);
+        try {
+            String line = response.get(timeoutSeconds, TimeUnit.SECONDS);
+            if (line == null) {
+                logger.warn("Test worker died while running test {}", testClassName);
+                worker.destroy();
+                return TestExecutionResult.error("The test worker died while running the test.");
+            }
+            return gson.fromJson(line, TestExecutionResult.class);
+        } catch (TimeoutException e) {
+            logger.warn("Test worker did not finish test {} within {} seconds, killing it",
+                    testClassName, timeoutSeconds);
+            worker.destroy();
+            return TestExecutionResult.timeout("The test did not finish within " + timeoutSeconds + " seconds.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            worker.destroy();
+            return TestExecutionResult.error("Interrupted while running the test.");
+        } catch (ExecutionException | JsonParseException e) {
+            logger.warn("Could not read test result from worker", e);
+            worker.destroy();
+            return TestExecutionResult.error("Could not read the test result from the test worker.");
+        }
+    }
+
+    /**
+     * Passes {@code null} for executions which did not take place, see {@link TestExecutor#executeBatch}.
+     */
+    private static void skip(int count, Consumer<TestExecutionResult> resultConsumer) {
+        for (int i = 0; i < count; i++) {
+            resultConsumer.accept(null);
+        }
+    }
+
+    /**
+     * Puts a worker back into the pool, or replaces it with a fresh one if it is dead or used up.
+     */
+    private void release(Worker worker) {
+        if (closed) {
+            worker.destroy();
+        } else if (!worker.isAlive()
+                || (maxExecutionsPerWorker > 0 && worker.getExecutions() >= maxExecutionsPerWorker)) {
+            worker.destroy();
+            // Start the replacement right away, so the next execution does not have to wait for the JVM to start
+            Worker replacement = startWorker();
+            if (replacement != null) {
+                idleWorkers.add(replacement);
+            }
+        } else {
+            idleWorkers.add(worker);
+        }
+    }
+
+    private Worker startWorker() {
+        ProcessBuilder processBuilder = new ProcessBuilder(workerCommand)
+                .directory(dataDir)
+                .redirectError(ProcessBuilder.Redirect.appendTo(new File(dataDir, WORKER_LOG_FILE)));
+        try {
+            return new Worker(processBuilder.start());
+        } catch (IOException e) {
+            logger.error("Could not start test worker", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.destroy();
+        }
+        resultReaders.shutdownNow();
+    }
+
+    private static List<String> buildWorkerCommand(Configuration config) {
+        Set<String> classPath = new LinkedHashSet<>();
+        // The worker only needs itself, Gson, SLF4J (with its binding) and JaCoCo (with ASM) for collecting
+        // coverage from the application class path
+        for (Class<?> clazz : new Class<?>[] {TestWorker.class, Gson.class, Logger.class,
+                LoggerFactory.getILoggerFactory().getClass(), Instrumenter.class, ClassReader.class}) {
+            try {
+                classPath.add(new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI())
+                        .getAbsolutePath());
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException("Could not determine class path of " + clazz.getName(), e);
+            }
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Djava.security.manager");
+        command.add("-Djava.security.policy==" + new File(config.getDataDir(), "security.policy").getAbsolutePath());
+        command.add("-Dcodedef.home=" + config.getDataDir().getAbsolutePath());
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classPath));
+        command.add(TestWorker.class.getName());
+        command.add(config.getLibraryDir().getAbsolutePath());
+        return command;
+    }
+
+    /**
+     * A running worker JVM.
+     */
+    private static class Worker {
+        private final Process process;
+        private final Writer requestOut;
+        private final BufferedReader resultIn;
+        private int executions = 0;
+        private volatile boolean destroyed = false;
+
+        Worker(Process process) {
+            this.process = process;
+            this.requestOut = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+            this.resultIn = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                    StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Sends a request for the given number of test executions to the worker.
+         */
+        void send(String request, int numExecutions) throws IOException {
+            executions += numExecutions;
+            requestOut.write(request);
+            requestOut.write('\n');
+            requestOut.flush();
+        }
+
+        /**
+         * Reads the next result line of the worker, which is {@code null} if the worker terminated.
+         */
+        String readResult() throws IOException {
+            return resultIn.readLine();
+        }
+
+        int getExecutions() {
+            return executions;
+        }
+
+        boolean isAlive() {
+            return !destroyed && process.isAlive();
+        }
+
+        void destroy() {
+            destroyed = true;
+            ProcessTree.destroy(process);
+        }
+    }
+}
@@ -55,6 +55,8 @@ public abstract class AbstractGame {
     protected List<Mutant> mutants;
     protected List<Test> tests;
     protected List<Test> testsDefendersOnly;
+    private CoverageIndex coverageIndex;
+    private CoverageIndex coverageIndexDefendersOnly;
 
     public abstract boolean addPlayer(int userId, Role role);
 
@@ -140,6 +142,24 @@ public abstract class AbstractGame {
         }
     }
 
+    /**
+     * Returns a {@link CoverageIndex} of the tests returned by {@link #getTests(boolean)}.
+     * Like the tests, the index is created once per game object.
+     */
+    public CoverageIndex getCoverageIndex(boolean defendersOnly) {
+        if (defendersOnly) {
+            if (coverageIndexDefendersOnly == null) {
+                coverageIndexDefendersOnly = new CoverageIndex(getTests(true));
+            }
+            return coverageIndexDefendersOnly;
+        } else {
+            if (coverageIndex == null) {
+                coverageIndex = new CoverageIndex(getTests(false));
+            }
+            return coverageIndex;
+        }
+    }
+
     // NOTE: I do not want to break compatibility so I define yet another method...
     public List<Test> getAllTests() {
         return TestDAO.getValidTestsForGame(this.id, false);
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.codedefenders.database.TestDAO;
+
+/**
+ * Indexes the line coverage of a set of {@link Test Tests}, usually the tests of a game.
+ *
+ * <p>For every covered line, the index stores a {@link BitSet} of the tests covering the line. The tests covering
+ * a mutant are found by combining the sets of the mutant's lines, instead of checking the coverage of every test.
+ * Tests can be added incrementally with {@link #addTest(Test)}.
+ *
+ * <p>Note that this class is not thread-safe.
+ *
+ * @see LineCoverage
+ */
+public class CoverageIndex {
+    private final List<Test> tests = new ArrayList<>();
+
+    /**
+     * Maps line numbers to the indexes (in {@link CoverageIndex#tests}) of the tests covering the line.
+     * Lines which are not covered by any test have no set.
+     */
+    private BitSet[] testsPerLine = new BitSet[0];
+
+    /**
+     * Creates an empty index.
+     */
+    public CoverageIndex() {
+    }
+
+    /**
+     * Creates an index for the given tests.
+     *
+     * @param tests the given tests.
+     */
+    public CoverageIndex(Collection<Test> tests) {
+        for (Test test : tests) {
+            addTest(test);
+        }
+    }
+
+    /**
+     * Creates an index for the valid tests of the given game.
+     *
+     * @param gameId the identifier of the given game.
+     * @return an index of the valid tests of the game.
+     */
+    public static CoverageIndex forGame(int gameId) {
+        return new CoverageIndex(TestDAO.getValidTestsForGame(gameId, false));
+    }
+
+    /**
+     * Adds a test to the index.
+     *
+     * @param test the test to add.
+     */
+    public void addTest(Test test) {
+        int testIndex = tests.size();
+        tests.add(test);
+
+        BitSet coveredLines = test.getLineCoverage().getCoveredLineSet();
+        if (coveredLines.length() > testsPerLine.length) {
+            testsPerLine = Arrays.copyOf(testsPerLine, coveredLines.length());
+        }
+        for (int line = coveredLines.nextSetBit(0); line >= 0; line = coveredLines.nextSetBit(line + 1)) {
+            if (testsPerLine[line] == null) {
+                testsPerLine[line] = new BitSet();
+            }
+            testsPerLine[line].set(testIndex);
+        }
+    }
+
+    /**
+     * Returns the indexed tests, in the order they were added.
+     */
+    public List<Test> getTests() {
+        return Collections.unmodifiableList(tests);
+    }
+
+    /**
+     * Returns whether the given line is covered by any of the indexed tests.
+     *
+     * @param line the given line number.
+     */
+    public boolean isLineCovered(int line) {
+        return testsAt(line) != null;
+    }
+
+    /**
+     * Returns the indexed tests which cover the given line, in the order they were added.
+     *
+     * @param line the given line number.
+     */
+    public List<Test> getTestsCoveringLine(int line) {
+        return toTests(testsAt(line));
+    }
+
+    /**
+     * Returns all lines which are covered by any of the indexed tests, in ascending order.
+     */
+    public List<Integer> getCoveredLines() {
+        List<Integer> lines = new ArrayList<>();
+        for (int line = 0; line < testsPerLine.length; line++) {
+            if (testsPerLine[line] != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Returns whether any of the indexed tests covers the given mutant.
+     *
+     * @param mutant the given mutant.
+     */
+    public boolean isCovered(Mutant mutant) {
+        for (int line : mutant.getLines()) {
+            if (testsAt(line) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the indexed tests which cover the given mutant, in the order they were added.
+     *
+     * @param mutant the given mutant.
+     */
+    public List<Test> getCoveringTests(Mutant mutant) {
+        BitSet coveringTests = new BitSet(tests.size());
+        for (int line : mutant.getLines()) {
+            BitSet testsForLine = testsAt(line);
+            if (testsForLine != null) {
+                coveringTests.or(testsForLine);
+            }
+        }
+        return toTests(coveringTests);
+    }
+
+    private BitSet testsAt(int line) {
+        return line >= 0 && line < testsPerLine.length ? testsPerLine[line] : null;
+    }
+
+    private List<Test> toTests(BitSet testIndexes) {
+        if (testIndexes == null) {
+            return new ArrayList<>();
+        }
+        List<Test> result = new ArrayList<>(testIndexes.cardinality());
+        for (int i = testIndexes.nextSetBit(0); i >= 0; i = testIndexes.nextSetBit(i + 1)) {
+            result.add(tests.get(i));
+        }
+        return result;
+    }
+}
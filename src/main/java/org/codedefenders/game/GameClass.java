@@ -83,6 +83,17 @@ public class GameClass {
      */
     private String sourceCode;
 
+    /**
+     * The analysis of the source code, computed at most once.
+     */
+    private CodeAnalysisResult codeAnalysisResult;
+
+    /**
+     * The cached instance this class was copied from, see {@link #copyOf(GameClass)}. Source code and code analysis
+     * are taken from the cached instance, so they are computed once for all copies.
+     */
+    private GameClass cached;
+
     /**
      * Build a new GameClass instance.
      * <p></p>
@@ -145,9 +156,46 @@ public class GameClass {
                 .create();
     }
 
+    /**
+     * Creates a copy of a cached class, which shares the source code and its analysis with the cached class.
+     * Changes to the copy do not affect the cached class.
+     *
+     * @param cached The cached class.
+     * @return The copy.
+     */
+    public static GameClass copyOf(GameClass cached) {
+        final GameClass copy = GameClass.build()
+                .id(cached.getId())
+                .name(cached.getName())
+                .alias(cached.getAlias())
+                .javaFile(cached.getJavaFile())
+                .classFile(cached.getClassFile())
+                .mockingEnabled(cached.isMockingEnabled())
+                .testingFramework(cached.getTestingFramework())
+                .assertionLibrary(cached.getAssertionLibrary())
+                .active(cached.isActive())
+                .puzzleClass(cached.isPuzzleClass())
+                .parentClassId(cached.getParentClassId())
+                .create();
+        copy.cached = cached;
+        return copy;
+    }
+
+    private CodeAnalysisResult getCodeAnalysisResult() {
+        if (cached != null) {
+            return cached.getCodeAnalysisResult();
+        }
+        synchronized (this) {
+            if (codeAnalysisResult == null) {
+                codeAnalysisResult = ClassCodeAnalyser.visitCode(this.name, this.getSourceCode());
+            }
+            return codeAnalysisResult;
+        }
+    }
+
     private void visitCode() {
         if (!this.visitedCode) {
-            final CodeAnalysisResult visit = ClassCodeAnalyser.visitCode(this.name, this.getSourceCode());
+            final CodeAnalysisResult visit = getCodeAnalysisResult();
             this.additionalImports.addAll(visit.getAdditionalImports());
             this.linesOfCompileTimeConstants.addAll(visit.getCompileTimeConstants());
             this.linesOfNonCoverableCode.addAll(visit.getNonCoverableCode());
@@ -265,6 +313,9 @@ public class GameClass {
     }
 
     public String getSourceCode() {
+        if (cached != null) {
+            return cached.getSourceCode();
+        }
         if (sourceCode != null) {
             return sourceCode;
         }
@@ -22,7 +22,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 import org.codedefenders.model.User;
 import org.codedefenders.util.Constants;
@@ -79,17 +78,8 @@ public class GameHighlightingDTO {
         /* Construct the test maps. */
         for (Test test : tests) {
             this.tests.put(test.getId(), new GHTestDTO(test));
-            List<Integer> linesCovered = test
-                    .getLineCoverage()
-                    .getLinesCovered()
-                    .stream()
-                    .distinct()
-                    .collect(Collectors.toList());
-            for (Integer line : linesCovered) {
-                List<Integer> list = testIdsPerLine.computeIfAbsent(line, key -> new LinkedList<>());
-                list.add(test.getId());
-            }
         }
+        putTestIdsPerLine(testIdsPerLine, new CoverageIndex(tests));
 
         /* Construct the mutant maps. */
         for (Mutant mutant : mutants) {
@@ -109,16 +99,17 @@ public class GameHighlightingDTO {
         /* Construct the test maps. */
         for (Test test : tests) {
             this.alternativeTests.put(test.getId(), new GHTestDTO(test));
-            List<Integer> linesCovered = test
-                    .getLineCoverage()
-                    .getLinesCovered()
-                    .stream()
-                    .distinct()
-                    .collect(Collectors.toList());
-            for (Integer line : linesCovered) {
-                List<Integer> list = alternativeTestIdsPerLine.computeIfAbsent(line, key -> new LinkedList<>());
+        }
+        putTestIdsPerLine(alternativeTestIdsPerLine, new CoverageIndex(tests));
+    }
+
+    private static void putTestIdsPerLine(Map<Integer, List<Integer>> testIdsPerLine, CoverageIndex coverage) {
+        for (int line : coverage.getCoveredLines()) {
+            List<Integer> list = new LinkedList<>();
+            for (Test test : coverage.getTestsCoveringLine(line)) {
                 list.add(test.getId());
             }
+            testIdsPerLine.put(line, list);
         }
     }
 
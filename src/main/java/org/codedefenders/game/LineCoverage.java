@@ -18,6 +18,8 @@
  */
 package org.codedefenders.game;
 
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -27,11 +29,16 @@ import java.util.List;
  * in {@link List Lists}. Both lists can't be {@code null}.
  *
  * <p>Note that no {@link GameClass} or {@link Test} reference is stored.
+ *
+ * <p>For coverage checks, the covered lines are additionally kept as a {@link BitSet}, which is created on first use.
+ * The lists returned by {@link #getLinesCovered()} must therefore not be modified.
  */
 public class LineCoverage {
     private List<Integer> linesCovered;
     private List<Integer> linesUncovered;
 
+    private transient BitSet coveredLineSet;
+
     /**
      * Creating a empty line coverage in which zero covered and uncovered lines are stored.
      */
@@ -58,4 +65,47 @@ public class LineCoverage {
     public List<Integer> getLinesUncovered() {
         return linesUncovered;
     }
+
+    /**
+     * Returns whether the given line is covered.
+     *
+     * @param line the given line number.
+     * @return {@code true} if the line is covered, {@code false} otherwise.
+     */
+    public boolean covers(int line) {
+        return line >= 0 && getCoveredLineSet().get(line);
+    }
+
+    /**
+     * Returns whether any of the given lines is covered.
+     *
+     * @param lines the given line numbers.
+     * @return {@code true} if at least one of the lines is covered, {@code false} otherwise.
+     */
+    public boolean coversAny(Collection<Integer> lines) {
+        BitSet coveredLines = getCoveredLineSet();
+        for (int line : lines) {
+            if (line >= 0 && coveredLines.get(line)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the covered lines as a {@link BitSet}. The returned set must not be modified.
+     */
+    BitSet getCoveredLineSet() {
+        BitSet coveredLines = coveredLineSet;
+        if (coveredLines == null) {
+            coveredLines = new BitSet();
+            for (int line : linesCovered) {
+                if (line >= 0) {
+                    coveredLines.set(line);
+                }
+            }
+            coveredLineSet = coveredLines;
+        }
+        return coveredLines;
+    }
 }
@@ -27,9 +27,9 @@ import java.sql.PreparedStatement;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringEscapeUtils;
@@ -104,9 +104,10 @@ public class Mutant implements Serializable {
 
     private int score; // multiplayer
 
-    // Computed on the fly if not read in the db
+    // Computed when the mutant is stored, and on the fly for mutants stored before these were persisted
     private List<Integer> lines = null;
     private transient List<String> description = null;
+    private transient String patchString = null;
     private transient Patch difference = null;
 
     private String killMessage;
@@ -277,14 +278,12 @@ public class Mutant implements Serializable {
         }
 
         String query = "UPDATE mutants SET Points = Points + ? WHERE Mutant_ID=? AND Alive=1;";
-        Connection conn = DB.getConnection();
 
         DatabaseValue[] valueList = new DatabaseValue[]{
                 DatabaseValue.of(score), DatabaseValue.of(id)
         };
 
-        PreparedStatement stmt = DB.createPreparedStatement(conn, query, valueList);
-        DB.executeUpdate(stmt, conn);
+        DB.executeDeferrableUpdateQuery(query, valueList);
     }
 
     public void setScore(int score) {
@@ -330,22 +329,26 @@ public class Mutant implements Serializable {
     }
 
     public boolean isCovered(List<Test> tests) {
-        return tests.stream()
+        return isCovered(new CoverageIndex(tests));
+    }
+
+    public boolean isCovered(CoverageIndex coverage) {
+        return coverage.getCoveringTests(this).stream()
                 // Filter the tests that were created by the same user that created the mutant
-                .filter(t -> t.getPlayerId() != this.getPlayerId())
-                .anyMatch(t -> t.isMutantCovered(this));
+                .anyMatch(t -> t.getPlayerId() != this.getPlayerId());
     }
 
     // This might return several instances of the same test since Test does not implement hash and equalsTo
     public Set<Test> getCoveringTests() {
-        List<Test> tests = TestDAO.getValidTestsForGame(gameId, false);
-        return getCoveringTests(tests);
+        return getCoveringTests(CoverageIndex.forGame(gameId));
     }
 
     public Set<Test> getCoveringTests(List<Test> tests) {
-        return tests.stream()
-                .filter(t -> t.isMutantCovered(this))
-                .collect(Collectors.toSet());
+        return getCoveringTests(new CoverageIndex(tests));
+    }
+
+    public Set<Test> getCoveringTests(CoverageIndex coverage) {
+        return new HashSet<>(coverage.getCoveringTests(this));
     }
 
     public boolean doesRequireRecompilation() {
@@ -393,6 +396,17 @@ public class Mutant implements Serializable {
     }
 
     public String getPatchString() {
+        if (patchString == null) {
+            computeMetadata();
+        }
+        return patchString;
+    }
+
+    public void setPatchString(String patchString) {
+        this.patchString = patchString;
+    }
+
+    private String computePatchString() {
         GameClass sut = GameClassDAO.getClassForGameId(gameId);
         if (sut == null) {
             // in this case gameId might have been -1 (upload)
@@ -458,21 +472,44 @@ public class Mutant implements Serializable {
         }
     }
 
-    // Does this every get called if mutant is not stored to DB ?
     public List<Integer> getLines() {
         if (lines == null) {
-            computeLinesAndDescription();
+            computeMetadata();
         }
         return lines;
     }
 
     public String getSummaryString() {
         if (summaryString == null) {
-            computeLinesAndDescription();
+            computeMetadata();
         }
         return summaryString;
     }
 
+    public void setSummaryString(String summaryString) {
+        this.summaryString = summaryString;
+    }
+
+    /**
+     * Computes the mutated lines, the summary, the description and the patch of this mutant from the mutant and
+     * class files.
+     *
+     * <p>These are stored with the mutant when it is inserted, so this only happens once for new mutants.
+     * Mutants which were stored before this information was persisted are updated once at startup by
+     * {@link org.codedefenders.database.MutantMetadataBackfill}. Until then, the values are only kept in memory.
+     */
+    private synchronized void computeMetadata() {
+        if (lines != null && summaryString != null && description != null && patchString != null) {
+            return;
+        }
+        if (lines == null || summaryString == null || description == null) {
+            computeLinesAndDescription();
+        }
+        if (patchString == null) {
+            patchString = computePatchString();
+        }
+    }
+
     /**
      * Identify lines in the original source code that have been modified
      * by a mutation.
@@ -541,13 +578,17 @@ public class Mutant implements Serializable {
         summaryString = String.join(",", fragementSummary);
     }
 
-    public synchronized List<String> getHTMLReadout() {
+    public List<String> getHTMLReadout() {
         if (description == null) {
-            computeLinesAndDescription();
+            computeMetadata();
         }
         return description;
     }
 
+    public void setHTMLReadout(List<String> description) {
+        this.description = description;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -22,15 +22,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Paths;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.codedefenders.database.DB;
 import org.codedefenders.database.DatabaseAccess;
@@ -64,7 +62,8 @@ public class Test {
     private String classFile;
 
     private int roundCreated;
-    private int mutantsKilled;
+    // Incremented concurrently when the test runs against several mutants in parallel
+    private final AtomicInteger mutantsKilled = new AtomicInteger();
     private int score;
     private LineCoverage lineCoverage;
 
@@ -112,7 +111,7 @@ public class Test {
 
         this.id = testId;
         this.roundCreated = roundCreated;
-        this.mutantsKilled = mutantsKilled;
+        this.mutantsKilled.set(mutantsKilled);
         this.score = score;
         lineCoverage = new LineCoverage(linesCovered, linesUncovered);
     }
@@ -141,15 +140,12 @@ public class Test {
         }
 
         String query = "UPDATE tests SET Points = Points + ? WHERE Test_ID=?;";
-        Connection conn = DB.getConnection();
 
         DatabaseValue[] valueList = new DatabaseValue[] { DatabaseValue.of(score), DatabaseValue.of(id) };
 
-        PreparedStatement stmt = DB.createPreparedStatement(conn, query, valueList);
+        DB.executeDeferrableUpdateQuery(query, valueList);
 
-        boolean incremented = DB.executeUpdate(stmt, conn);
-
-        logger.info("Increment score for {} by {}. Update? {} ", toString(), score, incremented);
+        logger.info("Increment score for {} by {}.", toString(), score);
     }
 
     @Deprecated
@@ -170,7 +166,7 @@ public class Test {
     }
 
     public int getMutantsKilled() {
-        return mutantsKilled;
+        return mutantsKilled.get();
     }
 
     public int getRoundCreated() {
@@ -183,8 +179,7 @@ public class Test {
     }
 
     // Increment the number of mutant killed directly on the DB
-    // And update the local object. But it requires several queries/connections
-    //
+    // And update the local object
     // TODO Check that this method is never called for tests that kill a mutant that was already dead...
     public void killMutant() {
         // TODO Phil 06/08/19: Why isn't the out-commented code called?
@@ -193,30 +188,24 @@ public class Test {
         logger.info("Test {} killed a new mutant", getId());
 
         String query = "UPDATE tests SET MutantsKilled = MutantsKilled + ? WHERE Test_ID=?;";
-        Connection conn = DB.getConnection();
 
         DatabaseValue[] valueList = new DatabaseValue[] { DatabaseValue.of(1), DatabaseValue.of(id) };
 
-        PreparedStatement stmt = DB.createPreparedStatement(conn, query, valueList);
-
-        boolean updated = DB.executeUpdate(stmt, conn);
-
-        // Eventually update the kill count from the DB
-        mutantsKilled = TestDAO.getTestById(getId()).getMutantsKilled();
+        DB.executeDeferrableUpdateQuery(query, valueList);
+        int killCount = mutantsKilled.incrementAndGet();
 
-        logger.info("Test {} new killcount is {}. Was updated ? {} ", toString(), mutantsKilled, updated);
+        logger.info("Test {} new killcount is {}.", toString(), killCount);
     }
 
     public boolean isMutantCovered(Mutant mutant) {
-        return CollectionUtils.containsAny(lineCoverage.getLinesCovered(), mutant.getLines());
+        return lineCoverage.coversAny(mutant.getLines());
     }
 
     public Set<Mutant> getCoveredMutants(List<Mutant> mutants) {
-        List<Integer> coverage = lineCoverage.getLinesCovered();
         Set<Mutant> coveredMutants = new TreeSet<>(Mutant.orderByIdAscending());
 
         for (Mutant m : mutants) {
-            if (CollectionUtils.containsAny(coverage, m.getLines())) {
+            if (lineCoverage.coversAny(m.getLines())) {
                 coveredMutants.add(m);
             }
         }
@@ -324,6 +313,7 @@ public class Test {
 
     @Override
     public String toString() {
-        return "[testId=" + id + ",classId=" + classId + ",mutantsKilled=" + mutantsKilled + ",score=" + score + "]";
+        return "[testId=" + id + ",classId=" + classId + ",mutantsKilled=" + mutantsKilled.get()
+                + ",score=" + score + "]";
     }
 }
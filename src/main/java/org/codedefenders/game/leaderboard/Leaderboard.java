@@ -20,15 +20,18 @@ package org.codedefenders.game.leaderboard;
 
 import java.util.List;
 
-import org.codedefenders.database.DatabaseAccess;
+import org.codedefenders.database.LeaderboardDAO;
 
 /**
  * Created by jmr on 11/07/2017.
+ *
+ * <p>The entries are read from the incrementally maintained {@code leaderboard} table,
+ * see {@link LeaderboardDAO} and {@link LeaderboardRepairJob}.
  */
 public class Leaderboard {
 
     public static List<Entry> getAll() {
-        return DatabaseAccess.getLeaderboard();
+        return LeaderboardDAO.getAll();
     }
 
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game.leaderboard;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import org.codedefenders.database.LeaderboardDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically recomputes the totals of the {@code leaderboard} table in the background.
+ *
+ * <p>The table is kept up to date by database triggers. Changes the triggers do not see, e.g. rows deleted by a
+ * foreign key cascade or manual changes to the database, are repaired by the next run of this job.
+ *
+ * @see LeaderboardDAO#rebuild()
+ */
+@WebListener
+public class LeaderboardRepairJob implements ServletContextListener {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardRepairJob.class);
+
+    // Do we need those to be configurable ? Not until further notice !
+    private static final int INITIAL_DELAY_VALUE = 10;
+    private static final int EXECUTION_DELAY_VALUE = 6 * 60;
+    private static final TimeUnit EXECUTION_DELAY_UNIT = TimeUnit.MINUTES;
+
+    private ScheduledExecutorService executor;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-repair");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(LeaderboardRepairJob::repair, INITIAL_DELAY_VALUE, EXECUTION_DELAY_VALUE,
+                EXECUTION_DELAY_UNIT);
+        logger.debug("LeaderboardRepairJob Started");
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        logger.info("LeaderboardRepairJob Shutting down");
+        executor.shutdownNow();
+    }
+
+    private static void repair() {
+        long start = System.currentTimeMillis();
+        try {
+            if (LeaderboardDAO.rebuild()) {
+                logger.info("Rebuilt leaderboard in {} ms", System.currentTimeMillis() - start);
+            } else {
+                logger.warn("Could not rebuild leaderboard");
+            }
+        } catch (RuntimeException e) {
+            // Exceptions would cancel the scheduled job
+            logger.error("Could not rebuild leaderboard", e);
+        }
+    }
+}
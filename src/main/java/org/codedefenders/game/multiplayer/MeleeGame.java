@@ -462,12 +462,7 @@ public class MeleeGame extends AbstractGame {
     }
 
     public boolean isLineCovered(int lineNumber) {
-        for (Test test : getTests(true)) {
-            if (test.getLineCoverage().getLinesCovered().contains(lineNumber)) {
-                return true;
-            }
-        }
-        return false;
+        return getCoverageIndex(true).isLineCovered(lineNumber);
     }
 
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game.scoring;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+import org.codedefenders.model.Event;
+import org.codedefenders.model.EventType;
+import org.codedefenders.util.Constants;
+
+/**
+ * The scores of the tests, mutants and equivalence duels of a melee game.
+ *
+ * <p>The scores are derived from the score events of the game, i.e. the events of the
+ * {@link Constants#DUMMY_CREATOR_USER_ID dummy user} with a {@code "<testId>:<mutantId>"} message. Applying the
+ * score events in the order they were recorded yields the scores of the {@link DefaultScoringPolicy}.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @see ScoreAggregates
+ */
+public class ScoreAggregate {
+    private static final Set<EventType> SCORE_EVENT_TYPES = EnumSet.of(
+            EventType.PLAYER_MUTANT_CLAIMED_EQUIVALENT,
+            EventType.DEFENDER_MUTANT_CLAIMED_EQUIVALENT,
+            EventType.PLAYER_WON_EQUIVALENT_DUEL,
+            EventType.ATTACKER_MUTANT_KILLED_EQUIVALENT,
+            EventType.PLAYER_LOST_EQUIVALENT_DUEL,
+            EventType.DEFENDER_MUTANT_EQUIVALENT,
+            EventType.PLAYER_KILLED_MUTANT,
+            EventType.DEFENDER_KILLED_MUTANT,
+            EventType.PLAYER_MUTANT_SURVIVED,
+            EventType.ATTACKER_MUTANT_SURVIVED);
+
+    private static final Set<EventType> WON_DUEL_EVENT_TYPES = EnumSet.of(
+            EventType.PLAYER_WON_EQUIVALENT_DUEL,
+            EventType.ATTACKER_MUTANT_KILLED_EQUIVALENT);
+
+    // TestID, Score
+    private final Map<Integer, Integer> testsScore = new HashMap<>();
+    // MutantID, Score
+    private final Map<Integer, Integer> mutantsScore = new HashMap<>();
+    // PlayerID, PointsForWinningDuels
+    private final Map<Integer, Integer> duelsScore = new HashMap<>();
+    // MutantID, PlayerClaimingEquivalence
+    private final Map<Integer, Integer> flaggedMutants = new HashMap<>();
+
+    /**
+     * Returns whether the given event changes the scores of its game.
+     */
+    public static boolean isScoreEvent(Event event) {
+        return event.getUserId() == Constants.DUMMY_CREATOR_USER_ID
+                && SCORE_EVENT_TYPES.contains(event.getEventType());
+    }
+
+    /**
+     * Returns the id of the mutant whose owner {@link #apply(EventType, String, IntUnaryOperator)} looks up for the
+     * given score event, or {@code -1} if it does not look up a mutant owner.
+     */
+    public static int getMutantIdOfOwnerLookup(EventType eventType, String message) {
+        if (!WON_DUEL_EVENT_TYPES.contains(eventType)) {
+            return -1;
+        }
+        return Integer.parseInt(message.substring(message.indexOf(':') + 1));
+    }
+
+    /**
+     * Applies a score event to the scores.
+     *
+     * @param eventType The type of the score event.
+     * @param message The {@code "<testId>:<mutantId>"} message of the score event. For equivalence claims, the first
+     *                field is the id of the player claiming the equivalence.
+     * @param mutantOwner Returns the player id of the owner of a mutant. Only called for won equivalence duels.
+     */
+    public synchronized void apply(EventType eventType, String message, IntUnaryOperator mutantOwner) {
+        if (!SCORE_EVENT_TYPES.contains(eventType)) {
+            return;
+        }
+
+        // Extract Message Payload
+        int separator = message.indexOf(':');
+        // The first field of the message is overloaded for equivalence claims and lost equivalence duels
+        int testId = Integer.parseInt(message.substring(0, separator));
+        int mutantId = Integer.parseInt(message.substring(separator + 1));
+        int testScore = testsScore.getOrDefault(testId, 0);
+        int mutantScore = mutantsScore.getOrDefault(mutantId, 0);
+
+        switch (eventType) {
+            case PLAYER_MUTANT_CLAIMED_EQUIVALENT:
+            case DEFENDER_MUTANT_CLAIMED_EQUIVALENT:
+                // Book-keeping that this mutant is flagged as equivalent by a user...
+                flaggedMutants.put(mutantId, testId);
+                break;
+            case PLAYER_WON_EQUIVALENT_DUEL:
+            case ATTACKER_MUTANT_KILLED_EQUIVALENT:
+                // Remove the mutant from the flagged mutants
+                flaggedMutants.remove(mutantId);
+                // Mutant is killed: we keep the mutant's points and we get an extra point as duels point
+                int mutantOwnerPlayerId = mutantOwner.applyAsInt(mutantId);
+                duelsScore.merge(mutantOwnerPlayerId, 1, Integer::sum);
+                break;
+            case PLAYER_LOST_EQUIVALENT_DUEL:
+            case DEFENDER_MUTANT_EQUIVALENT:
+                // Remove the mutant from the flagged mutants but keep the playerId that flagged it
+                Integer playerId = flaggedMutants.remove(mutantId);
+                // Remove the points from the equivalent mutant
+                mutantsScore.put(mutantId, 0);
+                // Give one point to the player claiming the equivalence
+                duelsScore.merge(playerId, 1, Integer::sum);
+                break;
+            case PLAYER_KILLED_MUTANT:
+            case DEFENDER_KILLED_MUTANT:
+                // We need +1 for killing the mutant +mutantScore for earning the points from the mutant
+                testsScore.put(testId, testScore + mutantScore + 1);
+                break;
+            case PLAYER_MUTANT_SURVIVED:
+            case ATTACKER_MUTANT_SURVIVED:
+                // We need +1 for each test that misses this mutant
+                mutantsScore.put(mutantId, mutantScore + 1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    public synchronized int getTestScore(int testId) {
+        return testsScore.getOrDefault(testId, 0);
+    }
+
+    public synchronized int getMutantScore(int mutantId) {
+        return mutantsScore.getOrDefault(mutantId, 0);
+    }
+
+    public synchronized int getDuelScore(int playerId) {
+        return duelsScore.getOrDefault(playerId, 0);
+    }
+
+    /**
+     * Returns whether the given aggregate holds the same scores as this one.
+     */
+    public boolean hasSameScores(ScoreAggregate other) {
+        Map<Integer, Integer> otherTests;
+        Map<Integer, Integer> otherMutants;
+        Map<Integer, Integer> otherDuels;
+        synchronized (other) {
+            otherTests = new HashMap<>(other.testsScore);
+            otherMutants = new HashMap<>(other.mutantsScore);
+            otherDuels = new HashMap<>(other.duelsScore);
+        }
+        synchronized (this) {
+            return testsScore.equals(otherTests)
+                    && mutantsScore.equals(otherMutants)
+                    && duelsScore.equals(otherDuels);
+        }
+    }
+}
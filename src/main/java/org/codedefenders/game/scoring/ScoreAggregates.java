@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game.scoring;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+import javax.annotation.ManagedBean;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.codedefenders.database.EventDAO;
+import org.codedefenders.database.MutantDAO;
+import org.codedefenders.model.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps the {@link ScoreAggregate} of each melee game up to date, so the scores do not have to be computed from the
+ * event log on every page load.
+ *
+ * <p>The aggregate of a game is built by replaying its event log once. Afterwards, {@link EventDAO} reports every
+ * score event it records: {@link #beginEvent(Event)} before the event is written, and
+ * {@link #endEvent(EventRecording, boolean)} once the write is committed or failed. Committed events are applied to
+ * the aggregate. A replay which overlaps with the recording of an event may or may not contain the event, so its
+ * result is not cached. If the aggregate of a game is evicted from the cache while an event is recorded, the event
+ * is applied to the evicted aggregate, so the aggregate which replaced it is discarded once the event is written.
+ *
+ * <p>Replaying the event log is otherwise only used to {@link #verify(int) verify} the aggregate of a game.
+ */
+@ApplicationScoped
+@ManagedBean
+public class ScoreAggregates {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreAggregates.class);
+
+    @Inject
+    private EventDAO eventDAO;
+
+    private final Cache<Integer, GameScores> games = CacheBuilder.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * Returns the current scores of the given game.
+     *
+     * @param gameId The id of a melee game.
+     * @return The scores of the game.
+     */
+    public ScoreAggregate getForGame(int gameId) {
+        GameScores scores = getGameScores(gameId);
+        long version;
+        synchronized (scores) {
+            if (scores.aggregate != null) {
+                return scores.aggregate;
+            }
+            version = scores.version;
+        }
+
+        ScoreAggregate aggregate = replay(gameId);
+        synchronized (scores) {
+            if (scores.aggregate != null) {
+                return scores.aggregate;
+            }
+            if (scores.pendingEvents == 0 && scores.version == version) {
+                scores.aggregate = aggregate;
+            }
+        }
+        return aggregate;
+    }
+
+    /**
+     * Compares the scores of the given game with the scores computed from its event log. If they differ, the scores
+     * are replaced by the ones of the event log.
+     *
+     * @param gameId The id of a melee game.
+     * @return {@code true} if the scores matched the event log, or the scores of the game were not cached yet.
+     */
+    public boolean verify(int gameId) {
+        GameScores scores = getGameScores(gameId);
+        ScoreAggregate aggregate;
+        long version;
+        synchronized (scores) {
+            aggregate = scores.aggregate;
+            version = scores.version;
+        }
+        if (aggregate == null) {
+            return true;
+        }
+
+        ScoreAggregate replayed = replay(gameId);
+        synchronized (scores) {
+            if (scores.pendingEvents > 0 || scores.version != version) {
+                // Events were recorded in the meantime, so the replay is not comparable
+                return true;
+            }
+            if (aggregate.hasSameScores(replayed)) {
+                return true;
+            }
+            logger.warn("Scores of game {} differ from its event log. Replacing them.", gameId);
+            scores.aggregate = replayed;
+            return false;
+        }
+    }
+
+    /**
+     * Announces that the given event is going to be written.
+     *
+     * @return The recording of the event, which has to be passed to {@link #endEvent(EventRecording, boolean)}
+     *         once the event is written, or {@code null} if the event does not change any scores.
+     */
+    public EventRecording beginEvent(Event event) {
+        if (!ScoreAggregate.isScoreEvent(event)) {
+            return null;
+        }
+        GameScores scores = getGameScores(event.gameId());
+        synchronized (scores) {
+            scores.pendingEvents++;
+            scores.version++;
+        }
+        return new EventRecording(scores, event);
+    }
+
+    /**
+     * Applies the recorded event to the scores of its game, if it was written successfully.
+     *
+     * @param recording The recording returned by {@link #beginEvent(Event)}, may be {@code null}.
+     * @param written {@code true} if the event was committed, {@code false} if the write failed or was rolled back.
+     */
+    public void endEvent(EventRecording recording, boolean written) {
+        if (recording == null) {
+            return;
+        }
+        GameScores scores = recording.scores;
+        Event event = recording.event;
+        // Look up the mutant owner before locking, so the scorers of the game do not wait for the database
+        IntUnaryOperator mutantOwner = written ? prefetchMutantOwner(event) : ScoreAggregates::getMutantOwner;
+        synchronized (scores) {
+            scores.pendingEvents--;
+            scores.version++;
+            if (written && scores.aggregate != null) {
+                scores.aggregate.apply(event.getEventType(), event.getMessage(), mutantOwner);
+            }
+        }
+
+        if (written) {
+            GameScores current = games.asMap().get(event.gameId());
+            if (current != null && current != scores) {
+                // The scores were evicted while the event was recorded. The scores which replaced them may have
+                // been replayed without the event, and the version change keeps running replays from being cached.
+                synchronized (current) {
+                    current.aggregate = null;
+                    current.version++;
+                }
+            }
+        }
+    }
+
+    private static IntUnaryOperator prefetchMutantOwner(Event event) {
+        int mutantId = ScoreAggregate.getMutantIdOfOwnerLookup(event.getEventType(), event.getMessage());
+        if (mutantId < 0) {
+            return ScoreAggregates::getMutantOwner;
+        }
+        int ownerId = getMutantOwner(mutantId);
+        return id -> id == mutantId ? ownerId : getMutantOwner(id);
+    }
+
+    /**
+     * Computes the scores of the given game from its event log.
+     */
+    ScoreAggregate replay(int gameId) {
+        List<Event> eventLog = eventDAO.getEventsForGame(gameId);
+        // Sort by Timestamp, events with the same timestamp in the order they were recorded
+        eventLog.sort(Comparator.comparing(Event::getTimestamp).thenComparing(Event::getId));
+
+        ScoreAggregate aggregate = new ScoreAggregate();
+        for (Event event : eventLog) {
+            if (ScoreAggregate.isScoreEvent(event)) {
+                aggregate.apply(event.getEventType(), event.getMessage(), ScoreAggregates::getMutantOwner);
+            }
+        }
+        return aggregate;
+    }
+
+    private GameScores getGameScores(int gameId) {
+        return games.asMap().computeIfAbsent(gameId, id -> new GameScores());
+    }
+
+    private static int getMutantOwner(int mutantId) {
+        return MutantDAO.getMutantById(mutantId).getPlayerId();
+    }
+
+    /**
+     * The scores of a game, together with the state of the events which are currently recorded for it.
+     */
+    private static class GameScores {
+        private ScoreAggregate aggregate;
+        private int pendingEvents;
+        private long version;
+    }
+
+    /**
+     * A score event which is being written.
+     */
+    public static class EventRecording {
+        private final GameScores scores;
+        private final Event event;
+
+        private EventRecording(GameScores scores, Event event) {
+            this.scores = scores;
+            this.event = event;
+        }
+    }
+}
@@ -38,6 +38,9 @@ public class ScoreCalculator {
     @Named("game")
     private AbstractGame game;
 
+    @Inject
+    private ScoreAggregates scoreAggregates;
+
     /**
      * Calculate the score that the players gained by attacking, i.e., creating
      * mutants.
@@ -116,6 +119,9 @@ public class ScoreCalculator {
     }
 
     public void storeScoresToDB() {
+        // The final scores are stored, so make sure they match the event log
+        scoreAggregates.verify(game.getId());
+
         for (Mutant mutant : MutantDAO.getValidMutantsForGame(game.getId())) {
             // Compute the score for the mutant and store it inside the mutant object
             scoringPolicy.scoreMutant(mutant);
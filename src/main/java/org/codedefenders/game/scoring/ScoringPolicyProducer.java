@@ -4,17 +4,15 @@ import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.codedefenders.database.EventDAO;
-
 public class ScoringPolicyProducer {
 
     @Inject
-    private EventDAO eventDAO;
-    
+    private ScoreAggregates scoreAggregates;
+
     @Produces
     @Named("basic")
     public IScoringPolicy getTheBasicPolicy() {
-        DefaultScoringPolicy basicScoringPolicy = new DefaultScoringPolicy(eventDAO);
+        DefaultScoringPolicy basicScoringPolicy = new DefaultScoringPolicy(scoreAggregates);
         return basicScoringPolicy;
     }
 }
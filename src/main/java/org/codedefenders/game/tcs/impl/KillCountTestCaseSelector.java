@@ -3,10 +3,12 @@ package org.codedefenders.game.tcs.impl;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.codedefenders.database.KillmapDAO;
+import org.codedefenders.database.MutantDAO;
 import org.codedefenders.execution.KillMap.KillMapEntry;
+import org.codedefenders.execution.KillMatrix;
+import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,29 +24,18 @@ public class KillCountTestCaseSelector extends PrioritizedTestCaseSelector {
         int classId = allTests.get(0).getClassId();
 
         try {
-            // Get all the killmap entries for the class
-            /*
-             * TODO This might be huge !? Can we narrow this down without
-             * calling KillMap.forClass(classId) which causes the re-computation
-             * of the killMap
-             */
-            List<KillMapEntry> allKillMapEntrie = KillmapDAO.getKillMapEntriesForClass(classId);
+            // Read the killmap entries of the provided tests for the class into a compact matrix, without
+            // calling KillMap.forClass(classId) which causes the re-computation of the killMap
+            int[] testIds = allTests.stream().mapToInt(Test::getId).distinct().toArray();
+            int[] mutantIds = MutantDAO.getValidMutantsForClass(classId).stream().mapToInt(Mutant::getId).toArray();
+            KillMatrix matrix = KillmapDAO.getKillMatrixForClass(classId, testIds, mutantIds);
 
-            // Get only the kill entries that math the provided tests
-            // TODO Make this a stream
             for (Test test : allTests) {
-                List<KillMapEntry> killMapEntriesForTest = allKillMapEntrie.stream()
-                        .filter(kme -> kme.test.getId() == test.getId()).collect(Collectors.toList());
                 /*
                  * This should not make a difference since those tests are never
                  * stored to the DB... I Hope !
                  */
-                test.setScore(0);
-                for (KillMapEntry killMapEntry : killMapEntriesForTest) {
-                    if (KillMapEntry.Status.KILL.equals(killMapEntry.status)) {
-                        test.setScore(test.getScore() + 1);
-                    }
-                }
+                test.setScore(matrix.countForTest(matrix.indexOfTest(test.getId()), KillMapEntry.Status.KILL));
             }
 
             Collections.sort(allTests, new Comparator<Test>() {
@@ -151,6 +151,10 @@ public class Event {
         return parsedMessage;
     }
 
+    public int getUserId() {
+        return userId;
+    }
+
     public User getUser() {
         if (user == null) {
             user = UserDAO.getUserById(userId);
@@ -25,6 +25,7 @@ import java.util.Objects;
 
 import org.codedefenders.database.DB;
 import org.codedefenders.database.DatabaseValue;
+import org.codedefenders.database.LookupCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -122,7 +123,9 @@ public class User implements Serializable {
                 DatabaseValue.of(id)
         };
         PreparedStatement stmt = DB.createPreparedStatement(conn, query, valueList);
-        return DB.executeUpdate(stmt, conn);
+        boolean updated = DB.executeUpdate(stmt, conn);
+        LookupCache.invalidateUser(id);
+        return updated;
     }
 
     public boolean isValidated() {
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification;
+
+import java.util.Objects;
+
+/**
+ * A topic which events are published to and handlers subscribe to, e.g. a game or a user.
+ * The {@link INotificationService} only delivers an event to the handlers subscribed to at least one of its topics.
+ */
+public final class Topic {
+    private final String type;
+    private final String id;
+
+    private Topic(String type, String id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    /**
+     * The topic of everything happening in the game with the given id.
+     */
+    public static Topic game(int gameId) {
+        return new Topic("game", String.valueOf(gameId));
+    }
+
+    /**
+     * The topic of everything concerning the user with the given id.
+     */
+    public static Topic user(int userId) {
+        return new Topic("user", String.valueOf(userId));
+    }
+
+    /**
+     * The topic of a single WebSocket session, identified by its ticket.
+     */
+    public static Topic ticket(String ticket) {
+        return new Topic("ticket", ticket);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Topic topic = (Topic) o;
+        return type.equals(topic.type)
+                && id.equals(topic.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id);
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + id;
+    }
+}
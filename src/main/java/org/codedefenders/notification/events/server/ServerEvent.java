@@ -1,5 +1,9 @@
 package org.codedefenders.notification.events.server;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import org.codedefenders.notification.Topic;
 import org.codedefenders.notification.impl.NotificationService;
 import org.codedefenders.notification.web.EventEncoder;
 
@@ -40,4 +44,18 @@ public abstract class ServerEvent {
     public void setTicket(String ticket) {
         this.ticket = ticket;
     }
+
+    /**
+     * Get the topics of this event. The event is only delivered to handlers subscribed to at least one of them.
+     * Subclasses add the topics of their attributes, e.g. the game the event happened in.
+     *
+     * @return The topics of this event.
+     */
+    public Set<Topic> getTopics() {
+        Set<Topic> topics = new HashSet<>();
+        if (ticket != null) {
+            topics.add(Topic.ticket(ticket));
+        }
+        return topics;
+    }
 }
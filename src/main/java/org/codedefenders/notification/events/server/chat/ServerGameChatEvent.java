@@ -1,6 +1,9 @@
 package org.codedefenders.notification.events.server.chat;
 
+import java.util.Set;
+
 import org.codedefenders.game.Role;
+import org.codedefenders.notification.Topic;
 
 import com.google.gson.annotations.Expose;
 
@@ -70,4 +73,11 @@ public class ServerGameChatEvent extends ServerChatEvent {
     public void setGameId(int gameId) {
         this.gameId = gameId;
     }
+
+    @Override
+    public Set<Topic> getTopics() {
+        Set<Topic> topics = super.getTopics();
+        topics.add(Topic.game(gameId));
+        return topics;
+    }
 }
@@ -1,8 +1,22 @@
 package org.codedefenders.notification.events.server.chat;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import org.codedefenders.notification.Topic;
+
 /**
  * Represents a system message displayed in a single game chat instance.
  * (The game chat instance is found via the ticket.)
  */
 public class ServerSystemChatEvent extends ServerGameChatEvent {
+    @Override
+    public Set<Topic> getTopics() {
+        // System messages only go to the chat instance of the ticket, not to the whole game
+        Set<Topic> topics = new HashSet<>();
+        if (getTicket() != null) {
+            topics.add(Topic.ticket(getTicket()));
+        }
+        return topics;
+    }
 }
@@ -1,5 +1,8 @@
 package org.codedefenders.notification.events.server.game;
 
+import java.util.Set;
+
+import org.codedefenders.notification.Topic;
 import org.codedefenders.notification.events.server.ServerEvent;
 
 import com.google.gson.annotations.Expose;
@@ -20,4 +23,11 @@ public abstract class GameLifecycleEvent extends ServerEvent {
     public void setGameId(int gameId) {
         this.gameId = gameId;
     }
+
+    @Override
+    public Set<Topic> getTopics() {
+        Set<Topic> topics = super.getTopics();
+        topics.add(Topic.game(gameId));
+        return topics;
+    }
 }
@@ -1,5 +1,8 @@
 package org.codedefenders.notification.events.server.test;
 
+import java.util.Set;
+
+import org.codedefenders.notification.Topic;
 import org.codedefenders.notification.events.server.ServerEvent;
 
 import com.google.gson.annotations.Expose;
@@ -33,4 +36,12 @@ public abstract class TestLifecycleEvent extends ServerEvent {
     public void setGameId(int gameId) {
         this.gameId = gameId;
     }
+
+    @Override
+    public Set<Topic> getTopics() {
+        Set<Topic> topics = super.getTopics();
+        topics.add(Topic.game(gameId));
+        topics.add(Topic.user(userId));
+        return topics;
+    }
 }
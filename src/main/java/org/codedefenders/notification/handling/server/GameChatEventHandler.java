@@ -1,11 +1,14 @@
 package org.codedefenders.notification.handling.server;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 import javax.websocket.EncodeException;
 
 import org.codedefenders.game.Role;
+import org.codedefenders.notification.Topic;
 import org.codedefenders.notification.events.server.chat.ServerGameChatEvent;
 import org.codedefenders.notification.events.server.chat.ServerSystemChatEvent;
 import org.codedefenders.notification.web.PushSocket;
@@ -37,6 +40,14 @@ public class GameChatEventHandler implements ServerEventHandler {
         return role;
     }
 
+    @Override
+    public Set<Topic> getTopics() {
+        Set<Topic> topics = new HashSet<>();
+        topics.add(Topic.game(gameId));
+        topics.add(Topic.ticket(ticket));
+        return topics;
+    }
+
     @Subscribe
     public void sendChatMessage(ServerGameChatEvent event) throws IOException, EncodeException {
         if (event.getGameId() == this.gameId) {
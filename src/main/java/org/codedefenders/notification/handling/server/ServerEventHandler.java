@@ -1,5 +1,8 @@
 package org.codedefenders.notification.handling.server;
 
+import java.util.Set;
+
+import org.codedefenders.notification.Topic;
 import org.codedefenders.notification.impl.NotificationService;
 import org.codedefenders.notification.web.PushSocket;
 
@@ -8,4 +11,11 @@ import org.codedefenders.notification.web.PushSocket;
  * and sends outgoing events with a {@link PushSocket}.
  */
 public interface ServerEventHandler {
+    /**
+     * Get the topics this handler subscribes to. The handler only receives events published to at least one of them,
+     * so it still has to filter the events it receives further if necessary.
+     *
+     * @return The topics this handler subscribes to.
+     */
+    Set<Topic> getTopics();
 }
@@ -1,10 +1,13 @@
 package org.codedefenders.notification.handling.server;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 import javax.websocket.EncodeException;
 
+import org.codedefenders.notification.Topic;
 import org.codedefenders.notification.events.server.test.TestLifecycleEvent;
 import org.codedefenders.notification.web.PushSocket;
 import org.slf4j.Logger;
@@ -33,6 +36,14 @@ public class TestProgressBarEventHandler implements ServerEventHandler {
         return userId;
     }
 
+    @Override
+    public Set<Topic> getTopics() {
+        Set<Topic> topics = new HashSet<>();
+        topics.add(Topic.game(gameId));
+        topics.add(Topic.user(userId));
+        return topics;
+    }
+
     @Subscribe
     public void updateProgressBar(TestLifecycleEvent event) throws IOException, EncodeException {
         if (this.gameId == event.getGameId() || this.userId == event.getUserId()) {
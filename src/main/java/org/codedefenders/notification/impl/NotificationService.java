@@ -18,25 +18,44 @@
  */
 package org.codedefenders.notification.impl;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import javax.annotation.ManagedBean;
-import javax.enterprise.context.ApplicationScoped;
+import javax.annotation.PreDestroy;
 import javax.inject.Singleton;
 
 import org.codedefenders.notification.INotificationService;
+import org.codedefenders.notification.Topic;
+import org.codedefenders.notification.events.server.ServerEvent;
+import org.codedefenders.notification.handling.server.ServerEventHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.eventbus.AsyncEventBus;
-import com.google.common.eventbus.EventBus;
-import com.google.common.eventbus.SubscriberExceptionHandler;
+import com.google.common.eventbus.Subscribe;
 import com.google.gson.Gson;
 
 /**
  * Notification Service implementation.
  * This service behaves like a singleton in the app.
  * See https://docs.oracle.com/javaee/6/api/javax/enterprise/context/ApplicationScoped.html
+ *
+ * <p>Handlers are registered like on a Guava event bus, i.e. their {@link Subscribe} methods receive the posted
+ * events they accept. {@link ServerEventHandler ServerEventHandlers} are additionally indexed by their
+ * {@link Topic topics}, so a {@link ServerEvent} is only dispatched to the handlers of its topics (e.g. the handlers of
+ * its game) instead of to every connected socket. Other handlers receive every event.
+ *
+ * <p>Each handler is bound to one of {@value #NUM_THREADS} single-threaded dispatchers, so a handler receives events
+ * one at a time and in the order they were posted, while different handlers are served in parallel.
  * @author gambi
  */
 @ManagedBean
@@ -45,32 +64,160 @@ public class NotificationService implements INotificationService {
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
     private static final int NUM_THREADS = 8;
 
-    private SubscriberExceptionHandler exceptionHandler = (exception, context) -> {
-        Gson gson = new Gson();
-        logger.warn("Got " + exception.getClass().getSimpleName() + " while calling notification handler.", exception);
-        logger.warn("Event was: " + gson.toJson(context.getEvent()));
-    };
+    /**
+     * The {@link Subscribe} methods of handler classes, looked up once per class.
+     */
+    private static final ConcurrentMap<Class<?>, List<Method>> subscriberMethods = new ConcurrentHashMap<>();
+
+    private final ExecutorService[] dispatchers = new ExecutorService[NUM_THREADS];
 
-    @SuppressWarnings("UnstableApiUsage")
-    private EventBus eventBus = new AsyncEventBus(Executors.newFixedThreadPool(NUM_THREADS));
+    /**
+     * All registered handlers, by identity like on a Guava event bus.
+     */
+    private final ConcurrentMap<HandlerKey, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Topic, Set<Subscriber>> subscribersByTopic = new ConcurrentHashMap<>();
+    private final Set<Subscriber> broadcastSubscribers = ConcurrentHashMap.newKeySet();
 
-    // TODO Ensures that event bus is defined in a Tomcat System Listener !
-    // public NotificationService(EventBus eventBus) {
-    //     this.eventBus = eventBus;
-    // }
+    public NotificationService() {
+        for (int i = 0; i < NUM_THREADS; i++) {
+            dispatchers[i] = Executors.newSingleThreadExecutor();
+        }
+    }
 
     @Override
     public void post(Object message) {
-        eventBus.post(message);
+        Set<Subscriber> receivers = new HashSet<>(broadcastSubscribers);
+        if (message instanceof ServerEvent) {
+            for (Topic topic : ((ServerEvent) message).getTopics()) {
+                Set<Subscriber> topicSubscribers = subscribersByTopic.get(topic);
+                if (topicSubscribers != null) {
+                    receivers.addAll(topicSubscribers);
+                }
+            }
+        } else {
+            receivers.addAll(subscribers.values());
+        }
+
+        for (Subscriber receiver : receivers) {
+            receiver.dispatch(message);
+        }
     }
 
     @Override
     public void register(Object eventHandler) {
-        eventBus.register(eventHandler);
+        Subscriber subscriber = new Subscriber(eventHandler);
+        if (subscribers.putIfAbsent(new HandlerKey(eventHandler), subscriber) != null) {
+            return;
+        }
+
+        if (subscriber.topics == null) {
+            broadcastSubscribers.add(subscriber);
+            return;
+        }
+        for (Topic topic : subscriber.topics) {
+            subscribersByTopic.compute(topic, (t, topicSubscribers) -> {
+                Set<Subscriber> result = topicSubscribers != null ? topicSubscribers : ConcurrentHashMap.newKeySet();
+                result.add(subscriber);
+                return result;
+            });
+        }
     }
 
     @Override
     public void unregister(Object eventHandler) {
-        eventBus.unregister(eventHandler);
+        Subscriber subscriber = subscribers.remove(new HandlerKey(eventHandler));
+        if (subscriber == null) {
+            return;
+        }
+
+        if (subscriber.topics == null) {
+            broadcastSubscribers.remove(subscriber);
+            return;
+        }
+        for (Topic topic : subscriber.topics) {
+            subscribersByTopic.computeIfPresent(topic, (t, topicSubscribers) -> {
+                topicSubscribers.remove(subscriber);
+                return topicSubscribers.isEmpty() ? null : topicSubscribers;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService dispatcher : dispatchers) {
+            dispatcher.shutdown();
+        }
+    }
+
+    private static List<Method> findSubscriberMethods(Class<?> handlerClass) {
+        return subscriberMethods.computeIfAbsent(handlerClass, c -> {
+            List<Method> methods = new ArrayList<>();
+            for (Method method : c.getMethods()) {
+                if (method.isAnnotationPresent(Subscribe.class) && method.getParameterCount() == 1) {
+                    methods.add(method);
+                }
+            }
+            return Collections.unmodifiableList(methods);
+        });
+    }
+
+    private class Subscriber {
+        private final Object handler;
+        private final List<Method> methods;
+        private final ExecutorService dispatcher;
+
+        /**
+         * The topics of the handler, or {@code null} if the handler receives every event.
+         */
+        private final Set<Topic> topics;
+
+        Subscriber(Object handler) {
+            this.handler = handler;
+            this.methods = findSubscriberMethods(handler.getClass());
+            this.dispatcher = dispatchers[Math.floorMod(System.identityHashCode(handler), NUM_THREADS)];
+            this.topics = handler instanceof ServerEventHandler
+                    ? new HashSet<>(((ServerEventHandler) handler).getTopics())
+                    : null;
+        }
+
+        void dispatch(Object event) {
+            for (Method method : methods) {
+                if (method.getParameterTypes()[0].isInstance(event)) {
+                    dispatcher.execute(() -> invoke(method, event));
+                }
+            }
+        }
+
+        private void invoke(Method method, Object event) {
+            try {
+                method.invoke(handler, event);
+            } catch (InvocationTargetException | IllegalAccessException e) {
+                Throwable exception = e instanceof InvocationTargetException ? e.getCause() : e;
+                logger.warn("Got " + exception.getClass().getSimpleName() + " while calling notification handler.",
+                        exception);
+                logger.warn("Event was: " + new Gson().toJson(event));
+            }
+        }
+    }
+
+    /**
+     * Compares handlers by identity, since handlers may define equals for other purposes.
+     */
+    private static class HandlerKey {
+        private final Object handler;
+
+        HandlerKey(Object handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof HandlerKey && ((HandlerKey) o).handler == handler;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(handler);
+        }
     }
 }
@@ -3,7 +3,13 @@ package org.codedefenders.notification.web;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.websocket.DecodeException;
 import javax.websocket.Decoder;
@@ -31,6 +37,17 @@ import com.google.gson.annotations.Expose;
  * @see PushSocket
  */
 public class EventDecoder implements Decoder.Text<ClientEvent> {
+    /**
+     * Gson instances are thread-safe, so all sessions share one.
+     * The deserializer receives the requested event class as type, so it is registered for all client events.
+     */
+    private static final Gson gson = new GsonBuilder()
+            /* Not sure if the type adapter is much slower than using Gson normally.
+               I'll include it for now to prevent some errors, but we might want to disable it later. */
+            .registerTypeHierarchyAdapter(ClientEvent.class, new ClientEventDeserializer())
+            .excludeFieldsWithoutExposeAnnotation()
+            .create();
+
     @Override
     public void init(EndpointConfig endpointConfig) {
     }
@@ -60,12 +77,6 @@ public class EventDecoder implements Decoder.Text<ClientEvent> {
             throw new DecodeException(s, "Invalid type for client message: " + type + ".", e);
         }
 
-        Gson gson = new GsonBuilder()
-                /* Not sure if the type adapter is much slower than using Gson normally.
-                   I'll include it for now to prevent some errors, but we might want to disable it later. */
-                .registerTypeAdapter(eventClass, new ClientEventDeserializer(eventClass))
-                .excludeFieldsWithoutExposeAnnotation()
-                .create();
         return gson.fromJson(data, eventClass);
     }
 
@@ -80,43 +91,30 @@ public class EventDecoder implements Decoder.Text<ClientEvent> {
      * Uses the {@link Expose} annotation.
      */
     private static class ClientEventDeserializer implements JsonDeserializer<ClientEvent> {
-        Class<ClientEvent> clazz;
-
-        ClientEventDeserializer(Class<ClientEvent> clazz) {
-            this.clazz = clazz;
-        }
+        /**
+         * The exposed attributes of each event class, looked up once per class.
+         */
+        private final ConcurrentMap<Class<?>, List<Attribute>> attributesByClass = new ConcurrentHashMap<>();
 
         @Override
         public ClientEvent deserialize(JsonElement jsonElement,
                                   Type jsonType,
                                   JsonDeserializationContext context) throws JsonParseException {
+            Class<?> clazz = (Class<?>) jsonType;
             ClientEvent event;
             try {
-                event = clazz.newInstance();
+                event = (ClientEvent) clazz.newInstance();
             } catch (InstantiationException | IllegalAccessException e) {
                 throw new JsonParseException("Error while creating event object of type: " + clazz.getName() + ". "
                         + "JSON was: " + jsonElement, e);
             }
 
             JsonObject data = jsonElement.getAsJsonObject();
-            PropertyDescriptor[] attributes = PropertyUtils.getPropertyDescriptors(clazz);
+            List<Attribute> attributes =
+                    attributesByClass.computeIfAbsent(clazz, ClientEventDeserializer::findAttributes);
 
-            for (PropertyDescriptor attribute : attributes) {
-                String name = attribute.getName();
-
-                /* Skip "class" property from PropertyUtils. */
-                if (name.equals("class")) {
-                    continue;
-                }
-
-                /* Skip fields not marked as exposed for deserialization. */
-                Field field = ReflectionUtils.findField(clazz, name);
-                Expose expose = field.getAnnotation(Expose.class);
-                if (expose == null || !expose.deserialize()) {
-                    continue;
-                }
-
-                Class<?> type = attribute.getPropertyType();
+            for (Attribute attribute : attributes) {
+                String name = attribute.name;
                 Object value;
 
                 /* Check if attribute is present in JSON. */
@@ -127,7 +125,7 @@ public class EventDecoder implements Decoder.Text<ClientEvent> {
 
                 /* Deserialize JSON attribute. */
                 try {
-                    value = context.deserialize(data.get(name), type);
+                    value = context.deserialize(data.get(name), attribute.type);
                 } catch (Exception e) {
                     throw new JsonParseException("Error while reading attribute from JSON: " + name + ". "
                             + "JSON was: " + jsonElement, e);
@@ -135,7 +133,7 @@ public class EventDecoder implements Decoder.Text<ClientEvent> {
 
                 /* Set DTO attribute. */
                 try {
-                    attribute.getWriteMethod().invoke(event, value);
+                    attribute.writeMethod.invoke(event, value);
                 } catch (IllegalAccessException | InvocationTargetException e) {
                     throw new JsonParseException("Error while writing attribute to DTO: " + name + ". "
                             + "JSON was: " + jsonElement, e);
@@ -144,5 +142,39 @@ public class EventDecoder implements Decoder.Text<ClientEvent> {
 
             return event;
         }
+
+        private static List<Attribute> findAttributes(Class<?> clazz) {
+            List<Attribute> attributes = new ArrayList<>();
+            for (PropertyDescriptor property : PropertyUtils.getPropertyDescriptors(clazz)) {
+                String name = property.getName();
+
+                /* Skip "class" property from PropertyUtils. */
+                if (name.equals("class")) {
+                    continue;
+                }
+
+                /* Skip fields not marked as exposed for deserialization. */
+                Field field = ReflectionUtils.findField(clazz, name);
+                Expose expose = field.getAnnotation(Expose.class);
+                if (expose == null || !expose.deserialize()) {
+                    continue;
+                }
+
+                attributes.add(new Attribute(name, property.getPropertyType(), property.getWriteMethod()));
+            }
+            return Collections.unmodifiableList(attributes);
+        }
+    }
+
+    private static class Attribute {
+        private final String name;
+        private final Class<?> type;
+        private final Method writeMethod;
+
+        Attribute(String name, Class<?> type, Method writeMethod) {
+            this.name = name;
+            this.type = type;
+            this.writeMethod = writeMethod;
+        }
     }
 }
@@ -6,13 +6,10 @@ import javax.websocket.EndpointConfig;
 import org.codedefenders.notification.events.EventNames;
 import org.codedefenders.notification.events.server.ServerEvent;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
-
 /**
  * Encodes server events to a JSON string with a "{type: string, data: {}}" format.
  * @see ServerEvent
+ * @see ServerEventEnvelope
  * @see EventNames
  * @see PushSocket
  */
@@ -27,14 +24,6 @@ public class EventEncoder implements Encoder.Text<ServerEvent> {
 
     @Override
     public String encode(ServerEvent event) {
-        Gson gson = new GsonBuilder()
-                .excludeFieldsWithoutExposeAnnotation()
-                .serializeNulls()
-                .create();
-
-        JsonObject message = new JsonObject();
-        message.addProperty("type", EventNames.toServerEventName(event.getClass()));
-        message.add("data", gson.toJsonTree(event));
-        return gson.toJson(message);
+        return ServerEventEnvelope.of(event).getText();
     }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification.web;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import org.codedefenders.notification.events.server.ServerEvent;
+import org.codedefenders.notification.events.server.mutant.MutantLifecycleEvent;
+import org.codedefenders.notification.events.server.test.TestLifecycleEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The outgoing messages of a single WebSocket session.
+ *
+ * <p>Messages are queued and written with the asynchronous remote of the session, one at a time, so the thread posting
+ * an event never waits for a slow client. The queue is bounded by {@value #CAPACITY} messages:
+ * <ul>
+ *     <li>A progress event (mutant or test lifecycle event) replaces the queued progress event of the same submission,
+ *     since the progress bar only shows the latest state.</li>
+ *     <li>If the queue is full, the oldest queued progress event is dropped.
+ *     If there is none, the new message is dropped.</li>
+ * </ul>
+ */
+final class OutboundQueue {
+    private static final Logger logger = LoggerFactory.getLogger(OutboundQueue.class);
+
+    static final int CAPACITY = 64;
+
+    private static final Set<OutboundQueue> openQueues = ConcurrentHashMap.newKeySet();
+    private static final LongAdder sentFrames = new LongAdder();
+    private static final LongAdder coalescedFrames = new LongAdder();
+    private static final LongAdder droppedFrames = new LongAdder();
+    private static final LongAdder failedFrames = new LongAdder();
+
+    private final RemoteEndpoint.Async remote;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private boolean sending = false;
+    private boolean closed = false;
+
+    OutboundQueue(Session session) {
+        this.remote = session.getAsyncRemote();
+        openQueues.add(this);
+    }
+
+    /**
+     * Queues the given event to be sent to the client.
+     *
+     * @param event The event to send.
+     */
+    void offer(ServerEvent event) {
+        Frame frame = new Frame(coalescingKey(event), ServerEventEnvelope.of(event).getText());
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (frame.key != null && removeFrame(frame.key)) {
+                coalescedFrames.increment();
+            } else if (frames.size() >= CAPACITY) {
+                droppedFrames.increment();
+                if (!removeStaleFrame()) {
+                    logger.warn("Outbound queue is full, dropping {}.", event.getClass().getSimpleName());
+                    return;
+                }
+            }
+            frames.addLast(frame);
+
+            if (sending) {
+                return;
+            }
+            sending = true;
+        }
+
+        sendNext();
+    }
+
+    /**
+     * Drops all queued messages. Messages offered afterwards are ignored.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+            frames.clear();
+        }
+        openQueues.remove(this);
+    }
+
+    private void sendNext() {
+        Frame frame;
+        synchronized (this) {
+            frame = closed ? null : frames.pollFirst();
+            if (frame == null) {
+                sending = false;
+                return;
+            }
+        }
+
+        try {
+            remote.sendText(frame.text, this::onResult);
+        } catch (RuntimeException e) {
+            // The session has been closed in the meantime
+            failedFrames.increment();
+            logger.warn("Could not send event.", e);
+            close();
+            synchronized (this) {
+                sending = false;
+            }
+        }
+    }
+
+    private void onResult(SendResult result) {
+        if (result.isOK()) {
+            sentFrames.increment();
+        } else {
+            failedFrames.increment();
+            logger.error("Exception while sending event.", result.getException());
+        }
+        sendNext();
+    }
+
+    private boolean removeFrame(String key) {
+        Iterator<Frame> iterator = frames.iterator();
+        while (iterator.hasNext()) {
+            if (key.equals(iterator.next().key)) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean removeStaleFrame() {
+        Iterator<Frame> iterator = frames.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().key != null) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized int size() {
+        return frames.size();
+    }
+
+    /**
+     * Returns the key of the progress the given event reports, or {@code null} if the event must not be coalesced.
+     */
+    private static String coalescingKey(ServerEvent event) {
+        if (event instanceof MutantLifecycleEvent) {
+            MutantLifecycleEvent mutantEvent = (MutantLifecycleEvent) event;
+            return "mutant:" + mutantEvent.getGameId() + ":" + mutantEvent.getUserId() + ":" + event.getTicket();
+        } else if (event instanceof TestLifecycleEvent) {
+            TestLifecycleEvent testEvent = (TestLifecycleEvent) event;
+            return "test:" + testEvent.getGameId() + ":" + testEvent.getUserId() + ":" + event.getTicket();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the current depth of the outbound queues and how many messages were sent, coalesced or dropped so far.
+     */
+    static OutboundQueueMetrics getMetrics() {
+        int sessions = 0;
+        int queued = 0;
+        int maxDepth = 0;
+        for (OutboundQueue queue : openQueues) {
+            int depth = queue.size();
+            sessions++;
+            queued += depth;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        return new OutboundQueueMetrics(sessions, queued, maxDepth, sentFrames.sum(), coalescedFrames.sum(),
+                droppedFrames.sum(), failedFrames.sum());
+    }
+
+    private static class Frame {
+        private final String key;
+        private final String text;
+
+        Frame(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification.web;
+
+/**
+ * A snapshot of the outbound queues of the WebSocket sessions.
+ *
+ * @see PushSocket#getOutboundQueueMetrics()
+ */
+public class OutboundQueueMetrics {
+    private final int sessions;
+    private final int queuedFrames;
+    private final int maxQueueDepth;
+    private final long sentFrames;
+    private final long coalescedFrames;
+    private final long droppedFrames;
+    private final long failedFrames;
+
+    public OutboundQueueMetrics(int sessions, int queuedFrames, int maxQueueDepth, long sentFrames,
+                                long coalescedFrames, long droppedFrames, long failedFrames) {
+        this.sessions = sessions;
+        this.queuedFrames = queuedFrames;
+        this.maxQueueDepth = maxQueueDepth;
+        this.sentFrames = sentFrames;
+        this.coalescedFrames = coalescedFrames;
+        this.droppedFrames = droppedFrames;
+        this.failedFrames = failedFrames;
+    }
+
+    /**
+     * Returns the number of open WebSocket sessions.
+     */
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Returns the number of messages currently waiting to be sent, over all sessions.
+     */
+    public int getQueuedFrames() {
+        return queuedFrames;
+    }
+
+    /**
+     * Returns the number of messages waiting to be sent to the session with the longest queue.
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long getSentFrames() {
+        return sentFrames;
+    }
+
+    /**
+     * Returns the number of progress messages which were replaced by a newer message before they were sent.
+     */
+    public long getCoalescedFrames() {
+        return coalescedFrames;
+    }
+
+    /**
+     * Returns the number of messages which were dropped because the queue of their session was full.
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Returns the number of messages which could not be written to their session.
+     */
+    public long getFailedFrames() {
+        return failedFrames;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[sessions=%d,queuedFrames=%d,maxQueueDepth=%d,sentFrames=%d,coalescedFrames=%d,"
+                        + "droppedFrames=%d,failedFrames=%d]",
+                sessions, queuedFrames, maxQueueDepth, sentFrames, coalescedFrames, droppedFrames, failedFrames);
+    }
+}
@@ -26,7 +26,6 @@ import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.CDI;
 import javax.websocket.CloseReason;
 import javax.websocket.CloseReason.CloseCodes;
-import javax.websocket.EncodeException;
 import javax.websocket.OnClose;
 import javax.websocket.OnError;
 import javax.websocket.OnMessage;
@@ -72,6 +71,8 @@ import org.slf4j.LoggerFactory;
  * <p>
  * Filtering of server-to-client events (i.e. deciding which sessions to send the events to)
  * is done by the event handlers using information (e.g. user ids) stored in the event.
+ * Each event is encoded only once, no matter how many sessions it is sent to, see {@link ServerEventEnvelope}.
+ * Events are written asynchronously through a bounded queue per session, see {@link OutboundQueue}.
  * </p>
  * <br/>
  *
@@ -105,6 +106,7 @@ public class PushSocket {
     private ServerEventHandlerContainer serverEventHandlerContainer;
 
     private Session session;
+    private volatile OutboundQueue outboundQueue;
 
     public PushSocket() {
         // Since @Inject does not work with WebSocket ...
@@ -140,6 +142,7 @@ public class PushSocket {
         this.serverEventHandlerContainer = new ServerEventHandlerContainer(notificationService, this, user, ticket);
         this.clientEventHandler = new ClientEventHandler(notificationService, serverEventHandlerContainer, user, ticket);
         this.session = session;
+        this.outboundQueue = new OutboundQueue(session);
 
         open = true;
     }
@@ -153,6 +156,7 @@ public class PushSocket {
                for progress-bars on Firefox. */
             // ticketingServices.invalidateTicket(this.ticket);
             serverEventHandlerContainer.unregisterAll();
+            outboundQueue.close();
         }
     }
 
@@ -166,15 +170,22 @@ public class PushSocket {
         logger.error("Session " + session + " caused an error. Cause: ", throwable);
     }
 
-    // TODO: error handling?
-    public synchronized void sendEvent(ServerEvent event) {
-        try {
-            // TODO: asyncRemote?
-            session.getBasicRemote().sendObject(event);
-        } catch (IOException e) {
-            logger.error("Exception while sending event.", e);
-        } catch (EncodeException e) {
-            logger.error("Exception while encoding event.", e);
+    /**
+     * Queues the given event to be sent to the client. Does not wait for the event to be written.
+     *
+     * @param event The event to send.
+     */
+    public void sendEvent(ServerEvent event) {
+        OutboundQueue queue = outboundQueue;
+        if (queue != null) {
+            queue.offer(event);
         }
     }
+
+    /**
+     * Returns the current depth of the outbound queues of all sessions and how many events were dropped so far.
+     */
+    public static OutboundQueueMetrics getOutboundQueueMetrics() {
+        return OutboundQueue.getMetrics();
+    }
 }
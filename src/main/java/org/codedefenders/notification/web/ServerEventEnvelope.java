@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification.web;
+
+import org.codedefenders.notification.events.EventNames;
+import org.codedefenders.notification.events.server.ServerEvent;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+/**
+ * A server event encoded to the "{type: string, data: {}}" message format of the {@link PushSocket}.
+ *
+ * <p>An event is posted once and then sent to every session it is routed to. Envelopes are therefore cached per event
+ * instance, so the event is only serialized once, no matter how many sessions receive it. Events must not be modified
+ * after they were posted.
+ * @see EventEncoder
+ */
+public final class ServerEventEnvelope {
+    /**
+     * Gson instances are thread-safe, so all events share one.
+     */
+    private static final Gson gson = new GsonBuilder()
+            .excludeFieldsWithoutExposeAnnotation()
+            .serializeNulls()
+            .create();
+
+    /**
+     * Weak keys are compared by identity, and entries are dropped once the event is no longer referenced.
+     */
+    private static final Cache<ServerEvent, ServerEventEnvelope> envelopes = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final String type;
+    private final String text;
+
+    private ServerEventEnvelope(ServerEvent event) {
+        this.type = EventNames.toServerEventName(event.getClass());
+
+        JsonObject message = new JsonObject();
+        message.addProperty("type", type);
+        message.add("data", gson.toJsonTree(event));
+        this.text = gson.toJson(message);
+    }
+
+    /**
+     * Returns the envelope of the given event, encoding the event if it has not been encoded yet.
+     *
+     * @param event The event to encode.
+     * @return The envelope of the event.
+     */
+    public static ServerEventEnvelope of(ServerEvent event) {
+        return envelopes.asMap().computeIfAbsent(event, ServerEventEnvelope::new);
+    }
+
+    /**
+     * @return The event name of the event, given by {@link EventNames}.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return The encoded message, ready to be sent as a text frame.
+     */
+    public String getText() {
+        return text;
+    }
+}
@@ -36,7 +36,7 @@ import org.codedefenders.util.Paths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@WebFilter(filterName = "TicketingFilter")
+@WebFilter(filterName = "TicketingFilter", asyncSupported = true)
 public class TicketingFilter implements Filter {
     private static final Logger logger = LoggerFactory.getLogger(TicketingFilter.class);
 
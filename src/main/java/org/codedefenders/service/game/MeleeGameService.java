@@ -41,8 +41,7 @@ public class MeleeGameService extends AbstractGameService {
         Role playerRole = determineRole(user, player, game);
 
         return new MutantDTO(mutant)
-                // Note: getCoveringTests will make a DB Query under the hood
-                .setCovered(mutant.getCoveringTests(game.getTests(false)).stream()
+                .setCovered(mutant.getCoveringTests(game.getCoverageIndex(false)).stream()
                         .anyMatch(t -> player != null && t.getPlayerId() == player.getId()))
                 .setViewable(playerRole != Role.NONE
                         && (game.getLevel() == GameLevel.EASY
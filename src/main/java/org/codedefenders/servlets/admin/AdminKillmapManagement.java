@@ -41,6 +41,7 @@ import org.codedefenders.database.GameClassDAO;
 import org.codedefenders.database.GameDAO;
 import org.codedefenders.database.KillmapDAO;
 import org.codedefenders.execution.KillMap.KillMapType;
+import org.codedefenders.execution.KillMapExecutionService;
 import org.codedefenders.execution.KillMapProcessor;
 import org.codedefenders.execution.KillMapProcessor.KillMapJob;
 import org.codedefenders.servlets.admin.AdminSystemSettings.SETTING_NAME;
@@ -58,7 +59,7 @@ import static org.codedefenders.util.MessageUtils.pluralize;
 
 /**
  * Handles toggling killmap processing, queueing killmaps for computation, deleting killmaps and cancelling queued
- * killmap jobs.
+ * or running killmap jobs.
  *
  * <p></p>
  * The killmap computation page consists of three pages that are accessed via the GET parameter "page".
@@ -92,6 +93,9 @@ public class AdminKillmapManagement extends HttpServlet {
     @Inject
     private LoginBean login;
 
+    @Inject
+    private KillMapExecutionService killMapExecutionService;
+
     @Override
     public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
         if (setPage(request) == null) {
@@ -99,6 +103,8 @@ public class AdminKillmapManagement extends HttpServlet {
             return;
         }
 
+        request.setAttribute("runningKillMapJobs", killMapExecutionService.getJobs());
+
         request.getRequestDispatcher(Constants.ADMIN_KILLMAPS_JSP).forward(request, response);
     }
 
@@ -247,8 +253,18 @@ public class AdminKillmapManagement extends HttpServlet {
         }
     }
 
-    // TODO: cancel current killmap computation if necessary?
     private void cancelKillMapJobs(KillMapType killmapType, List<Integer> ids) {
+        /* Cancel the computations of the killmaps which are already running. */
+        Set<String> descriptions = ids.stream()
+                .map(id -> killmapType.name().toLowerCase() + " " + id)
+                .collect(Collectors.toSet());
+        for (KillMapExecutionService.Job<?> job : killMapExecutionService.getJobs()) {
+            if (descriptions.contains(job.getDescription())) {
+                logger.info("User {} cancelled running killmap job for {}", login.getUserId(), job.getDescription());
+                job.cancel();
+            }
+        }
+
         if (KillmapDAO.removeKillmapJobsByIds(killmapType, ids)) {
             logger.info("User {} canceled killmap jobs for {}: {}",
                     login.getUserId(), killmapType, StringUtils.join(ids, ", "));
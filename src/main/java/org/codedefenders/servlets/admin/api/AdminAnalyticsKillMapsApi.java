@@ -19,34 +19,28 @@
 package org.codedefenders.servlets.admin.api;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.lang.reflect.InvocationTargetException;
-import java.time.Instant;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.beanutils.PropertyUtils;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.httpclient.HttpStatus;
-import org.codedefenders.api.analytics.KillmapDataDTO;
-import org.codedefenders.database.AnalyticsDAO;
+import org.codedefenders.api.analytics.AnalyticsSnapshot;
+import org.codedefenders.api.analytics.KillmapDataExport;
 import org.codedefenders.util.Paths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-
 @WebServlet(Paths.API_ANALYTICS_KILLMAP)
 public class AdminAnalyticsKillMapsApi extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(AdminAnalyticsKillMapsApi.class);
 
+    private final KillmapDataExport export = new KillmapDataExport();
+
     /**
      * Returns a JSON or CSV file containing the killmap analytics data.
      * <p></p>
@@ -82,23 +76,17 @@ public class AdminAnalyticsKillMapsApi extends HttpServlet {
      *     ]
      * }
      * </pre>
+     * The data comes from a cached snapshot, {@code timestamp} tells when it was queried.
      */
     private void doGetJSON(HttpServletResponse response) throws IOException {
-        response.setContentType("application/json");
-
-        long timeStart = System.currentTimeMillis();
-        List<KillmapDataDTO> classData = AnalyticsDAO.getAnalyticsKillMapData();
-        long timeEnd = System.currentTimeMillis();
+        AnalyticsSnapshot snapshot = export.getSnapshot();
 
-        PrintWriter out = response.getWriter();
-        Gson gson = new Gson();
-
-        JsonObject root = new JsonObject();
-        root.add("timestamp", gson.toJsonTree(Instant.now().getEpochSecond()));
-        root.add("processingTime", gson.toJsonTree(timeEnd - timeStart));
-        root.add("data", gson.toJsonTree(classData));
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setDateHeader("Last-Modified", TimeUnit.SECONDS.toMillis(snapshot.getTimestamp()));
 
-        out.print(gson.toJson(root));
+        ServletOutputStream out = response.getOutputStream();
+        snapshot.writeJson(out);
         out.flush();
     }
 
@@ -107,35 +95,15 @@ public class AdminAnalyticsKillMapsApi extends HttpServlet {
      * The returned CSV will have a header.
      */
     private void doGetCSV(HttpServletResponse response) throws IOException {
-        response.setContentType("text/csv");
+        AnalyticsSnapshot snapshot = export.getSnapshot();
 
-        List<KillmapDataDTO> killmapData = AnalyticsDAO.getAnalyticsKillMapData();
-
-        String[] columns = new String[]{
-            "userId",
-            "userName",
-            "classId",
-            "className",
-            "role",
-            "usefulMutants",
-            "usefulTests"
-        };
-
-        PrintWriter out = response.getWriter();
-        CSVPrinter csvPrinter = new CSVPrinter(out, CSVFormat.DEFAULT.withHeader(columns));
-
-        for (KillmapDataDTO k : killmapData) {
-            for (String column : columns) {
-                try {
-                    csvPrinter.print(PropertyUtils.getProperty(k, column));
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-            csvPrinter.println();
-        }
+        response.setContentType("text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setDateHeader("Last-Modified", TimeUnit.SECONDS.toMillis(snapshot.getTimestamp()));
 
-        csvPrinter.flush();
+        ServletOutputStream out = response.getOutputStream();
+        snapshot.writeCsv(out);
+        out.flush();
     }
 
     @Override
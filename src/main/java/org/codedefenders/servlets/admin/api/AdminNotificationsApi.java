@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.servlets.admin.api;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Instant;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.codedefenders.notification.web.PushSocket;
+import org.codedefenders.util.Paths;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+@WebServlet(Paths.API_ADMIN_NOTIFICATIONS)
+public class AdminNotificationsApi extends HttpServlet {
+
+    /**
+     * Returns a JSON file containing the metrics of the outbound WebSocket queues.<br>
+     * The returned JSON will have the following format:<br>
+     * <pre>
+     * {
+     *     timestamp: ...,
+     *     outboundQueues: {
+     *         sessions: ...,
+     *         queuedFrames: ...,
+     *         maxQueueDepth: ...,
+     *         sentFrames: ...,
+     *         coalescedFrames: ...,
+     *         droppedFrames: ...,
+     *         failedFrames: ...
+     *     }
+     * }
+     * </pre>
+     */
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        response.setContentType("application/json");
+
+        PrintWriter out = response.getWriter();
+        Gson gson = new Gson();
+
+        JsonObject root = new JsonObject();
+        root.add("timestamp", gson.toJsonTree(Instant.now().getEpochSecond()));
+        root.add("outboundQueues", gson.toJsonTree(PushSocket.getOutboundQueueMetrics()));
+
+        out.print(gson.toJson(root));
+        out.flush();
+    }
+}
@@ -49,7 +49,7 @@ import org.slf4j.LoggerFactory;
  * are set to disable caching.
  */
 @Deprecated
-@WebFilter(filterName = "LoginFilter")
+@WebFilter(filterName = "LoginFilter", asyncSupported = true)
 public class LoginFilter implements Filter {
     private static final Logger logger = LoggerFactory.getLogger(LoginFilter.class);
 
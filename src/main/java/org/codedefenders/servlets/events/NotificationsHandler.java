@@ -21,7 +21,6 @@ package org.codedefenders.servlets.events;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,7 +30,6 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 import org.codedefenders.beans.user.LoginBean;
 import org.codedefenders.database.DatabaseAccess;
@@ -53,6 +51,12 @@ import com.google.gson.Gson;
  *
  * <p>In this servlet, all {@link NotificationType NotificationTypes} are handled.
  *
+ * <p>Clients poll for new events with an event id cursor: they pass the <code>lastEventId</code> of the previous
+ * response, which is {@code 0} for the first request. The response is a JSON object with the new
+ * <code>events</code> and the <code>lastEventId</code> for the next request. Since the cursor only moves past
+ * settled events (see {@link EventDAO#getSettledEventId(int, List)}), recent events can be contained in several
+ * responses, and clients skip the events whose id they already received.
+ *
  * <p>Serves on path: {@code /api/notifications}.
  */
 @WebServlet(org.codedefenders.util.Paths.API_NOTIFICATION)
@@ -73,13 +77,12 @@ public class NotificationsHandler extends HttpServlet {
             response.setStatus(400);
             return;
         }
-        final HttpSession session = request.getSession();
         response.setContentType("application/json");
 
         final NotificationType type = NotificationType.valueOf(request.getParameter("type"));
         switch (type) {
             case PUSHEVENT:
-                handlePushEventRequest(session, request, response);
+                handlePushEventRequest(request, response);
                 break;
             case GAMEEVENT:
                 handleGameEventRequest(request, response);
@@ -110,13 +113,27 @@ public class NotificationsHandler extends HttpServlet {
      * Handles a push event request, which requires the following URL parameters:
      * <ul>
      * <li><code>gameId</code></li>
+     * <li><code>lastEventId</code></li>
      * </ul>
-     * If parameters are valid, responds with a JSON list of most recent
-     * {@link Event Events}.
+     * If parameters are valid, responds with the most recent equivalence duel
+     * {@link Event Events} after the cursor.
      */
     @SuppressWarnings("Duplicates")
-    private void handlePushEventRequest(HttpSession session, HttpServletRequest request, HttpServletResponse response)
-            throws IOException {
+    private void handlePushEventRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final String lastEventIdString = request.getParameter("lastEventId");
+        if (lastEventIdString == null) {
+            response.setStatus(400);
+            logger.error("Push event: Missing parameter lastEventId.");
+            return;
+        }
+        int lastEventId;
+        try {
+            lastEventId = Integer.parseInt(lastEventIdString);
+        } catch (NumberFormatException e) {
+            response.setStatus(400);
+            logger.error("Push event: Error trying to format parameter lastEventId.", e);
+            return;
+        }
         final String gameIdString = request.getParameter("gameId");
         if (gameIdString == null) {
             response.setStatus(400);
@@ -132,49 +149,46 @@ public class NotificationsHandler extends HttpServlet {
             return;
         }
 
-        final Object lastMsg1 = request.getSession().getAttribute("lastMsg");
-        final int lastMessageId = lastMsg1 != null ? (Integer) lastMsg1 : 0;
-
-        final ArrayList<Event> events = new ArrayList<>(
-                DatabaseAccess.getNewEquivalenceDuelEventsForGame(gameId, lastMessageId));
-        if (!events.isEmpty()) {
-            int lastMsg = Collections.max(events, Event.MAX_ID_COMPARATOR).getId();
-            session.setAttribute("lastMsg", lastMsg);
-        }
+        final List<Event> events = DatabaseAccess.getNewEquivalenceDuelEventsForGame(gameId, lastEventId);
 
         for (Event e : events) {
             e.setCurrentUserName(login.getUser().getUsername());
             e.parse(e.getEventStatus() == EventStatus.GAME);
         }
 
-        PrintWriter out = response.getWriter();
-        out.print(gson.toJson(events));
-        out.flush();
+        writeEvents(response, events, EventDAO.getSettledEventId(lastEventId, events));
     }
 
     /**
      * Handles a game event request, which requires the following URL parameters:
      * <ul>
      * <li><code>gameId</code></li>
-     * <li><code>timestamp</code></li>
+     * <li><code>timestamp</code> or <code>lastEventId</code></li>
      * </ul>
-     * If parameters are valid, responds with a JSON list of most recent game
-     * {@link Event Events}.
+     * If parameters are valid, responds with the game {@link Event Events} after the
+     * cursor. With the <code>timestamp</code> of the last request instead, responds with
+     * a JSON list of the game events since then, which misses events committed late.
      */
     @SuppressWarnings("Duplicates")
     private void handleGameEventRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final String lastEventIdString = request.getParameter("lastEventId");
         final String timestampString = request.getParameter("timestamp");
-        if (timestampString == null) {
+        if (timestampString == null && lastEventIdString == null) {
             response.setStatus(400);
-            logger.error("Game Event: Missing parameter timestamp.");
+            logger.error("Game Event: Missing parameter timestamp or lastEventId.");
             return;
         }
-        long timestamp;
+        long timestamp = 0;
+        int lastEventId = 0;
         try {
-            timestamp = Long.parseLong(timestampString);
+            if (lastEventIdString != null) {
+                lastEventId = Integer.parseInt(lastEventIdString);
+            } else {
+                timestamp = Long.parseLong(timestampString);
+            }
         } catch (NumberFormatException e) {
             response.setStatus(400);
-            logger.error("Game Event: Error trying to format timestamp.", e);
+            logger.error("Game Event: Error trying to format timestamp or lastEventId.", e);
             return;
         }
         final String gameIdString = request.getParameter("gameId");
@@ -193,7 +207,9 @@ public class NotificationsHandler extends HttpServlet {
         }
 
         final Role role = DatabaseAccess.getRole(login.getUserId(), gameId);
-        final ArrayList<Event> events = new ArrayList<>(eventDAO.getNewEventsForGame(gameId, timestamp, role));
+        final ArrayList<Event> events = new ArrayList<>(lastEventIdString != null
+                ? eventDAO.getNewEventsForGameAfter(gameId, lastEventId, role)
+                : eventDAO.getNewEventsForGame(gameId, timestamp, role));
 
 
 
@@ -211,52 +227,65 @@ public class NotificationsHandler extends HttpServlet {
             e.setCurrentUserName(login.getUser().getUsername());
         }
 
-        PrintWriter out = response.getWriter();
-        out.print(gson.toJson(events));
-        out.flush();
+        if (lastEventIdString != null) {
+            writeEvents(response, events, EventDAO.getSettledEventId(lastEventId, events));
+        } else {
+            PrintWriter out = response.getWriter();
+            out.print(gson.toJson(events));
+            out.flush();
+        }
     }
 
     /**
      * Handles a user event request, which requires the following URL parameters:
      * <ul>
-     * <li><code>timestamp</code></li>
+     * <li><code>lastEventId</code></li>
      * </ul>
-     * If parameters are valid, responds with a JSON list of most recent user
-     * {@link Event Events}.
+     * If parameters are valid, responds with the user {@link Event Events} after the
+     * cursor.
      */
     @SuppressWarnings("Duplicates")
     private void handleUserEventRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        final String timestampString = request.getParameter("timestamp");
-        if (timestampString == null) {
+        final String lastEventIdString = request.getParameter("lastEventId");
+        if (lastEventIdString == null) {
             response.setStatus(400);
-            logger.error("User Event: Missing parameter timestamp.");
+            logger.error("User Event: Missing parameter lastEventId.");
             return;
         }
-        long timestamp;
+        int lastEventId;
         try {
-            timestamp = Long.parseLong(timestampString);
+            lastEventId = Integer.parseInt(lastEventIdString);
         } catch (NumberFormatException e) {
             response.setStatus(400);
-            logger.error("User Event: Error trying to format timestamp.", e);
+            logger.error("User Event: Error trying to format lastEventId.", e);
             return;
         }
 
-        try {
-            // DatabaseAccess#getNewEventsForUser(int, long) never returns null, so no need
-            // for extra check
-            final List<Event> events = DatabaseAccess.getNewEventsForUser(login.getUserId(), timestamp).stream()
-                    .peek(event -> event.setCurrentUserName(login.getUser().getUsername()))
-                    .peek(event -> event.parse(event.getEventStatus() == EventStatus.GAME))
-                    .collect(Collectors.toList());
+        // DatabaseAccess#getNewEventsForUserAfter(int, int) never returns null, so no need for extra check
+        final List<Event> events = DatabaseAccess.getNewEventsForUserAfter(login.getUserId(), lastEventId).stream()
+                .peek(event -> event.setCurrentUserName(login.getUser().getUsername()))
+                .peek(event -> event.parse(event.getEventStatus() == EventStatus.GAME))
+                .collect(Collectors.toList());
 
-            PrintWriter out = response.getWriter();
-            out.print(gson.toJson(events));
-            out.flush();
-        } catch (NullPointerException e) {
-            logger.info("" + DatabaseAccess.getNewEventsForUser(login.getUserId(), timestamp));
-            logger.error("NPE: " + e);
+        writeEvents(response, events, EventDAO.getSettledEventId(lastEventId, events));
+    }
 
-        }
+    private void writeEvents(HttpServletResponse response, List<Event> events, int lastEventId) throws IOException {
+        PrintWriter out = response.getWriter();
+        out.print(gson.toJson(new EventsResponse(events, lastEventId)));
+        out.flush();
+    }
 
+    /**
+     * The response to a request with an event id cursor.
+     */
+    private static class EventsResponse {
+        private final List<Event> events;
+        private final int lastEventId;
+
+        private EventsResponse(List<Event> events, int lastEventId) {
+            this.events = events;
+            this.lastEventId = lastEventId;
+        }
     }
 }
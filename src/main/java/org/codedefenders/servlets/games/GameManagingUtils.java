@@ -243,6 +243,11 @@ public class GameManagingUtils implements IGameManagingUtils {
                         true, // Alive be default
                         dummyAttackerPlayerId,
                         currentRound);
+                // The copy has the same files as the uploaded mutant, so reuse its metadata
+                newMutant.setLines(mutant.getLines());
+                newMutant.setSummaryString(mutant.getSummaryString());
+                newMutant.setHTMLReadout(mutant.getHTMLReadout());
+                newMutant.setPatchString(mutant.getPatchString());
                 newMutant.insert();
                 mutantMap.put(mutant.getId(), newMutant);
             }
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.servlets.games;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.RequestContextController;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.codedefenders.execution.ThreadPool;
+import org.codedefenders.servlets.util.Redirect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the expensive stages of test and mutant submissions (compilation, testing against the original class,
+ * mutation analysis and scoring) outside of the servlet container threads.
+ *
+ * <p>A servlet starts a submission with {@link #submit(HttpServletRequest, Stage, Step)}. This puts the request
+ * into asynchronous mode and returns immediately, so the container thread can serve other requests while the
+ * submission is processed. Every {@link Step} runs on the executor of its {@link Stage} with an activated request
+ * context, so request scoped beans can be used. A step returns either the next step or a {@link Completion}.
+ *
+ * <p>Session scoped beans (e.g. the messages of the user) and the response must only be used in the
+ * {@link Completion}. It runs on a container thread after the request has been dispatched back to the servlet,
+ * which has to call {@link #complete(HttpServletRequest)} at the start of {@code doPost}.
+ *
+ * <p>The steps report their progress to the client with the existing notification events (e.g.
+ * {@link org.codedefenders.notification.events.server.test.TestCompiledEvent}).
+ *
+ * <p>The response is only sent by the {@link Completion}, so the client waits for the whole submission. If it takes
+ * longer than {@link #RESPONSE_TIMEOUT_MINUTES}, the client is redirected back to the game instead, while the
+ * submission keeps being processed. The completion of such a submission is skipped, so its messages are not shown;
+ * the results appear in the game once the processing is done.
+ */
+@ApplicationScoped
+public class SubmissionPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionPipeline.class);
+
+    public static final String COMPILATION_THREAD_POOL_NAME = "submission-compilation";
+    public static final String MUTATION_ANALYSIS_THREAD_POOL_NAME = "submission-mutation-analysis";
+
+    private static final String COMPLETION_ATTRIBUTE = SubmissionPipeline.class.getName() + ".completion";
+
+    private static final int RESPONSE_TIMEOUT_MINUTES = 2;
+
+    /**
+     * The stages of a submission. Each stage runs on its own executor, so long running mutation analyses do not
+     * delay the feedback on compilation for other submissions.
+     */
+    public enum Stage {
+        /**
+         * Validation, compilation and execution against the original class.
+         */
+        COMPILATION,
+        /**
+         * Execution against the mutants or tests of the game, and scoring.
+         */
+        MUTATION_ANALYSIS
+    }
+
+    /**
+     * A step of a submission, which runs on the executor of its stage.
+     */
+    @FunctionalInterface
+    public interface Step {
+        Result run() throws Exception;
+    }
+
+    /**
+     * The last part of a submission, which runs on a container thread and sends the response.
+     */
+    @FunctionalInterface
+    public interface Completion {
+        void complete() throws IOException, ServletException;
+    }
+
+    /**
+     * The result of a {@link Step}: either the next step or the completion of the submission.
+     */
+    public static final class Result {
+        private final Stage nextStage;
+        private final Step nextStep;
+        private final Completion completion;
+
+        private Result(Stage nextStage, Step nextStep, Completion completion) {
+            this.nextStage = nextStage;
+            this.nextStep = nextStep;
+            this.completion = completion;
+        }
+
+        public static Result next(Stage stage, Step step) {
+            return new Result(stage, step, null);
+        }
+
+        public static Result complete(Completion completion) {
+            return new Result(null, null, completion);
+        }
+    }
+
+    @Inject
+    @ThreadPool(COMPILATION_THREAD_POOL_NAME)
+    private ExecutorService compilationExecutor;
+
+    @Inject
+    @ThreadPool(MUTATION_ANALYSIS_THREAD_POOL_NAME)
+    private ExecutorService mutationAnalysisExecutor;
+
+    @Inject
+    private Instance<RequestContextController> requestContextControllers;
+
+    /**
+     * Starts processing a submission. The servlet must return right after calling this method, and must not use the
+     * response afterwards.
+     *
+     * @param request The request of the submission.
+     * @param stage   The stage of the first step.
+     * @param step    The first step.
+     */
+    public void submit(HttpServletRequest request, Stage stage, Step step) {
+        Submission submission = new Submission(request.startAsync());
+        submission.asyncContext.setTimeout(TimeUnit.MINUTES.toMillis(RESPONSE_TIMEOUT_MINUTES));
+        submission.asyncContext.addListener(submission);
+        schedule(submission, stage, step);
+    }
+
+    /**
+     * Runs the {@link Completion} of a submission, if the request has been dispatched back by the pipeline.
+     *
+     * @param request The request.
+     * @return {@code true} if the request completed a submission and was handled, {@code false} otherwise.
+     */
+    public boolean complete(HttpServletRequest request) throws IOException, ServletException {
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            return false;
+        }
+        Completion completion = (Completion) request.getAttribute(COMPLETION_ATTRIBUTE);
+        if (completion == null) {
+            return false;
+        }
+        request.removeAttribute(COMPLETION_ATTRIBUTE);
+        completion.complete();
+        return true;
+    }
+
+    private void schedule(Submission submission, Stage stage, Step step) {
+        ExecutorService executor = stage == Stage.COMPILATION ? compilationExecutor : mutationAnalysisExecutor;
+        try {
+            executor.execute(() -> run(submission, stage, step));
+        } catch (RejectedExecutionException e) {
+            logger.error("Could not schedule {} stage of submission", stage, e);
+            submission.finish(() -> ((HttpServletResponse) submission.asyncContext.getResponse())
+                    .sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+        }
+    }
+
+    private void run(Submission submission, Stage stage, Step step) {
+        Result result;
+        RequestContextController requestContextController = requestContextControllers.get();
+        requestContextController.activate();
+        try {
+            result = step.run();
+        } catch (Exception e) {
+            logger.error("Error in {} stage of submission", stage, e);
+            result = Result.complete(() -> {
+                throw new ServletException("Could not process submission.", e);
+            });
+        } finally {
+            requestContextController.deactivate();
+            requestContextControllers.destroy(requestContextController);
+        }
+
+        if (result.completion != null) {
+            submission.finish(result.completion);
+        } else {
+            schedule(submission, result.nextStage, result.nextStep);
+        }
+    }
+
+    /**
+     * The asynchronous request of a submission, which is either finished by its {@link Completion} or by the
+     * response timeout, whichever comes first.
+     */
+    private static class Submission implements AsyncListener {
+        private final AsyncContext asyncContext;
+        private final AtomicBoolean responded = new AtomicBoolean(false);
+
+        Submission(AsyncContext asyncContext) {
+            this.asyncContext = asyncContext;
+        }
+
+        void finish(Completion completion) {
+            if (!responded.compareAndSet(false, true)) {
+                logger.info("Submission finished after the client was redirected, skipping its completion.");
+                return;
+            }
+            asyncContext.getRequest().setAttribute(COMPLETION_ATTRIBUTE, completion);
+            asyncContext.dispatch();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (!responded.compareAndSet(false, true)) {
+                return;
+            }
+            logger.warn("Submission is still being processed after {} minutes, redirecting the client.",
+                    RESPONSE_TIMEOUT_MINUTES);
+            Redirect.redirectBack((HttpServletRequest) asyncContext.getRequest(),
+                    (HttpServletResponse) asyncContext.getResponse());
+            asyncContext.complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            responded.set(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
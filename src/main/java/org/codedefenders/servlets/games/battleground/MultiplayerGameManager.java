@@ -60,6 +60,7 @@ import org.codedefenders.execution.IMutationTester;
 import org.codedefenders.execution.KillMap;
 import org.codedefenders.execution.KillMap.KillMapEntry;
 import org.codedefenders.execution.TargetExecution;
+import org.codedefenders.game.CoverageIndex;
 import org.codedefenders.game.GameState;
 import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Role;
@@ -82,6 +83,9 @@ import org.codedefenders.notification.events.server.test.TestSubmittedEvent;
 import org.codedefenders.notification.events.server.test.TestTestedMutantsEvent;
 import org.codedefenders.notification.events.server.test.TestValidatedEvent;
 import org.codedefenders.servlets.games.GameManagingUtils;
+import org.codedefenders.servlets.games.SubmissionPipeline;
+import org.codedefenders.servlets.games.SubmissionPipeline.Result;
+import org.codedefenders.servlets.games.SubmissionPipeline.Stage;
 import org.codedefenders.servlets.util.Redirect;
 import org.codedefenders.servlets.util.ServletUtils;
 import org.codedefenders.util.Constants;
@@ -121,7 +125,7 @@ import static org.codedefenders.util.Constants.TEST_PASSED_ON_CUT_MESSAGE;
  *
  * @see org.codedefenders.util.Paths#BATTLEGROUND_GAME
  */
-@WebServlet(org.codedefenders.util.Paths.BATTLEGROUND_GAME)
+@WebServlet(urlPatterns = org.codedefenders.util.Paths.BATTLEGROUND_GAME, asyncSupported = true)
 public class MultiplayerGameManager extends HttpServlet {
 
     private static final Logger logger = LoggerFactory.getLogger(MultiplayerGameManager.class);
@@ -132,6 +136,9 @@ public class MultiplayerGameManager extends HttpServlet {
     @Inject
     private GameManagingUtils gameManagingUtils;
 
+    @Inject
+    private SubmissionPipeline submissionPipeline;
+
     @Inject
     private IMutationTester mutationTester;
 
@@ -208,6 +215,10 @@ public class MultiplayerGameManager extends HttpServlet {
 
     @Override
     public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        if (submissionPipeline.complete(request)) {
+            return;
+        }
+
         final Optional<Integer> gameIdOpt = ServletUtils.gameId(request);
         if (!gameIdOpt.isPresent()) {
             logger.debug("No gameId parameter. Aborting request.");
@@ -231,14 +242,10 @@ public class MultiplayerGameManager extends HttpServlet {
         switch (action) {
             case "createMutant": {
                 createMutant(request, response, gameId, game);
-                // After creating a mutant, there's the chance that the mutant already survived enough tests
-                triggerAutomaticMutantEquivalenceForGame(game);
                 return;
             }
             case "createTest": {
                 createTest(request, response, gameId, game);
-                // After a test is submitted, there's the chance that one or more mutants already survived enough tests
-                triggerAutomaticMutantEquivalenceForGame(game);
                 return;
             }
             case "reset": {
@@ -267,13 +274,15 @@ public class MultiplayerGameManager extends HttpServlet {
             // No need to check as this feature is disabled
             return;
         }
+        CoverageIndex coverage = CoverageIndex.forGame(game.getId());
         // Get all the live mutants in the game
         for (Mutant aliveMutant : game.getAliveMutants()) {
             /*
              * If the mutant is covered by enough tests trigger the automatic
              * equivalence duel. Consider ONLY the coveringTests submitted after the mutant was created
              */
-            Set<Integer> allCoveringTests = aliveMutant.getCoveringTests().stream()
+            List<Test> coveringTests = coverage.getCoveringTests(aliveMutant);
+            Set<Integer> allCoveringTests = coveringTests.stream()
                         .map(Test::getId)
                         .collect(Collectors.toSet());
 
@@ -296,7 +305,7 @@ public class MultiplayerGameManager extends HttpServlet {
                 int mutantOwnerId = UserDAO.getUserForPlayer(aliveMutant.getPlayerId()).getId();
                 Event event = new Event(-1, game.getId(), mutantOwnerId,
                         "One of your mutants survived "
-                                + (threshold == aliveMutant.getCoveringTests().size() ? "" : "more than ") + threshold
+                                + (threshold == coveringTests.size() ? "" : "more than ") + threshold
                                 + "tests so it was automatically claimed as equivalent.",
                         // TODO it might make sense to specify a new event type?
                         EventType.DEFENDER_MUTANT_EQUIVALENT, EventStatus.NEW,
@@ -344,160 +353,194 @@ public class MultiplayerGameManager extends HttpServlet {
             return;
         }
         final String testText = test.get();
+        final int userId = login.getUserId();
+        final String username = login.getUser().getUsername();
 
         TestSubmittedEvent tse = new TestSubmittedEvent();
         tse.setGameId(gameId);
-        tse.setUserId(login.getUserId());
+        tse.setUserId(userId);
         notificationService.post(tse);
 
-        // Do the validation even before creating the mutant
-        // TODO Here we need to account for #495
-        List<String> validationMessage = CodeValidator.validateTestCodeGetMessage(
-                testText,
-                game.getMaxAssertionsPerTest(),
-                game.getCUT().getAssertionLibrary());
-        boolean validationSuccess = validationMessage.isEmpty();
-
-        TestValidatedEvent tve = new TestValidatedEvent();
-        tve.setGameId(gameId);
-        tve.setUserId(login.getUserId());
-        tve.setSuccess(validationSuccess);
-        tve.setValidationMessage(validationSuccess ? null : String.join("\n", validationMessage));
-        notificationService.post(tve);
-
-        if (!validationSuccess) {
-            messages.getBridge().addAll(validationMessage);
-            previousSubmission.setTestCode(testText);
-            response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-            return;
-        }
-
-        // From this point on we assume that test is valid according to the rules (but it might still not compile)
-        Test newTest;
-        try {
-            newTest = gameManagingUtils.createTest(gameId, game.getClassId(), testText, login.getUserId(), MODE_BATTLEGROUND_DIR);
-        } catch (IOException io) {
-            messages.add(TEST_GENERIC_ERROR_MESSAGE);
-            previousSubmission.setTestCode(testText);
-            response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-            return;
-        }
-
         /*
-         * Validation of Players Intention: if intentions must be
-         * collected but none are specified in the user request we fail
-         * the request, but keep the test code in the session
+         * Validation of Players Intention: the intentions are read here, because the request parameters
+         * are not available to the submission pipeline.
          */
         Set<Integer> selectedLines = new HashSet<>();
         Set<Integer> selectedMutants = new HashSet<>();
 
         if (game.isCapturePlayersIntention()) {
-            boolean validatedCoveredLines = true;
-            // boolean validatedKilledMutants = true;
-
-            // Prepare the validation message
-            StringBuilder userIntentionsValidationMessage = new StringBuilder();
-            userIntentionsValidationMessage.append("Cheeky! You cannot submit a test without specifying");
-
             final String selected_lines = request.getParameter("selected_lines");
             if (selected_lines != null) {
                 Set<Integer> selectLinesSet =
                         DefenderIntention.parseIntentionFromCommaSeparatedValueString(selected_lines);
                 selectedLines.addAll(selectLinesSet);
             }
-
-            if (selectedLines.isEmpty()) {
-                validatedCoveredLines = false;
-                userIntentionsValidationMessage.append(" a line to cover");
-            }
             // NOTE: We consider only covering lines at the moment
             // if (request.getParameter("selected_mutants") != null) {
             // selectedMutants.addAll(DefenderIntention
             // .parseIntentionFromCommaSeparatedValueString(request.getParameter("selected_mutants")));
             // }
-            // if( selectedMutants.isEmpty() &&
-            // game.isDeclareKilledMutants()) {
-            // validatedKilledMutants = false;
-            //
-            // if( selectedLines.isEmpty() &&
-            // game.isCapturePlayersIntention() ){
-            // validationMessage.append(" or");
-            // }
-            //
-            // validationMessage.append(" a mutant to kill");
-            // }
-            userIntentionsValidationMessage.append(".");
+        }
 
-            if (!validatedCoveredLines) { // || !validatedKilledMutants
-                messages.add(userIntentionsValidationMessage.toString());
-                // Keep the test around
-                previousSubmission.setTestCode(testText);
-                response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-                return;
+        // Compilation and mutation analysis are done in the submission pipeline, so we do not block this thread
+        submissionPipeline.submit(request, Stage.COMPILATION, () -> {
+            // Do the validation even before creating the mutant
+            // TODO Here we need to account for #495
+            List<String> validationMessage = CodeValidator.validateTestCodeGetMessage(
+                    testText,
+                    game.getMaxAssertionsPerTest(),
+                    game.getCUT().getAssertionLibrary());
+            boolean validationSuccess = validationMessage.isEmpty();
+
+            TestValidatedEvent tve = new TestValidatedEvent();
+            tve.setGameId(gameId);
+            tve.setUserId(userId);
+            tve.setSuccess(validationSuccess);
+            tve.setValidationMessage(validationSuccess ? null : String.join("\n", validationMessage));
+            notificationService.post(tve);
+
+            if (!validationSuccess) {
+                return Result.complete(() -> {
+                    messages.getBridge().addAll(validationMessage);
+                    previousSubmission.setTestCode(testText);
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
             }
-        }
 
-        logger.debug("New Test {} by user {}", newTest.getId(), login.getUserId());
-        TargetExecution compileTestTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest, COMPILE_TEST);
+            // From this point on we assume that test is valid according to the rules (but it might still not compile)
+            Test newTest;
+            try {
+                newTest = gameManagingUtils.createTest(gameId, game.getClassId(), testText, userId, MODE_BATTLEGROUND_DIR);
+            } catch (IOException io) {
+                return Result.complete(() -> {
+                    messages.add(TEST_GENERIC_ERROR_MESSAGE);
+                    previousSubmission.setTestCode(testText);
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
+            }
 
-        if (game.isCapturePlayersIntention()) {
-            collectDefenderIntentions(newTest, selectedLines, selectedMutants);
-            // Store intentions in the session in case tests is broken we automatically re-select the same line
-            // TODO At the moment, there is only and only one line
-            session.setAttribute("selected_lines", selectedLines.iterator().next());
-        }
+            /*
+             * Validation of Players Intention: if intentions must be
+             * collected but none are specified in the user request we fail
+             * the request, but keep the test code in the session
+             */
+            if (game.isCapturePlayersIntention()) {
+                boolean validatedCoveredLines = true;
+                // boolean validatedKilledMutants = true;
 
-        if (compileTestTarget.status != TargetExecution.Status.SUCCESS) {
-            messages.add(TEST_DID_NOT_COMPILE_MESSAGE).fadeOut(false);
-            // We escape the content of the message for new tests since user can embed there anything
-            String escapedHtml = StringEscapeUtils.escapeHtml(compileTestTarget.message);
-            // Extract the line numbers of the errors
-            List<Integer> errorLines = extractErrorLines(compileTestTarget.message);
-            // Store them in the session so they can be picked up later
-            previousSubmission.setErrorLines(errorLines);
-            // We introduce our decoration
-            String decorate = decorateWithLinksToCode(escapedHtml, true, false);
-            messages.add(decorate).escape(false);
-            //
-            previousSubmission.setTestCode(testText);
-            response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-            return;
-        }
-        TargetExecution testOriginalTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest, TEST_ORIGINAL);
-        if (testOriginalTarget.status != TargetExecution.Status.SUCCESS) {
-            // testOriginalTarget.state.equals(TargetExecution.Status.FAIL)
-            //     || testOriginalTarget.state.equals(TargetExecution.Status.ERROR)
-            messages.add(TEST_DID_NOT_PASS_ON_CUT_MESSAGE).fadeOut(false);
-            messages.add(StringEscapeUtils.escapeHtml(testOriginalTarget.message));
-            previousSubmission.setTestCode(testText);
-            response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-            return;
-        }
+                // Prepare the validation message
+                StringBuilder userIntentionsValidationMessage = new StringBuilder();
+                userIntentionsValidationMessage.append("Cheeky! You cannot submit a test without specifying");
 
-        messages.add(TEST_PASSED_ON_CUT_MESSAGE);
+                if (selectedLines.isEmpty()) {
+                    validatedCoveredLines = false;
+                    userIntentionsValidationMessage.append(" a line to cover");
+                }
+                // NOTE: We consider only covering lines at the moment
+                // if( selectedMutants.isEmpty() &&
+                // game.isDeclareKilledMutants()) {
+                // validatedKilledMutants = false;
+                //
+                // if( selectedLines.isEmpty() &&
+                // game.isCapturePlayersIntention() ){
+                // validationMessage.append(" or");
+                // }
+                //
+                // validationMessage.append(" a mutant to kill");
+                // }
+                userIntentionsValidationMessage.append(".");
+
+                if (!validatedCoveredLines) { // || !validatedKilledMutants
+                    return Result.complete(() -> {
+                        messages.add(userIntentionsValidationMessage.toString());
+                        // Keep the test around
+                        previousSubmission.setTestCode(testText);
+                        response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                    });
+                }
+            }
 
-        // Include Test Smells in the messages back to user
-        includeDetectTestSmellsInMessages(newTest);
+            logger.debug("New Test {} by user {}", newTest.getId(), userId);
+            TargetExecution compileTestTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest, COMPILE_TEST);
 
-        final String message = login.getUser().getUsername() + " created a test";
-        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-        final Event notif = new Event(-1, gameId, login.getUserId(), message, EventType.DEFENDER_TEST_CREATED,
-                EventStatus.GAME, timestamp);
-        eventDAO.insert(notif);
+            if (game.isCapturePlayersIntention()) {
+                collectDefenderIntentions(newTest, selectedLines, selectedMutants);
+            }
 
-        mutationTester.runTestOnAllMultiplayerMutants(game, newTest, messages.getBridge());
-        game.update();
-        logger.info("Successfully created test {} ", newTest.getId());
+            if (compileTestTarget.status != TargetExecution.Status.SUCCESS) {
+                return Result.complete(() -> {
+                    storeSelectedLines(session, game, selectedLines);
+                    messages.add(TEST_DID_NOT_COMPILE_MESSAGE).fadeOut(false);
+                    // We escape the content of the message for new tests since user can embed there anything
+                    String escapedHtml = StringEscapeUtils.escapeHtml(compileTestTarget.message);
+                    // Extract the line numbers of the errors
+                    List<Integer> errorLines = extractErrorLines(compileTestTarget.message);
+                    // Store them in the session so they can be picked up later
+                    previousSubmission.setErrorLines(errorLines);
+                    // We introduce our decoration
+                    String decorate = decorateWithLinksToCode(escapedHtml, true, false);
+                    messages.add(decorate).escape(false);
+                    //
+                    previousSubmission.setTestCode(testText);
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
+            }
+            TargetExecution testOriginalTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest, TEST_ORIGINAL);
+            if (testOriginalTarget.status != TargetExecution.Status.SUCCESS) {
+                // testOriginalTarget.state.equals(TargetExecution.Status.FAIL)
+                //     || testOriginalTarget.state.equals(TargetExecution.Status.ERROR)
+                return Result.complete(() -> {
+                    storeSelectedLines(session, game, selectedLines);
+                    messages.add(TEST_DID_NOT_PASS_ON_CUT_MESSAGE).fadeOut(false);
+                    messages.add(StringEscapeUtils.escapeHtml(testOriginalTarget.message));
+                    previousSubmission.setTestCode(testText);
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
+            }
+
+            final String message = username + " created a test";
+            final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+            final Event notif = new Event(-1, gameId, userId, message, EventType.DEFENDER_TEST_CREATED,
+                    EventStatus.GAME, timestamp);
+            eventDAO.insert(notif);
+
+            return Result.next(Stage.MUTATION_ANALYSIS, () -> {
+                ArrayList<String> mutationTesterMessages = new ArrayList<>();
+                mutationTester.runTestOnAllMultiplayerMutants(game, newTest, mutationTesterMessages);
+                game.update();
+                logger.info("Successfully created test {} ", newTest.getId());
+
+                TestTestedMutantsEvent ttme = new TestTestedMutantsEvent();
+                ttme.setGameId(gameId);
+                ttme.setUserId(userId);
+                notificationService.post(ttme);
+
+                // After a test is submitted, there's the chance that one or more mutants already survived enough tests
+                triggerAutomaticMutantEquivalenceForGame(game);
 
-        TestTestedMutantsEvent ttme = new TestTestedMutantsEvent();
-        ttme.setGameId(gameId);
-        ttme.setUserId(login.getUserId());
-        notificationService.post(ttme);
+                return Result.complete(() -> {
+                    messages.add(TEST_PASSED_ON_CUT_MESSAGE);
+                    // Include Test Smells in the messages back to user
+                    includeDetectTestSmellsInMessages(newTest);
+                    messages.getBridge().addAll(mutationTesterMessages);
 
-        // Clean up the session
-        previousSubmission.clear();
-        session.removeAttribute("selected_lines");
-        response.sendRedirect(ctx(request) + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                    // Clean up the session
+                    previousSubmission.clear();
+                    session.removeAttribute("selected_lines");
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
+            });
+        });
+    }
+
+    /**
+     * Stores the selected line in the session, so the same line is selected again after a broken test.
+     */
+    private static void storeSelectedLines(HttpSession session, MultiplayerGame game, Set<Integer> selectedLines) {
+        if (game.isCapturePlayersIntention()) {
+            // TODO At the moment, there is only and only one line
+            session.setAttribute("selected_lines", selectedLines.iterator().next());
+        }
     }
 
     /**
@@ -589,129 +632,155 @@ public class MultiplayerGameManager extends HttpServlet {
             return;
         }
 
+        final int userId = login.getUserId();
+        final String username = login.getUser().getUsername();
+        final String attackerIntention = request.getParameter("attacker_intention");
+
         MutantSubmittedEvent mse = new MutantSubmittedEvent();
         mse.setGameId(gameId);
-        mse.setUserId(login.getUserId());
+        mse.setUserId(userId);
         notificationService.post(mse);
 
-        // Do the validation even before creating the mutant
-        CodeValidatorLevel codeValidatorLevel = game.getMutantValidatorLevel();
-        ValidationMessage validationMessage =
-                CodeValidator.validateMutantGetMessage(game.getCUT().getSourceCode(), mutantText, codeValidatorLevel);
-        boolean validationSuccess = validationMessage == ValidationMessage.MUTANT_VALIDATION_SUCCESS;
-
-        MutantValidatedEvent mve = new MutantValidatedEvent();
-        mve.setGameId(gameId);
-        mve.setUserId(login.getUserId());
-        mve.setSuccess(validationSuccess);
-        notificationService.post(mve);
-
-        if (!validationSuccess) {
-            // Mutant is either the same as the CUT or it contains invalid code
-            messages.add(validationMessage.get());
-            response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-            return;
-        }
+        // Compilation and mutation analysis are done in the submission pipeline, so we do not block this thread
+        submissionPipeline.submit(request, Stage.COMPILATION, () -> {
+            // Do the validation even before creating the mutant
+            CodeValidatorLevel codeValidatorLevel = game.getMutantValidatorLevel();
+            ValidationMessage validationMessage = CodeValidator.validateMutantGetMessage(
+                    game.getCUT().getSourceCode(), mutantText, codeValidatorLevel);
+            boolean validationSuccess = validationMessage == ValidationMessage.MUTANT_VALIDATION_SUCCESS;
 
-        Mutant existingMutant = gameManagingUtils.existingMutant(gameId, mutantText);
-        boolean duplicateCheckSuccess = existingMutant == null;
-
-        MutantDuplicateCheckedEvent mdce = new MutantDuplicateCheckedEvent();
-        mdce.setGameId(gameId);
-        mdce.setUserId(login.getUserId());
-        mdce.setSuccess(duplicateCheckSuccess);
-        mdce.setDuplicateId(duplicateCheckSuccess ? null : existingMutant.getId());
-        notificationService.post(mdce);
-
-        if (!duplicateCheckSuccess) {
-            messages.add(MUTANT_DUPLICATED_MESSAGE);
-            TargetExecution existingMutantTarget =
-                    TargetExecutionDAO.getTargetExecutionForMutant(existingMutant, COMPILE_MUTANT);
-            if (existingMutantTarget != null && existingMutantTarget.status != TargetExecution.Status.SUCCESS
-                    && existingMutantTarget.message != null && !existingMutantTarget.message.isEmpty()) {
-                messages.add(existingMutantTarget.message);
+            MutantValidatedEvent mve = new MutantValidatedEvent();
+            mve.setGameId(gameId);
+            mve.setUserId(userId);
+            mve.setSuccess(validationSuccess);
+            notificationService.post(mve);
+
+            if (!validationSuccess) {
+                return Result.complete(() -> {
+                    // Mutant is either the same as the CUT or it contains invalid code
+                    messages.add(validationMessage.get());
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
             }
-            previousSubmission.setMutantCode(mutantText);
-            response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-            return;
-        }
 
-        Mutant newMutant = gameManagingUtils.createMutant(gameId, game.getClassId(), mutantText,
-                login.getUserId(), MODE_BATTLEGROUND_DIR);
-        if (newMutant == null) {
-            messages.add(MUTANT_CREATION_ERROR_MESSAGE);
-            previousSubmission.setMutantCode(mutantText);
-            logger.debug("Error creating mutant. Game: {}, Class: {}, User: {}, Mutant: {}",
-                    gameId, game.getClassId(), login.getUserId(), mutantText);
-            response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-            return;
-        }
+            Mutant existingMutant = gameManagingUtils.existingMutant(gameId, mutantText);
+            boolean duplicateCheckSuccess = existingMutant == null;
+
+            MutantDuplicateCheckedEvent mdce = new MutantDuplicateCheckedEvent();
+            mdce.setGameId(gameId);
+            mdce.setUserId(userId);
+            mdce.setSuccess(duplicateCheckSuccess);
+            mdce.setDuplicateId(duplicateCheckSuccess ? null : existingMutant.getId());
+            notificationService.post(mdce);
+
+            if (!duplicateCheckSuccess) {
+                TargetExecution existingMutantTarget =
+                        TargetExecutionDAO.getTargetExecutionForMutant(existingMutant, COMPILE_MUTANT);
+                return Result.complete(() -> {
+                    messages.add(MUTANT_DUPLICATED_MESSAGE);
+                    if (existingMutantTarget != null && existingMutantTarget.status != TargetExecution.Status.SUCCESS
+                            && existingMutantTarget.message != null && !existingMutantTarget.message.isEmpty()) {
+                        messages.add(existingMutantTarget.message);
+                    }
+                    previousSubmission.setMutantCode(mutantText);
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
+            }
 
-        TargetExecution compileMutantTarget = TargetExecutionDAO.getTargetExecutionForMutant(newMutant,
-                COMPILE_MUTANT);
-        boolean compileSuccess = compileMutantTarget != null
-                && compileMutantTarget.status == TargetExecution.Status.SUCCESS;
-        String errorMessage = (compileMutantTarget != null
-                && compileMutantTarget.message != null
-                && !compileMutantTarget.message.isEmpty())
-                ? compileMutantTarget.message : null;
-
-        MutantCompiledEvent mce = new MutantCompiledEvent();
-        mce.setGameId(gameId);
-        mce.setUserId(login.getUserId());
-        mce.setMutantId(newMutant.getId());
-        mce.setSuccess(compileSuccess);
-        mce.setErrorMessage(errorMessage);
-
-        if (!compileSuccess) {
-            messages.add(MUTANT_UNCOMPILABLE_MESSAGE).fadeOut(false);
-            // There's a ton of defensive programming here...
-            if (errorMessage != null) {
-                // We escape the content of the message for new tests since user can embed there anything
-                String escapedHtml = StringEscapeUtils.escapeHtml(errorMessage);
-                // Extract the line numbers of the errors
-                List<Integer> errorLines = extractErrorLines(errorMessage);
-                // Store them in the session so they can be picked up later
-                previousSubmission.setErrorLines(errorLines);
-                // We introduce our decoration
-                String decorate = decorateWithLinksToCode(escapedHtml, false, true);
-                messages.add(decorate).escape(false);
+            Mutant newMutant = gameManagingUtils.createMutant(gameId, game.getClassId(), mutantText,
+                    userId, MODE_BATTLEGROUND_DIR);
+            if (newMutant == null) {
+                logger.debug("Error creating mutant. Game: {}, Class: {}, User: {}, Mutant: {}",
+                        gameId, game.getClassId(), userId, mutantText);
+                return Result.complete(() -> {
+                    messages.add(MUTANT_CREATION_ERROR_MESSAGE);
+                    previousSubmission.setMutantCode(mutantText);
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
             }
-            previousSubmission.setMutantCode(mutantText);
-            response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-            return;
-        }
 
-        messages.add(MUTANT_COMPILED_MESSAGE);
-        final String notificationMsg = login.getUser().getUsername() + " created a mutant.";
-        Event notif = new Event(-1, gameId, login.getUserId(), notificationMsg, EventType.ATTACKER_MUTANT_CREATED,
-                EventStatus.GAME, new Timestamp(System.currentTimeMillis() - 1000));
-        eventDAO.insert(notif);
+            TargetExecution compileMutantTarget = TargetExecutionDAO.getTargetExecutionForMutant(newMutant,
+                    COMPILE_MUTANT);
+            boolean compileSuccess = compileMutantTarget != null
+                    && compileMutantTarget.status == TargetExecution.Status.SUCCESS;
+            String errorMessage = (compileMutantTarget != null
+                    && compileMutantTarget.message != null
+                    && !compileMutantTarget.message.isEmpty())
+                    ? compileMutantTarget.message : null;
+
+            MutantCompiledEvent mce = new MutantCompiledEvent();
+            mce.setGameId(gameId);
+            mce.setUserId(userId);
+            mce.setMutantId(newMutant.getId());
+            mce.setSuccess(compileSuccess);
+            mce.setErrorMessage(errorMessage);
+
+            if (!compileSuccess) {
+                return Result.complete(() -> {
+                    messages.add(MUTANT_UNCOMPILABLE_MESSAGE).fadeOut(false);
+                    // There's a ton of defensive programming here...
+                    if (errorMessage != null) {
+                        // We escape the content of the message for new tests since user can embed there anything
+                        String escapedHtml = StringEscapeUtils.escapeHtml(errorMessage);
+                        // Extract the line numbers of the errors
+                        List<Integer> errorLines = extractErrorLines(errorMessage);
+                        // Store them in the session so they can be picked up later
+                        previousSubmission.setErrorLines(errorLines);
+                        // We introduce our decoration
+                        String decorate = decorateWithLinksToCode(escapedHtml, false, true);
+                        messages.add(decorate).escape(false);
+                    }
+                    previousSubmission.setMutantCode(mutantText);
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
+            }
 
-        mutationTester.runAllTestsOnMutant(game, newMutant, messages.getBridge());
-        game.update();
+            final String notificationMsg = username + " created a mutant.";
+            Event notif = new Event(-1, gameId, userId, notificationMsg, EventType.ATTACKER_MUTANT_CREATED,
+                    EventStatus.GAME, new Timestamp(System.currentTimeMillis() - 1000));
+            eventDAO.insert(notif);
+
+            return Result.next(Stage.MUTATION_ANALYSIS, () -> {
+                ArrayList<String> mutationTesterMessages = new ArrayList<>();
+                mutationTester.runAllTestsOnMutant(game, newMutant, mutationTesterMessages);
+                game.update();
+
+                MutantTestedEvent mte = new MutantTestedEvent();
+                mte.setGameId(gameId);
+                mte.setUserId(userId);
+                mte.setMutantId(newMutant.getId());
+                notificationService.post(mte);
+
+                AttackerIntention intention = null;
+                if (game.isCapturePlayersIntention()) {
+                    intention = AttackerIntention.fromString(attackerIntention);
+                    if (intention != null) {
+                        collectAttackerIntentions(newMutant, intention);
+                    }
+                }
+                // This parameter is required !
+                final boolean missingIntention = game.isCapturePlayersIntention() && intention == null;
+                if (!missingIntention) {
+                    logger.info("Successfully created mutant {} ", newMutant.getId());
+                }
 
-        MutantTestedEvent mte = new MutantTestedEvent();
-        mte.setGameId(gameId);
-        mte.setUserId(login.getUserId());
-        mte.setMutantId(newMutant.getId());
-        notificationService.post(mte);
+                // After creating a mutant, there's the chance that the mutant already survived enough tests
+                triggerAutomaticMutantEquivalenceForGame(game);
 
-        if (game.isCapturePlayersIntention()) {
-            AttackerIntention intention = AttackerIntention.fromString(request.getParameter("attacker_intention"));
-            // This parameter is required !
-            if (intention == null) {
-                messages.add(ValidationMessage.MUTANT_MISSING_INTENTION.toString());
-                previousSubmission.setMutantCode(mutantText);
-                response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
-                return;
-            }
-            collectAttackerIntentions(newMutant, intention);
-        }
-        // Clean the mutated code only if mutant is accepted
-        previousSubmission.clear();
-        logger.info("Successfully created mutant {} ", newMutant.getId());
-        response.sendRedirect(ctx(request) + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                return Result.complete(() -> {
+                    messages.add(MUTANT_COMPILED_MESSAGE);
+                    messages.getBridge().addAll(mutationTesterMessages);
+                    if (missingIntention) {
+                        messages.add(ValidationMessage.MUTANT_MISSING_INTENTION.toString());
+                        previousSubmission.setMutantCode(mutantText);
+                    } else {
+                        // Clean the mutated code only if mutant is accepted
+                        previousSubmission.clear();
+                    }
+                    response.sendRedirect(contextPath + Paths.BATTLEGROUND_GAME + "?gameId=" + gameId);
+                });
+            });
+        });
     }
 
     @SuppressWarnings("Duplicates")
@@ -56,6 +56,7 @@ import org.codedefenders.database.TestSmellsDAO;
 import org.codedefenders.database.UserDAO;
 import org.codedefenders.execution.IMutationTester;
 import org.codedefenders.execution.TargetExecution;
+import org.codedefenders.game.CoverageIndex;
 import org.codedefenders.game.GameState;
 import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Test;
@@ -78,6 +79,9 @@ import org.codedefenders.notification.events.server.test.TestSubmittedEvent;
 import org.codedefenders.notification.events.server.test.TestTestedMutantsEvent;
 import org.codedefenders.notification.events.server.test.TestValidatedEvent;
 import org.codedefenders.servlets.games.GameManagingUtils;
+import org.codedefenders.servlets.games.SubmissionPipeline;
+import org.codedefenders.servlets.games.SubmissionPipeline.Result;
+import org.codedefenders.servlets.games.SubmissionPipeline.Stage;
 import org.codedefenders.servlets.util.Redirect;
 import org.codedefenders.servlets.util.ServletUtils;
 import org.codedefenders.util.Constants;
@@ -119,7 +123,7 @@ import static org.codedefenders.util.Constants.TEST_PASSED_ON_CUT_MESSAGE;
  *
  * @see org.codedefenders.util.Paths#MELEE_GAME
  */
-@WebServlet(Paths.MELEE_GAME)
+@WebServlet(urlPatterns = Paths.MELEE_GAME, asyncSupported = true)
 public class MeleeGameManager extends HttpServlet {
 
     private static final Logger logger = LoggerFactory.getLogger(MeleeGameManager.class);
@@ -127,6 +131,9 @@ public class MeleeGameManager extends HttpServlet {
     @Inject
     private GameManagingUtils gameManagingUtils;
 
+    @Inject
+    private SubmissionPipeline submissionPipeline;
+
     @Inject
     private IMutationTester mutationTester;
 
@@ -226,6 +233,10 @@ public class MeleeGameManager extends HttpServlet {
 
     @Override
     public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        if (submissionPipeline.complete(request)) {
+            return;
+        }
+
         final Optional<Integer> gameIdOpt = ServletUtils.gameId(request);
         if (!gameIdOpt.isPresent()) {
             logger.warn("No gameId parameter. Aborting request.");
@@ -265,14 +276,10 @@ public class MeleeGameManager extends HttpServlet {
         switch (action) {
             case "createMutant": {
                 createMutant(request, response, user, game, playerId);
-                triggerAutomaticMutantEquivalenceForGame(game);
                 return;
             }
             case "createTest": {
                 createTest(request, response, user, game);
-                // After a test is submitted, there's the chance that one or more mutants
-                // already survived enough tests
-                triggerAutomaticMutantEquivalenceForGame(game);
                 return;
             }
             case "reset": {
@@ -301,13 +308,14 @@ public class MeleeGameManager extends HttpServlet {
             // No need to check as this feature is disabled
             return;
         }
+        CoverageIndex coverage = CoverageIndex.forGame(game.getId());
         // Get all the live mutants in the game
         for (Mutant aliveMutant : game.getAliveMutants()) {
             /*
              * If the mutant is covered by enough tests trigger the automatic equivalence
              * duel
              */
-            int coveringTests = aliveMutant.getCoveringTests().size();
+            int coveringTests = coverage.getCoveringTests(aliveMutant).size();
             if (coveringTests >= threshold) {
                 // Flag the mutant as possibly equivalent
                 aliveMutant.setEquivalent(Mutant.Equivalence.PENDING_TEST);
@@ -316,7 +324,7 @@ public class MeleeGameManager extends HttpServlet {
                 int mutantOwnerId = UserDAO.getUserForPlayer(aliveMutant.getPlayerId()).getId();
                 Event event = new Event(-1, game.getId(), mutantOwnerId,
                         "One of your mutants survived "
-                                + (threshold == aliveMutant.getCoveringTests().size() ? "" : "more than ") + threshold
+                                + (threshold == coveringTests ? "" : "more than ") + threshold
                                 + "tests so it was automatically claimed as equivalent.",
                         // TODO it might make sense to specify a new event type?
                         EventType.DEFENDER_MUTANT_EQUIVALENT, EventStatus.NEW,
@@ -361,47 +369,13 @@ public class MeleeGameManager extends HttpServlet {
         }
         final String testText = test.get();
 
+        final int userId = login.getUserId();
+
         TestSubmittedEvent tse = new TestSubmittedEvent();
         tse.setGameId(game.getId());
-        tse.setUserId(login.getUserId());
+        tse.setUserId(userId);
         notificationService.post(tse);
 
-        // TODO Where do we check that the test is not a duplicate ?!
-
-        // Do the validation even before creating the mutant
-        List<String> validationMessages = CodeValidator.validateTestCodeGetMessage(testText,
-                game.getMaxAssertionsPerTest(), game.getCUT().getAssertionLibrary());
-        boolean validationSuccess = validationMessages.isEmpty();
-
-        TestValidatedEvent tve = new TestValidatedEvent();
-        tve.setGameId(game.getId());
-        tve.setUserId(login.getUserId());
-        tve.setSuccess(validationSuccess);
-        tve.setValidationMessage(validationSuccess ? null : String.join("\n", validationMessages));
-        notificationService.post(tve);
-
-        if (!validationSuccess) {
-            messages.getBridge().addAll(validationMessages);
-            previousSubmission.setTestCode(testText);
-            response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-            return;
-        }
-
-        // From this point on we assume that test is valid according to the rules (but
-        // it might still not compile)
-        Test newTest;
-        try {
-            // TODO Mistmatch ? We pass USER_ID as creator/owner but we will get back
-            // PLAYER_ID for getCreatorId() ?
-            newTest = gameManagingUtils.createTest(game.getId(), game.getClassId(), testText, user.getId(),
-                    MODE_BATTLEGROUND_DIR);
-        } catch (IOException io) {
-            messages.add(TEST_GENERIC_ERROR_MESSAGE);
-            previousSubmission.setTestCode(testText);
-            response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-            return;
-        }
-
         /*
          * Validation of Players Intention: if intentions must be collected but none are
          * specified in the user request we fail the request, but keep the test code in
@@ -411,94 +385,142 @@ public class MeleeGameManager extends HttpServlet {
         Set<Integer> selectedMutants = new HashSet<>();
 
         if (game.isCapturePlayersIntention()) {
-            boolean validatedCoveredLines = true;
-            // Prepare the validation message
-            StringBuilder userIntentionsValidationMessage = new StringBuilder();
-            userIntentionsValidationMessage.append("Cheeky! You cannot submit a test without specifying");
-
             final String selected_lines = request.getParameter("selected_lines");
             if (selected_lines != null) {
                 Set<Integer> selectLinesSet = DefenderIntention
                         .parseIntentionFromCommaSeparatedValueString(selected_lines);
                 selectedLines.addAll(selectLinesSet);
             }
+        }
+
+        // Compilation and mutation analysis are done in the submission pipeline, so we do not block this thread
+        submissionPipeline.submit(request, Stage.COMPILATION, () -> {
+            // TODO Where do we check that the test is not a duplicate ?!
+
+            // Do the validation even before creating the mutant
+            List<String> validationMessages = CodeValidator.validateTestCodeGetMessage(testText,
+                    game.getMaxAssertionsPerTest(), game.getCUT().getAssertionLibrary());
+            boolean validationSuccess = validationMessages.isEmpty();
 
-            if (selectedLines.isEmpty()) {
-                validatedCoveredLines = false;
-                userIntentionsValidationMessage.append(" a line to cover");
+            TestValidatedEvent tve = new TestValidatedEvent();
+            tve.setGameId(game.getId());
+            tve.setUserId(userId);
+            tve.setSuccess(validationSuccess);
+            tve.setValidationMessage(validationSuccess ? null : String.join("\n", validationMessages));
+            notificationService.post(tve);
+
+            if (!validationSuccess) {
+                return Result.complete(() -> {
+                    messages.getBridge().addAll(validationMessages);
+                    previousSubmission.setTestCode(testText);
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
             }
 
-            userIntentionsValidationMessage.append(".");
+            // From this point on we assume that test is valid according to the rules (but
+            // it might still not compile)
+            Test newTest;
+            try {
+                // TODO Mistmatch ? We pass USER_ID as creator/owner but we will get back
+                // PLAYER_ID for getCreatorId() ?
+                newTest = gameManagingUtils.createTest(game.getId(), game.getClassId(), testText, user.getId(),
+                        MODE_BATTLEGROUND_DIR);
+            } catch (IOException io) {
+                return Result.complete(() -> {
+                    messages.add(TEST_GENERIC_ERROR_MESSAGE);
+                    previousSubmission.setTestCode(testText);
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
+            }
 
-            if (!validatedCoveredLines) {
-                messages.add(userIntentionsValidationMessage.toString());
-                previousSubmission.setTestCode(testText);
-                response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-                return;
+            if (game.isCapturePlayersIntention() && selectedLines.isEmpty()) {
+                return Result.complete(() -> {
+                    messages.add("Cheeky! You cannot submit a test without specifying a line to cover.");
+                    previousSubmission.setTestCode(testText);
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
             }
-        }
 
-        logger.debug("New Test {} by user {}", newTest.getId(), user.getId());
+            logger.debug("New Test {} by user {}", newTest.getId(), user.getId());
 
-        TargetExecution compileTestTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest,
-                TargetExecution.Target.COMPILE_TEST);
+            TargetExecution compileTestTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest,
+                    TargetExecution.Target.COMPILE_TEST);
 
-        if (game.isCapturePlayersIntention()) {
-            collectDefenderIntentions(newTest, selectedLines, selectedMutants);
-            session.setAttribute("selected_lines", selectedLines.iterator().next());
-        }
+            if (game.isCapturePlayersIntention()) {
+                collectDefenderIntentions(newTest, selectedLines, selectedMutants);
+            }
 
-        if (compileTestTarget.status != TargetExecution.Status.SUCCESS) {
-            messages.add(TEST_DID_NOT_COMPILE_MESSAGE).fadeOut(false);
-            // We escape the content of the message for new tests since user can embed there
-            // anything
-            String escapedHtml = StringEscapeUtils.escapeHtml(compileTestTarget.message);
-            // Extract the line numbers of the errors
-            List<Integer> errorLines = extractErrorLines(compileTestTarget.message);
-            // Store them in the session so they can be picked up later
-            previousSubmission.setErrorLines(errorLines);
-            // We introduce our decoration
-            String decorate = decorateWithLinksToCode(escapedHtml, true, false);
-            messages.add(decorate).escape(false);
-
-            previousSubmission.setTestCode(testText);
-            response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-            return;
-        }
-        TargetExecution testOriginalTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest,
-                TargetExecution.Target.TEST_ORIGINAL);
-        if (testOriginalTarget.status != TargetExecution.Status.SUCCESS) {
-            messages.add(TEST_DID_NOT_PASS_ON_CUT_MESSAGE);
-            messages.add(StringEscapeUtils.escapeHtml(testOriginalTarget.message)).escape(false);
-            previousSubmission.setTestCode(testText);
-            response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-            return;
-        }
+            if (compileTestTarget.status != TargetExecution.Status.SUCCESS) {
+                return Result.complete(() -> {
+                    storeSelectedLines(session, game, selectedLines);
+                    messages.add(TEST_DID_NOT_COMPILE_MESSAGE).fadeOut(false);
+                    // We escape the content of the message for new tests since user can embed there
+                    // anything
+                    String escapedHtml = StringEscapeUtils.escapeHtml(compileTestTarget.message);
+                    // Extract the line numbers of the errors
+                    List<Integer> errorLines = extractErrorLines(compileTestTarget.message);
+                    // Store them in the session so they can be picked up later
+                    previousSubmission.setErrorLines(errorLines);
+                    // We introduce our decoration
+                    String decorate = decorateWithLinksToCode(escapedHtml, true, false);
+                    messages.add(decorate).escape(false);
+
+                    previousSubmission.setTestCode(testText);
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
+            }
+            TargetExecution testOriginalTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest,
+                    TargetExecution.Target.TEST_ORIGINAL);
+            if (testOriginalTarget.status != TargetExecution.Status.SUCCESS) {
+                return Result.complete(() -> {
+                    storeSelectedLines(session, game, selectedLines);
+                    messages.add(TEST_DID_NOT_PASS_ON_CUT_MESSAGE);
+                    messages.add(StringEscapeUtils.escapeHtml(testOriginalTarget.message)).escape(false);
+                    previousSubmission.setTestCode(testText);
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
+            }
 
-        messages.add(TEST_PASSED_ON_CUT_MESSAGE);
+            final String message = user.getUsername() + " created a test";
+            final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+            final Event notif = new Event(-1, game.getId(), user.getId(), message, EventType.DEFENDER_TEST_CREATED,
+                    EventStatus.GAME, timestamp);
+            eventDAO.insert(notif);
 
-        // Include Test Smells in the messages back to user
-        includeDetectTestSmellsInMessages(newTest, messages.getBridge());
+            return Result.next(Stage.MUTATION_ANALYSIS, () -> {
+                ArrayList<String> mutationTesterMessages = new ArrayList<>();
+                mutationTester.runTestOnAllMeleeMutants(game, newTest, mutationTesterMessages);
+                game.update();
+                logger.info("Successfully created test {} ", newTest.getId());
 
-        final String message = user.getUsername() + " created a test";
-        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-        final Event notif = new Event(-1, game.getId(), user.getId(), message, EventType.DEFENDER_TEST_CREATED,
-                EventStatus.GAME, timestamp);
-        eventDAO.insert(notif);
+                TestTestedMutantsEvent ttme = new TestTestedMutantsEvent();
+                ttme.setGameId(game.getId());
+                ttme.setUserId(userId);
+                notificationService.post(ttme);
 
-        mutationTester.runTestOnAllMeleeMutants(game, newTest, messages.getBridge());
-        game.update();
-        logger.info("Successfully created test {} ", newTest.getId());
+                // After a test is submitted, there's the chance that one or more mutants
+                // already survived enough tests
+                triggerAutomaticMutantEquivalenceForGame(game);
 
-        TestTestedMutantsEvent ttme = new TestTestedMutantsEvent();
-        ttme.setGameId(game.getId());
-        ttme.setUserId(login.getUserId());
-        notificationService.post(ttme);
+                return Result.complete(() -> {
+                    messages.add(TEST_PASSED_ON_CUT_MESSAGE);
+                    // Include Test Smells in the messages back to user
+                    includeDetectTestSmellsInMessages(newTest, messages.getBridge());
+                    messages.getBridge().addAll(mutationTesterMessages);
 
-        // Clean up the session
-        previousSubmission.clear();
-        session.removeAttribute("selected_lines");
-        response.sendRedirect(ctx(request) + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                    // Clean up the session
+                    previousSubmission.clear();
+                    session.removeAttribute("selected_lines");
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
+            });
+        });
+    }
+
+    private static void storeSelectedLines(HttpSession session, MeleeGame game, Set<Integer> selectedLines) {
+        if (game.isCapturePlayersIntention()) {
+            session.setAttribute("selected_lines", selectedLines.iterator().next());
+        }
     }
 
     /**
@@ -586,124 +608,150 @@ public class MeleeGameManager extends HttpServlet {
             return;
         }
 
+        final int userId = login.getUserId();
+        final String attackerIntention = request.getParameter("attacker_intention");
+
         MutantSubmittedEvent mse = new MutantSubmittedEvent();
         mse.setGameId(game.getId());
-        mse.setUserId(login.getUserId());
+        mse.setUserId(userId);
         notificationService.post(mse);
 
-        // Do the validation even before creating the mutant
-        CodeValidatorLevel codeValidatorLevel = game.getMutantValidatorLevel();
-        ValidationMessage validationMessage = CodeValidator.validateMutantGetMessage(game.getCUT().getSourceCode(),
-                mutantText, codeValidatorLevel);
-        boolean validationSuccess = validationMessage == ValidationMessage.MUTANT_VALIDATION_SUCCESS;
-
-        MutantValidatedEvent mve = new MutantValidatedEvent();
-        mve.setGameId(game.getId());
-        mve.setUserId(login.getUserId());
-        mve.setSuccess(validationSuccess);
-        notificationService.post(mve);
-
-        if (!validationSuccess) {
-            // Mutant is either the same as the CUT or it contains invalid code
-            messages.add(validationMessage.get());
-            response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-            return;
-        }
+        // Compilation and mutation analysis are done in the submission pipeline, so we do not block this thread
+        submissionPipeline.submit(request, Stage.COMPILATION, () -> {
+            // Do the validation even before creating the mutant
+            CodeValidatorLevel codeValidatorLevel = game.getMutantValidatorLevel();
+            ValidationMessage validationMessage = CodeValidator.validateMutantGetMessage(
+                    game.getCUT().getSourceCode(), mutantText, codeValidatorLevel);
+            boolean validationSuccess = validationMessage == ValidationMessage.MUTANT_VALIDATION_SUCCESS;
 
-        Mutant existingMutant = gameManagingUtils.existingMutant(game.getId(), mutantText);
-        boolean duplicateCheckSuccess = existingMutant == null; // || existingMutant.getPlayerId() != playerId;
-        // TODO: Why allow duplicate mutants from different creators?
-        // Currently not possible because of database constraint
-        // See also: Issue #675
-
-        MutantDuplicateCheckedEvent mdce = new MutantDuplicateCheckedEvent();
-        mdce.setGameId(game.getId());
-        mdce.setUserId(login.getUserId());
-        mdce.setSuccess(duplicateCheckSuccess);
-        mdce.setDuplicateId(duplicateCheckSuccess ? null : existingMutant.getId());
-        notificationService.post(mdce);
-
-        if (!duplicateCheckSuccess) {
-            messages.add(MUTANT_DUPLICATED_MESSAGE);
-            TargetExecution existingMutantTarget = TargetExecutionDAO.getTargetExecutionForMutant(existingMutant,
-                    TargetExecution.Target.COMPILE_MUTANT);
-            if (existingMutantTarget != null && existingMutantTarget.status != TargetExecution.Status.SUCCESS
-                    && existingMutantTarget.message != null && !existingMutantTarget.message.isEmpty()) {
-                messages.add(existingMutantTarget.message);
+            MutantValidatedEvent mve = new MutantValidatedEvent();
+            mve.setGameId(game.getId());
+            mve.setUserId(userId);
+            mve.setSuccess(validationSuccess);
+            notificationService.post(mve);
+
+            if (!validationSuccess) {
+                return Result.complete(() -> {
+                    // Mutant is either the same as the CUT or it contains invalid code
+                    messages.add(validationMessage.get());
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
             }
-            previousSubmission.setMutantCode(mutantText);
-            response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-            return;
-        }
 
-        // TODO There is a mistmatch. We pass the USER_ID while creating a mutant, but
-        // then we get the PLAYER_ID when we get id of the mutants' creator?
-        Mutant newMutant = gameManagingUtils.createMutant(game.getId(), game.getClassId(), mutantText, user.getId(),
-                // TODO Should we use a different directory structure for MELEE GAMES?
-                MODE_BATTLEGROUND_DIR);
-        if (newMutant == null) {
-            messages.add(MUTANT_CREATION_ERROR_MESSAGE);
-            previousSubmission.setMutantCode(mutantText);
-            logger.debug("Error creating mutant. Game: {}, Class: {}, User: {}, Mutant: {}", game.getId(),
-                    game.getClassId(), user.getId(), mutantText);
-            response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-            return;
-        }
-        TargetExecution compileMutantTarget = TargetExecutionDAO.getTargetExecutionForMutant(newMutant,
-                TargetExecution.Target.COMPILE_MUTANT);
-        if (compileMutantTarget == null || compileMutantTarget.status != TargetExecution.Status.SUCCESS) {
-            messages.add(MUTANT_UNCOMPILABLE_MESSAGE);
-            // There's a ton of defensive programming here...
-            if (compileMutantTarget != null && compileMutantTarget.message != null
-                    && !compileMutantTarget.message.isEmpty()) {
-                // We escape the content of the message for new tests since user can embed there
-                // anything
-                String escapedHtml = StringEscapeUtils.escapeHtml(compileMutantTarget.message);
-                // Extract the line numbers of the errors
-                List<Integer> errorLines = extractErrorLines(compileMutantTarget.message);
-                // Store them in the session so they can be picked up later
-                previousSubmission.setErrorLines(errorLines);
-                // We introduce our decoration
-                String decorate = decorateWithLinksToCode(escapedHtml, false, true);
-                messages.add(decorate).escape(false);
+            Mutant existingMutant = gameManagingUtils.existingMutant(game.getId(), mutantText);
+            boolean duplicateCheckSuccess = existingMutant == null; // || existingMutant.getPlayerId() != playerId;
+            // TODO: Why allow duplicate mutants from different creators?
+            // Currently not possible because of database constraint
+            // See also: Issue #675
+
+            MutantDuplicateCheckedEvent mdce = new MutantDuplicateCheckedEvent();
+            mdce.setGameId(game.getId());
+            mdce.setUserId(userId);
+            mdce.setSuccess(duplicateCheckSuccess);
+            mdce.setDuplicateId(duplicateCheckSuccess ? null : existingMutant.getId());
+            notificationService.post(mdce);
+
+            if (!duplicateCheckSuccess) {
+                TargetExecution existingMutantTarget = TargetExecutionDAO.getTargetExecutionForMutant(
+                        existingMutant, TargetExecution.Target.COMPILE_MUTANT);
+                return Result.complete(() -> {
+                    messages.add(MUTANT_DUPLICATED_MESSAGE);
+                    if (existingMutantTarget != null && existingMutantTarget.status != TargetExecution.Status.SUCCESS
+                            && existingMutantTarget.message != null && !existingMutantTarget.message.isEmpty()) {
+                        messages.add(existingMutantTarget.message);
+                    }
+                    previousSubmission.setMutantCode(mutantText);
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
+            }
 
+            // TODO There is a mistmatch. We pass the USER_ID while creating a mutant, but
+            // then we get the PLAYER_ID when we get id of the mutants' creator?
+            Mutant newMutant = gameManagingUtils.createMutant(game.getId(), game.getClassId(), mutantText,
+                    user.getId(),
+                    // TODO Should we use a different directory structure for MELEE GAMES?
+                    MODE_BATTLEGROUND_DIR);
+            if (newMutant == null) {
+                logger.debug("Error creating mutant. Game: {}, Class: {}, User: {}, Mutant: {}", game.getId(),
+                        game.getClassId(), user.getId(), mutantText);
+                return Result.complete(() -> {
+                    messages.add(MUTANT_CREATION_ERROR_MESSAGE);
+                    previousSubmission.setMutantCode(mutantText);
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
             }
-            previousSubmission.setMutantCode(mutantText);
-            response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-            return;
-        }
+            TargetExecution compileMutantTarget = TargetExecutionDAO.getTargetExecutionForMutant(newMutant,
+                    TargetExecution.Target.COMPILE_MUTANT);
+            if (compileMutantTarget == null || compileMutantTarget.status != TargetExecution.Status.SUCCESS) {
+                return Result.complete(() -> {
+                    messages.add(MUTANT_UNCOMPILABLE_MESSAGE);
+                    // There's a ton of defensive programming here...
+                    if (compileMutantTarget != null && compileMutantTarget.message != null
+                            && !compileMutantTarget.message.isEmpty()) {
+                        // We escape the content of the message for new tests since user can embed there
+                        // anything
+                        String escapedHtml = StringEscapeUtils.escapeHtml(compileMutantTarget.message);
+                        // Extract the line numbers of the errors
+                        List<Integer> errorLines = extractErrorLines(compileMutantTarget.message);
+                        // Store them in the session so they can be picked up later
+                        previousSubmission.setErrorLines(errorLines);
+                        // We introduce our decoration
+                        String decorate = decorateWithLinksToCode(escapedHtml, false, true);
+                        messages.add(decorate).escape(false);
 
-        messages.add(MUTANT_COMPILED_MESSAGE);
-        final String notificationMsg = UserDAO.getUserById(user.getId()).getUsername() + " created a mutant.";
-        // TODO Do we need to create a special message: PLAYER_MUTANT_CREATED?
-        Event notif = new Event(-1, game.getId(), user.getId(), notificationMsg, EventType.ATTACKER_MUTANT_CREATED,
-                EventStatus.GAME, new Timestamp(System.currentTimeMillis() - 1000));
-        eventDAO.insert(notif);
+                    }
+                    previousSubmission.setMutantCode(mutantText);
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
+            }
 
-        mutationTester.runAllTestsOnMeleeMutant(game, newMutant, messages.getBridge());
-        game.update();
+            final String notificationMsg = UserDAO.getUserById(user.getId()).getUsername() + " created a mutant.";
+            // TODO Do we need to create a special message: PLAYER_MUTANT_CREATED?
+            Event notif = new Event(-1, game.getId(), user.getId(), notificationMsg,
+                    EventType.ATTACKER_MUTANT_CREATED, EventStatus.GAME,
+                    new Timestamp(System.currentTimeMillis() - 1000));
+            eventDAO.insert(notif);
+
+            return Result.next(Stage.MUTATION_ANALYSIS, () -> {
+                ArrayList<String> mutationTesterMessages = new ArrayList<>();
+                mutationTester.runAllTestsOnMeleeMutant(game, newMutant, mutationTesterMessages);
+                game.update();
+
+                MutantTestedEvent mte = new MutantTestedEvent();
+                mte.setGameId(game.getId());
+                mte.setUserId(userId);
+                mte.setMutantId(newMutant.getId());
+                notificationService.post(mte);
+
+                AttackerIntention intention = null;
+                if (game.isCapturePlayersIntention()) {
+                    intention = AttackerIntention.fromString(attackerIntention);
+                    if (intention != null) {
+                        collectAttackerIntentions(newMutant, intention);
+                    }
+                }
+                // This parameter is required !
+                final boolean missingIntention = game.isCapturePlayersIntention() && intention == null;
+                if (!missingIntention) {
+                    logger.info("Successfully created mutant {} ", newMutant.getId());
+                }
 
-        MutantTestedEvent mte = new MutantTestedEvent();
-        mte.setGameId(game.getId());
-        mte.setUserId(login.getUserId());
-        mte.setMutantId(newMutant.getId());
-        notificationService.post(mte);
+                triggerAutomaticMutantEquivalenceForGame(game);
 
-        if (game.isCapturePlayersIntention()) {
-            AttackerIntention intention = AttackerIntention.fromString(request.getParameter("attacker_intention"));
-            // This parameter is required !
-            if (intention == null) {
-                messages.add(ValidationMessage.MUTANT_MISSING_INTENTION.toString());
-                previousSubmission.setMutantCode(mutantText);
-                response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
-                return;
-            }
-            collectAttackerIntentions(newMutant, intention);
-        }
-        // Clean the mutated code only if mutant is accepted
-        previousSubmission.clear();
-        logger.info("Successfully created mutant {} ", newMutant.getId());
-        response.sendRedirect(ctx(request) + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                return Result.complete(() -> {
+                    messages.add(MUTANT_COMPILED_MESSAGE);
+                    messages.getBridge().addAll(mutationTesterMessages);
+                    if (missingIntention) {
+                        messages.add(ValidationMessage.MUTANT_MISSING_INTENTION.toString());
+                        previousSubmission.setMutantCode(mutantText);
+                    } else {
+                        // Clean the mutated code only if mutant is accepted
+                        previousSubmission.clear();
+                    }
+                    response.sendRedirect(contextPath + Paths.MELEE_GAME + "?gameId=" + game.getId());
+                });
+            });
+        });
     }
 
     @SuppressWarnings("Duplicates")
@@ -19,6 +19,7 @@
 package org.codedefenders.servlets.games.puzzle;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -60,6 +61,9 @@ import org.codedefenders.notification.events.server.test.TestSubmittedEvent;
 import org.codedefenders.notification.events.server.test.TestTestedMutantsEvent;
 import org.codedefenders.notification.events.server.test.TestValidatedEvent;
 import org.codedefenders.servlets.games.GameManagingUtils;
+import org.codedefenders.servlets.games.SubmissionPipeline;
+import org.codedefenders.servlets.games.SubmissionPipeline.Result;
+import org.codedefenders.servlets.games.SubmissionPipeline.Stage;
 import org.codedefenders.servlets.games.GameProducer;
 import org.codedefenders.servlets.util.Redirect;
 import org.codedefenders.servlets.util.ServletUtils;
@@ -106,13 +110,16 @@ import static org.codedefenders.util.Constants.TEST_PASSED_ON_CUT_MESSAGE;
  * @see PuzzleGameSelectionManager
  * @see PuzzleGame
  */
-@WebServlet(org.codedefenders.util.Paths.PUZZLE_GAME)
+@WebServlet(urlPatterns = org.codedefenders.util.Paths.PUZZLE_GAME, asyncSupported = true)
 public class PuzzleGameManager extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(PuzzleGameManager.class);
 
     @Inject
     private GameManagingUtils gameManagingUtils;
 
+    @Inject
+    private SubmissionPipeline submissionPipeline;
+
     @Inject
     private IMutationTester mutationTester;
 
@@ -293,6 +300,10 @@ public class PuzzleGameManager extends HttpServlet {
     @Override
     protected void doPost(HttpServletRequest request,
                           HttpServletResponse response) throws ServletException, IOException {
+        if (submissionPipeline.complete(request)) {
+            return;
+        }
+
         final HttpSession session = request.getSession();
         final String action = ServletUtils.formType(request);
         switch (action) {
@@ -379,98 +390,121 @@ public class PuzzleGameManager extends HttpServlet {
             return;
         }
 
+        final int userId = login.getUserId();
+
         TestSubmittedEvent tse = new TestSubmittedEvent();
         tse.setGameId(gameId);
-        tse.setUserId(login.getUserId());
+        tse.setUserId(userId);
         notificationService.post(tse);
 
-        // TODO Why we have testText and not escaped(testText)?
-        // Validate the test
-        // Do the validation even before creating the mutant
-        List<String> validationMessage = CodeValidator.validateTestCodeGetMessage(
-                testText,
-                game.getMaxAssertionsPerTest(),
-                game.getCUT().getAssertionLibrary());
-        boolean validationSuccess = validationMessage.isEmpty();
-
-        TestValidatedEvent tve = new TestValidatedEvent();
-        tve.setGameId(gameId);
-        tve.setUserId(login.getUserId());
-        tve.setSuccess(validationSuccess);
-        tve.setValidationMessage(validationSuccess ? null : String.join("\n", validationMessage));
-        notificationService.post(tve);
-
-        if (!validationSuccess) {
-            messages.getBridge().addAll(validationMessage);
-            previousSubmission.setTestCode(testText);
-            Redirect.redirectBack(request, response);
-            return;
-        }
-
-        final Test newTest;
-        try {
-            newTest = gameManagingUtils.createTest(gameId, game.getClassId(), testText, login.getUserId(),
-                    MODE_PUZZLE_DIR);
-        } catch (IOException e) {
-            messages.add(TEST_GENERIC_ERROR_MESSAGE);
-            previousSubmission.setTestCode(testText);
-            Redirect.redirectBack(request, response);
-            return;
-        }
-        if (newTest == null) {
-            messages.add(String.format(TEST_INVALID_MESSAGE, game.getMaxAssertionsPerTest()));
-            previousSubmission.setTestCode(testText);
-            Redirect.redirectBack(request, response);
-            return;
-        }
+        // Compilation and mutation analysis are done in the submission pipeline, so we do not block this thread
+        submissionPipeline.submit(request, Stage.COMPILATION, () -> {
+            // TODO Why we have testText and not escaped(testText)?
+            // Validate the test
+            // Do the validation even before creating the mutant
+            List<String> validationMessage = CodeValidator.validateTestCodeGetMessage(
+                    testText,
+                    game.getMaxAssertionsPerTest(),
+                    game.getCUT().getAssertionLibrary());
+            boolean validationSuccess = validationMessage.isEmpty();
+
+            TestValidatedEvent tve = new TestValidatedEvent();
+            tve.setGameId(gameId);
+            tve.setUserId(userId);
+            tve.setSuccess(validationSuccess);
+            tve.setValidationMessage(validationSuccess ? null : String.join("\n", validationMessage));
+            notificationService.post(tve);
+
+            if (!validationSuccess) {
+                return Result.complete(() -> {
+                    messages.getBridge().addAll(validationMessage);
+                    previousSubmission.setTestCode(testText);
+                    Redirect.redirectBack(request, response);
+                });
+            }
 
-        final TargetExecution compileTestTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest, COMPILE_TEST);
-        if (!compileTestTarget.status.equals(TargetExecution.Status.SUCCESS)) {
-            messages.add(TEST_DID_NOT_COMPILE_MESSAGE).fadeOut(false);
-            messages.add(StringEscapeUtils.escapeHtml(compileTestTarget.message));
-            previousSubmission.setTestCode(testText);
-            Redirect.redirectBack(request, response);
-            return;
-        }
+            final Test newTest;
+            try {
+                newTest = gameManagingUtils.createTest(gameId, game.getClassId(), testText, userId,
+                        MODE_PUZZLE_DIR);
+            } catch (IOException e) {
+                return Result.complete(() -> {
+                    messages.add(TEST_GENERIC_ERROR_MESSAGE);
+                    previousSubmission.setTestCode(testText);
+                    Redirect.redirectBack(request, response);
+                });
+            }
+            if (newTest == null) {
+                return Result.complete(() -> {
+                    messages.add(String.format(TEST_INVALID_MESSAGE, game.getMaxAssertionsPerTest()));
+                    previousSubmission.setTestCode(testText);
+                    Redirect.redirectBack(request, response);
+                });
+            }
 
-        final TargetExecution testOriginalTarget = TargetExecutionDAO.getTargetExecutionForTest(newTest, TEST_ORIGINAL);
-        if (!testOriginalTarget.status.equals(TargetExecution.Status.SUCCESS)) {
-            messages.add(TEST_DID_NOT_PASS_ON_CUT_MESSAGE).fadeOut(false);
-            messages.add(StringEscapeUtils.escapeHtml(testOriginalTarget.message));
-            previousSubmission.setTestCode(testText);
-            Redirect.redirectBack(request, response);
-            return;
-        }
+            final TargetExecution compileTestTarget =
+                    TargetExecutionDAO.getTargetExecutionForTest(newTest, COMPILE_TEST);
+            if (!compileTestTarget.status.equals(TargetExecution.Status.SUCCESS)) {
+                return Result.complete(() -> {
+                    messages.add(TEST_DID_NOT_COMPILE_MESSAGE).fadeOut(false);
+                    messages.add(StringEscapeUtils.escapeHtml(compileTestTarget.message));
+                    previousSubmission.setTestCode(testText);
+                    Redirect.redirectBack(request, response);
+                });
+            }
 
-        messages.add(TEST_PASSED_ON_CUT_MESSAGE);
-        previousSubmission.clear();
+            final TargetExecution testOriginalTarget =
+                    TargetExecutionDAO.getTargetExecutionForTest(newTest, TEST_ORIGINAL);
+            if (!testOriginalTarget.status.equals(TargetExecution.Status.SUCCESS)) {
+                return Result.complete(() -> {
+                    messages.add(TEST_DID_NOT_PASS_ON_CUT_MESSAGE).fadeOut(false);
+                    messages.add(StringEscapeUtils.escapeHtml(testOriginalTarget.message));
+                    previousSubmission.setTestCode(testText);
+                    Redirect.redirectBack(request, response);
+                });
+            }
 
-        mutationTester.runTestOnAllMutants(game, newTest, messages.getBridge());
+            return Result.next(Stage.MUTATION_ANALYSIS, () -> {
+                ArrayList<String> mutationTesterMessages = new ArrayList<>();
+                mutationTester.runTestOnAllMutants(game, newTest, mutationTesterMessages);
 
-        TestTestedMutantsEvent ttme = new TestTestedMutantsEvent();
-        ttme.setGameId(gameId);
-        ttme.setUserId(login.getUserId());
-        notificationService.post(ttme);
+                TestTestedMutantsEvent ttme = new TestTestedMutantsEvent();
+                ttme.setGameId(gameId);
+                ttme.setUserId(userId);
+                notificationService.post(ttme);
 
-        // may be // final TestSolvingStrategy solving = Testgame.getTestSolver();
-        final TestSolvingStrategy solver = TestSolvingStrategy.get(TestSolvingStrategy.Types.KILLED_ALL_MUTANTS.name());
-        if (solver == null) {
-            throw new IllegalStateException("Test solving strategy not found. That shouldn't happen.");
-        }
+                // may be // final TestSolvingStrategy solving = Testgame.getTestSolver();
+                final TestSolvingStrategy solver =
+                        TestSolvingStrategy.get(TestSolvingStrategy.Types.KILLED_ALL_MUTANTS.name());
+                if (solver == null) {
+                    throw new IllegalStateException("Test solving strategy not found. That shouldn't happen.");
+                }
 
-        if (!solver.solve(game, newTest)) {
-            messages.add("Your test did not solve the puzzle. Try another one...");
-            game.incrementCurrentRound();
-        } else {
-            game.setState(GameState.SOLVED);
-            messages.clear();
-            boolean isAnAttackGame = false;
-            Message message = messages.add(generateWinningMessage(request, game, isAnAttackGame));
-            message.escape(false);
-            message.fadeOut(false);
-        }
-        PuzzleDAO.updatePuzzleGame(game);
-        Redirect.redirectBack(request, response);
+                final boolean solved = solver.solve(game, newTest);
+                if (!solved) {
+                    game.incrementCurrentRound();
+                } else {
+                    game.setState(GameState.SOLVED);
+                }
+                PuzzleDAO.updatePuzzleGame(game);
+
+                return Result.complete(() -> {
+                    messages.add(TEST_PASSED_ON_CUT_MESSAGE);
+                    previousSubmission.clear();
+                    messages.getBridge().addAll(mutationTesterMessages);
+                    if (!solved) {
+                        messages.add("Your test did not solve the puzzle. Try another one...");
+                    } else {
+                        messages.clear();
+                        boolean isAnAttackGame = false;
+                        Message message = messages.add(generateWinningMessage(request, game, isAnAttackGame));
+                        message.escape(false);
+                        message.fadeOut(false);
+                    }
+                    Redirect.redirectBack(request, response);
+                });
+            });
+        });
     }
 
     /**
@@ -538,120 +572,141 @@ public class PuzzleGameManager extends HttpServlet {
             return;
         }
 
+        final int userId = login.getUserId();
+
         MutantSubmittedEvent mse = new MutantSubmittedEvent();
         mse.setGameId(gameId);
-        mse.setUserId(login.getUserId());
+        mse.setUserId(userId);
         notificationService.post(mse);
 
-        final CodeValidatorLevel mutantValidatorLevel = game.getMutantValidatorLevel();
-
-        ValidationMessage validationMessage =
-                CodeValidator.validateMutantGetMessage(game.getCUT().getSourceCode(), mutantText, mutantValidatorLevel);
-        boolean validationSuccess = validationMessage == ValidationMessage.MUTANT_VALIDATION_SUCCESS;
-
-        MutantValidatedEvent mve = new MutantValidatedEvent();
-        mve.setGameId(gameId);
-        mve.setUserId(login.getUserId());
-        mve.setSuccess(validationSuccess);
-        mve.setValidationMessage(validationSuccess ? null : validationMessage.get());
-        notificationService.post(mve);
-
-        if (!validationSuccess) {
-            // Mutant is either the same as the CUT or it contains invalid code
-            messages.add(validationMessage.get());
-            Redirect.redirectBack(request, response);
-            return;
-        }
+        // Compilation and mutation analysis are done in the submission pipeline, so we do not block this thread
+        submissionPipeline.submit(request, Stage.COMPILATION, () -> {
+            final CodeValidatorLevel mutantValidatorLevel = game.getMutantValidatorLevel();
+
+            ValidationMessage validationMessage = CodeValidator.validateMutantGetMessage(
+                    game.getCUT().getSourceCode(), mutantText, mutantValidatorLevel);
+            boolean validationSuccess = validationMessage == ValidationMessage.MUTANT_VALIDATION_SUCCESS;
+
+            MutantValidatedEvent mve = new MutantValidatedEvent();
+            mve.setGameId(gameId);
+            mve.setUserId(userId);
+            mve.setSuccess(validationSuccess);
+            mve.setValidationMessage(validationSuccess ? null : validationMessage.get());
+            notificationService.post(mve);
+
+            if (!validationSuccess) {
+                return Result.complete(() -> {
+                    // Mutant is either the same as the CUT or it contains invalid code
+                    messages.add(validationMessage.get());
+                    Redirect.redirectBack(request, response);
+                });
+            }
 
-        final Mutant existingMutant = gameManagingUtils.existingMutant(gameId, mutantText);
-        boolean duplicateCheckSuccess = existingMutant == null;
-
-        MutantDuplicateCheckedEvent mdce = new MutantDuplicateCheckedEvent();
-        mdce.setGameId(gameId);
-        mdce.setUserId(login.getUserId());
-        mdce.setSuccess(duplicateCheckSuccess);
-        mdce.setDuplicateId(duplicateCheckSuccess ? null : existingMutant.getId());
-        notificationService.post(mdce);
-
-        if (!duplicateCheckSuccess) {
-            messages.add(MUTANT_DUPLICATED_MESSAGE);
-            TargetExecution existingMutantTarget =
-                    TargetExecutionDAO.getTargetExecutionForMutant(existingMutant, COMPILE_MUTANT);
-            if (existingMutantTarget != null && !existingMutantTarget.status.equals(TargetExecution.Status.SUCCESS)
-                    && existingMutantTarget.message != null && !existingMutantTarget.message.isEmpty()) {
-                messages.add(existingMutantTarget.message);
+            final Mutant existingMutant = gameManagingUtils.existingMutant(gameId, mutantText);
+            boolean duplicateCheckSuccess = existingMutant == null;
+
+            MutantDuplicateCheckedEvent mdce = new MutantDuplicateCheckedEvent();
+            mdce.setGameId(gameId);
+            mdce.setUserId(userId);
+            mdce.setSuccess(duplicateCheckSuccess);
+            mdce.setDuplicateId(duplicateCheckSuccess ? null : existingMutant.getId());
+            notificationService.post(mdce);
+
+            if (!duplicateCheckSuccess) {
+                TargetExecution existingMutantTarget =
+                        TargetExecutionDAO.getTargetExecutionForMutant(existingMutant, COMPILE_MUTANT);
+                return Result.complete(() -> {
+                    messages.add(MUTANT_DUPLICATED_MESSAGE);
+                    if (existingMutantTarget != null
+                            && !existingMutantTarget.status.equals(TargetExecution.Status.SUCCESS)
+                            && existingMutantTarget.message != null && !existingMutantTarget.message.isEmpty()) {
+                        messages.add(existingMutantTarget.message);
+                    }
+                    previousSubmission.setMutantCode(mutantText);
+                    Redirect.redirectBack(request, response);
+                });
+            }
+            final Mutant newMutant =
+                    gameManagingUtils.createMutant(gameId, game.getClassId(), mutantText, userId,
+                            MODE_PUZZLE_DIR);
+            if (newMutant == null) {
+                logger.error("Error creating mutant for puzzle game. Game: {}, Class: {}, User: {}. Aborting.",
+                        gameId, game.getClassId(), userId);
+                return Result.complete(() -> {
+                    messages.add(MUTANT_CREATION_ERROR_MESSAGE);
+                    previousSubmission.setMutantCode(mutantText);
+                    Redirect.redirectBack(request, response);
+                });
             }
-            previousSubmission.setMutantCode(mutantText);
-            Redirect.redirectBack(request, response);
-            return;
-        }
-        final Mutant newMutant =
-                gameManagingUtils.createMutant(gameId, game.getClassId(), mutantText, login.getUserId(),
-                        MODE_PUZZLE_DIR);
-        if (newMutant == null) {
-            messages.add(MUTANT_CREATION_ERROR_MESSAGE);
-            previousSubmission.setMutantCode(mutantText);
-            logger.error("Error creating mutant for puzzle game. Game: {}, Class: {}, User: {}. Aborting.",
-                    gameId, game.getClassId(), login.getUserId());
-            Redirect.redirectBack(request, response);
-            return;
-        }
 
-        final TargetExecution compileMutantTarget = TargetExecutionDAO.getTargetExecutionForMutant(newMutant,
-                COMPILE_MUTANT);
-        boolean compileSuccess = compileMutantTarget != null
-                && compileMutantTarget.status == TargetExecution.Status.SUCCESS;
-        String errorMessage = (compileMutantTarget != null
-                && compileMutantTarget.message != null
-                && !compileMutantTarget.message.isEmpty())
-                ? compileMutantTarget.message : null;
-
-        MutantCompiledEvent mce = new MutantCompiledEvent();
-        mce.setGameId(gameId);
-        mce.setUserId(login.getUserId());
-        mce.setMutantId(newMutant.getId());
-        mce.setSuccess(compileSuccess);
-        mce.setErrorMessage(errorMessage);
-
-        if (!compileSuccess) {
-            messages.add(MUTANT_UNCOMPILABLE_MESSAGE).fadeOut(false);
-            if (errorMessage != null) {
-                messages.add(errorMessage);
+            final TargetExecution compileMutantTarget = TargetExecutionDAO.getTargetExecutionForMutant(newMutant,
+                    COMPILE_MUTANT);
+            boolean compileSuccess = compileMutantTarget != null
+                    && compileMutantTarget.status == TargetExecution.Status.SUCCESS;
+            String errorMessage = (compileMutantTarget != null
+                    && compileMutantTarget.message != null
+                    && !compileMutantTarget.message.isEmpty())
+                    ? compileMutantTarget.message : null;
+
+            MutantCompiledEvent mce = new MutantCompiledEvent();
+            mce.setGameId(gameId);
+            mce.setUserId(userId);
+            mce.setMutantId(newMutant.getId());
+            mce.setSuccess(compileSuccess);
+            mce.setErrorMessage(errorMessage);
+
+            if (!compileSuccess) {
+                return Result.complete(() -> {
+                    messages.add(MUTANT_UNCOMPILABLE_MESSAGE).fadeOut(false);
+                    if (errorMessage != null) {
+                        messages.add(errorMessage);
+                    }
+                    previousSubmission.setMutantCode(mutantText);
+                    Redirect.redirectBack(request, response);
+                });
             }
-            previousSubmission.setMutantCode(mutantText);
-            Redirect.redirectBack(request, response);
-            return;
-        }
 
-        messages.add(MUTANT_COMPILED_MESSAGE);
-        previousSubmission.clear();
-        mutationTester.runAllTestsOnMutant(game, newMutant, messages.getBridge());
+            return Result.next(Stage.MUTATION_ANALYSIS, () -> {
+                ArrayList<String> mutationTesterMessages = new ArrayList<>();
+                mutationTester.runAllTestsOnMutant(game, newMutant, mutationTesterMessages);
 
-        MutantTestedEvent mte = new MutantTestedEvent();
-        mte.setGameId(gameId);
-        mte.setUserId(login.getUserId());
-        mte.setMutantId(newMutant.getId());
-        notificationService.post(mte);
+                MutantTestedEvent mte = new MutantTestedEvent();
+                mte.setGameId(gameId);
+                mte.setUserId(userId);
+                mte.setMutantId(newMutant.getId());
+                notificationService.post(mte);
 
-        // may be // final MutantSolvingStrategy solving = game.getMutantSolver();
-        final MutantSolvingStrategy solver = MutantSolvingStrategy.get(SURVIVED_ALL_MUTANTS.name());
-        if (solver == null) {
-            throw new IllegalStateException("Mutant solving strategy not found. That shouldn't happen.");
-        }
+                // may be // final MutantSolvingStrategy solving = game.getMutantSolver();
+                final MutantSolvingStrategy solver = MutantSolvingStrategy.get(SURVIVED_ALL_MUTANTS.name());
+                if (solver == null) {
+                    throw new IllegalStateException("Mutant solving strategy not found. That shouldn't happen.");
+                }
 
-        if (!solver.solve(game, newMutant)) {
-            messages.add("Your mutant did not solve the puzzle. Try another one...");
-            game.incrementCurrentRound();
-        } else {
-            game.setState(GameState.SOLVED);
-            messages.clear();
-            boolean isAnAttackGame = true;
-            Message message = messages.add(generateWinningMessage(request, game, isAnAttackGame));
-            message.fadeOut(false);
-            message.escape(false);
-        }
-        PuzzleDAO.updatePuzzleGame(game);
-        Redirect.redirectBack(request, response);
+                final boolean solved = solver.solve(game, newMutant);
+                if (!solved) {
+                    game.incrementCurrentRound();
+                } else {
+                    game.setState(GameState.SOLVED);
+                }
+                PuzzleDAO.updatePuzzleGame(game);
+
+                return Result.complete(() -> {
+                    messages.add(MUTANT_COMPILED_MESSAGE);
+                    previousSubmission.clear();
+                    messages.getBridge().addAll(mutationTesterMessages);
+                    if (!solved) {
+                        messages.add("Your mutant did not solve the puzzle. Try another one...");
+                    } else {
+                        messages.clear();
+                        boolean isAnAttackGame = true;
+                        Message message = messages.add(generateWinningMessage(request, game, isAnAttackGame));
+                        message.fadeOut(false);
+                        message.escape(false);
+                    }
+                    Redirect.redirectBack(request, response);
+                });
+            });
+        });
     }
 
     private String generateWinningMessage(HttpServletRequest request, PuzzleGame game, boolean isAnAttackGame) {
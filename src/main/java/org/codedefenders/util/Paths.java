@@ -99,4 +99,6 @@ public class Paths {
     public static final String API_ADMIN_PUZZLES_ALL = "/admin/api/puzzles";
     public static final String API_ADMIN_PUZZLE = "/admin/api/puzzles/puzzle";
     public static final String API_ADMIN_PUZZLECHAPTER = "/admin/api/puzzles/chapter";
+    public static final String API_ADMIN_DATABASE = "/admin/api/database";
+    public static final String API_ADMIN_NOTIFICATIONS = "/admin/api/notifications";
 }
@@ -0,0 +1,7 @@
+/* Store the mutated lines, summary, description and patch of a mutant when it is created,
+   so they don't have to be computed from the mutant and class files whenever a mutant is read */
+ALTER TABLE `mutants`
+    MODIFY `MutatedLines` text,
+    ADD `Summary` text DEFAULT NULL,
+    ADD `Description` text DEFAULT NULL,
+    ADD `Patch` mediumtext DEFAULT NULL;
@@ -0,0 +1,130 @@
+/* Keep the leaderboard totals of each user in a table instead of aggregating all players, mutants and tests
+   whenever the leaderboard is shown. The triggers below apply every change of a mutant, test or player to the
+   totals of its user. LeaderboardDAO.rebuild() recomputes all totals, which repairs changes the triggers missed,
+   e.g. rows deleted by a foreign key cascade. */
+CREATE TABLE `leaderboard` (
+  `User_ID` int(11) NOT NULL,
+  `NMutants` int(11) NOT NULL DEFAULT '0',
+  `AScore` int(11) NOT NULL DEFAULT '0',
+  `NTests` int(11) NOT NULL DEFAULT '0',
+  `DScore` int(11) NOT NULL DEFAULT '0',
+  `NKilled` int(11) NOT NULL DEFAULT '0',
+  `EScore` int(11) NOT NULL DEFAULT '0',
+  `TotalScore` int(11) NOT NULL DEFAULT '0',
+  PRIMARY KEY (`User_ID`),
+  KEY `leaderboard_TotalScore_index` (`TotalScore`),
+  CONSTRAINT `fk_userId_leaderboard` FOREIGN KEY (`User_ID`) REFERENCES `users` (`User_ID`) ON DELETE CASCADE ON UPDATE NO ACTION
+);
+
+/* Initial totals, computed like LeaderboardDAO.rebuild() does */
+INSERT INTO leaderboard (User_ID, NMutants, AScore, NTests, DScore, NKilled, EScore, TotalScore)
+SELECT U.User_ID,
+       IFNULL(NMutants, 0),
+       IFNULL(AScore, 0),
+       IFNULL(NTests, 0),
+       IFNULL(DScore, 0),
+       IFNULL(NKilled, 0),
+       IFNULL(EScore, 0),
+       IFNULL(AScore, 0) + IFNULL(DScore, 0) + IFNULL(EScore, 0)
+FROM users U
+    LEFT JOIN (SELECT PA.User_ID, count(M.Mutant_ID) AS NMutants, sum(M.Points) AS AScore
+               FROM players PA LEFT JOIN mutants M ON PA.ID = M.Player_ID
+               GROUP BY PA.User_ID) AS Attacker ON U.User_ID = Attacker.User_ID
+    LEFT JOIN (SELECT PD.User_ID, count(T.Test_ID) AS NTests, sum(T.Points) AS DScore, sum(T.MutantsKilled) AS NKilled
+               FROM players PD LEFT JOIN tests T ON PD.ID = T.Player_ID
+               GROUP BY PD.User_ID) AS Defender ON U.User_ID = Defender.User_ID
+    LEFT JOIN (SELECT PE.User_ID, sum(PE.Points) AS EScore
+               FROM players PE
+               GROUP BY PE.User_ID) AS Player ON U.User_ID = Player.User_ID
+ON DUPLICATE KEY UPDATE NMutants = VALUES(NMutants),
+                        AScore = VALUES(AScore),
+                        NTests = VALUES(NTests),
+                        DScore = VALUES(DScore),
+                        NKilled = VALUES(NKilled),
+                        EScore = VALUES(EScore),
+                        TotalScore = VALUES(TotalScore);
+
+CREATE TRIGGER ins_mutants_leaderboard
+  AFTER INSERT ON `mutants`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, NMutants, AScore, TotalScore)
+  SELECT P.User_ID, 1, IFNULL(NEW.Points, 0), IFNULL(NEW.Points, 0) FROM players P WHERE P.ID = NEW.Player_ID
+  ON DUPLICATE KEY UPDATE NMutants = NMutants + VALUES(NMutants),
+                          AScore = AScore + VALUES(AScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER upd_mutants_leaderboard
+  AFTER UPDATE ON `mutants`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, AScore, TotalScore)
+  SELECT P.User_ID, IFNULL(NEW.Points, 0) - IFNULL(OLD.Points, 0), IFNULL(NEW.Points, 0) - IFNULL(OLD.Points, 0)
+  FROM players P WHERE P.ID = NEW.Player_ID AND NOT (NEW.Points <=> OLD.Points)
+  ON DUPLICATE KEY UPDATE AScore = AScore + VALUES(AScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER del_mutants_leaderboard
+  AFTER DELETE ON `mutants`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, NMutants, AScore, TotalScore)
+  SELECT P.User_ID, -1, -IFNULL(OLD.Points, 0), -IFNULL(OLD.Points, 0) FROM players P WHERE P.ID = OLD.Player_ID
+  ON DUPLICATE KEY UPDATE NMutants = NMutants + VALUES(NMutants),
+                          AScore = AScore + VALUES(AScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER ins_tests_leaderboard
+  AFTER INSERT ON `tests`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, NTests, DScore, NKilled, TotalScore)
+  SELECT P.User_ID, 1, IFNULL(NEW.Points, 0), IFNULL(NEW.MutantsKilled, 0), IFNULL(NEW.Points, 0)
+  FROM players P WHERE P.ID = NEW.Player_ID
+  ON DUPLICATE KEY UPDATE NTests = NTests + VALUES(NTests),
+                          DScore = DScore + VALUES(DScore),
+                          NKilled = NKilled + VALUES(NKilled),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER upd_tests_leaderboard
+  AFTER UPDATE ON `tests`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, DScore, NKilled, TotalScore)
+  SELECT P.User_ID, IFNULL(NEW.Points, 0) - IFNULL(OLD.Points, 0),
+         IFNULL(NEW.MutantsKilled, 0) - IFNULL(OLD.MutantsKilled, 0), IFNULL(NEW.Points, 0) - IFNULL(OLD.Points, 0)
+  FROM players P
+  WHERE P.ID = NEW.Player_ID AND NOT (NEW.Points <=> OLD.Points AND NEW.MutantsKilled <=> OLD.MutantsKilled)
+  ON DUPLICATE KEY UPDATE DScore = DScore + VALUES(DScore),
+                          NKilled = NKilled + VALUES(NKilled),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER del_tests_leaderboard
+  AFTER DELETE ON `tests`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, NTests, DScore, NKilled, TotalScore)
+  SELECT P.User_ID, -1, -IFNULL(OLD.Points, 0), -IFNULL(OLD.MutantsKilled, 0), -IFNULL(OLD.Points, 0)
+  FROM players P WHERE P.ID = OLD.Player_ID
+  ON DUPLICATE KEY UPDATE NTests = NTests + VALUES(NTests),
+                          DScore = DScore + VALUES(DScore),
+                          NKilled = NKilled + VALUES(NKilled),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER ins_players_leaderboard
+  AFTER INSERT ON `players`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, EScore, TotalScore)
+  VALUES (NEW.User_ID, NEW.Points, NEW.Points)
+  ON DUPLICATE KEY UPDATE EScore = EScore + VALUES(EScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER upd_players_leaderboard
+  AFTER UPDATE ON `players`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, EScore, TotalScore)
+  SELECT NEW.User_ID, NEW.Points - OLD.Points, NEW.Points - OLD.Points FROM DUAL WHERE NEW.Points <> OLD.Points
+  ON DUPLICATE KEY UPDATE EScore = EScore + VALUES(EScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER del_players_leaderboard
+  AFTER DELETE ON `players`
+  FOR EACH ROW
+  UPDATE leaderboard
+  SET EScore = EScore - OLD.Points,
+      TotalScore = TotalScore - OLD.Points
+  WHERE User_ID = OLD.User_ID;
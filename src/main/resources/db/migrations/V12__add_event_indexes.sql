@@ -0,0 +1,6 @@
+/* Index the access paths of the event log. Game_ID, Event_ID serves reading the log of a game and reading the
+   events after a known Event_ID. Game_ID, Event_Status, Timestamp serves polling the recent game events.
+   Player_ID, Timestamp serves polling the recent events of a user. */
+CREATE INDEX `events_Game_ID_Event_ID_index` ON `events` (`Game_ID`, `Event_ID`);
+CREATE INDEX `events_Game_ID_Event_Status_Timestamp_index` ON `events` (`Game_ID`, `Event_Status`, `Timestamp`);
+CREATE INDEX `events_Player_ID_Timestamp_index` ON `events` (`Player_ID`, `Timestamp`);
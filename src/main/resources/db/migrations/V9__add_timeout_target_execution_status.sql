@@ -0,0 +1,3 @@
+/* Executions which exceed their time limit are recorded as TIMEOUT */
+ALTER TABLE `targetexecutions`
+    MODIFY `Status` enum('SUCCESS','FAIL','ERROR','TIMEOUT') NOT NULL;
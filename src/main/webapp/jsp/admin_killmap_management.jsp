@@ -22,6 +22,8 @@
 <%@ page import="org.codedefenders.database.KillmapDAO" %>
 <%@ page import="org.codedefenders.execution.KillMapProcessor" %>
 <%@ page import="org.codedefenders.execution.KillMapProcessor.KillMapJob" %>
+<%@ page import="org.codedefenders.execution.KillMapExecutionService" %>
+<%@ page import="java.util.List" %>
 <%@ page import="static org.codedefenders.util.MessageUtils.pluralize" %>
 <%@ page import="org.codedefenders.servlets.admin.AdminKillmapManagement.KillmapPage" %>
 
@@ -41,6 +43,9 @@
 
     boolean processorEnabled = processor.isEnabled();
     KillMapJob currentJob = processor.getCurrentJob();
+    @SuppressWarnings("unchecked")
+    List<KillMapExecutionService.Job<?>> runningJobs =
+            (List<KillMapExecutionService.Job<?>>) request.getAttribute("runningKillMapJobs");
 
     int numClassesQueued = KillmapDAO.getNumClassKillmapJobsQueued();
     int numGamesQueued = KillmapDAO.getNumGameKillmapJobsQueued();
@@ -71,6 +76,11 @@
                     } %>
                 <br> Currently processing: <%= jobType %> with ID <%= currentJob.getId() %>
             <% } %>
+
+            <% for (KillMapExecutionService.Job<?> job : runningJobs) { %>
+                <br> Running: <%= job.getDescription() %>
+                (<%= job.getFinishedTasks() %> of <%= job.getTotalTasks() %> executions done)
+            <% } %>
             <p></p>
 
             <form id="killmap-processor-settings" name="killmap-processor-settings" title="<%= processorExplanation %>"
@@ -32,8 +32,23 @@
 %>
 
 <script type="text/javascript">
-    const updateMessages = function (url) {
-        $.getJSON(url, function (r) {
+    // Event id cursor of the messages, see NotificationsHandler. Recent events are sent again until they settled,
+    // so the ids of the events which are already shown are remembered
+    let lastEventId = 0;
+    const shownEventIds = new Set();
+
+    const updateMessages = function () {
+        const url = "<%=request.getContextPath() + Paths.API_NOTIFICATION%>?type=<%=NotificationType.PUSHEVENT%>&gameId=" + <%=gameId%> + "&lastEventId=" + lastEventId;
+        $.getJSON(url, function (response) {
+            lastEventId = response.lastEventId;
+            shownEventIds.forEach(eventId => {
+                if (eventId <= lastEventId) {
+                    shownEventIds.delete(eventId);
+                }
+            });
+            const r = response.events.filter(event => !shownEventIds.has(event.eventId));
+            r.forEach(event => shownEventIds.add(event.eventId));
+
             $(r).each(function (index) {
 
                 // Skip messages that belong to the current user
@@ -75,9 +90,6 @@
         //notifications written here:
         // refreshed every 5 seconds
         const interval = 5000;
-        setInterval(function () {
-            const url = "<%=request.getContextPath() + Paths.API_NOTIFICATION%>?type=<%=NotificationType.PUSHEVENT%>&gameId=" + <%=gameId%> +"&timestamp=" + (new Date().getTime() - interval);
-            updateMessages(url);
-        }, interval)
+        setInterval(updateMessages, interval)
     });
 </script>
@@ -33,9 +33,27 @@
 <script>
 (function () {
 
+    // Event id cursor of the notifications, see NotificationsHandler. Recent events are sent again until they
+    // settled, so the ids of the events which are already shown are remembered
+    var lastEventId = 0;
+    var shownEventIds = {};
+
     //If the user is logged in, start receiving notifications
-    var updateUserNotifications = function (url) {
-        $.getJSON(url, function (r) {
+    var updateUserNotifications = function () {
+        var url = "<%=request.getContextPath() + Paths.API_NOTIFICATION%>?type=<%=NotificationType.USEREVENT%>&lastEventId=" + lastEventId;
+        $.getJSON(url, function (response) {
+            lastEventId = response.lastEventId;
+            Object.keys(shownEventIds).forEach(function (eventId) {
+                if (eventId <= lastEventId) {
+                    delete shownEventIds[eventId];
+                }
+            });
+            var r = response.events.filter(function (event) {
+                return !shownEventIds[event.eventId];
+            });
+            r.forEach(function (event) {
+                shownEventIds[event.eventId] = true;
+            });
 
             var notificationCount = 0;
 
@@ -71,13 +89,8 @@
                 //notifications written here:
                 // refreshed every 5 seconds
                 var interval = 5000;
-                setInterval(function () {
-                    var url = "<%=request.getContextPath() + Paths.API_NOTIFICATION%>?type=<%=NotificationType.USEREVENT%>&timestamp=" + (new Date().getTime() - interval);
-                    updateUserNotifications(url);
-                }, interval);
-
-                var url = "<%=request.getContextPath() + Paths.API_NOTIFICATION%>?type=<%=NotificationType.USEREVENT%>&timestamp=0";
-                updateUserNotifications(url);
+                setInterval(updateUserNotifications, interval);
+                updateUserNotifications();
             }
             $('[data-toggle="tooltip"]').tooltip();
         }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.api.analytics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.codedefenders.game.Role;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class AnalyticsExportTest {
+
+    @Test
+    public void testUserDataMatchesGson() throws IOException {
+        UserDataDTO user = new UserDataDTO();
+        user.setId(3);
+        user.setUsername("user \"3\"");
+        user.setGamesPlayed(4);
+        user.setAttackerGamesPlayed(1);
+        user.setDefenderGamesPlayed(3);
+        user.setAttackerScore(10);
+        user.setDefenderScore(20);
+        user.setMutantsSubmitted(5);
+        user.setMutantsAlive(2);
+        user.setMutantsEquivalent(1);
+        user.setTestsSubmitted(7);
+        user.setMutantsKilled(6);
+
+        AnalyticsSnapshot snapshot = new UserDataExport() {
+            @Override
+            protected void fetch(Consumer<UserDataDTO> consumer) {
+                consumer.accept(user);
+            }
+        }.getSnapshot();
+
+        assertThat(data(snapshot), is(new Gson().toJson(Arrays.asList(user))));
+        assertThat(csv(snapshot), is(
+                "id,username,gamesPlayed,attackerGamesPlayed,defenderGamesPlayed,attackerScore,defenderScore,"
+                        + "mutantsSubmitted,mutantsAlive,mutantsEquivalent,testsSubmitted,mutantsKilled\r\n"
+                        + "3,\"user \"\"3\"\"\",4,1,3,10,20,5,2,1,7,6\r\n"));
+    }
+
+    @Test
+    public void testClassDataMatchesGson() throws IOException {
+        ClassDataDTO clazz = new ClassDataDTO();
+        clazz.setId(1);
+        clazz.setClassname("Lift");
+        clazz.setClassalias("Lift, Again");
+        clazz.setNrGames(2);
+        clazz.setAttackerWins(1);
+        clazz.setDefenderWins(1);
+        clazz.setNrPlayers(4);
+        clazz.setTestsSubmitted(8);
+        clazz.setMutantsSubmitted(9);
+        clazz.setMutantsAlive(3);
+        clazz.setMutantsEquivalent(2);
+        ClassDataDTO.ClassRatings ratings = new ClassDataDTO.ClassRatings();
+        ratings.setCutMutationDifficulty(rating(1, 5));
+        ratings.setCutTestDifficulty(rating(2, 3));
+        ratings.setGameEngaging(rating(3, 12));
+        clazz.setRatings(ratings);
+
+        AnalyticsSnapshot snapshot = new ClassDataExport() {
+            @Override
+            protected void fetch(Consumer<ClassDataDTO> consumer) {
+                consumer.accept(clazz);
+            }
+        }.getSnapshot();
+
+        assertThat(data(snapshot), is(new Gson().toJson(Arrays.asList(clazz))));
+        assertThat(csv(snapshot).split("\r\n")[1], is("1,Lift,\"Lift, Again\",2,1,1,4,8,9,3,2,1,5,2,3,3,12"));
+    }
+
+    @Test
+    public void testKillmapDataMatchesGson() throws IOException {
+        KillmapDataDTO first = killmap(1, 2, Role.ATTACKER);
+        KillmapDataDTO second = killmap(1, 3, Role.DEFENDER);
+
+        AnalyticsSnapshot snapshot = new KillmapDataExport() {
+            @Override
+            protected void fetch(Consumer<KillmapDataDTO> consumer) {
+                consumer.accept(first);
+                consumer.accept(second);
+            }
+        }.getSnapshot();
+
+        assertThat(data(snapshot), is(new Gson().toJson(Arrays.asList(first, second))));
+        assertThat(csv(snapshot), is("userId,userName,classId,className,role,usefulMutants,usefulTests\r\n"
+                + "2,user2,1,class1,ATTACKER,4,5\r\n"
+                + "3,user3,1,class1,DEFENDER,4,5\r\n"));
+    }
+
+    @Test
+    public void testJsonEnvelope() throws IOException {
+        AnalyticsSnapshot snapshot = new UserDataExport() {
+            @Override
+            protected void fetch(Consumer<UserDataDTO> consumer) {
+            }
+        }.getSnapshot();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeJson(out);
+        JsonObject root = new JsonParser().parse(new String(out.toByteArray(), StandardCharsets.UTF_8))
+                .getAsJsonObject();
+
+        assertThat(root.get("timestamp").getAsLong(), is(snapshot.getTimestamp()));
+        assertThat(root.get("processingTime").getAsLong(), is(snapshot.getProcessingTime()));
+        assertThat(root.get("data").getAsJsonArray().size(), is(0));
+    }
+
+    @Test
+    public void testSnapshotIsReused() {
+        AtomicInteger queries = new AtomicInteger();
+        UserDataExport export = new UserDataExport() {
+            @Override
+            protected void fetch(Consumer<UserDataDTO> consumer) {
+                queries.incrementAndGet();
+            }
+        };
+
+        AnalyticsSnapshot snapshot = export.getSnapshot();
+
+        assertThat(export.getSnapshot(), sameInstance(snapshot));
+        assertThat(queries.get(), is(1));
+    }
+
+    private static ClassDataDTO.ClassRating rating(int count, int sum) {
+        ClassDataDTO.ClassRating rating = new ClassDataDTO.ClassRating();
+        rating.setCount(count);
+        rating.setSum(sum);
+        return rating;
+    }
+
+    private static KillmapDataDTO killmap(int classId, int userId, Role role) {
+        KillmapDataDTO killmap = new KillmapDataDTO();
+        killmap.setClassId(classId);
+        killmap.setClassName("class" + classId);
+        killmap.setUserId(userId);
+        killmap.setUserName("user" + userId);
+        killmap.setRole(role);
+        killmap.setUsefulMutants(4);
+        killmap.setUsefulTests(5);
+        return killmap;
+    }
+
+    private static String data(AnalyticsSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeJson(out);
+        String json = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        return json.substring(json.indexOf("\"data\":") + "\"data\":".length(), json.length() - 1);
+    }
+
+    private static String csv(AnalyticsSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeCsv(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
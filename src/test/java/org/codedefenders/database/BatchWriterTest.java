@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BatchWriterTest {
+
+    @Test
+    public void writesFullBatches() {
+        List<List<Integer>> batches = new ArrayList<>();
+        BatchWriter<Integer> writer = new BatchWriter<>("numbers", 2, Long.MAX_VALUE, batches::add);
+
+        writer.add(1);
+        assertThat(batches, is(empty()));
+        writer.add(2);
+        writer.add(3);
+
+        assertThat(batches, contains(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void closeWritesRemainingElements() {
+        List<List<Integer>> batches = new ArrayList<>();
+        try (BatchWriter<Integer> writer = new BatchWriter<>("numbers", 10, Long.MAX_VALUE, batches::add)) {
+            writer.add(1);
+            writer.add(2);
+        }
+
+        assertThat(batches, contains(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void writesImmediatelyAfterClose() {
+        List<List<Integer>> batches = new ArrayList<>();
+        BatchWriter<Integer> writer = new BatchWriter<>("numbers", 10, Long.MAX_VALUE, batches::add);
+        writer.close();
+
+        writer.add(1);
+
+        assertThat(batches, contains(Arrays.asList(1)));
+    }
+
+    @Test
+    public void writesWhenDelayIsExceeded() {
+        List<List<Integer>> batches = new ArrayList<>();
+        BatchWriter<Integer> writer = new BatchWriter<>("numbers", 10, 0, batches::add);
+
+        writer.add(1);
+
+        assertThat(batches, contains(Arrays.asList(1)));
+    }
+
+    @Test
+    public void failedWritesDoNotPropagate() {
+        BatchWriter<Integer> writer = new BatchWriter<>("numbers", 1, Long.MAX_VALUE, batch -> {
+            throw new UncheckedSQLException("Failed");
+        });
+
+        writer.add(1);
+        writer.close();
+    }
+
+    @Test
+    public void failedBatchesArePassedToFailureAction() {
+        List<List<Integer>> failedBatches = new ArrayList<>();
+        try (BatchWriter<Integer> writer = new BatchWriter<>("numbers", 2, Long.MAX_VALUE, batch -> {
+            if (batch.contains(3)) {
+                throw new UncheckedSQLException("Failed");
+            }
+        }, failedBatches::add)) {
+            writer.add(1);
+            writer.add(2);
+            writer.add(3);
+        }
+
+        assertThat(failedBatches, contains(Arrays.asList(3)));
+    }
+}
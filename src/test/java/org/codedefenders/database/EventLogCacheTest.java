@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.codedefenders.model.Event;
+import org.codedefenders.model.EventStatus;
+import org.codedefenders.model.EventType;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EventLogCacheTest {
+    private static final int GAME_ID = 4711;
+
+    private final List<Event> table = new ArrayList<>();
+    private final List<Integer> cursors = new ArrayList<>();
+
+    @After
+    public void invalidate() {
+        EventLogCache.invalidate(GAME_ID);
+    }
+
+    @Test
+    public void readsOnlyNewEvents() {
+        insert(100, 10);
+        insert(101, 10);
+        assertThat(ids(EventLogCache.get(GAME_ID, this::eventsFrom)), contains(100, 101));
+
+        insert(102, 10);
+        assertThat(ids(EventLogCache.get(GAME_ID, this::eventsFrom)), contains(100, 101, 102));
+
+        assertThat(cursors, contains(0, 101));
+    }
+
+    @Test
+    public void readsRecentEventsAgain() {
+        insert(100, 10);
+        insert(101, 0);
+        insert(103, 10);
+        assertThat(ids(EventLogCache.get(GAME_ID, this::eventsFrom)), contains(100, 101, 103));
+
+        // Committed after event 103
+        insert(102, 0);
+        assertThat(ids(EventLogCache.get(GAME_ID, this::eventsFrom)), contains(100, 101, 102, 103));
+
+        assertThat(cursors, contains(0, 100));
+    }
+
+    @Test
+    public void invalidateReadsTheWholeLog() {
+        insert(100, 10);
+        EventLogCache.get(GAME_ID, this::eventsFrom);
+
+        EventLogCache.invalidate(GAME_ID);
+        EventLogCache.get(GAME_ID, this::eventsFrom);
+
+        assertThat(cursors, contains(0, 0));
+    }
+
+    @Test
+    public void eventCursorOnlyMovesPastSettledEvents() {
+        insert(100, 10);
+        insert(101, 10);
+        insert(103, 0);
+
+        int cursor = EventDAO.getSettledEventId(0, eventsFrom(0));
+        assertThat(cursor, is(101));
+
+        // Committed after event 103, the next poll still sees it
+        insert(102, 0);
+        assertThat(ids(eventsFrom(cursor)), contains(102, 103));
+        assertThat(EventDAO.getSettledEventId(cursor, eventsFrom(cursor)), is(101));
+    }
+
+    private void insert(int eventId, int minutesAgo) {
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis() - minutesAgo * 60_000L);
+        table.add(new Event(eventId, GAME_ID, 100, null, EventType.GAME_MESSAGE, EventStatus.GAME, timestamp));
+    }
+
+    private List<Event> eventsFrom(int lastEventId) {
+        cursors.add(lastEventId);
+        return table.stream()
+                .filter(event -> event.getId() > lastEventId)
+                .sorted((a, b) -> Integer.compare(a.getId(), b.getId()))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Integer> ids(List<Event> events) {
+        return events.stream().map(Event::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import org.codedefenders.game.AssertionLibrary;
+import org.codedefenders.game.GameClass;
+import org.codedefenders.game.TestingFramework;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class GameClassCacheTest {
+    private static final int CLASS_ID = 4711;
+
+    @After
+    public void invalidate() {
+        GameClassCache.invalidate(CLASS_ID);
+    }
+
+    @Test
+    public void returnsCopiesSharingTheSourceCode() {
+        GameClass first = GameClassCache.get(lift("Lift", true));
+        GameClass second = GameClassCache.get(lift("Lift", true));
+
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.getAlias(), is("Lift"));
+        assertThat(second.getSourceCode(), is(sameInstance(first.getSourceCode())));
+        assertThat(second.getMethodSignatures(), is(first.getMethodSignatures()));
+    }
+
+    @Test
+    public void changesToCopiesDoNotAffectTheCache() {
+        GameClass first = GameClassCache.get(lift("Lift", true));
+        first.setActive(false);
+
+        assertThat(GameClassCache.get(lift("Lift", true)).isActive(), is(true));
+    }
+
+    @Test
+    public void replacesOutdatedEntries() {
+        GameClass first = GameClassCache.get(lift("Lift", true));
+        GameClass second = GameClassCache.get(lift("Elevator", false));
+
+        assertThat(second.getAlias(), is("Elevator"));
+        assertThat(second.isActive(), is(false));
+        assertThat(second.getSourceCode(), is(not(sameInstance(first.getSourceCode()))));
+    }
+
+    private static GameClass lift(String alias, boolean active) {
+        return GameClass.build()
+                .id(CLASS_ID)
+                .name("Lift")
+                .alias(alias)
+                .javaFile("src/test/resources/itests/sources/Lift/Lift.java")
+                .classFile("src/test/resources/itests/sources/Lift/Lift.class")
+                .testingFramework(TestingFramework.JUNIT4)
+                .assertionLibrary(AssertionLibrary.JUNIT4_HAMCREST)
+                .active(active)
+                .create();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codedefenders.game.Role;
+import org.codedefenders.model.KeyMap;
+import org.codedefenders.model.User;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LookupCacheTest {
+    private static final int USER_ID = 4711;
+    private static final int PLAYER_ID = 4712;
+    private static final int GAME_ID = 4713;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @After
+    public void invalidate() {
+        LookupCache.invalidateUser(USER_ID);
+        LookupCache.invalidatePlayers();
+    }
+
+    @Test
+    public void loadsUsersOnce() {
+        User first = LookupCache.getUser(USER_ID, this::loadUser);
+        User second = LookupCache.getUser(USER_ID, this::loadUser);
+
+        assertThat(loads.get(), is(1));
+        assertThat(second.getUsername(), is("alice"));
+        assertThat(second, is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void changesToUsersDoNotAffectTheCache() {
+        LookupCache.getUser(USER_ID, this::loadUser).setUsername("bob");
+
+        assertThat(LookupCache.getUser(USER_ID, this::loadUser).getUsername(), is("alice"));
+    }
+
+    @Test
+    public void reloadsInvalidatedUsers() {
+        LookupCache.getUser(USER_ID, this::loadUser);
+        LookupCache.invalidateUser(USER_ID);
+        LookupCache.getUser(USER_ID, this::loadUser);
+
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    public void doesNotCacheMissingUsers() {
+        assertThat(LookupCache.getUser(USER_ID, () -> null), is(nullValue()));
+        assertThat(LookupCache.getUser(USER_ID, this::loadUser).getUsername(), is("alice"));
+    }
+
+    @Test
+    public void sharesUsersBetweenPlayerAndIdLookups() {
+        LookupCache.getUserForPlayer(PLAYER_ID, this::loadUser);
+        LookupCache.getUserForPlayer(PLAYER_ID, this::loadUser);
+        User user = LookupCache.getUser(USER_ID, this::loadUser);
+
+        assertThat(loads.get(), is(1));
+        assertThat(user.getId(), is(USER_ID));
+    }
+
+    @Test
+    public void reloadsRolesAfterJoining() {
+        assertThat(LookupCache.getRole(USER_ID, GAME_ID, () -> Role.NONE), is(Role.NONE));
+        assertThat(LookupCache.getRole(USER_ID, GAME_ID, () -> Role.ATTACKER), is(Role.NONE));
+
+        LookupCache.invalidatePlayer(USER_ID, GAME_ID);
+
+        assertThat(LookupCache.getRole(USER_ID, GAME_ID, () -> Role.ATTACKER), is(Role.ATTACKER));
+        assertThat(LookupCache.getRole(USER_ID, GAME_ID + 1, () -> Role.DEFENDER), is(Role.DEFENDER));
+    }
+
+    @Test
+    public void reportsHitsAndMisses() {
+        long hits = LookupCache.getMetrics().get("playerIds").getHitCount();
+        long misses = LookupCache.getMetrics().get("playerIds").getMissCount();
+
+        LookupCache.getPlayerId(USER_ID, GAME_ID, () -> PLAYER_ID);
+        LookupCache.getPlayerId(USER_ID, GAME_ID, () -> PLAYER_ID);
+
+        assertThat(LookupCache.getMetrics().get("playerIds").getHitCount(), is(hits + 1));
+        assertThat(LookupCache.getMetrics().get("playerIds").getMissCount(), is(misses + 1));
+    }
+
+    private User loadUser() {
+        loads.incrementAndGet();
+        return new User(USER_ID, "alice", "", "alice@example.com", true, true, false, KeyMap.DEFAULT);
+    }
+}
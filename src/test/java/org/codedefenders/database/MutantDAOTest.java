@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codedefenders.game.Mutant;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(DatabaseConnection.class)
+public class MutantDAOTest {
+    private static final Pattern INSERT_COLUMNS = Pattern.compile("\\(([^)]*)\\)");
+    private static final Pattern UPDATE_COLUMN = Pattern.compile("(\\w+)=\\?");
+
+    private static final List<String> DESCRIPTION = Arrays.asList(
+            "Modified line 3, line 7\n",
+            "Removed lines 10-12\n",
+            "Added line 15\n");
+    private static final String PATCH = String.join("\n",
+            "@@ -3,1 +3,1 @@",
+            "-        return a + b;",
+            "+        return a - b;",
+            "");
+
+    /**
+     * The values which were written to the columns of the mutants table by the last query.
+     */
+    private final Map<String, Object> row = new HashMap<>();
+    private final Map<Integer, Object> parameters = new HashMap<>();
+    private String query;
+
+    @Before
+    public void mockConnection() throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        ResultSet generatedKeys = Mockito.mock(ResultSet.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString(), anyInt())).thenAnswer(invocation -> {
+            query = (String) invocation.getArguments()[0];
+            parameters.clear();
+            return statement;
+        });
+        doAnswer(invocation -> parameters.put((Integer) invocation.getArguments()[0], invocation.getArguments()[1]))
+                .when(statement).setObject(anyInt(), any(), anyInt());
+        doAnswer(invocation -> parameters.put((Integer) invocation.getArguments()[0], null))
+                .when(statement).setNull(anyInt(), anyInt());
+        when(statement.executeUpdate()).thenAnswer(invocation -> {
+            recordRow();
+            return 1;
+        });
+        when(statement.getGeneratedKeys()).thenReturn(generatedKeys);
+        when(generatedKeys.next()).thenReturn(true);
+        when(generatedKeys.getInt(1)).thenReturn(42);
+
+        PowerMockito.mockStatic(DatabaseConnection.class);
+        when(DatabaseConnection.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    public void descriptionEntriesSurviveJoinAndSplit() {
+        String joined = MutantDAO.joinDescription(DESCRIPTION);
+
+        assertThat(MutantDAO.splitDescription(joined), is(DESCRIPTION));
+    }
+
+    @Test
+    public void emptyDescriptionSurvivesJoinAndSplit() {
+        String joined = MutantDAO.joinDescription(Arrays.asList());
+
+        assertThat(joined, is(""));
+        assertThat(MutantDAO.splitDescription(joined), is(empty()));
+    }
+
+    @Test
+    public void storedMetadataIsReadBack() throws Exception {
+        Mutant mutant = mutantWithMetadata(0);
+
+        assertThat(MutantDAO.storeMutant(mutant), is(42));
+        row.put("Mutant_ID", 42);
+        Mutant stored = MutantDAO.mutantFromRS(resultSetOf(row));
+
+        assertThat(stored.getLines(), is(Arrays.asList(3, 7, 10, 11, 12, 15)));
+        assertThat(stored.getSummaryString(), is("3,7,10-12,15"));
+        assertThat(stored.getHTMLReadout(), is(DESCRIPTION));
+        assertThat(stored.getPatchString(), is(PATCH));
+    }
+
+    @Test
+    public void backfilledMetadataIsReadBack() throws Exception {
+        Mutant mutant = mutantWithMetadata(42);
+
+        assertThat(MutantDAO.updateMutantMetadata(mutant), is(true));
+        assertThat(row.get("Mutant_ID"), is(42));
+        row.put("JavaFile", "/tmp/mutants/Lift.java");
+        row.put("Equivalent", Mutant.Equivalence.ASSUMED_NO.name());
+        Mutant stored = MutantDAO.mutantFromRS(resultSetOf(row));
+
+        assertThat(stored.getLines(), is(Arrays.asList(3, 7, 10, 11, 12, 15)));
+        assertThat(stored.getSummaryString(), is("3,7,10-12,15"));
+        assertThat(stored.getHTMLReadout(), is(DESCRIPTION));
+        assertThat(stored.getPatchString(), is(PATCH));
+    }
+
+    private static Mutant mutantWithMetadata(int mutantId) {
+        Mutant mutant = new Mutant(mutantId, 1, 2, "/tmp/mutants/Lift.java", null, true,
+                Mutant.Equivalence.ASSUMED_NO, 1, 0, 3, "0123456789abcdef", null);
+        mutant.setLines(Arrays.asList(3, 7, 10, 11, 12, 15));
+        mutant.setSummaryString("3,7,10-12,15");
+        mutant.setHTMLReadout(DESCRIPTION);
+        mutant.setPatchString(PATCH);
+        return mutant;
+    }
+
+    /**
+     * Maps the parameters of the last insert or update query to the columns they were written to.
+     */
+    private void recordRow() {
+        row.clear();
+        if (query.startsWith("INSERT")) {
+            Matcher matcher = INSERT_COLUMNS.matcher(query);
+            assertThat(matcher.find(), is(true));
+            String[] columns = matcher.group(1).split(",");
+            for (int i = 0; i < columns.length; i++) {
+                row.put(columns[i].trim(), parameters.get(i + 1));
+            }
+        } else {
+            Matcher matcher = UPDATE_COLUMN.matcher(query);
+            for (int position = 1; matcher.find(); position++) {
+                row.put(matcher.group(1), parameters.get(position));
+            }
+        }
+    }
+
+    /**
+     * Returns a result set which returns the given values for the respective column labels.
+     */
+    private static ResultSet resultSetOf(Map<String, Object> values) {
+        return Mockito.mock(ResultSet.class, invocation -> {
+            Object[] arguments = invocation.getArguments();
+            if (arguments.length != 1 || !(arguments[0] instanceof String)) {
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+            Object value = values.get(arguments[0]);
+            switch (invocation.getMethod().getName()) {
+                case "getString":
+                    return value == null ? null : value.toString();
+                case "getInt":
+                    return value == null ? 0 : ((Number) value).intValue();
+                case "getBoolean":
+                    return value != null && (Boolean) value;
+                default:
+                    return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+}
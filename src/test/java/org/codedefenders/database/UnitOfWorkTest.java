@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(DatabaseConnection.class)
+public class UnitOfWorkTest {
+    private static final String INCREMENT_QUERY = "UPDATE tests SET MutantsKilled = MutantsKilled + ? WHERE Test_ID=?;";
+    private static final String EVENT_QUERY = "INSERT INTO events (Game_ID) VALUES (?);";
+
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @Before
+    public void mockConnection() throws SQLException {
+        connection = Mockito.mock(Connection.class);
+        statement = Mockito.mock(PreparedStatement.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(statement);
+
+        PowerMockito.mockStatic(DatabaseConnection.class);
+        when(DatabaseConnection.getConnection()).thenReturn(connection);
+    }
+
+    @After
+    public void checkNoActiveUnitOfWork() {
+        assertThat(UnitOfWork.isActive(), is(false));
+        assertThat(ConnectionScope.isOpen(), is(false));
+    }
+
+    @Test
+    public void nestedUnitsJoinTheOutermostUnit() throws SQLException {
+        try (UnitOfWork outer = UnitOfWork.begin()) {
+            try (UnitOfWork inner = UnitOfWork.begin()) {
+                assertThat(inner, is(sameInstance(outer)));
+                DB.executeDeferrableUpdateQuery(INCREMENT_QUERY, DatabaseValue.of(1), DatabaseValue.of(1));
+                inner.commit();
+            }
+            assertThat(UnitOfWork.isActive(), is(true));
+            verify(connection, never()).commit();
+            verify(statement, never()).executeBatch();
+
+            outer.commit();
+        }
+
+        verify(connection).setAutoCommit(false);
+        verify(statement).executeBatch();
+        verify(connection).commit();
+        verify(connection, never()).rollback();
+        verify(connection).close();
+        PowerMockito.verifyStatic(times(1));
+        DatabaseConnection.getConnection();
+    }
+
+    @Test
+    public void consecutiveWritesWithTheSameQueryAreBatchedInOrder() throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            DB.executeDeferrableUpdateQuery(INCREMENT_QUERY, DatabaseValue.of(1), DatabaseValue.of(1));
+            DB.executeDeferrableUpdateQuery(INCREMENT_QUERY, DatabaseValue.of(1), DatabaseValue.of(2));
+            DB.executeDeferrableUpdateQuery(EVENT_QUERY, DatabaseValue.of(1));
+            DB.executeDeferrableUpdateQuery(INCREMENT_QUERY, DatabaseValue.of(1), DatabaseValue.of(1));
+
+            // Nothing is written before the commit
+            verify(connection, never()).prepareStatement(anyString());
+            work.commit();
+        }
+
+        InOrder order = Mockito.inOrder(connection);
+        order.verify(connection).prepareStatement(INCREMENT_QUERY);
+        order.verify(connection).prepareStatement(EVENT_QUERY);
+        order.verify(connection).prepareStatement(INCREMENT_QUERY);
+        order.verify(connection).commit();
+        verify(statement, times(4)).addBatch();
+        verify(statement, times(3)).executeBatch();
+    }
+
+    @Test
+    public void writesAreExecutedRightAwayWithoutUnitOfWork() throws SQLException {
+        DB.executeDeferrableUpdateQuery(INCREMENT_QUERY, DatabaseValue.of(1), DatabaseValue.of(1));
+
+        verify(statement).executeUpdate();
+        verify(statement, never()).executeBatch();
+    }
+
+    @Test
+    public void failedWriteRollsBackTheUnitOfWork() throws SQLException {
+        when(statement.executeUpdate()).thenThrow(new SQLException("Failed"));
+
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            DB.executeDeferrableUpdateQuery(INCREMENT_QUERY, DatabaseValue.of(1), DatabaseValue.of(1));
+            try {
+                DB.executeUpdateQuery(EVENT_QUERY, DatabaseValue.of(1));
+                fail("Failed write inside of a unit of work should throw.");
+            } catch (UncheckedSQLException expected) {
+                // The caller ignores the failure and tries to commit anyway
+            }
+            try {
+                work.commit();
+                fail("Unit of work with a failed write should not commit.");
+            } catch (UncheckedSQLException expected) {
+                assertThat(expected.getCause().getMessage(), is("Failed"));
+            }
+        }
+
+        verify(statement, never()).executeBatch();
+        verify(connection, never()).commit();
+        verify(connection).rollback();
+    }
+
+    @Test
+    public void failedWriteOutsideOfUnitOfWorkReturnsFalse() throws SQLException {
+        when(statement.executeUpdate()).thenThrow(new SQLException("Failed"));
+
+        assertThat(DB.executeUpdateQuery(EVENT_QUERY, DatabaseValue.of(1)), is(false));
+    }
+
+    @Test
+    public void completionCallbacksLearnWhetherTheUnitOfWorkCommitted() {
+        List<Boolean> completions = new ArrayList<>();
+
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            assertThat(UnitOfWork.afterCompletion(completions::add), is(true));
+            work.commit();
+            assertThat(completions, is(empty()));
+        }
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            UnitOfWork.afterCompletion(completions::add);
+            // Closed without commit
+        }
+
+        assertThat(completions, contains(true, false));
+        assertThat(UnitOfWork.afterCompletion(completions::add), is(false));
+    }
+}
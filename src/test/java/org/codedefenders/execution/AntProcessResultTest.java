@@ -50,4 +50,17 @@ public class AntProcessResultTest {
         String reducedJunitOutput = result.getJUnitMessage();
         assertThat( reducedJunitOutput.split("\n").length, is( lessThan( fullJUnitOutput.split("\n").length)));
     }
+
+    @Test
+    public void killedProcessIsAnError() {
+        AntProcessResult result = new AntProcessResult();
+        result.setInputStream(new BufferedReader(new StringReader(
+                "[junit] Tests run: 1, Failures: 1, Errors: 0, Skipped: 0, Time elapsed: 0.025 sec")));
+        result.setKilled("The execution was killed.");
+
+        assertThat(result.hasFailure(), is(false));
+        assertThat(result.hasError(), is(true));
+        assertThat(result.timedOut(), is(false));
+        assertThat(result.getErrorMessage(), containsString("The execution was killed."));
+    }
 }
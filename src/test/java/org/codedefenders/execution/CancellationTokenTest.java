@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CancellationTokenTest {
+
+    @Test
+    public void tokenIsOnlyBoundWhileCalling() throws Exception {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+
+        assertThat(CancellationToken.isCurrentCancelled(), is(false));
+        assertThat(token.callWith(CancellationToken::isCurrentCancelled), is(true));
+        assertThat(CancellationToken.isCurrentCancelled(), is(false));
+    }
+
+    @Test
+    public void cancelIsSeenByRunningCall() throws Exception {
+        CancellationToken token = new CancellationToken();
+
+        boolean cancelled = token.callWith(() -> {
+            assertThat(CancellationToken.isCurrentCancelled(), is(false));
+            token.cancel();
+            return CancellationToken.isCurrentCancelled();
+        });
+
+        assertThat(cancelled, is(true));
+        assertThat(token.isCancelled(), is(true));
+    }
+
+    @Test
+    public void nestedCallsRestoreOuterToken() throws Exception {
+        CancellationToken outer = new CancellationToken();
+        CancellationToken inner = new CancellationToken();
+        inner.cancel();
+
+        boolean outerCancelled = outer.callWith(() -> {
+            assertThat(inner.callWith(CancellationToken::isCurrentCancelled), is(true));
+            return CancellationToken.isCurrentCancelled();
+        });
+
+        assertThat(outerCancelled, is(false));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+
+import org.codedefenders.execution.ExecutionScheduler.GroupQueue;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ExecutionSchedulerTest {
+
+    private static Runnable task(List<String> log, String name) {
+        return () -> log.add(name);
+    }
+
+    private static void pollAll(GroupQueue queue) {
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void groupsTakeTurns() {
+        List<String> log = new ArrayList<>();
+        GroupQueue queue = new GroupQueue();
+        queue.add(1, task(log, "a1"));
+        queue.add(1, task(log, "a2"));
+        queue.add(1, task(log, "a3"));
+        queue.add(2, task(log, "b1"));
+        queue.add(3, task(log, "c1"));
+        queue.add(3, task(log, "c2"));
+
+        assertThat(queue.size(), is(6));
+        pollAll(queue);
+
+        assertThat(log, contains("a1", "b1", "c1", "a2", "c2", "a3"));
+        assertThat(queue.size(), is(0));
+    }
+
+    @Test
+    public void newGroupsJoinAtTheEnd() {
+        List<String> log = new ArrayList<>();
+        GroupQueue queue = new GroupQueue();
+        queue.add(1, task(log, "a1"));
+        queue.add(1, task(log, "a2"));
+        queue.poll().run();
+        queue.add(2, task(log, "b1"));
+
+        pollAll(queue);
+
+        assertThat(log, contains("a1", "a2", "b1"));
+    }
+
+    @Test
+    public void cancelledTasksAreDropped() {
+        List<String> log = new ArrayList<>();
+        GroupQueue queue = new GroupQueue();
+        FutureTask<Void> cancelled = new FutureTask<>(task(log, "cancelled"), null);
+        cancelled.cancel(false);
+        queue.add(1, cancelled);
+        queue.add(2, task(log, "b1"));
+
+        pollAll(queue);
+
+        assertThat(log, contains("b1"));
+        assertThat(queue.size(), is(0));
+    }
+
+    @Test
+    public void emptyQueueReturnsNull() {
+        assertThat(new GroupQueue().poll(), is(nullValue()));
+    }
+}
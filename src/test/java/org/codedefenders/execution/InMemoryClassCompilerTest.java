@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Pattern;
+
+import org.codedefenders.game.GameClass;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class InMemoryClassCompilerTest {
+
+    @Rule
+    public TemporaryFolder dataDir = new TemporaryFolder();
+
+    private InMemoryClassCompiler compiler;
+    private GameClass cut;
+    private File cutDir;
+
+    @Before
+    public void createCompiler() throws IOException {
+        compiler = new InMemoryClassCompiler(dataDir.newFolder("lib"), null);
+
+        cutDir = dataDir.newFolder("sources", "Lift");
+        File cutFile = write(cutDir, "Lift.java", ""
+                + "public class Lift {" + "\n"
+                + "    private int currentFloor = 0;" + "\n"
+                + "    public void goUp() { currentFloor++; }" + "\n"
+                + "    public int getCurrentFloor() { return currentFloor; }" + "\n"
+                + "}" + "\n");
+        cut = GameClass.build()
+                .id(1)
+                .name("Lift")
+                .alias("Lift")
+                .javaFile(cutFile.getAbsolutePath())
+                .classFile(new File(cutDir, "Lift.class").getAbsolutePath())
+                .create();
+    }
+
+    @After
+    public void closeCompiler() {
+        compiler.close();
+    }
+
+    @Test
+    public void mutantIsCompiledToOutputDirectory() throws IOException {
+        File mutantDir = dataDir.newFolder("mutants", "1", "00000001");
+        File mutantFile = write(mutantDir, "Lift.java", ""
+                + "public class Lift {" + "\n"
+                + "    private int currentFloor = 0;" + "\n"
+                + "    public void goUp() { currentFloor--; }" + "\n"
+                + "    public int getCurrentFloor() { return currentFloor; }" + "\n"
+                + "}" + "\n");
+
+        InMemoryClassCompiler.CompilationResult result = compiler.compile(cut, false, mutantFile, mutantDir);
+
+        assertThat(result.getCompilerOutput(), is(nullValue()));
+        assertThat(result.getClassFile(), is(new File(mutantDir, "Lift.class")));
+        assertThat(result.getClassFile().length(), greaterThan(0L));
+    }
+
+    @Test
+    public void compileErrorsAreReportedLikeAnt() throws IOException {
+        File mutantDir = dataDir.newFolder("mutants", "1", "00000002");
+        File mutantFile = write(mutantDir, "Lift.java", ""
+                + "public class Lift {" + "\n"
+                + "    private int currentFloor = 0;" + "\n"
+                + "    public void goUp() { currentFloor++ }" + "\n"
+                + "}" + "\n");
+
+        InMemoryClassCompiler.CompilationResult result = compiler.compile(cut, false, mutantFile, mutantDir);
+
+        assertThat(result.getClassFile(), is(nullValue()));
+        assertThat(result.getCompilerOutput(), startsWith("[javac] Lift.java:3: error: "));
+        assertThat(result.getCompilerOutput(), not(containsString(mutantDir.getPath())));
+        assertThat(new File(mutantDir, "Lift.class").exists(), is(false));
+    }
+
+    @Test
+    public void onlyTestsAreCompiledAgainstTheCut() throws IOException {
+        InMemoryClassCompiler.CompilationResult cutResult =
+                compiler.compile(cut, false, new File(cut.getJavaFile()), cutDir);
+        assertThat(cutResult.getClassFile(), is(notNullValue()));
+
+        File testDir = dataDir.newFolder("tests", "1", "00000001");
+        File testFile = write(testDir, "TestLift.java", ""
+                + "public class TestLift {" + "\n"
+                + "    public void test() {" + "\n"
+                + "        Lift lift = new Lift();" + "\n"
+                + "        lift.goUp();" + "\n"
+                + "    }" + "\n"
+                + "}" + "\n");
+
+        InMemoryClassCompiler.CompilationResult testResult = compiler.compile(cut, true, testFile, testDir);
+        assertThat(testResult.getCompilerOutput(), is(nullValue()));
+        assertThat(testResult.getClassFile(), is(new File(testDir, "TestLift.class")));
+
+        InMemoryClassCompiler.CompilationResult mutantResult = compiler.compile(cut, false, testFile, testDir);
+        assertThat(mutantResult.getClassFile(), is(nullValue()));
+        assertThat(mutantResult.getCompilerOutput(), containsString("cannot find symbol"));
+    }
+
+    @Test
+    public void compilerOutputLooksLikeAntOutput() {
+        File javaFile = new File("/data/mutants/1/00000001/Lift.java");
+        String compilerOutput = ""
+                + "/data/mutants/1/00000001/Lift.java:5: error: ';' expected" + "\n"
+                + "    public void goUp() {currentFloor++}" + "\n"
+                + "                                      ^" + "\n"
+                + "1 error" + "\n";
+
+        String formatted = InMemoryClassCompiler.formatCompilerOutput(compilerOutput, javaFile);
+        String[] lines = formatted.split("\n");
+
+        assertThat(lines.length, is(4));
+        assertThat(lines[0], is("[javac] Lift.java:5: error: ';' expected"));
+        for (String line : lines) {
+            assertThat(line, startsWith("[javac] "));
+            assertThat(line, not(containsString("/data/mutants")));
+        }
+
+        // The pattern used to highlight compiler errors in the editor
+        Pattern errorLine = Pattern.compile("\\[javac\\].*\\.java:([0-9]+): error:.*");
+        assertThat(errorLine.matcher(lines[0]).matches(), is(true));
+    }
+
+    private static File write(File dir, String name, String content) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
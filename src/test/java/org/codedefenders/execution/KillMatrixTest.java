@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import org.codedefenders.execution.KillMap.KillMapEntry.Status;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class KillMatrixTest {
+
+    @Test
+    public void emptyMatrixHasNoEntries() {
+        KillMatrix matrix = new KillMatrix(new int[] {3, 1}, new int[] {7, 5, 9});
+
+        assertThat(matrix.getNumTests(), is(2));
+        assertThat(matrix.getNumMutants(), is(3));
+        assertThat(matrix.getNumEntries(), is(0));
+        assertThat(matrix.isComplete(), is(false));
+        for (int t = 0; t < 2; t++) {
+            for (int m = 0; m < 3; m++) {
+                assertThat(matrix.get(t, m), is(nullValue()));
+            }
+        }
+    }
+
+    @Test
+    public void storesAllStatuses() {
+        Status[] statuses = Status.values();
+        KillMatrix matrix = new KillMatrix(new int[] {1}, new int[] {1, 2, 3, 4, 5});
+
+        for (int m = 0; m < statuses.length; m++) {
+            matrix.set(0, m, statuses[m]);
+        }
+
+        for (int m = 0; m < statuses.length; m++) {
+            assertThat(matrix.get(0, m), is(statuses[m]));
+        }
+        assertThat(matrix.isComplete(), is(true));
+    }
+
+    @Test
+    public void overwritingAndUnsettingUpdatesEntryCount() {
+        KillMatrix matrix = new KillMatrix(new int[] {1}, new int[] {1, 2});
+
+        matrix.set(0, 0, Status.KILL);
+        matrix.set(0, 0, Status.NO_KILL);
+        assertThat(matrix.getNumEntries(), is(1));
+        assertThat(matrix.get(0, 0), is(Status.NO_KILL));
+
+        matrix.set(0, 0, null);
+        assertThat(matrix.getNumEntries(), is(0));
+        assertThat(matrix.get(0, 0), is(nullValue()));
+    }
+
+    @Test
+    public void looksUpCellsById() {
+        KillMatrix matrix = new KillMatrix(new int[] {30, 10, 20}, new int[] {200, 100});
+
+        assertThat(matrix.indexOfTest(10), is(1));
+        assertThat(matrix.indexOfMutant(200), is(0));
+        assertThat(matrix.indexOfTest(40), is(-1));
+        assertThat(matrix.getTestId(2), is(20));
+        assertThat(matrix.getMutantId(1), is(100));
+
+        assertThat(matrix.setById(20, 100, Status.KILL), is(true));
+        assertThat(matrix.setById(20, 300, Status.KILL), is(false));
+        assertThat(matrix.get(2, 1), is(Status.KILL));
+        assertThat(matrix.getById(20, 100), is(Status.KILL));
+        assertThat(matrix.getById(40, 100), is(nullValue()));
+    }
+
+    @Test
+    public void cellsSpanningMultipleWordsDoNotInterfere() {
+        int numMutants = 100;
+        int[] mutantIds = new int[numMutants];
+        for (int m = 0; m < numMutants; m++) {
+            mutantIds[m] = m + 1;
+        }
+        KillMatrix matrix = new KillMatrix(new int[] {1, 2}, mutantIds);
+
+        Status[] statuses = Status.values();
+        for (int m = 0; m < numMutants; m++) {
+            matrix.set(0, m, statuses[m % statuses.length]);
+        }
+        matrix.set(1, 20, Status.KILL);
+        matrix.set(1, 21, Status.KILL);
+
+        for (int m = 0; m < numMutants; m++) {
+            assertThat(matrix.get(0, m), is(statuses[m % statuses.length]));
+        }
+        assertThat(matrix.get(1, 19), is(nullValue()));
+        assertThat(matrix.get(1, 22), is(nullValue()));
+        assertThat(matrix.getNumEntries(), is(numMutants + 2));
+
+        assertThat(matrix.countForTest(0, Status.KILL), is(numMutants / statuses.length));
+        assertThat(matrix.countForTest(1, Status.KILL), is(2));
+        assertThat(matrix.countForMutant(20, Status.KILL), is(2));
+        assertThat(matrix.countForMutant(22, Status.KILL), is(0));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.codedefenders.game.GameClass;
+import org.codedefenders.game.LineCoverage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LineCoverageGeneratorTest {
+
+    private static final String CUT_SOURCE = String.join("\n",
+            "public class Lift {",                      // 1
+            "    private int floor;",                   // 2
+            "",                                         // 3
+            "    public void up() {",                   // 4
+            "        floor++;",                         // 5
+            "    }",                                    // 6
+            "",                                         // 7
+            "    public void down() {",                 // 8
+            "        floor--;",                         // 9
+            "    }",                                    // 10
+            "",                                         // 11
+            "    public int getFloor() {",              // 12
+            "        Counter counter = new Counter();", // 13
+            "        counter.count();",                 // 14
+            "        return floor;",                    // 15
+            "    }",                                    // 16
+            "",                                         // 17
+            "    static class Counter {",               // 18
+            "        private int count;",               // 19
+            "",                                         // 20
+            "        void count() {",                   // 21
+            "            count++;",                     // 22
+            "        }",                                // 23
+            "",                                         // 24
+            "        void reset() {",                   // 25
+            "            count = 0;",                   // 26
+            "        }",                                // 27
+            "    }",                                    // 28
+            "}",                                        // 29
+            "");
+
+    private static final String TEST_SOURCE = String.join("\n",
+            "import org.junit.Test;",
+            "import static org.junit.Assert.assertEquals;",
+            "",
+            "public class TestLift {",
+            "    @Test",
+            "    public void test() {",
+            "        Lift lift = new Lift();",
+            "        lift.up();",
+            "        assertEquals(1, lift.getFloor());",
+            "    }",
+            "}",
+            "");
+
+    /**
+     * The analyses of classes are cached by class id, so every test uses a new id.
+     */
+    private static int nextClassId = 1;
+
+    @Rule
+    public TemporaryFolder dataDir = new TemporaryFolder();
+
+    private File libraryDir;
+    private File cutDir;
+    private File testDir;
+    private GameClass cut;
+
+    @Before
+    public void compileFixture() throws IOException, URISyntaxException {
+        // The executor loads JUnit from the library directory, like from the data directory in production
+        libraryDir = dataDir.newFolder("lib");
+        copyJarOf(org.junit.Test.class, "junit-4.12.jar");
+        copyJarOf(org.hamcrest.Matcher.class, "hamcrest-all-1.3.jar");
+
+        cutDir = dataDir.newFolder("sources", "Lift");
+        File cutFile = write(cutDir, "Lift.java", CUT_SOURCE);
+        compile(cutFile, cutDir, "");
+
+        testDir = dataDir.newFolder("tests", "1", "00000001");
+        File testFile = write(testDir, "TestLift.java", TEST_SOURCE);
+        compile(testFile, testDir, cutDir.getAbsolutePath() + File.pathSeparator
+                + new File(libraryDir, "junit-4.12.jar").getAbsolutePath());
+
+        cut = GameClass.build()
+                .id(nextClassId++)
+                .name("Lift")
+                .alias("Lift")
+                .javaFile(cutFile.getAbsolutePath())
+                .classFile(new File(cutDir, "Lift.class").getAbsolutePath())
+                .create();
+    }
+
+    @Test
+    public void coverageOfInProcessExecutionIncludesInnerClasses() {
+        try (InProcessTestExecutor executor = new InProcessTestExecutor(libraryDir, 0)) {
+            TestExecutionResult result = executor.executeWithCoverage(Arrays.asList(cutDir, testDir),
+                    "TestLift", "Lift");
+            assertThat(result.getMessage(), result.getStatus(), is(TargetExecution.Status.SUCCESS));
+
+            LineCoverage coverage = LineCoverageGenerator.generate(cut, result.getCoverage());
+
+            assertThat(coverage.getLinesCovered(), hasItems(5, 13, 14, 15, 22));
+            assertThat(coverage.getLinesCovered(), not(hasItem(9)));
+            assertThat(coverage.getLinesCovered(), not(hasItem(26)));
+            assertThat(coverage.getLinesUncovered(), hasItems(9, 26));
+            assertThat(coverage.getLinesUncovered(), not(hasItem(5)));
+            assertThat(coverage.getLinesUncovered(), not(hasItem(22)));
+
+            // The analysis of the class is cached, so the same probes give the same lines again
+            LineCoverage again = LineCoverageGenerator.generate(cut, result.getCoverage());
+            assertThat(again.getLinesCovered(), is(coverage.getLinesCovered()));
+            assertThat(again.getLinesUncovered(), is(coverage.getLinesUncovered()));
+        }
+    }
+
+    @Test
+    public void noProbesCoverNoLines() {
+        LineCoverage coverage = LineCoverageGenerator.generate(cut, Collections.emptyMap());
+
+        assertThat(coverage.getLinesCovered(), is(empty()));
+        assertThat(coverage.getLinesUncovered(), hasItems(5, 9, 13, 22, 26));
+    }
+
+    private void copyJarOf(Class<?> clazz, String name) throws IOException, URISyntaxException {
+        File jar = new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Files.copy(jar.toPath(), new File(libraryDir, name).toPath());
+    }
+
+    private static File write(File dir, String name, String content) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static void compile(File javaFile, File outputDir, String classPath) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int exitCode = compiler.run(null, null, null, "-g", "-nowarn", "-cp", classPath,
+                "-d", outputDir.getAbsolutePath(), javaFile.getAbsolutePath());
+        assertThat("Could not compile " + javaFile.getName(), exitCode, is(0));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.Gson;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WorkerPoolTestExecutorTest {
+
+    @Rule
+    public TemporaryFolder dataDir = new TemporaryFolder();
+
+    @Test
+    public void remainingExecutionsRunOnFreshWorkerAfterWorkerDies() throws Exception {
+        List<TestExecutionResult> results = runBatch(10, "first", "die", "second", "third");
+
+        assertThat(results, hasSize(4));
+        assertThat(results.get(0).getStatus(), is(TargetExecution.Status.FAIL));
+        assertThat(results.get(0).getMessage(), is("first"));
+        assertThat(results.get(1).getStatus(), is(TargetExecution.Status.ERROR));
+        assertThat(results.get(2).getStatus(), is(TargetExecution.Status.FAIL));
+        assertThat(results.get(2).getMessage(), is("second"));
+        assertThat(results.get(3).getStatus(), is(TargetExecution.Status.FAIL));
+        assertThat(results.get(3).getMessage(), is("third"));
+    }
+
+    @Test
+    public void remainingExecutionsRunOnFreshWorkerAfterTimeout() throws Exception {
+        List<TestExecutionResult> results = runBatch(1, "hang", "first");
+
+        assertThat(results, hasSize(2));
+        assertThat(results.get(0).getStatus(), is(TargetExecution.Status.TIMEOUT));
+        assertThat(results.get(1).getStatus(), is(TargetExecution.Status.FAIL));
+        assertThat(results.get(1).getMessage(), is("first"));
+    }
+
+    @Test
+    public void executionsOfClosedExecutorDoNotTakePlace() throws Exception {
+        WorkerPoolTestExecutor executor = createExecutor(10);
+        executor.close();
+
+        List<TestExecutionResult> results = new ArrayList<>();
+        executor.executeBatch(classPaths("first", "second"), "Test", results::add);
+
+        assertThat(results, contains(nullValue(), nullValue()));
+    }
+
+    private List<TestExecutionResult> runBatch(int timeoutSeconds, String... names) {
+        List<TestExecutionResult> results = new ArrayList<>();
+        try (WorkerPoolTestExecutor executor = createExecutor(timeoutSeconds)) {
+            executor.executeBatch(classPaths(names), "Test", results::add);
+        }
+        return results;
+    }
+
+    private WorkerPoolTestExecutor createExecutor(int timeoutSeconds) {
+        List<String> command = Arrays.asList(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"), FakeWorker.class.getName());
+        return new WorkerPoolTestExecutor(command, dataDir.getRoot(), 1, 0, timeoutSeconds);
+    }
+
+    private static List<List<File>> classPaths(String... names) {
+        List<List<File>> classPaths = new ArrayList<>();
+        for (String name : names) {
+            classPaths.add(Collections.singletonList(new File(name)));
+        }
+        return classPaths;
+    }
+
+    /**
+     * Stands in for the {@link TestWorker}. Answers every class path with a failure carrying the name of its
+     * first entry, except for "die", which terminates the worker, and "hang", which never answers.
+     */
+    public static class FakeWorker {
+        public static void main(String[] args) throws IOException, InterruptedException {
+            Gson gson = new Gson();
+            BufferedReader requestIn = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = requestIn.readLine()) != null) {
+                TestWorker.Request request = gson.fromJson(line, TestWorker.Request.class);
+                for (List<File> classPath : request.getClassPaths()) {
+                    String name = classPath.get(0).getName();
+                    if (name.equals("die")) {
+                        System.exit(1);
+                    } else if (name.equals("hang")) {
+                        Thread.sleep(Long.MAX_VALUE);
+                    }
+                    System.out.println(gson.toJson(TestExecutionResult.failure(name)));
+                    System.out.flush();
+                }
+            }
+        }
+    }
+}
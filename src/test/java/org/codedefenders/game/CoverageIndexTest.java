@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CoverageIndexTest {
+
+    private static org.codedefenders.game.Test test(Integer... linesCovered) {
+        org.codedefenders.game.Test test = Mockito.mock(org.codedefenders.game.Test.class);
+        Mockito.when(test.getLineCoverage())
+                .thenReturn(new LineCoverage(Arrays.asList(linesCovered), Collections.emptyList()));
+        return test;
+    }
+
+    private static Mutant mutant(Integer... lines) {
+        Mutant mutant = Mockito.mock(Mutant.class);
+        Mockito.when(mutant.getLines()).thenReturn(Arrays.asList(lines));
+        return mutant;
+    }
+
+    @Test
+    public void findsCoveringTestsInInsertionOrder() {
+        org.codedefenders.game.Test t1 = test(3, 4, 5);
+        org.codedefenders.game.Test t2 = test(10);
+        org.codedefenders.game.Test t3 = test(1, 5);
+        CoverageIndex coverage = new CoverageIndex(Arrays.asList(t1, t2, t3));
+
+        assertThat(coverage.getCoveringTests(mutant(5)), contains(t1, t3));
+        assertThat(coverage.getCoveringTests(mutant(4, 10)), contains(t1, t2));
+        assertThat(coverage.getCoveringTests(mutant(2, 100)), is(empty()));
+        assertThat(coverage.isCovered(mutant(10)), is(true));
+        assertThat(coverage.isCovered(mutant(2)), is(false));
+    }
+
+    @Test
+    public void indexesLines() {
+        org.codedefenders.game.Test t1 = test(3, 4);
+        org.codedefenders.game.Test t2 = test(4, 4, 8);
+        CoverageIndex coverage = new CoverageIndex(Arrays.asList(t1, t2));
+
+        assertThat(coverage.getCoveredLines(), contains(3, 4, 8));
+        assertThat(coverage.getTestsCoveringLine(4), contains(t1, t2));
+        assertThat(coverage.getTestsCoveringLine(5), is(empty()));
+        assertThat(coverage.isLineCovered(8), is(true));
+        assertThat(coverage.isLineCovered(-1), is(false));
+    }
+
+    @Test
+    public void addsTestsIncrementally() {
+        CoverageIndex coverage = new CoverageIndex();
+        Mutant mutant = mutant(20);
+        assertThat(coverage.isCovered(mutant), is(false));
+
+        org.codedefenders.game.Test t1 = test(20);
+        coverage.addTest(t1);
+
+        List<org.codedefenders.game.Test> coveringTests = coverage.getCoveringTests(mutant);
+        assertThat(coveringTests, contains(t1));
+        assertThat(coverage.getTests(), contains(t1));
+    }
+
+    @Test
+    public void lineCoverageMatchesCoveredLines() {
+        LineCoverage lineCoverage = new LineCoverage(Arrays.asList(2, 7), Arrays.asList(3));
+
+        assertThat(lineCoverage.covers(7), is(true));
+        assertThat(lineCoverage.covers(3), is(false));
+        assertThat(lineCoverage.coversAny(Arrays.asList(1, 2)), is(true));
+        assertThat(lineCoverage.coversAny(Arrays.asList(1, 3)), is(false));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game.scoring;
+
+import java.sql.Timestamp;
+
+import org.codedefenders.model.Event;
+import org.codedefenders.model.EventStatus;
+import org.codedefenders.model.EventType;
+import org.codedefenders.util.Constants;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ScoreAggregateTest {
+    private static final int MUTANT_OWNER = 7;
+
+    @Test
+    public void testKillsEarnTheMutantScore() {
+        ScoreAggregate aggregate = new ScoreAggregate();
+        aggregate.apply(EventType.PLAYER_MUTANT_SURVIVED, "1:10", this::mutantOwner);
+        aggregate.apply(EventType.PLAYER_MUTANT_SURVIVED, "2:10", this::mutantOwner);
+        aggregate.apply(EventType.PLAYER_KILLED_MUTANT, "3:10", this::mutantOwner);
+
+        assertThat(aggregate.getMutantScore(10), is(2));
+        assertThat(aggregate.getTestScore(1), is(0));
+        assertThat(aggregate.getTestScore(3), is(3));
+    }
+
+    @Test
+    public void testEquivalenceDuels() {
+        ScoreAggregate aggregate = new ScoreAggregate();
+        aggregate.apply(EventType.PLAYER_MUTANT_SURVIVED, "1:10", this::mutantOwner);
+        aggregate.apply(EventType.PLAYER_MUTANT_CLAIMED_EQUIVALENT, "5:10", this::mutantOwner);
+        aggregate.apply(EventType.PLAYER_LOST_EQUIVALENT_DUEL, "-1:10", this::mutantOwner);
+
+        assertThat(aggregate.getMutantScore(10), is(0));
+        assertThat(aggregate.getDuelScore(5), is(1));
+
+        aggregate.apply(EventType.PLAYER_MUTANT_CLAIMED_EQUIVALENT, "5:11", this::mutantOwner);
+        aggregate.apply(EventType.PLAYER_WON_EQUIVALENT_DUEL, "2:11", this::mutantOwner);
+
+        assertThat(aggregate.getDuelScore(5), is(1));
+        assertThat(aggregate.getDuelScore(MUTANT_OWNER), is(1));
+    }
+
+    @Test
+    public void testMutantOwnerLookupIsKnownInAdvance() {
+        assertThat(ScoreAggregate.getMutantIdOfOwnerLookup(EventType.PLAYER_WON_EQUIVALENT_DUEL, "2:11"), is(11));
+        assertThat(ScoreAggregate.getMutantIdOfOwnerLookup(EventType.PLAYER_KILLED_MUTANT, "3:10"), is(-1));
+        assertThat(ScoreAggregate.getMutantIdOfOwnerLookup(EventType.PLAYER_LOST_EQUIVALENT_DUEL, "-1:10"), is(-1));
+
+        ScoreAggregate aggregate = new ScoreAggregate();
+        aggregate.apply(EventType.PLAYER_KILLED_MUTANT, "3:10", mutantId -> {
+            throw new AssertionError("No mutant owner lookup expected");
+        });
+        aggregate.apply(EventType.PLAYER_WON_EQUIVALENT_DUEL, "2:11", mutantId -> {
+            assertThat(mutantId, is(11));
+            return MUTANT_OWNER;
+        });
+        assertThat(aggregate.getDuelScore(MUTANT_OWNER), is(1));
+    }
+
+    @Test
+    public void testOnlyEventsOfTheDummyUserAreScoreEvents() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Event scoreEvent = new Event(-1, 1, Constants.DUMMY_CREATOR_USER_ID, "1:10",
+                EventType.PLAYER_KILLED_MUTANT, EventStatus.GAME, now);
+        Event notification = new Event(-1, 1, 100, "A mutant is killed",
+                EventType.PLAYER_KILLED_MUTANT, EventStatus.GAME, now);
+
+        assertThat(ScoreAggregate.isScoreEvent(scoreEvent), is(true));
+        assertThat(ScoreAggregate.isScoreEvent(notification), is(false));
+    }
+
+    @Test
+    public void testSameScores() {
+        ScoreAggregate aggregate = new ScoreAggregate();
+        ScoreAggregate other = new ScoreAggregate();
+        aggregate.apply(EventType.PLAYER_MUTANT_SURVIVED, "1:10", this::mutantOwner);
+        assertThat(aggregate.hasSameScores(other), is(false));
+
+        other.apply(EventType.PLAYER_MUTANT_SURVIVED, "2:10", this::mutantOwner);
+        assertThat(aggregate.hasSameScores(other), is(true));
+    }
+
+    private int mutantOwner(int mutantId) {
+        return MUTANT_OWNER;
+    }
+}
@@ -1,24 +1,25 @@
 package org.codedefenders.game.tcs;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.codedefenders.database.GameDAO;
 import org.codedefenders.database.KillmapDAO;
-import org.codedefenders.execution.KillMap;
-import org.codedefenders.execution.KillMap.KillMapEntry;
+import org.codedefenders.database.MutantDAO;
 import org.codedefenders.execution.KillMap.KillMapEntry.Status;
+import org.codedefenders.execution.KillMatrix;
+import org.codedefenders.game.Mutant;
 import org.codedefenders.game.tcs.impl.KillCountTestCaseSelector;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Matchers;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({ KillmapDAO.class, GameDAO.class})
+@PrepareForTest({ KillmapDAO.class, MutantDAO.class, GameDAO.class})
 public class KillCountTestCaseSelectorTest {
 
     /*
@@ -39,14 +40,10 @@ public class KillCountTestCaseSelectorTest {
     public void testSorting() throws Exception {
         PowerMockito.mockStatic(GameDAO.class);
         PowerMockito.mockStatic(KillmapDAO.class);
-
+        PowerMockito.mockStatic(MutantDAO.class);
 
         PowerMockito.when(GameDAO.class, "getCurrentRound", gameId).thenReturn(0);
 
-        
-        List<KillMapEntry> killMapEntriesForClass = new ArrayList<KillMap.KillMapEntry>();
-        
-        
         // Test calss is UNTESTABLE ! it requires the Database !
         org.codedefenders.game.Test t1 = new org.codedefenders.game.Test(1, classId, gameId, javaFile, classFile,
                 roundCreated, mutantsKilled, playerId, linesCovered, linesUncovered, score);
@@ -54,36 +51,43 @@ public class KillCountTestCaseSelectorTest {
                 roundCreated, mutantsKilled, playerId, linesCovered, linesUncovered, score);
         org.codedefenders.game.Test t3 = new org.codedefenders.game.Test(3, classId, gameId, javaFile, classFile,
                 roundCreated, mutantsKilled, playerId, linesCovered, linesUncovered, score);
-        
-        // What happens if we get different instances of the same test?
-        org.codedefenders.game.Test t31 = new org.codedefenders.game.Test(3, classId, gameId, javaFile, classFile,
-                roundCreated, mutantsKilled, playerId, linesCovered, linesUncovered, score);
-        
-        // t1 covers 3 killed one mutant
-        killMapEntriesForClass.add( new KillMapEntry( t1, null, Status.KILL ) );
-        killMapEntriesForClass.add( new KillMapEntry( t1, null, Status.KILL ) );
-        killMapEntriesForClass.add( new KillMapEntry( t1, null, Status.NO_KILL ) );
+
+        List<Mutant> mutants = Arrays.asList(mutant(1), mutant(2), mutant(3), mutant(4), mutant(5));
+        KillMatrix matrix = new KillMatrix(new int[] {1, 2, 3}, new int[] {1, 2, 3, 4, 5});
+        // t1 covers 3 killed two mutants
+        matrix.setById(1, 1, Status.KILL);
+        matrix.setById(1, 2, Status.KILL);
+        matrix.setById(1, 3, Status.NO_KILL);
         // t2 covers 1 killed no mutants
-        killMapEntriesForClass.add( new KillMapEntry( t2, null, Status.NO_KILL) );
+        matrix.setById(2, 1, Status.NO_KILL);
         // t3 covers 5 kills 3 mutants
-        killMapEntriesForClass.add( new KillMapEntry( t3, null, Status.KILL ) );
-        killMapEntriesForClass.add( new KillMapEntry( t31, null, Status.KILL ) );
-        killMapEntriesForClass.add( new KillMapEntry( t31, null, Status.KILL ) );
-        killMapEntriesForClass.add( new KillMapEntry( t3, null, Status.NO_KILL) );
-        killMapEntriesForClass.add( new KillMapEntry( t3, null, Status.NO_KILL) );
-
+        matrix.setById(3, 1, Status.KILL);
+        matrix.setById(3, 2, Status.KILL);
+        matrix.setById(3, 3, Status.KILL);
+        matrix.setById(3, 4, Status.NO_KILL);
+        matrix.setById(3, 5, Status.NO_KILL);
 
-        // Return the configured list
-        PowerMockito.when(KillmapDAO.class, "getKillMapEntriesForClass", classId).thenReturn( killMapEntriesForClass );
+        // Return the configured mutants and matrix
+        PowerMockito.when(MutantDAO.getValidMutantsForClass(classId)).thenReturn(mutants);
+        PowerMockito.when(KillmapDAO.getKillMatrixForClass(Matchers.eq(classId), Matchers.any(int[].class),
+                Matchers.any(int[].class))).thenReturn(matrix);
 
         KillCountTestCaseSelector cut = new KillCountTestCaseSelector();
-        
-        List<org.codedefenders.game.Test> allTests = Arrays.asList( t1, t2, t3);
 
-        int maxTests = 10;
+        List<org.codedefenders.game.Test> allTests = Arrays.asList(t1, t2, t3);
+
+        List<org.codedefenders.game.Test> sortedAndselectedTests = cut.select(allTests, 10);
+        Assert.assertEquals(Arrays.asList(t3, t1, t2), sortedAndselectedTests);
+        Assert.assertEquals(3, t3.getScore());
+        Assert.assertEquals(2, t1.getScore());
+        Assert.assertEquals(0, t2.getScore());
+
+        // Only the tests with the most kills are selected
+        Assert.assertEquals(Arrays.asList(t3, t1), cut.select(Arrays.asList(t1, t2, t3), 2));
+    }
 
-        List<org.codedefenders.game.Test> sortedAndselectedTests = cut.select(allTests, maxTests);
-        
-        Assert.assertEquals(3, sortedAndselectedTests.size() );
+    private Mutant mutant(int mutantId) {
+        return new Mutant(mutantId, classId, gameId, javaFile, classFile, true, Mutant.Equivalence.ASSUMED_NO,
+                roundCreated, 0, playerId);
     }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.codedefenders.notification.Topic;
+import org.codedefenders.notification.events.server.mutant.MutantSubmittedEvent;
+import org.codedefenders.notification.handling.server.ServerEventHandler;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.eventbus.Subscribe;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class NotificationServiceTest {
+    private final NotificationService notificationService = new NotificationService();
+
+    @After
+    public void shutdown() {
+        notificationService.shutdown();
+    }
+
+    @Test
+    public void testEventsAreRoutedByTopic() throws InterruptedException {
+        TestHandler gameHandler = new TestHandler(Topic.game(1), 1);
+        TestHandler otherGameHandler = new TestHandler(Topic.game(2), 0);
+        notificationService.register(gameHandler);
+        notificationService.register(otherGameHandler);
+
+        notificationService.post(mutantEvent(1, 3));
+
+        assertThat(gameHandler.await(), is(true));
+        assertThat(gameHandler.events, hasSize(1));
+        assertThat(otherGameHandler.events, empty());
+    }
+
+    @Test
+    public void testEventsAreDeliveredInOrder() throws InterruptedException {
+        int count = 100;
+        TestHandler handler = new TestHandler(Topic.user(3), count);
+        notificationService.register(handler);
+
+        for (int i = 0; i < count; i++) {
+            notificationService.post(mutantEvent(i, 3));
+        }
+
+        assertThat(handler.await(), is(true));
+        for (int i = 0; i < count; i++) {
+            assertThat(handler.events.get(i).getGameId(), is(i));
+        }
+    }
+
+    @Test
+    public void testUnregisteredHandlersReceiveNothing() throws InterruptedException {
+        TestHandler handler = new TestHandler(Topic.game(1), 0);
+        TestHandler probe = new TestHandler(Topic.game(1), 1);
+        notificationService.register(handler);
+        notificationService.unregister(handler);
+        notificationService.register(probe);
+
+        notificationService.post(mutantEvent(1, 3));
+
+        // The probe shares the topic, so the event has been routed once the probe received it
+        assertThat(probe.await(), is(true));
+        assertThat(handler.events, empty());
+    }
+
+    private static MutantSubmittedEvent mutantEvent(int gameId, int userId) {
+        MutantSubmittedEvent event = new MutantSubmittedEvent();
+        event.setGameId(gameId);
+        event.setUserId(userId);
+        return event;
+    }
+
+    public static class TestHandler implements ServerEventHandler {
+        private final Topic topic;
+        private final CountDownLatch latch;
+        private final List<MutantSubmittedEvent> events = new CopyOnWriteArrayList<>();
+
+        TestHandler(Topic topic, int expectedEvents) {
+            this.topic = topic;
+            this.latch = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public Set<Topic> getTopics() {
+            return Collections.singleton(topic);
+        }
+
+        @Subscribe
+        public void handle(MutantSubmittedEvent event) {
+            events.add(event);
+            latch.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification.web;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import org.codedefenders.notification.events.server.chat.ServerGameChatEvent;
+import org.codedefenders.notification.events.server.mutant.MutantCompiledEvent;
+import org.codedefenders.notification.events.server.mutant.MutantLifecycleEvent;
+import org.codedefenders.notification.events.server.mutant.MutantSubmittedEvent;
+import org.codedefenders.notification.events.server.mutant.MutantTestedEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+
+public class OutboundQueueTest {
+    private final List<String> sentTexts = new ArrayList<>();
+    private final List<SendHandler> pendingHandlers = new ArrayList<>();
+    private OutboundQueue queue;
+
+    @Before
+    public void createQueue() {
+        RemoteEndpoint.Async remote = Mockito.mock(RemoteEndpoint.Async.class);
+        Mockito.doAnswer(invocation -> {
+            sentTexts.add((String) invocation.getArguments()[0]);
+            pendingHandlers.add((SendHandler) invocation.getArguments()[1]);
+            return null;
+        }).when(remote).sendText(anyString(), any(SendHandler.class));
+
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.getAsyncRemote()).thenReturn(remote);
+        queue = new OutboundQueue(session);
+    }
+
+    @After
+    public void closeQueue() {
+        queue.close();
+    }
+
+    @Test
+    public void testOneMessageIsSentAtATime() {
+        queue.offer(chatEvent("first"));
+        queue.offer(chatEvent("second"));
+        assertThat(sentTexts, hasSize(1));
+
+        completeSend();
+        assertThat(sentTexts, hasSize(2));
+        assertThat(sentTexts.get(1), containsString("second"));
+    }
+
+    @Test
+    public void testQueuedProgressIsCoalesced() {
+        long coalesced = OutboundQueue.getMetrics().getCoalescedFrames();
+
+        queue.offer(chatEvent("in flight"));
+        queue.offer(mutantEvent(new MutantSubmittedEvent()));
+        queue.offer(mutantEvent(new MutantCompiledEvent()));
+        queue.offer(mutantEvent(new MutantTestedEvent()));
+
+        completeSend();
+        completeSend();
+        assertThat(sentTexts, hasSize(2));
+        assertThat(sentTexts.get(1), containsString("MutantTestedEvent"));
+        assertThat(OutboundQueue.getMetrics().getCoalescedFrames(), is(coalesced + 2));
+    }
+
+    @Test
+    public void testFullQueueDropsProgressFirst() {
+        long dropped = OutboundQueue.getMetrics().getDroppedFrames();
+
+        queue.offer(chatEvent("in flight"));
+        queue.offer(mutantEvent(new MutantSubmittedEvent()));
+        for (int i = 1; i < OutboundQueue.CAPACITY; i++) {
+            queue.offer(chatEvent("queued " + i));
+        }
+        queue.offer(chatEvent("overflow"));
+        queue.offer(chatEvent("dropped"));
+
+        assertThat(OutboundQueue.getMetrics().getDroppedFrames(), is(dropped + 2));
+        for (int i = 0; i < OutboundQueue.CAPACITY; i++) {
+            completeSend();
+        }
+        assertThat(sentTexts, hasSize(OutboundQueue.CAPACITY + 1));
+        assertThat(sentTexts.get(1), containsString("queued 1"));
+        assertThat(sentTexts.get(OutboundQueue.CAPACITY), containsString("overflow"));
+    }
+
+    private void completeSend() {
+        pendingHandlers.remove(0).onResult(new SendResult());
+    }
+
+    private static ServerGameChatEvent chatEvent(String message) {
+        ServerGameChatEvent event = new ServerGameChatEvent();
+        event.setMessage(message);
+        return event;
+    }
+
+    private static MutantLifecycleEvent mutantEvent(MutantLifecycleEvent event) {
+        event.setGameId(1);
+        event.setUserId(2);
+        event.setTicket("ticket");
+        return event;
+    }
+}
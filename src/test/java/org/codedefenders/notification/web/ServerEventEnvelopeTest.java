@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification.web;
+
+import org.codedefenders.notification.events.server.mutant.MutantSubmittedEvent;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ServerEventEnvelopeTest {
+    @Test
+    public void testEventIsEncodedOnce() {
+        MutantSubmittedEvent event = new MutantSubmittedEvent();
+        event.setGameId(1);
+        event.setUserId(2);
+
+        ServerEventEnvelope envelope = ServerEventEnvelope.of(event);
+
+        assertThat(ServerEventEnvelope.of(event), sameInstance(envelope));
+        assertThat(envelope.getType(), is("mutant.MutantSubmittedEvent"));
+        assertThat(envelope.getText(), startsWith("{\"type\":\"mutant.MutantSubmittedEvent\",\"data\":{"));
+        assertThat(envelope.getText(), containsString("\"gameId\":1"));
+        assertThat(new EventEncoder().encode(event), is(envelope.getText()));
+    }
+
+    @Test
+    public void testEqualEventsAreEncodedSeparately() {
+        MutantSubmittedEvent event = new MutantSubmittedEvent();
+        MutantSubmittedEvent otherEvent = new MutantSubmittedEvent();
+
+        assertThat(ServerEventEnvelope.of(otherEvent), not(sameInstance(ServerEventEnvelope.of(event))));
+    }
+}
@@ -212,8 +212,11 @@ CREATE TABLE `mutants` (
   `NumberAiKillingTests` int(11) DEFAULT '0', -- If an original ai mutant, kill count. Number of killing tests in game otherwise.
   `Timestamp` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
   `Points` int(11) DEFAULT '0',
-  `MutatedLines` varchar(255),
+  `MutatedLines` text,
   `KillMessage` varchar(2000) DEFAULT NULL,
+  `Summary` text DEFAULT NULL,
+  `Description` text DEFAULT NULL,
+  `Patch` mediumtext DEFAULT NULL,
   PRIMARY KEY (`Mutant_ID`),
   UNIQUE KEY `mutants_Game_ID_Class_ID_MD5_key` (`Game_ID`,`Class_ID`,`MD5`),
   KEY `fk_gameId_idx` (`Game_ID`),
@@ -279,7 +282,7 @@ CREATE TABLE `targetexecutions` (
   `Test_ID` int(11) DEFAULT NULL,
   `Mutant_ID` int(11) DEFAULT NULL,
   `Target` enum('COMPILE_MUTANT','COMPILE_TEST','TEST_ORIGINAL','TEST_MUTANT','TEST_EQUIVALENCE') DEFAULT NULL,
-  `Status` enum('SUCCESS','FAIL','ERROR') NOT NULL,
+  `Status` enum('SUCCESS','FAIL','ERROR','TIMEOUT') NOT NULL,
   `Message` varchar(2000) DEFAULT NULL,
   `Timestamp` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`TargetExecution_ID`),
@@ -513,7 +516,10 @@ CREATE TABLE `events` (
   `Event_Type` varchar(45) DEFAULT NULL,
   `Event_Status` varchar(45) DEFAULT NULL,
   `Timestamp` timestamp NULL DEFAULT CURRENT_TIMESTAMP,
-  PRIMARY KEY (`Event_ID`)
+  PRIMARY KEY (`Event_ID`),
+  KEY `events_Game_ID_Event_ID_index` (`Game_ID`,`Event_ID`),
+  KEY `events_Game_ID_Event_Status_Timestamp_index` (`Game_ID`,`Event_Status`,`Timestamp`),
+  KEY `events_Player_ID_Timestamp_index` (`Player_ID`,`Timestamp`)
 ) AUTO_INCREMENT=100;
 
 --
@@ -581,6 +587,115 @@ VALUES
   ('GAME_PLAYER_LEFT','@event_user left the game'),
   ('GAME_STARTED','The game has started!');
 
+--
+-- Table structure for table `leaderboard`
+--
+
+DROP TABLE IF EXISTS `leaderboard`;
+CREATE TABLE `leaderboard` (
+  `User_ID` int(11) NOT NULL,
+  `NMutants` int(11) NOT NULL DEFAULT '0',
+  `AScore` int(11) NOT NULL DEFAULT '0',
+  `NTests` int(11) NOT NULL DEFAULT '0',
+  `DScore` int(11) NOT NULL DEFAULT '0',
+  `NKilled` int(11) NOT NULL DEFAULT '0',
+  `EScore` int(11) NOT NULL DEFAULT '0',
+  `TotalScore` int(11) NOT NULL DEFAULT '0',
+  PRIMARY KEY (`User_ID`),
+  KEY `leaderboard_TotalScore_index` (`TotalScore`),
+  CONSTRAINT `fk_userId_leaderboard` FOREIGN KEY (`User_ID`) REFERENCES `users` (`User_ID`) ON DELETE CASCADE ON UPDATE NO ACTION
+);
+
+--
+-- Triggers that keep the leaderboard up to date
+--
+
+CREATE TRIGGER ins_mutants_leaderboard
+  AFTER INSERT ON `mutants`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, NMutants, AScore, TotalScore)
+  SELECT P.User_ID, 1, IFNULL(NEW.Points, 0), IFNULL(NEW.Points, 0) FROM players P WHERE P.ID = NEW.Player_ID
+  ON DUPLICATE KEY UPDATE NMutants = NMutants + VALUES(NMutants),
+                          AScore = AScore + VALUES(AScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER upd_mutants_leaderboard
+  AFTER UPDATE ON `mutants`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, AScore, TotalScore)
+  SELECT P.User_ID, IFNULL(NEW.Points, 0) - IFNULL(OLD.Points, 0), IFNULL(NEW.Points, 0) - IFNULL(OLD.Points, 0)
+  FROM players P WHERE P.ID = NEW.Player_ID AND NOT (NEW.Points <=> OLD.Points)
+  ON DUPLICATE KEY UPDATE AScore = AScore + VALUES(AScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER del_mutants_leaderboard
+  AFTER DELETE ON `mutants`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, NMutants, AScore, TotalScore)
+  SELECT P.User_ID, -1, -IFNULL(OLD.Points, 0), -IFNULL(OLD.Points, 0) FROM players P WHERE P.ID = OLD.Player_ID
+  ON DUPLICATE KEY UPDATE NMutants = NMutants + VALUES(NMutants),
+                          AScore = AScore + VALUES(AScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER ins_tests_leaderboard
+  AFTER INSERT ON `tests`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, NTests, DScore, NKilled, TotalScore)
+  SELECT P.User_ID, 1, IFNULL(NEW.Points, 0), IFNULL(NEW.MutantsKilled, 0), IFNULL(NEW.Points, 0)
+  FROM players P WHERE P.ID = NEW.Player_ID
+  ON DUPLICATE KEY UPDATE NTests = NTests + VALUES(NTests),
+                          DScore = DScore + VALUES(DScore),
+                          NKilled = NKilled + VALUES(NKilled),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER upd_tests_leaderboard
+  AFTER UPDATE ON `tests`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, DScore, NKilled, TotalScore)
+  SELECT P.User_ID, IFNULL(NEW.Points, 0) - IFNULL(OLD.Points, 0),
+         IFNULL(NEW.MutantsKilled, 0) - IFNULL(OLD.MutantsKilled, 0), IFNULL(NEW.Points, 0) - IFNULL(OLD.Points, 0)
+  FROM players P
+  WHERE P.ID = NEW.Player_ID AND NOT (NEW.Points <=> OLD.Points AND NEW.MutantsKilled <=> OLD.MutantsKilled)
+  ON DUPLICATE KEY UPDATE DScore = DScore + VALUES(DScore),
+                          NKilled = NKilled + VALUES(NKilled),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER del_tests_leaderboard
+  AFTER DELETE ON `tests`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, NTests, DScore, NKilled, TotalScore)
+  SELECT P.User_ID, -1, -IFNULL(OLD.Points, 0), -IFNULL(OLD.MutantsKilled, 0), -IFNULL(OLD.Points, 0)
+  FROM players P WHERE P.ID = OLD.Player_ID
+  ON DUPLICATE KEY UPDATE NTests = NTests + VALUES(NTests),
+                          DScore = DScore + VALUES(DScore),
+                          NKilled = NKilled + VALUES(NKilled),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER ins_players_leaderboard
+  AFTER INSERT ON `players`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, EScore, TotalScore)
+  VALUES (NEW.User_ID, NEW.Points, NEW.Points)
+  ON DUPLICATE KEY UPDATE EScore = EScore + VALUES(EScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER upd_players_leaderboard
+  AFTER UPDATE ON `players`
+  FOR EACH ROW
+  INSERT INTO leaderboard (User_ID, EScore, TotalScore)
+  SELECT NEW.User_ID, NEW.Points - OLD.Points, NEW.Points - OLD.Points FROM DUAL WHERE NEW.Points <> OLD.Points
+  ON DUPLICATE KEY UPDATE EScore = EScore + VALUES(EScore),
+                          TotalScore = TotalScore + VALUES(TotalScore);
+
+CREATE TRIGGER del_players_leaderboard
+  AFTER DELETE ON `players`
+  FOR EACH ROW
+  UPDATE leaderboard
+  SET EScore = EScore - OLD.Points,
+      TotalScore = TotalScore - OLD.Points
+  WHERE User_ID = OLD.User_ID;
+
+
 CREATE OR REPLACE VIEW `view_active_classes` AS
 SELECT *
 FROM classes